@@ -82,8 +82,46 @@ class AnalyzerImpl {
       throw new IllegalArgumentException("sourceFile cannot be null");
     }
 
-    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
     ContentCache contentCache = new ContentCache();
+    AnalysisContext context = createContext(sourceFile, contentCache);
+    Source librarySource = new FileBasedSource(contentCache, sourceFile);
+
+    return analyze(context, librarySource, errors);
+  }
+
+  /**
+   * Analyzes the given library using the given context, which might already contain the results of
+   * a previous analysis, and adds the errors in the library and the libraries it references to the
+   * given list.
+   * 
+   * @param context the context in which the library is to be analyzed
+   * @param librarySource the source of the top level library
+   * @param errors the list to add errors to
+   * @return the maximum severity of the errors that were found
+   */
+  public ErrorSeverity analyze(AnalysisContext context, Source librarySource,
+      List<AnalysisError> errors) throws AnalysisException {
+    LibraryElement library = context.computeLibraryElement(librarySource);
+
+    @SuppressWarnings("unused")
+    CompilationUnit unit = context.resolveCompilationUnit(librarySource, library);
+
+    Set<Source> sources = getAllSources(library);
+
+    getAllErrors(context, sources, errors);
+
+    return getMaxErrorSeverity(errors);
+  }
+
+  /**
+   * Create an analysis context in which the given top level library can be analyzed.
+   * 
+   * @param sourceFile the file containing the top level library
+   * @param contentCache the content cache used by the context's source factory
+   * @return the analysis context that was created
+   */
+  public AnalysisContext createContext(File sourceFile, ContentCache contentCache) {
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
     SourceFactory sourceFactory;
 
     if (options.getPackageRootPath() != null) {
@@ -103,17 +141,7 @@ class AnalyzerImpl {
 
     context.setSourceFactory(sourceFactory);
 
-    Source librarySource = new FileBasedSource(contentCache, sourceFile);
-    LibraryElement library = context.computeLibraryElement(librarySource);
-
-    @SuppressWarnings("unused")
-    CompilationUnit unit = context.resolveCompilationUnit(librarySource, library);
-
-    Set<Source> sources = getAllSources(library);
-
-    getAllErrors(context, sources, errors);
-
-    return getMaxErrorSeverity(errors);
+    return context;
   }
 
   /**
@@ -209,6 +237,20 @@ class AnalyzerImpl {
     }
   }
 
+  /**
+   * Return the package root used to resolve 'package:' URIs in the given library, or {@code null}
+   * if there is no package root.
+   * 
+   * @param sourceFile the file containing the top level library
+   * @return the package root used for the library
+   */
+  File getPackageRoot(File sourceFile) {
+    if (options.getPackageRootPath() != null) {
+      return options.getPackageRootPath();
+    }
+    return getPackageDirectoryFor(sourceFile);
+  }
+
   private File getPackageDirectoryFor(File sourceFile) {
     File packagesDir = new File(sourceFile.getParentFile(), "packages");
 
@@ -114,6 +114,22 @@ public class AnalyzerMain {
         if (result != ErrorSeverity.NONE) {
           System.exit(result.ordinal());
         }
+      } else if (options.shouldWatch()) {
+        String sourceFilePath = options.getSourceFile();
+
+        if (sourceFilePath == null) {
+          System.out.println(PROGRAM_NAME + ": no source files were specified.");
+          showUsage(System.out);
+          System.exit(1);
+        }
+
+        File sourceFile = new File(sourceFilePath);
+
+        if (!checkSourceFile(sourceFile)) {
+          System.exit(ErrorSeverity.ERROR.ordinal());
+        }
+
+        new WatchRunner(options).run(sourceFile);
       } else {
         String sourceFilePath = options.getSourceFile();
 
@@ -156,18 +172,7 @@ public class AnalyzerMain {
       AnalysisException {
     File sourceFile = new File(options.getSourceFile());
 
-    if (!sourceFile.exists()) {
-      System.out.println("File not found: " + sourceFile);
-      System.out.println();
-      showUsage(System.out);
-      return ErrorSeverity.ERROR;
-    }
-
-    // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
-    if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
-      System.out.println(sourceFile + " is not a Dart file");
-      System.out.println();
-      showUsage(System.out);
+    if (!checkSourceFile(sourceFile)) {
       return ErrorSeverity.ERROR;
     }
 
@@ -190,6 +195,31 @@ public class AnalyzerMain {
     return status;
   }
 
+  /**
+   * Check that the given file exists and is a Dart file, printing a message if it is not.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return {@code true} if the file can be analyzed
+   */
+  private static boolean checkSourceFile(File sourceFile) {
+    if (!sourceFile.exists()) {
+      System.out.println("File not found: " + sourceFile);
+      System.out.println();
+      showUsage(System.out);
+      return false;
+    }
+
+    // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
+    if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
+      System.out.println(sourceFile + " is not a Dart file");
+      System.out.println();
+      showUsage(System.out);
+      return false;
+    }
+
+    return true;
+  }
+
   /**
    * If the unit tests are on our classpath, run them and exit with an appropriate status code
    * 
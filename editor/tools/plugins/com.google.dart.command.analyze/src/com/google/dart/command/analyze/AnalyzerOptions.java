@@ -150,6 +150,10 @@ public class AnalyzerOptions {
   aliases = {"-batch"})
   private boolean batch = false;
 
+  @Option(name = "--watch", //
+  usage = "Re-analyze whenever a Dart file in the source or package directories changes")
+  private boolean watch = false;
+
   @Option(name = "--show-sdk-warnings")
   private boolean showSdkWarnings = false;
 
@@ -263,6 +267,16 @@ public class AnalyzerOptions {
     return batch;
   }
 
+  /**
+   * Return {@code true} if the analyzer should be run in watch mode, {@code false} otherwise.
+   * <p>
+   * (In watch mode the analyzer keeps running after the initial analysis, and re-analyzes the
+   * library and prints the errors again whenever a Dart file that might affect it changes.)
+   */
+  public boolean shouldWatch() {
+    return watch;
+  }
+
   /**
    * Returns {@code true} to indicate printing the help message.
    */
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.source.ContentCache;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs the analyzer in 'watch' mode. The library is analyzed once, after which the Dart files in
+ * the library's directory and in the package root are polled for changes. Changes are coalesced
+ * until the files have been stable for one polling interval, and are then applied to the same
+ * analysis context, so that only the libraries affected by the changes are analyzed again before
+ * the errors are printed.
+ * <p>
+ * The directories are polled rather than watched using file system notifications because the
+ * analyzer needs to run on Java 6.
+ */
+class WatchRunner {
+
+  /**
+   * The number of milliseconds between successive scans of the watched directories.
+   */
+  private static final long POLL_INTERVAL = 500L;
+
+  private final AnalyzerOptions options;
+
+  private final AnalyzerImpl analyzer;
+
+  private final ContentCache contentCache = new ContentCache();
+
+  /**
+   * The directories being watched.
+   */
+  private final List<File> roots = new ArrayList<File>();
+
+  public WatchRunner(AnalyzerOptions options) {
+    this.options = options;
+    this.analyzer = new AnalyzerImpl(options);
+  }
+
+  /**
+   * Analyze the library, then wait for changes and analyze the library again after each change.
+   * This method only returns if an exception is thrown.
+   * 
+   * @param sourceFile the file containing the top level library
+   */
+  public void run(File sourceFile) throws IOException, InterruptedException {
+    sourceFile = sourceFile.getCanonicalFile();
+    AnalysisContext context = analyzer.createContext(sourceFile, contentCache);
+    Source librarySource = new FileBasedSource(contentCache, sourceFile);
+
+    roots.add(sourceFile.getParentFile());
+    File packageRoot = analyzer.getPackageRoot(sourceFile);
+    if (packageRoot != null && packageRoot.exists()) {
+      roots.add(packageRoot);
+    }
+
+    Map<File, Long> timestamps = scan();
+    analyze(context, librarySource);
+
+    while (true) {
+      Map<File, Long> newTimestamps = waitForChanges(timestamps);
+      context.applyChanges(createChangeSet(timestamps, newTimestamps));
+      timestamps = newTimestamps;
+      analyze(context, librarySource);
+    }
+  }
+
+  /**
+   * Analyze the library and print the errors that were found.
+   * 
+   * @param context the context in which the library is to be analyzed
+   * @param librarySource the source of the top level library
+   */
+  private void analyze(AnalysisContext context, Source librarySource) {
+    // Use a new formatter each time so that line information is not reused for changed files.
+    ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
+        : System.out, options);
+
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+
+    formatter.startAnalysis();
+
+    try {
+      analyzer.analyze(context, librarySource, errors);
+    } catch (AnalysisException exception) {
+      System.err.println("Error: " + exception.getMessage());
+    }
+
+    formatter.formatErrors(errors);
+
+    System.out.flush();
+    System.err.flush();
+  }
+
+  /**
+   * Return a change set describing the differences between the given scans.
+   * 
+   * @param oldTimestamps the modification times found by the earlier scan
+   * @param newTimestamps the modification times found by the later scan
+   * @return a change set describing the differences between the scans
+   */
+  private ChangeSet createChangeSet(Map<File, Long> oldTimestamps, Map<File, Long> newTimestamps) {
+    ChangeSet changeSet = new ChangeSet();
+    for (Map.Entry<File, Long> entry : newTimestamps.entrySet()) {
+      File file = entry.getKey();
+      Long oldTimestamp = oldTimestamps.get(file);
+      if (oldTimestamp == null) {
+        changeSet.added(new FileBasedSource(contentCache, file));
+      } else if (!oldTimestamp.equals(entry.getValue())) {
+        changeSet.changed(new FileBasedSource(contentCache, file));
+      }
+    }
+    for (File file : oldTimestamps.keySet()) {
+      if (!newTimestamps.containsKey(file)) {
+        changeSet.removed(new FileBasedSource(contentCache, file));
+      }
+    }
+    return changeSet;
+  }
+
+  /**
+   * Return the modification times of the Dart files in the watched directories.
+   * 
+   * @return a table mapping the Dart files to their modification times
+   */
+  private Map<File, Long> scan() {
+    Map<File, Long> timestamps = new HashMap<File, Long>();
+    Set<File> visitedDirectories = new HashSet<File>();
+    for (File root : roots) {
+      scan(root, visitedDirectories, timestamps);
+    }
+    return timestamps;
+  }
+
+  /**
+   * Record the modification times of the Dart files in the given directory and its subdirectories.
+   * Directories are canonicalized so that directories that are reachable through more than one
+   * symbolic link, such as the 'packages' directories created by pub, are only scanned once.
+   * 
+   * @param directory the directory to be scanned
+   * @param visitedDirectories the canonical directories that have already been scanned
+   * @param timestamps the table to which the modification times are to be added
+   */
+  private void scan(File directory, Set<File> visitedDirectories, Map<File, Long> timestamps) {
+    File canonicalDirectory;
+    try {
+      canonicalDirectory = directory.getCanonicalFile();
+    } catch (IOException exception) {
+      return;
+    }
+    if (!visitedDirectories.add(canonicalDirectory)) {
+      return;
+    }
+    File[] children = canonicalDirectory.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      String name = child.getName();
+      if (name.startsWith(".")) {
+        continue;
+      }
+      if (child.isDirectory()) {
+        scan(child, visitedDirectories, timestamps);
+      } else if (AnalysisEngine.isDartFileName(name)) {
+        timestamps.put(child, child.lastModified());
+      }
+    }
+  }
+
+  /**
+   * Wait until the watched files differ from the given scan and have then been stable for one
+   * polling interval, and return the modification times found by the last scan.
+   * 
+   * @param timestamps the modification times found by the previous scan
+   * @return the modification times of the files after they have changed
+   */
+  private Map<File, Long> waitForChanges(Map<File, Long> timestamps) throws InterruptedException {
+    Map<File, Long> previous = timestamps;
+    while (true) {
+      Thread.sleep(POLL_INTERVAL);
+      Map<File, Long> current = scan();
+      if (current.equals(previous) && !current.equals(timestamps)) {
+        return current;
+      }
+      previous = current;
+    }
+  }
+}
@@ -32,6 +32,9 @@ import com.google.dart.engine.services.refactoring.SubProgressMonitor;
 import com.google.dart.engine.services.status.RefactoringStatus;
 import com.google.dart.engine.source.Source;
 
+import java.util.List;
+import java.util.Map.Entry;
+
 /**
  * {@link Refactoring} for renaming {@link FieldElement} and {@link MethodElement}.
  */
@@ -95,10 +98,11 @@ public class RenameClassMemberRefactoringImpl extends RenameRefactoringImpl {
         }
       }
       // update references
-      for (SearchMatch reference : validator.renameElementsReferences) {
-        Source refSource = reference.getElement().getSource();
-        SourceChange refChange = changeManager.get(refSource);
-        refChange.addEdit("Update reference", createReferenceRenameEdit(reference));
+      for (Entry<Source, List<SearchMatch>> entry : validator.renameElementsReferences.entrySet()) {
+        SourceChange refChange = changeManager.get(entry.getKey());
+        for (SearchMatch reference : entry.getValue()) {
+          refChange.addEdit("Update reference", createReferenceRenameEdit(reference));
+        }
       }
       // return CompositeChange
       CompositeChange compositeChange = new CompositeChange(getRefactoringName());
@@ -15,7 +15,7 @@
 package com.google.dart.engine.services.internal.refactoring;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
@@ -27,6 +27,7 @@ import com.google.dart.engine.services.refactoring.ProgressMonitor;
 import com.google.dart.engine.services.status.RefactoringStatus;
 import com.google.dart.engine.services.status.RefactoringStatusContext;
 import com.google.dart.engine.services.util.HierarchyUtils;
+import com.google.dart.engine.source.Source;
 
 import static com.google.dart.engine.services.internal.correction.CorrectionUtils.getChildren;
 import static com.google.dart.engine.services.internal.correction.CorrectionUtils.getElementKindName;
@@ -34,6 +35,7 @@ import static com.google.dart.engine.services.internal.correction.CorrectionUtil
 
 import java.text.MessageFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,7 +51,7 @@ class RenameClassMemberValidator {
   private Set<ClassElement> subClasses;
   private Set<ClassElement> hierarchyClasses;
   Set<Element> renameElements = Sets.newHashSet();
-  List<SearchMatch> renameElementsReferences = Lists.newArrayList();
+  Map<Source, List<SearchMatch>> renameElementsReferences = Maps.newHashMap();
 
   public RenameClassMemberValidator(SearchEngine searchEngine, ElementKind elementKind,
       ClassElement elementClass, String oldName, String newName) {
@@ -112,7 +114,13 @@ class RenameClassMemberValidator {
             LocalElement localElement = (LocalElement) nameElement;
             ClassElement enclosingClass = nameElement.getAncestor(ClassElement.class);
             if (Objects.equal(enclosingClass, elementClass) || subClasses.contains(enclosingClass)) {
-              for (SearchMatch reference : renameElementsReferences) {
+              // only references in the same Source can be shadowed by the local
+              Source localSource = localElement.getSource();
+              List<SearchMatch> localReferences = renameElementsReferences.get(localSource);
+              if (localReferences == null) {
+                continue;
+              }
+              for (SearchMatch reference : localReferences) {
                 if (RenameRefactoringImpl.isReferenceInLocalRange(localElement, reference)) {
                   String message = MessageFormat.format(
                       "Usage of renamed {0} will be shadowed by {1} ''{2}''.",
@@ -162,9 +170,6 @@ class RenameClassMemberValidator {
       }
     }
     // prepare references
-    for (Element renameElement : renameElements) {
-      List<SearchMatch> references = searchEngine.searchReferences(renameElement, null, null);
-      renameElementsReferences.addAll(references);
-    }
+    renameElementsReferences = searchEngine.searchReferences(renameElements, null, null);
   }
 }
@@ -16,7 +16,6 @@ package com.google.dart.engine.services.util;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
@@ -99,21 +98,7 @@ public class HierarchyUtils {
    * @return the {@link Set} with all direct and indirect sub {@link ClassElement}s of the given.
    */
   public static Set<ClassElement> getSubClasses(SearchEngine searchEngine, ClassElement seed) {
-    Set<ClassElement> subClasses = Sets.newHashSet();
-    // prepare queue
-    LinkedList<ClassElement> subClassQueue = Lists.newLinkedList();
-    subClassQueue.add(seed);
-    // process queue
-    while (!subClassQueue.isEmpty()) {
-      ClassElement subClass = subClassQueue.removeFirst();
-      if (subClasses.add(subClass)) {
-        List<ClassElement> directSubClasses = getDirectSubClasses(searchEngine, subClass);
-        subClassQueue.addAll(directSubClasses);
-      }
-    }
-    // we don't need "seed" itself
-    subClasses.remove(seed);
-    return subClasses;
+    return searchEngine.searchAllSubtypes(seed);
   }
 
   /**
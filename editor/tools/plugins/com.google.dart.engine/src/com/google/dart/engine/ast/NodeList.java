@@ -66,8 +66,10 @@ public class NodeList<E extends ASTNode> extends AbstractList<E> {
     if (elements == null) {
       return;
     }
-    for (E element : elements) {
-      element.accept(visitor);
+    // Use an index rather than an iterator so that visiting a list does not allocate.
+    int size = elements.size();
+    for (int i = 0; i < size; i++) {
+      elements.get(i).accept(visitor);
     }
   }
 
@@ -0,0 +1,766 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.*;
+
+/**
+ * Instances of the class {@code DelegatingASTVisitor} implement an AST visitor that will
+ * recursively visit all of the nodes in an AST structure and, before visiting the children of each
+ * node, ask the node to accept each of a list of delegate visitors. This allows several independent
+ * analyses to share a single traversal of the structure.
+ * <p>
+ * The delegates are expected to examine only the node passed to them; they must not visit the
+ * children of the node themselves, which would cause those children to be visited more than once.
+ * <p>
+ * Subclasses that override a visit method must either invoke the overridden visit method or must
+ * explicitly invoke {@link #visitDelegates(ASTNode)} and ask the visited node to visit its
+ * children. Failure to do so will cause the delegates to not see the node or the children of the
+ * visited node to not be visited.
+ * 
+ * @coverage dart.engine.ast
+ */
+public class DelegatingASTVisitor<R> implements ASTVisitor<R> {
+  /**
+   * The visitors to which each visited node is passed.
+   */
+  private final ASTVisitor<?>[] delegates;
+
+  /**
+   * Initialize a newly created visitor to pass each visited node to the given delegates.
+   * 
+   * @param delegates the visitors to which each visited node is to be passed
+   */
+  public DelegatingASTVisitor(ASTVisitor<?>... delegates) {
+    this.delegates = delegates;
+  }
+
+  @Override
+  public R visitAdjacentStrings(AdjacentStrings node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitAnnotation(Annotation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitArgumentDefinitionTest(ArgumentDefinitionTest node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitArgumentList(ArgumentList node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitAsExpression(AsExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitAssertStatement(AssertStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitAssignmentExpression(AssignmentExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitBinaryExpression(BinaryExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitBlock(Block node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitBlockFunctionBody(BlockFunctionBody node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitBooleanLiteral(BooleanLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitBreakStatement(BreakStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitCascadeExpression(CascadeExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitCatchClause(CatchClause node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitClassDeclaration(ClassDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitClassTypeAlias(ClassTypeAlias node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitComment(Comment node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitCommentReference(CommentReference node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitCompilationUnit(CompilationUnit node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitConditionalExpression(ConditionalExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitConstructorDeclaration(ConstructorDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitConstructorFieldInitializer(ConstructorFieldInitializer node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitConstructorName(ConstructorName node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitContinueStatement(ContinueStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitDeclaredIdentifier(DeclaredIdentifier node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitDefaultFormalParameter(DefaultFormalParameter node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitDoStatement(DoStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitDoubleLiteral(DoubleLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitEmptyFunctionBody(EmptyFunctionBody node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitEmptyStatement(EmptyStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitExportDirective(ExportDirective node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitExpressionFunctionBody(ExpressionFunctionBody node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitExpressionStatement(ExpressionStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitExtendsClause(ExtendsClause node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFieldDeclaration(FieldDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFieldFormalParameter(FieldFormalParameter node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitForEachStatement(ForEachStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFormalParameterList(FormalParameterList node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitForStatement(ForStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionDeclaration(FunctionDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionDeclarationStatement(FunctionDeclarationStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionExpression(FunctionExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionExpressionInvocation(FunctionExpressionInvocation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionTypeAlias(FunctionTypeAlias node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitFunctionTypedFormalParameter(FunctionTypedFormalParameter node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitHideCombinator(HideCombinator node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitIfStatement(IfStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitImplementsClause(ImplementsClause node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitImportDirective(ImportDirective node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitIndexExpression(IndexExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitInstanceCreationExpression(InstanceCreationExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitIntegerLiteral(IntegerLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitInterpolationExpression(InterpolationExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitInterpolationString(InterpolationString node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitIsExpression(IsExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitLabel(Label node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitLabeledStatement(LabeledStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitLibraryDirective(LibraryDirective node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitLibraryIdentifier(LibraryIdentifier node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitListLiteral(ListLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitMapLiteral(MapLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitMapLiteralEntry(MapLiteralEntry node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitMethodDeclaration(MethodDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitMethodInvocation(MethodInvocation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitNamedExpression(NamedExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitNativeFunctionBody(NativeFunctionBody node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitNullLiteral(NullLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitParenthesizedExpression(ParenthesizedExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPartDirective(PartDirective node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPartOfDirective(PartOfDirective node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPostfixExpression(PostfixExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPrefixedIdentifier(PrefixedIdentifier node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPrefixExpression(PrefixExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitPropertyAccess(PropertyAccess node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitRedirectingConstructorInvocation(RedirectingConstructorInvocation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitRethrowExpression(RethrowExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitReturnStatement(ReturnStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitScriptTag(ScriptTag node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitShowCombinator(ShowCombinator node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSimpleFormalParameter(SimpleFormalParameter node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSimpleIdentifier(SimpleIdentifier node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSimpleStringLiteral(SimpleStringLiteral node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitStringInterpolation(StringInterpolation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSuperConstructorInvocation(SuperConstructorInvocation node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSuperExpression(SuperExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSwitchCase(SwitchCase node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSwitchDefault(SwitchDefault node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitSwitchStatement(SwitchStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitThisExpression(ThisExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitThrowExpression(ThrowExpression node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTopLevelVariableDeclaration(TopLevelVariableDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTryStatement(TryStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTypeArgumentList(TypeArgumentList node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTypeName(TypeName node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTypeParameter(TypeParameter node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitTypeParameterList(TypeParameterList node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitVariableDeclaration(VariableDeclaration node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitVariableDeclarationList(VariableDeclarationList node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitVariableDeclarationStatement(VariableDeclarationStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitWhileStatement(WhileStatement node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  @Override
+  public R visitWithClause(WithClause node) {
+    visitDelegates(node);
+    node.visitChildren(this);
+    return null;
+  }
+
+  /**
+   * Ask the given node to accept each of the delegates of this visitor.
+   * 
+   * @param node the node to be passed to the delegates
+   */
+  protected void visitDelegates(ASTNode node) {
+    for (int i = 0; i < delegates.length; i++) {
+      node.accept(delegates[i]);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.element.Element;
+
+/**
+ * The interface <code>HierarchyCallback</code> defines the behavior of objects that are invoked
+ * with the results of a query about the subtypes or supertypes of a given type.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface HierarchyCallback {
+  /**
+   * This method is invoked when the direct and indirect subtypes or supertypes of a specified type
+   * are available.
+   * 
+   * @param type the type whose subtypes or supertypes were requested
+   * @param types the subtypes or supertypes that were found
+   */
+  public void hasTypes(Element type, Element[] types);
+}
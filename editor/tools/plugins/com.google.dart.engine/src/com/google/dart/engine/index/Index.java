@@ -51,6 +51,25 @@ public interface Index {
    */
   void getRelationships(Element element, Relationship relationship, RelationshipCallback callback);
 
+  /**
+   * Asynchronously invoke the given callback with an array containing all of the direct and
+   * indirect subtypes of the given type. The whole hierarchy below the type is computed by a single
+   * operation, so there is no need to ask for the subtypes of each subtype separately.
+   * 
+   * @param type the type whose subtypes are to be returned
+   * @param callback the callback that will be invoked when the subtypes are found
+   */
+  void getSubtypes(Element type, HierarchyCallback callback);
+
+  /**
+   * Asynchronously invoke the given callback with an array containing all of the direct and
+   * indirect supertypes of the given type that are recorded in the index.
+   * 
+   * @param type the type whose supertypes are to be returned
+   * @param callback the callback that will be invoked when the supertypes are found
+   */
+  void getSupertypes(Element type, HierarchyCallback callback);
+
   /**
    * Asynchronously process the given {@link CompilationUnit} in order to record the relationships.
    * 
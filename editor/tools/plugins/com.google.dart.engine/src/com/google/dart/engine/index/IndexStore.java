@@ -27,6 +27,41 @@ import java.util.List;
  * @coverage dart.engine.index
  */
 public interface IndexStore {
+  /**
+   * Notifies the index store that the given {@link Source} is about to be indexed. Until
+   * {@link #doneIndex()} is invoked, the relationships recorded with locations in the given source
+   * replace the relationships that were recorded for the source when it was indexed before. The
+   * replacement is done separately for each declaration, see {@link #beginDeclaration}.
+   * 
+   * @param context the {@link AnalysisContext} in which {@link Source} is being indexed
+   * @param source the source being indexed
+   */
+  void aboutToIndex(AnalysisContext context, Source source);
+
+  /**
+   * Notifies the index store that the relationships recorded until the next declaration is begun
+   * have their locations in the declaration with the given key. If the {@link Source} was indexed
+   * before and the declaration with the same key had the same content hash, then the relationships
+   * that are recorded again are kept, and only the relationships that are different are replaced.
+   * Otherwise all of the relationships previously recorded for the declaration are replaced.
+   * <p>
+   * This method has no effect unless invoked between {@link #aboutToIndex} and
+   * {@link #doneIndex()}.
+   * 
+   * @param key the key identifying the declaration within its {@link Source}
+   * @param hash the hash of the content of the declaration
+   * @param offset the offset of the declaration, relative to which the locations in the declaration
+   *          are compared
+   */
+  void beginDeclaration(String key, int hash, int offset);
+
+  /**
+   * Notifies the index store that the {@link Source} passed to {@link #aboutToIndex} has been
+   * indexed. The relationships recorded for the declarations of the source that were not begun
+   * again are removed.
+   */
+  void doneIndex();
+
   /**
    * Return the locations of the elements that have the given relationship with the given element.
    * For example, if the element represents a method and the relationship is the is-referenced-by
@@ -45,6 +80,26 @@ public interface IndexStore {
    */
   String getStatistics();
 
+  /**
+   * Return the direct and indirect subtypes of the given type, that is the elements related to the
+   * given type, either directly or through other subtypes, by the is-extended-by, is-mixed-in-by or
+   * is-implemented-by relationships.
+   * 
+   * @param type the type whose subtypes are to be returned
+   * @return the direct and indirect subtypes of the given type
+   */
+  Element[] getSubtypes(Element type);
+
+  /**
+   * Return the direct and indirect supertypes of the given type, that is the elements that have the
+   * is-extended-by, is-mixed-in-by or is-implemented-by relationship with the given type or with
+   * one of its supertypes. Only the supertypes recorded in the index are returned.
+   * 
+   * @param type the type whose supertypes are to be returned
+   * @return the direct and indirect supertypes of the given type
+   */
+  Element[] getSupertypes(Element type);
+
   /**
    * Record that the given element and location have the given relationship. For example, if the
    * relationship is the is-referenced-by relationship, then the element would be the element being
@@ -72,7 +127,8 @@ public interface IndexStore {
   void recordRelationship(Element element, Relationship relationship, Location location);
 
   /**
-   * Remembers {@link Element}s declared in the given {@link Source}.
+   * Remembers {@link Element}s declared in the given {@link Source}. If the source is being indexed,
+   * then the given elements replace the elements remembered when the source was indexed before.
    */
   void recordSourceElements(AnalysisContext context, Source source, List<Element> elements);
 
@@ -18,6 +18,7 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.internal.context.CacheState;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceKind;
 
@@ -75,6 +76,14 @@ public interface DartEntry extends SourceEntry {
   public static final DataDescriptor<Namespace> PUBLIC_NAMESPACE = new DataDescriptor<Namespace>(
       "DartEntry.PUBLIC_NAMESPACE");
 
+  /**
+   * The data descriptor representing a summary of the public namespace of the library, including
+   * the signature of the library's API. This data is only available for Dart files that are the
+   * defining compilation unit of a library.
+   */
+  public static final DataDescriptor<NamespaceSummary> PUBLIC_NAMESPACE_SUMMARY = new DataDescriptor<NamespaceSummary>(
+      "DartEntry.PUBLIC_NAMESPACE_SUMMARY");
+
   /**
    * The data descriptor representing the errors resulting from resolving the source.
    */
@@ -141,4 +150,13 @@ public interface DartEntry extends SourceEntry {
 
   @Override
   public DartEntryImpl getWritableCopy();
+
+  /**
+   * Return {@code true} if the cached parsed compilation unit might have been returned to a client
+   * of the analysis context. Such a unit must not be modified, so it must be copied before it can
+   * be resolved.
+   * 
+   * @return {@code true} if the parsed compilation unit might have been returned to a client
+   */
+  public boolean hasParsedUnitBeenAccessed();
 }
@@ -18,6 +18,7 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.internal.context.CacheState;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.utilities.source.LineInfo;
@@ -128,6 +129,12 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
    */
   private CompilationUnit parsedUnit;
 
+  /**
+   * A flag indicating whether the parsed compilation unit might have been returned to a client of
+   * the analysis context, in which case it cannot be given to the resolver without being copied.
+   */
+  private boolean parsedUnitAccessed = false;
+
   /**
    * The state of the cached parse errors.
    */
@@ -176,6 +183,17 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
    */
   private Namespace publicNamespace;
 
+  /**
+   * The state of the cached summary of the public namespace.
+   */
+  private CacheState publicNamespaceSummaryState = CacheState.INVALID;
+
+  /**
+   * The summary of the public namespace of the library, or {@code null} if the summary is not
+   * currently cached.
+   */
+  private NamespaceSummary publicNamespaceSummary;
+
   /**
    * The state of the cached client/ server flag.
    */
@@ -279,6 +297,8 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
       return parsedUnitState;
     } else if (descriptor == PUBLIC_NAMESPACE) {
       return publicNamespaceState;
+    } else if (descriptor == PUBLIC_NAMESPACE_SUMMARY) {
+      return publicNamespaceSummaryState;
     } else if (descriptor == SOURCE_KIND) {
       return sourceKindState;
     } else {
@@ -321,6 +341,8 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
       return (E) parsedUnit;
     } else if (descriptor == PUBLIC_NAMESPACE) {
       return (E) publicNamespace;
+    } else if (descriptor == PUBLIC_NAMESPACE_SUMMARY) {
+      return (E) publicNamespaceSummary;
     } else if (descriptor == SOURCE_KIND) {
       return (E) sourceKind;
     }
@@ -359,6 +381,11 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     return copy;
   }
 
+  @Override
+  public boolean hasParsedUnitBeenAccessed() {
+    return parsedUnitAccessed;
+  }
+
   /**
    * Invalidate all of the resolution information associated with the compilation unit.
    */
@@ -369,11 +396,21 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     element = null;
     publicNamespaceState = CacheState.INVALID;
     publicNamespace = null;
+    publicNamespaceSummaryState = CacheState.INVALID;
+    publicNamespaceSummary = null;
     launchableState = CacheState.INVALID;
     clientServerState = CacheState.INVALID;
     bitmask = 0;
   }
 
+  /**
+   * Record the fact that the parsed compilation unit has been, or is about to be, returned to a
+   * client of the analysis context, so that the resolver will not modify it.
+   */
+  public void recordParsedUnitAccessed() {
+    parsedUnitAccessed = true;
+  }
+
   /**
    * Remove any resolution information associated with this compilation unit being part of the given
    * library, presumably because it is no longer part of the library.
@@ -420,6 +457,7 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     }
     if (parsedUnitState != CacheState.VALID) {
       parsedUnit = unit;
+      parsedUnitAccessed = false;
     }
     if (parseErrorsState != CacheState.VALID) {
       parseErrors = errors == null ? AnalysisError.NO_ERRORS : errors;
@@ -446,9 +484,15 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     } else if (descriptor == PARSED_UNIT) {
       parsedUnit = updatedValue(state, parsedUnit, null);
       parsedUnitState = state;
+      if (state != CacheState.IN_PROCESS) {
+        parsedUnitAccessed = false;
+      }
     } else if (descriptor == PUBLIC_NAMESPACE) {
       publicNamespace = updatedValue(state, publicNamespace, null);
       publicNamespaceState = state;
+    } else if (descriptor == PUBLIC_NAMESPACE_SUMMARY) {
+      publicNamespaceSummary = updatedValue(state, publicNamespaceSummary, null);
+      publicNamespaceSummaryState = state;
     } else if (descriptor == SOURCE_KIND) {
       sourceKind = updatedValue(state, sourceKind, SourceKind.UNKNOWN);
       sourceKindState = state;
@@ -510,9 +554,13 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     } else if (descriptor == PARSED_UNIT) {
       parsedUnit = (CompilationUnit) value;
       parsedUnitState = CacheState.VALID;
+      parsedUnitAccessed = false;
     } else if (descriptor == PUBLIC_NAMESPACE) {
       publicNamespace = (Namespace) value;
       publicNamespaceState = CacheState.VALID;
+    } else if (descriptor == PUBLIC_NAMESPACE_SUMMARY) {
+      publicNamespaceSummary = (NamespaceSummary) value;
+      publicNamespaceSummaryState = CacheState.VALID;
     } else if (descriptor == SOURCE_KIND) {
       sourceKind = (SourceKind) value;
       sourceKindState = CacheState.VALID;
@@ -549,6 +597,7 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     sourceKind = other.sourceKind;
     parsedUnitState = other.parsedUnitState;
     parsedUnit = other.parsedUnit;
+    parsedUnitAccessed = other.parsedUnitAccessed;
     parseErrorsState = other.parseErrorsState;
     parseErrors = other.parseErrors;
     includedPartsState = other.includedPartsState;
@@ -558,6 +607,8 @@ public class DartEntryImpl extends SourceEntryImpl implements DartEntry {
     element = other.element;
     publicNamespaceState = other.publicNamespaceState;
     publicNamespace = other.publicNamespace;
+    publicNamespaceSummaryState = other.publicNamespaceSummaryState;
+    publicNamespaceSummary = other.publicNamespaceSummary;
     clientServerState = other.clientServerState;
     launchableState = other.launchableState;
     bitmask = other.bitmask;
@@ -13,10 +13,12 @@
  */
 package com.google.dart.engine.internal.constant;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -35,6 +37,20 @@ public class DirectedGraph<N> {
    */
   private HashMap<N, HashSet<N>> edges = new HashMap<N, HashSet<N>>();
 
+  /**
+   * The table encoding the edges in the graph in the reverse direction. An edge is represented by
+   * an entry mapping the tail to a set of heads. Nodes that are not the tail of any edge might not
+   * have an entry in this table.
+   */
+  private HashMap<N, HashSet<N>> reverseEdges = new HashMap<N, HashSet<N>>();
+
+  /**
+   * The nodes in the graph that are not the head of any edge, in the order in which they became
+   * sinks. These are maintained incrementally so that sinks can be found and removed without
+   * scanning the whole graph.
+   */
+  private LinkedHashSet<N> sinks = new LinkedHashSet<N>();
+
   /**
    * Initialize a newly create directed graph to be empty.
    */
@@ -53,19 +69,23 @@ public class DirectedGraph<N> {
     //
     // First, ensure that the tail is a node known to the graph.
     //
-    HashSet<N> tails = edges.get(tail);
-    if (tails == null) {
-      edges.put(tail, new HashSet<N>());
-    }
+    addNode(tail);
     //
     // Then create the edge.
     //
-    tails = edges.get(head);
+    HashSet<N> tails = edges.get(head);
     if (tails == null) {
       tails = new HashSet<N>();
       edges.put(head, tails);
     }
     tails.add(tail);
+    sinks.remove(head);
+    HashSet<N> heads = reverseEdges.get(tail);
+    if (heads == null) {
+      heads = new HashSet<N>();
+      reverseEdges.put(tail, heads);
+    }
+    heads.add(head);
   }
 
   /**
@@ -77,16 +97,53 @@ public class DirectedGraph<N> {
     HashSet<N> tails = edges.get(node);
     if (tails == null) {
       edges.put(node, new HashSet<N>());
+      sinks.add(node);
     }
   }
 
   /**
    * Return a list of nodes that form a cycle, or {@code null} if there are no cycles in this graph.
+   * Each node in the returned list has an edge to the node that follows it, and the last node has
+   * an edge to the first node.
    * 
    * @return a list of nodes that form a cycle
    */
   public List<N> findCycle() {
-    // TODO(brianwilkerson) Implement this.
+    HashSet<N> finished = new HashSet<N>();
+    for (N root : edges.keySet()) {
+      if (finished.contains(root)) {
+        continue;
+      }
+      //
+      // Perform a depth-first search from the root. The path holds the nodes currently being
+      // visited, and for each of them the iterator over the tails that have not yet been visited.
+      //
+      ArrayList<N> path = new ArrayList<N>();
+      ArrayList<Iterator<N>> iterators = new ArrayList<Iterator<N>>();
+      HashSet<N> onPath = new HashSet<N>();
+      path.add(root);
+      iterators.add(edges.get(root).iterator());
+      onPath.add(root);
+      while (!path.isEmpty()) {
+        int last = path.size() - 1;
+        Iterator<N> iterator = iterators.get(last);
+        if (iterator.hasNext()) {
+          N tail = iterator.next();
+          if (onPath.contains(tail)) {
+            return new ArrayList<N>(path.subList(path.indexOf(tail), path.size()));
+          } else if (!finished.contains(tail)) {
+            path.add(tail);
+            iterators.add(edges.get(tail).iterator());
+            onPath.add(tail);
+          }
+        } else {
+          N node = path.remove(last);
+          iterators.remove(last);
+          onPath.remove(node);
+          finished.add(node);
+        }
+      }
+    }
     return null;
   }
 
@@ -147,8 +204,14 @@ public class DirectedGraph<N> {
    */
   public void removeEdge(N head, N tail) {
     HashSet<N> tails = edges.get(head);
-    if (tails != null) {
-      tails.remove(tail);
+    if (tails != null && tails.remove(tail)) {
+      if (tails.isEmpty()) {
+        sinks.add(head);
+      }
+      HashSet<N> heads = reverseEdges.get(tail);
+      if (heads != null) {
+        heads.remove(head);
+      }
     }
   }
 
@@ -159,9 +222,28 @@ public class DirectedGraph<N> {
    * @param node the node to be removed
    */
   public void removeNode(N node) {
-    edges.remove(node);
-    for (HashSet<N> tails : edges.values()) {
-      tails.remove(node);
+    HashSet<N> tails = edges.remove(node);
+    if (tails == null) {
+      return;
+    }
+    sinks.remove(node);
+    for (N tail : tails) {
+      HashSet<N> heads = reverseEdges.get(tail);
+      if (heads != null) {
+        heads.remove(node);
+      }
+    }
+    HashSet<N> heads = reverseEdges.remove(node);
+    if (heads != null) {
+      for (N head : heads) {
+        HashSet<N> headTails = edges.get(head);
+        if (headTails != null) {
+          headTails.remove(node);
+          if (headTails.isEmpty()) {
+            sinks.add(head);
+          }
+        }
+      }
     }
   }
 
@@ -171,30 +253,19 @@ public class DirectedGraph<N> {
    * the node that was removed, or {@code null} if there are no such nodes either because the graph
    * is empty or because every node in the graph has at least one outgoing edge. As a consequence of
    * removing the node from the graph any edges for which that node was a tail will also be removed.
+   * <p>
+   * Because sinks are tracked as edges are added and removed, and edges are indexed in both
+   * directions, this takes time proportional to the number of edges ending at the sink rather than
+   * to the size of the graph.
    * 
    * @return the sink node that was removed
    */
   public N removeSink() {
-    N sink = findSink();
-    if (sink == null) {
+    if (sinks.isEmpty()) {
       return null;
     }
+    N sink = sinks.iterator().next();
     removeNode(sink);
     return sink;
   }
-
-  /**
-   * Return one node that has no outgoing edges (that is, for which there are no edges that have
-   * that node as the head of the edge), or {@code null} if there are no such nodes.
-   * 
-   * @return a sink node
-   */
-  private N findSink() {
-    for (Map.Entry<N, HashSet<N>> entry : edges.entrySet()) {
-      if (entry.getValue().isEmpty()) {
-        return entry.getKey();
-      }
-    }
-    return null;
-  }
 }
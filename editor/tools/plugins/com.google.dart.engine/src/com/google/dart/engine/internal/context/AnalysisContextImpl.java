@@ -19,8 +19,12 @@ import com.google.dart.engine.ast.AnnotatedNode;
 import com.google.dart.engine.ast.Comment;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.ast.Directive;
+import com.google.dart.engine.ast.ExportDirective;
 import com.google.dart.engine.ast.LibraryDirective;
+import com.google.dart.engine.ast.PartDirective;
 import com.google.dart.engine.ast.PartOfDirective;
+import com.google.dart.engine.ast.SimpleStringLiteral;
+import com.google.dart.engine.ast.StringLiteral;
 import com.google.dart.engine.ast.visitor.NodeLocator;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisErrorInfo;
@@ -60,13 +64,15 @@ import com.google.dart.engine.internal.resolver.TypeProviderImpl;
 import com.google.dart.engine.internal.resolver.TypeResolverVisitor;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
-import com.google.dart.engine.internal.verifier.ConstantVerifier;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
+import com.google.dart.engine.internal.scope.NamespaceSummaryBuilder;
 import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.parser.Parser;
 import com.google.dart.engine.scanner.CharBufferScanner;
 import com.google.dart.engine.scanner.StringScanner;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
@@ -77,10 +83,17 @@ import com.google.dart.engine.utilities.source.LineInfo;
 import java.net.URI;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -123,8 +136,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   /**
    * A table mapping the sources known to the context to the information known about the source.
+   * <p>
+   * By convention, the entries in this table are never modified once they have been added to it.
+   * Instead, a writable copy of an entry is modified and then replaces the original entry. The
+   * entries are not immutable objects, so any code that modifies an entry in place breaks the
+   * readers that do not hold the lock. Modifications to the table are made while holding the
+   * {@link #cacheLock}, but because the table is concurrent, an entry can be read without holding
+   * the lock. A concurrent table does not allow {@code null} keys.
    */
-  private final HashMap<Source, SourceEntry> sourceMap = new HashMap<Source, SourceEntry>();
+  private final Map<Source, SourceEntry> sourceMap = new ConcurrentHashMap<Source, SourceEntry>();
 
   /**
    * A table mapping sources to the change notices that are waiting to be returned related to that
@@ -186,10 +206,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       //
       // First, compute the list of sources that have been removed.
       //
-      ArrayList<Source> removedSources = new ArrayList<Source>(changeSet.getRemoved());
-      for (SourceContainer container : changeSet.getRemovedContainers()) {
-        addSourcesInContainer(removedSources, container);
-      }
+      LinkedHashSet<Source> removedSources = new LinkedHashSet<Source>(changeSet.getRemoved());
+      addSourcesInContainers(removedSources, changeSet.getRemovedContainers());
       //
       // Then determine which cached results are no longer valid.
       //
@@ -199,12 +217,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           addedDartSource = true;
         }
       }
-      for (Source source : changeSet.getChanged()) {
-        sourceChanged(source);
-      }
-      for (Source source : removedSources) {
-        sourceRemoved(source);
-      }
+      invalidateSources(changeSet.getChanged(), removedSources);
       if (addedDartSource) {
         // TODO(brianwilkerson) This is hugely inefficient, but we need to re-analyze any libraries
         // that might have been referencing the not-yet-existing source that was just added. Longer
@@ -277,7 +290,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         DartEntry dartEntry = (DartEntry) sourceEntry;
         CacheState parseErrorsState = dartEntry.getState(DartEntry.PARSE_ERRORS);
         if (parseErrorsState != CacheState.VALID && parseErrorsState != CacheState.ERROR) {
-          parseCompilationUnit(source);
+          internalParseCompilationUnit(source);
           dartEntry = (DartEntry) getSourceEntry(source);
         }
         Source[] libraries = getLibrariesContaining(source);
@@ -405,7 +418,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           parseHtmlUnit(source);
           lineInfo = getSourceEntry(source).getValue(SourceEntry.LINE_INFO);
         } else if (sourceEntry instanceof DartEntry) {
-          parseCompilationUnit(source);
+          internalParseCompilationUnit(source);
           lineInfo = getSourceEntry(source).getValue(SourceEntry.LINE_INFO);
         }
       }
@@ -420,6 +433,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (dartEntry == null) {
         return null;
       }
+      if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.VALID
+          && !dartEntry.hasParsedUnitBeenAccessed()) {
+        //
+        // No client can be holding the parsed unit, so rather than copying it we remove it from the
+        // cache and give it to the resolver.
+        //
+        CompilationUnit unit = dartEntry.getValue(DartEntry.PARSED_UNIT);
+        DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+        dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+        sourceMap.put(source, dartCopy);
+        return unit;
+      }
       CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
       if (unit != null) {
         return (CompilationUnit) unit.accept(new ASTCloner());
@@ -691,6 +716,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  @Override
+  public NamespaceSummary getPublicNamespaceSummary(Source source) throws AnalysisException {
+    synchronized (cacheLock) {
+      return computePublicNamespaceSummary(source, new HashSet<Source>());
+    }
+  }
+
   @Override
   public CompilationUnit getResolvedCompilationUnit(Source unitSource, LibraryElement library) {
     if (library == null) {
@@ -753,16 +785,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @Override
   public CompilationUnit parseCompilationUnit(Source source) throws AnalysisException {
     synchronized (cacheLock) {
-      accessed(source);
-      DartEntry dartEntry = getDartEntry(source);
-      if (dartEntry == null) {
-        return null;
-      }
-      CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
-      if (unit == null) {
-        DartEntryImpl dartCopy = dartEntry.getWritableCopy();
-        unit = internalParseCompilationUnit(dartCopy, source);
-        sourceMap.put(source, dartCopy);
+      CompilationUnit unit = internalParseCompilationUnit(source);
+      if (unit != null) {
+        DartEntry dartEntry = getDartEntry(source);
+        if (unit == dartEntry.getValue(DartEntry.PARSED_UNIT)
+            && !dartEntry.hasParsedUnitBeenAccessed()) {
+          DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+          dartCopy.recordParsedUnitAccessed();
+          sourceMap.put(source, dartCopy);
+        }
       }
       return unit;
     }
@@ -810,7 +841,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   @Override
-  public void recordLibraryElements(Map<Source, LibraryElement> elementMap) {
+  public void recordLibraryElements(Map<Source, LibraryElement> elementMap,
+      Map<Source, NamespaceSummary> summaryMap) {
     Source htmlSource = sourceFactory.forUri("dart:html"); // was DartSdk.DART_HTML
     synchronized (cacheLock) {
       for (Map.Entry<Source, LibraryElement> entry : elementMap.entrySet()) {
@@ -836,6 +868,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           dartCopy.setValue(
               DartEntry.INCLUDED_PARTS,
               unitSources.toArray(new Source[unitSources.size()]));
+          //
+          // Remember the API of the library that was resolved so that it can be compared against the
+          // API of the library after it has been edited.
+          //
+          NamespaceSummary summary = summaryMap.get(librarySource);
+          if (summary != null) {
+            dartCopy.setValue(DartEntry.PUBLIC_NAMESPACE_SUMMARY, summary);
+          }
           sourceMap.put(librarySource, dartCopy);
         }
       }
@@ -903,7 +943,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         disableCacheRemoval();
         try {
           LibraryElement libraryElement = computeLibraryElement(librarySource);
-          unit = dartEntry.getValue(DartEntry.RESOLVED_UNIT, librarySource);
+          // resolving the library replaced the entry with one containing the resolved unit
+          unit = getDartEntry(unitSource).getValue(DartEntry.RESOLVED_UNIT, librarySource);
           if (unit == null && libraryElement != null) {
             Source coreLibrarySource = libraryElement.getContext().getSourceFactory().forUri(
                 DartSdk.DART_CORE);
@@ -943,9 +984,6 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
                 typeProvider,
                 new InheritanceManager(libraryElement));
             unitAST.accept(errorVerifier);
-
-            ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter);
-            unitAST.accept(constantVerifier);
             //
             // Capture the results.
             //
@@ -994,7 +1032,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   public void setContents(Source source, String contents) {
     synchronized (cacheLock) {
       sourceFactory.setContents(source, contents);
-      sourceChanged(source);
+      invalidateSources(Collections.singletonList(source), Collections.<Source> emptyList());
     }
   }
 
@@ -1071,21 +1109,151 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * Add all of the sources contained in the given source container to the given list of sources.
+   * Record the fact that the library with the given source depends on each of the given libraries.
+   * 
+   * @param dependents the table mapping libraries to the libraries that depend on them
+   * @param libraries the libraries on which the library depends
+   * @param dependentSource the source of the library that depends on the libraries
+   */
+  private void addDependent(HashMap<Source, ArrayList<Source>> dependents,
+      LibraryElement[] libraries, Source dependentSource) {
+    for (LibraryElement library : libraries) {
+      Source librarySource = library.getSource();
+      ArrayList<Source> librarySources = dependents.get(librarySource);
+      if (librarySources == null) {
+        librarySources = new ArrayList<Source>();
+        dependents.put(librarySource, librarySources);
+      }
+      if (!librarySources.contains(dependentSource)) {
+        librarySources.add(dependentSource);
+      }
+    }
+  }
+
+  /**
+   * Add all of the sources contained in any of the given source containers to the given collection
+   * of sources. When sources are being removed from several directories, such as when a branch is
+   * switched or packages are updated, the sources are sorted by name once and the sources in each
+   * directory are found by looking up the directory's path as a prefix, rather than by examining
+   * every source for every container.
    * <p>
    * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
    * 
-   * @param sources the list to which sources are to be added
-   * @param container the source container containing the sources to be added to the list
+   * @param sources the collection to which sources are to be added
+   * @param containers the source containers containing the sources to be added
    */
-  private void addSourcesInContainer(ArrayList<Source> sources, SourceContainer container) {
-    for (Source source : sourceMap.keySet()) {
-      if (container.contains(source)) {
-        sources.add(source);
+  private void addSourcesInContainers(Collection<Source> sources,
+      Collection<SourceContainer> containers) {
+    if (containers.isEmpty()) {
+      return;
+    }
+    int directoryCount = 0;
+    for (SourceContainer container : containers) {
+      if (container instanceof DirectoryBasedSourceContainer) {
+        directoryCount++;
+      }
+    }
+    ArrayList<SourceContainer> otherContainers = new ArrayList<SourceContainer>();
+    if (directoryCount > 1) {
+      TreeMap<String, ArrayList<Source>> sourcesByName = new TreeMap<String, ArrayList<Source>>();
+      for (Source source : sourceMap.keySet()) {
+        String name = source.getFullName();
+        ArrayList<Source> namedSources = sourcesByName.get(name);
+        if (namedSources == null) {
+          namedSources = new ArrayList<Source>(1);
+          sourcesByName.put(name, namedSources);
+        }
+        namedSources.add(source);
+      }
+      for (SourceContainer container : containers) {
+        if (container instanceof DirectoryBasedSourceContainer) {
+          String path = ((DirectoryBasedSourceContainer) container).getPath();
+          for (ArrayList<Source> namedSources : sourcesByName.subMap(
+              path,
+              path + Character.MAX_VALUE).values()) {
+            sources.addAll(namedSources);
+          }
+        } else {
+          otherContainers.add(container);
+        }
+      }
+    } else {
+      otherContainers.addAll(containers);
+    }
+    if (!otherContainers.isEmpty()) {
+      for (Source source : sourceMap.keySet()) {
+        for (SourceContainer container : otherContainers) {
+          if (container.contains(source)) {
+            sources.add(source);
+            break;
+          }
+        }
       }
     }
   }
 
+  /**
+   * Return a summary of the names that the library defined by the given source makes available to
+   * its importers, computing it if it is not cached. The summaries of the libraries that it exports
+   * are computed first. As in the {@link NamespaceBuilder}, a library whose summary is being
+   * computed is not visited again when it is exported through a cycle of exports.
+   * <p>
+   * The summary of a library that exports other libraries is only cached when it is recorded by
+   * the resolver, because the changes to the exported libraries are only propagated through the
+   * element models of the resolved libraries.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source defining the library whose summary is to be returned
+   * @param librariesBeingSummarized the libraries whose summaries are being computed
+   * @return the summary of the library defined by the given source
+   * @throws AnalysisException if the summary could not be computed
+   */
+  private NamespaceSummary computePublicNamespaceSummary(Source source,
+      HashSet<Source> librariesBeingSummarized) throws AnalysisException {
+    DartEntry dartEntry = getDartEntry(source);
+    if (dartEntry == null) {
+      return null;
+    }
+    NamespaceSummary summary = dartEntry.getValue(DartEntry.PUBLIC_NAMESPACE_SUMMARY);
+    if (summary != null) {
+      return summary;
+    }
+    CompilationUnit definingUnit = getDeclarationUnit(source);
+    ArrayList<CompilationUnit> parts = new ArrayList<CompilationUnit>();
+    ArrayList<NamespaceSummary> exportedSummaries = new ArrayList<NamespaceSummary>();
+    librariesBeingSummarized.add(source);
+    try {
+      for (Directive directive : definingUnit.getDirectives()) {
+        if (directive instanceof PartDirective) {
+          Source partSource = resolveUri(source, ((PartDirective) directive).getUri());
+          if (partSource != null && partSource.exists()) {
+            parts.add(getDeclarationUnit(partSource));
+          }
+        } else if (directive instanceof ExportDirective) {
+          Source exportedSource = resolveUri(source, ((ExportDirective) directive).getUri());
+          NamespaceSummary exportedSummary = null;
+          if (exportedSource != null && exportedSource.exists()
+              && !librariesBeingSummarized.contains(exportedSource)) {
+            exportedSummary = computePublicNamespaceSummary(
+                exportedSource,
+                librariesBeingSummarized);
+          }
+          exportedSummaries.add(exportedSummary);
+        }
+      }
+    } finally {
+      librariesBeingSummarized.remove(source);
+    }
+    summary = new NamespaceSummaryBuilder().createSummary(definingUnit, parts, exportedSummaries);
+    if (exportedSummaries.isEmpty()) {
+      DartEntryImpl dartCopy = getDartEntry(source).getWritableCopy();
+      dartCopy.setValue(DartEntry.PUBLIC_NAMESPACE_SUMMARY, summary);
+      sourceMap.put(source, dartCopy);
+    }
+    return summary;
+  }
+
   /**
    * Return {@code true} if the given array of sources contains the given source.
    * 
@@ -1221,6 +1389,96 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return null;
   }
 
+  /**
+   * Return an AST structure for the given source that is suitable for examining the declarations in
+   * the source. If a parsed or resolved compilation unit is cached it will be returned. Otherwise
+   * the source will be parsed without parsing function bodies and the result will not be cached.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose declarations are to be examined
+   * @return an AST structure containing the declarations in the source
+   * @throws AnalysisException if the source could not be scanned
+   */
+  private CompilationUnit getDeclarationUnit(Source source) throws AnalysisException {
+    DartEntry dartEntry = getDartEntry(source);
+    if (dartEntry != null) {
+      CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
+      if (unit != null) {
+        return unit;
+      }
+    }
+    RecordingErrorListener errorListener = new RecordingErrorListener();
+    ScanResult scanResult = internalScan(source, errorListener);
+    Parser parser = new Parser(source, errorListener);
+    parser.setParseFunctionBodies(false);
+    return parser.parseCompilationUnit(scanResult.token);
+  }
+
+  /**
+   * Return a table mapping the sources of compilation units to the sources of the libraries that
+   * are known to include them as parts.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return a table mapping parts to the libraries containing them
+   */
+  private HashMap<Source, ArrayList<Source>> getContainingLibraries() {
+    HashMap<Source, ArrayList<Source>> libraries = new HashMap<Source, ArrayList<Source>>();
+    for (Map.Entry<Source, SourceEntry> entry : sourceMap.entrySet()) {
+      SourceEntry sourceEntry = entry.getValue();
+      if (sourceEntry.getKind() == SourceKind.LIBRARY) {
+        for (Source partSource : ((DartEntry) sourceEntry).getValue(DartEntry.INCLUDED_PARTS)) {
+          ArrayList<Source> librarySources = libraries.get(partSource);
+          if (librarySources == null) {
+            librarySources = new ArrayList<Source>(1);
+            libraries.put(partSource, librarySources);
+          }
+          librarySources.add(entry.getKey());
+        }
+      }
+    }
+    return libraries;
+  }
+
+  /**
+   * Return a table mapping the sources of libraries to the sources of the libraries whose element
+   * model imports or exports them. The element models that are reachable from the cached element
+   * models are included, so a library that is no longer resolved still connects the libraries it
+   * imports to the resolved libraries that import it.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return a table mapping libraries to the libraries that directly depend on them
+   */
+  private HashMap<Source, ArrayList<Source>> getDependentLibraries() {
+    HashMap<Source, ArrayList<Source>> dependents = new HashMap<Source, ArrayList<Source>>();
+    // element models of different versions of a library are equal, so compare them by identity
+    Set<LibraryElement> visitedLibraries = Collections.newSetFromMap(
+        new IdentityHashMap<LibraryElement, Boolean>());
+    ArrayList<LibraryElement> worklist = new ArrayList<LibraryElement>();
+    for (SourceEntry sourceEntry : sourceMap.values()) {
+      if (sourceEntry instanceof DartEntry) {
+        LibraryElement library = ((DartEntry) sourceEntry).getValue(DartEntry.ELEMENT);
+        if (library != null) {
+          worklist.add(library);
+        }
+      }
+    }
+    while (!worklist.isEmpty()) {
+      LibraryElement library = worklist.remove(worklist.size() - 1);
+      if (visitedLibraries.add(library)) {
+        LibraryElement[] importedLibraries = library.getImportedLibraries();
+        LibraryElement[] exportedLibraries = library.getExportedLibraries();
+        addDependent(dependents, importedLibraries, library.getSource());
+        addDependent(dependents, exportedLibraries, library.getSource());
+        Collections.addAll(worklist, importedLibraries);
+        Collections.addAll(worklist, exportedLibraries);
+      }
+    }
+    return dependents;
+  }
+
   /**
    * Return the HTML unit information associated with the given source, or {@code null} if the
    * source is not known to this context. This method should be used to access the HTML unit
@@ -1305,14 +1563,19 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   /**
    * Return the cache entry associated with the given source, or {@code null} if there is no entry
    * associated with the source.
+   * <p>
+   * This method does not acquire the {@link #cacheLock}, so it will not block while the cache is
+   * being updated. The returned entry is not modified by the context, but it might be replaced in
+   * the cache by a more recent entry at any time.
    * 
    * @param source the source for which a cache entry is being sought
    * @return the source cache entry associated with the given source
    */
   private SourceEntry getReadableSourceEntry(Source source) {
-    synchronized (cacheLock) {
-      return sourceMap.get(source);
+    if (source == null) {
+      return null;
     }
+    return sourceMap.get(source);
   }
 
   /**
@@ -1371,6 +1634,29 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return hasPartOf;
   }
 
+  /**
+   * Return {@code true} if the public API of the library with the given source is the same as the
+   * API described by the given summary. The summary of the library is recomputed from its current
+   * contents, which is relatively cheap because function bodies are not parsed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library whose API is being compared
+   * @param oldSummary the summary of the library before it was changed, or {@code null} if the
+   *          summary had not been computed
+   * @return {@code true} if the public API of the library is known to be unchanged
+   */
+  private boolean hasSameApi(Source librarySource, NamespaceSummary oldSummary) {
+    if (oldSummary == null) {
+      return false;
+    }
+    try {
+      return oldSummary.hasSameApi(getPublicNamespaceSummary(librarySource));
+    } catch (AnalysisException exception) {
+      return false;
+    }
+  }
+
   /**
    * Compute the kind of the given source. This method should only be invoked when the kind is not
    * already known.
@@ -1412,6 +1698,33 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return the parsed or resolved compilation unit for the given source, parsing the source if
+   * necessary. Unlike {@link #parseCompilationUnit(Source)}, this method does not record that the
+   * parsed unit was accessed, so it must only be used when the unit will not be retained or
+   * returned to a client.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source to be parsed
+   * @return the AST structure representing the content of the source
+   * @throws AnalysisException if the source could not be parsed
+   */
+  private CompilationUnit internalParseCompilationUnit(Source source) throws AnalysisException {
+    accessed(source);
+    DartEntry dartEntry = getDartEntry(source);
+    if (dartEntry == null) {
+      return null;
+    }
+    CompilationUnit unit = dartEntry.getAnyParsedCompilationUnit();
+    if (unit == null) {
+      DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+      unit = internalParseCompilationUnit(dartCopy, source);
+      sourceMap.put(source, dartCopy);
+    }
+    return unit;
+  }
+
   private CompilationUnit internalParseCompilationUnit(DartEntryImpl dartCopy, Source source)
       throws AnalysisException {
     accessed(source);
@@ -1471,30 +1784,162 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * In response to a change to at least one of the compilation units in the given library,
-   * invalidate any results that are dependent on the result of resolving that library.
+   * In response to a change to at least one of the compilation units in each of the given
+   * libraries, invalidate any results that are dependent on the result of resolving those
+   * libraries. The libraries that import or export a library are also invalidated, transitively,
+   * unless the public API of the library is unchanged, which is the case when only function bodies
+   * were edited.
+   * <p>
+   * The dependencies between libraries are computed once, before any library is invalidated, so
+   * that the cost of invalidating many libraries at once is proportional to the number of libraries
+   * rather than to the number of libraries squared.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySources the sources of the libraries being invalidated
+   */
+  private void invalidateLibraryResolution(Collection<Source> librarySources) {
+    //
+    // Remember the API of each of the libraries that was resolved, so that we can tell whether the
+    // API changed after the library has been invalidated.
+    //
+    HashMap<Source, NamespaceSummary> oldSummaries = new HashMap<Source, NamespaceSummary>();
+    for (Source librarySource : librarySources) {
+      DartEntry libraryEntry = getDartEntry(librarySource);
+      if (libraryEntry != null && libraryEntry.getValue(DartEntry.ELEMENT) != null) {
+        oldSummaries.put(
+            librarySource,
+            libraryEntry.getValue(DartEntry.PUBLIC_NAMESPACE_SUMMARY));
+      }
+    }
+    HashMap<Source, ArrayList<Source>> dependents = null;
+    if (!oldSummaries.isEmpty()) {
+      dependents = getDependentLibraries();
+    }
+    HashSet<Source> invalidatedLibraries = new HashSet<Source>();
+    for (Source librarySource : librarySources) {
+      DartEntry libraryEntry = getDartEntry(librarySource);
+      if (libraryEntry != null) {
+        invalidateLibraryResolution(librarySource, libraryEntry);
+        invalidatedLibraries.add(librarySource);
+      }
+    }
+    if (dependents == null) {
+      return;
+    }
+    //
+    // Then invalidate the libraries that depend on libraries whose API has changed.
+    //
+    HashSet<Source> visitedLibraries = new HashSet<Source>();
+    ArrayList<Source> worklist = new ArrayList<Source>();
+    for (Map.Entry<Source, NamespaceSummary> entry : oldSummaries.entrySet()) {
+      Source librarySource = entry.getKey();
+      ArrayList<Source> dependentSources = dependents.get(librarySource);
+      if (dependentSources != null && !hasSameApi(librarySource, entry.getValue())) {
+        visitedLibraries.add(librarySource);
+        worklist.addAll(dependentSources);
+      }
+    }
+    while (!worklist.isEmpty()) {
+      Source dependentSource = worklist.remove(worklist.size() - 1);
+      if (visitedLibraries.add(dependentSource)) {
+        if (!invalidatedLibraries.contains(dependentSource)) {
+          DartEntry dependentEntry = getDartEntry(dependentSource);
+          // a library that is not resolved can still be imported by the libraries depending on it
+          if (dependentEntry != null && dependentEntry.getValue(DartEntry.ELEMENT) != null) {
+            invalidateLibraryResolution(dependentSource, dependentEntry);
+            invalidatedLibraries.add(dependentSource);
+          }
+        }
+        ArrayList<Source> dependentSources = dependents.get(dependentSource);
+        if (dependentSources != null) {
+          worklist.addAll(dependentSources);
+        }
+      }
+    }
+  }
+
+  /**
+   * Invalidate the results of resolving the given library and each of the compilation units it
+   * includes.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
    * 
    * @param librarySource the source of the library being invalidated
+   * @param libraryEntry the cache entry associated with the library
    */
-  private void invalidateLibraryResolution(Source librarySource) {
-    // TODO(brianwilkerson) This could be optimized. There's no need to flush all of these caches if
-    // the public namespace hasn't changed, which will be a fairly common case.
-    DartEntry libraryEntry = getDartEntry(librarySource);
-    if (libraryEntry != null) {
-      Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
-      DartEntryImpl libraryCopy = libraryEntry.getWritableCopy();
-      libraryCopy.invalidateAllResolutionInformation();
-      libraryCopy.setState(DartEntry.INCLUDED_PARTS, CacheState.INVALID);
-      sourceMap.put(librarySource, libraryCopy);
-      for (Source unitSource : includedParts) {
-        DartEntry partEntry = getDartEntry(unitSource);
-        if (partEntry != null) {
-          DartEntryImpl dartCopy = partEntry.getWritableCopy();
-          dartCopy.invalidateAllResolutionInformation();
-          sourceMap.put(unitSource, dartCopy);
+  private void invalidateLibraryResolution(Source librarySource, DartEntry libraryEntry) {
+    Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
+    DartEntryImpl libraryCopy = libraryEntry.getWritableCopy();
+    libraryCopy.invalidateAllResolutionInformation();
+    libraryCopy.setState(DartEntry.INCLUDED_PARTS, CacheState.INVALID);
+    sourceMap.put(librarySource, libraryCopy);
+    for (Source unitSource : includedParts) {
+      DartEntry partEntry = getDartEntry(unitSource);
+      if (partEntry != null) {
+        DartEntryImpl dartCopy = partEntry.getWritableCopy();
+        dartCopy.invalidateAllResolutionInformation();
+        sourceMap.put(unitSource, dartCopy);
+      }
+    }
+  }
+
+  /**
+   * Invalidate the information cached for the given changed and removed sources and the results of
+   * resolving any library containing one of those sources. The libraries containing the sources
+   * are computed once for all of the sources, and the libraries are then invalidated together.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param changedSources the sources whose contents have been changed
+   * @param removedSources the sources that have been deleted
+   */
+  private void invalidateSources(Collection<Source> changedSources,
+      Collection<Source> removedSources) {
+    if (changedSources.isEmpty() && removedSources.isEmpty()) {
+      return;
+    }
+    HashMap<Source, ArrayList<Source>> containingLibraries = getContainingLibraries();
+    LinkedHashSet<Source> librarySources = new LinkedHashSet<Source>();
+    for (Source source : changedSources) {
+      SourceEntry sourceEntry = sourceMap.get(source);
+      if (sourceEntry instanceof HtmlEntry) {
+        HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
+        htmlCopy.setState(HtmlEntry.ELEMENT, CacheState.INVALID);
+        htmlCopy.setState(SourceEntry.LINE_INFO, CacheState.INVALID);
+        htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.INVALID);
+        htmlCopy.setState(HtmlEntry.REFERENCED_LIBRARIES, CacheState.INVALID);
+        htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.INVALID);
+        sourceMap.put(source, htmlCopy);
+      } else if (sourceEntry instanceof DartEntry) {
+        DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
+        dartCopy.setState(SourceEntry.LINE_INFO, CacheState.INVALID);
+        dartCopy.setState(DartEntry.PARSE_ERRORS, CacheState.INVALID);
+        dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.INVALID);
+        dartCopy.setState(DartEntry.SOURCE_KIND, CacheState.INVALID);
+        sourceMap.put(source, dartCopy);
+        librarySources.add(source);
+        ArrayList<Source> containingSources = containingLibraries.get(source);
+        if (containingSources != null) {
+          librarySources.addAll(containingSources);
         }
       }
     }
+    for (Source source : removedSources) {
+      // TODO(brianwilkerson) Determine whether the source should be removed (that is, whether
+      // there are no additional dependencies on the source), and if so remove all information
+      // about the source.
+      if (getDartEntry(source) != null) {
+        ArrayList<Source> containingSources = containingLibraries.get(source);
+        if (containingSources != null) {
+          librarySources.addAll(containingSources);
+        }
+      }
+    }
+    invalidateLibraryResolution(librarySources);
+    for (Source source : removedSources) {
+      sourceMap.remove(source);
+    }
   }
 
   /**
@@ -1545,7 +1990,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         CacheState parsedUnitState = dartEntry.getState(DartEntry.PARSED_UNIT);
         if (parsedUnitState == CacheState.INVALID) {
           try {
-            parseCompilationUnit(entry.getKey());
+            internalParseCompilationUnit(entry.getKey());
           } catch (AnalysisException exception) {
             DartEntryImpl dartCopy = ((DartEntry) entry.getValue()).getWritableCopy();
             dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.ERROR);
@@ -1616,6 +2061,41 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return false;
   }
 
+  /**
+   * Return {@code true} if any of the given libraries is defined by the given source.
+   * 
+   * @param libraries the libraries being searched
+   * @param librarySource the source of the library being searched for
+   * @return {@code true} if one of the libraries is defined by the given source
+   */
+  private boolean references(LibraryElement[] libraries, Source librarySource) {
+    for (LibraryElement library : libraries) {
+      if (librarySource.equals(library.getSource())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the source referenced by the given URI, resolved relative to the given library, or
+   * {@code null} if the URI is not a simple string literal or cannot be resolved.
+   * 
+   * @param librarySource the source of the library containing the URI
+   * @param uriLiteral the string literal specifying the URI to be resolved
+   * @return the source referenced by the URI
+   */
+  private Source resolveUri(Source librarySource, StringLiteral uriLiteral) {
+    if (!(uriLiteral instanceof SimpleStringLiteral)) {
+      return null;
+    }
+    String uri = ((SimpleStringLiteral) uriLiteral).getValue();
+    if (uri == null) {
+      return null;
+    }
+    return sourceFactory.resolveUri(librarySource, uri.trim());
+  }
+
   private HtmlScanResult scanHtml(Source source) throws AnalysisException {
     HtmlScanner scanner = new HtmlScanner(source);
     try {
@@ -1642,52 +2122,4 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
     return sourceEntry instanceof DartEntry;
   }
-
-  /**
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
-   * 
-   * @param source the source that has been changed
-   */
-  private void sourceChanged(Source source) {
-    SourceEntry sourceEntry = sourceMap.get(source);
-    if (sourceEntry instanceof HtmlEntry) {
-      HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
-      htmlCopy.setState(HtmlEntry.ELEMENT, CacheState.INVALID);
-      htmlCopy.setState(SourceEntry.LINE_INFO, CacheState.INVALID);
-      htmlCopy.setState(HtmlEntry.PARSED_UNIT, CacheState.INVALID);
-      htmlCopy.setState(HtmlEntry.REFERENCED_LIBRARIES, CacheState.INVALID);
-      htmlCopy.setState(HtmlEntry.RESOLVED_UNIT, CacheState.INVALID);
-      sourceMap.put(source, htmlCopy);
-    } else if (sourceEntry instanceof DartEntry) {
-      Source[] containingLibraries = getLibrariesContaining(source);
-      DartEntryImpl dartCopy = ((DartEntry) sourceEntry).getWritableCopy();
-      dartCopy.setState(SourceEntry.LINE_INFO, CacheState.INVALID);
-      dartCopy.setState(DartEntry.PARSE_ERRORS, CacheState.INVALID);
-      dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.INVALID);
-      dartCopy.setState(DartEntry.SOURCE_KIND, CacheState.INVALID);
-      sourceMap.put(source, dartCopy);
-      invalidateLibraryResolution(source);
-      for (Source librarySource : containingLibraries) {
-        invalidateLibraryResolution(librarySource);
-      }
-    }
-  }
-
-  /**
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
-   * 
-   * @param source the source that has been deleted
-   */
-  private void sourceRemoved(Source source) {
-    // TODO(brianwilkerson) Determine whether the source should be removed (that is, whether
-    // there are no additional dependencies on the source), and if so remove all information
-    // about the source.
-    DartEntry dartEntry = getDartEntry(source);
-    if (dartEntry != null) {
-      for (Source librarySource : getLibrariesContaining(source)) {
-        invalidateLibraryResolution(librarySource);
-      }
-    }
-    sourceMap.remove(source);
-  }
 }
@@ -23,6 +23,7 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.Source;
@@ -208,6 +209,15 @@ public class DelegatingAnalysisContextImpl extends AnalysisContextImpl {
     }
   }
 
+  @Override
+  public NamespaceSummary getPublicNamespaceSummary(Source source) throws AnalysisException {
+    if (source.isInSystemLibrary()) {
+      return sdkAnalysisContext.getPublicNamespaceSummary(source);
+    } else {
+      return super.getPublicNamespaceSummary(source);
+    }
+  }
+
   @Override
   public CompilationUnit getResolvedCompilationUnit(Source unitSource, LibraryElement library) {
     if (unitSource.isInSystemLibrary()) {
@@ -272,7 +282,8 @@ public class DelegatingAnalysisContextImpl extends AnalysisContextImpl {
 //  }
 
   @Override
-  public void recordLibraryElements(Map<Source, LibraryElement> elementMap) {
+  public void recordLibraryElements(Map<Source, LibraryElement> elementMap,
+      Map<Source, NamespaceSummary> summaryMap) {
     if (elementMap.isEmpty()) {
       return;
     }
@@ -282,9 +293,9 @@ public class DelegatingAnalysisContextImpl extends AnalysisContextImpl {
     // libraries
     Source source = elementMap.keySet().iterator().next();
     if (source.isInSystemLibrary()) {
-      sdkAnalysisContext.recordLibraryElements(elementMap);
+      sdkAnalysisContext.recordLibraryElements(elementMap, summaryMap);
     } else {
-      super.recordLibraryElements(elementMap);
+      super.recordLibraryElements(elementMap, summaryMap);
     }
   }
 
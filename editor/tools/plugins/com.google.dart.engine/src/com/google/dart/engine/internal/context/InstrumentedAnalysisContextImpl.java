@@ -14,6 +14,7 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
@@ -369,6 +370,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     return basis.getPublicNamespace(source);
   }
 
+  @Override
+  public NamespaceSummary getPublicNamespaceSummary(Source source) throws AnalysisException {
+    return basis.getPublicNamespaceSummary(source);
+  }
+
   @Override
   public CompilationUnit getResolvedCompilationUnit(Source unitSource, LibraryElement library) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getResolvedCompilationUnit");
@@ -482,8 +488,9 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
   }
 
   @Override
-  public void recordLibraryElements(Map<Source, LibraryElement> elementMap) {
-    basis.recordLibraryElements(elementMap);
+  public void recordLibraryElements(Map<Source, LibraryElement> elementMap,
+      Map<Source, NamespaceSummary> summaryMap) {
+    basis.recordLibraryElements(elementMap, summaryMap);
   }
 
   @Override
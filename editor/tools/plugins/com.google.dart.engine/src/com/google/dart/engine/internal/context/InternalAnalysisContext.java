@@ -20,6 +20,7 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.utilities.source.LineInfo;
@@ -81,14 +82,29 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public Namespace getPublicNamespace(Source source) throws AnalysisException;
 
+  /**
+   * Return a summary of the public namespace of the library defined by the given source, including
+   * the names exported from other libraries and the signature of the library's API. Unlike
+   * {@link #getPublicNamespace(Source)}, this does not require the element model of the library to
+   * be built.
+   * 
+   * @param source the source defining the library whose public namespace summary is to be returned
+   * @return the summary of the public namespace of the library defined by the given source
+   * @throws AnalysisException if the summary could not be computed
+   */
+  public NamespaceSummary getPublicNamespaceSummary(Source source) throws AnalysisException;
+
   /**
    * Given a table mapping the source for the libraries represented by the corresponding elements to
    * the elements representing the libraries, record those mappings.
    * 
    * @param elementMap a table mapping the source for the libraries represented by the elements to
    *          the elements representing the libraries
+   * @param summaryMap a table mapping the source for some of the libraries to the summaries of
+   *          their public namespaces, computed from the compilation units that were resolved
    */
-  public void recordLibraryElements(Map<Source, LibraryElement> elementMap);
+  public void recordLibraryElements(Map<Source, LibraryElement> elementMap,
+      Map<Source, NamespaceSummary> summaryMap);
 
   /**
    * Give the resolution errors and line info associated with the given source, add the information
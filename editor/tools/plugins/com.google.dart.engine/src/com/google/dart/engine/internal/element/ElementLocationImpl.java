@@ -15,6 +15,7 @@ package com.google.dart.engine.internal.element;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.utilities.general.StringUtilities;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,7 +45,7 @@ public class ElementLocationImpl implements ElementLocation {
     ArrayList<String> components = new ArrayList<String>();
     Element ancestor = element;
     while (ancestor != null) {
-      components.add(0, ((ElementImpl) ancestor).getIdentifier());
+      components.add(0, StringUtilities.intern(((ElementImpl) ancestor).getIdentifier()));
       ancestor = ancestor.getEnclosingElement();
     }
     this.components = components.toArray(new String[components.size()]);
@@ -101,7 +102,8 @@ public class ElementLocationImpl implements ElementLocation {
   }
 
   /**
-   * Decode the encoded form of a location into an array of components.
+   * Decode the encoded form of a location into an array of components. The components are interned
+   * so that they share their strings with the names of the elements.
    * 
    * @param encoding the encoded form of a location
    * @return the components that were encoded
@@ -118,7 +120,7 @@ public class ElementLocationImpl implements ElementLocation {
           builder.append(SEPARATOR_CHAR);
           index += 2;
         } else {
-          components.add(builder.toString());
+          components.add(StringUtilities.intern(builder, 0, builder.length()));
           builder.setLength(0);
           index++;
         }
@@ -128,7 +130,7 @@ public class ElementLocationImpl implements ElementLocation {
       }
     }
     if (builder.length() > 0) {
-      components.add(builder.toString());
+      components.add(StringUtilities.intern(builder, 0, builder.length()));
     }
     return components.toArray(new String[components.size()]);
   }
@@ -41,6 +41,10 @@ public class FieldMember extends VariableMember implements FieldElement {
     if (baseField == null || definingType.getTypeArguments().length == 0) {
       return baseField;
     }
+    Member cachedMember = MemberCache.get(baseField, definingType);
+    if (cachedMember != null) {
+      return (FieldElement) cachedMember;
+    }
     Type baseType = baseField.getType();
     if (baseType == null) {
       return baseField;
@@ -53,7 +57,7 @@ public class FieldMember extends VariableMember implements FieldElement {
     }
     // TODO(brianwilkerson) Consider caching the substituted type in the instance. It would use more
     // memory but speed up some operations. We need to see how often the type is being re-computed.
-    return new FieldMember(baseField, definingType);
+    return MemberCache.add(new FieldMember(baseField, definingType));
   }
 
   /**
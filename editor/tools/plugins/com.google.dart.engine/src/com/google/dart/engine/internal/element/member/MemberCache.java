@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.element.member;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.type.TypeVariableType;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+/**
+ * The class {@code MemberCache} canonicalizes the members created for elements that are accessed
+ * through parameterized types, so that looking up the same element through equivalent parameterized
+ * types returns the same member rather than allocating a new one each time.
+ * <p>
+ * Members are only weakly referenced by the cache, so a member is discarded once it is no longer
+ * referenced elsewhere. Elements and types are compared by identity rather than by equality so that
+ * a member is never shared between an element and a re-resolved copy of the same element.
+ * 
+ * @coverage dart.engine.element
+ */
+public final class MemberCache {
+  /**
+   * Instances of the class {@code Key} identify a member by its base element and the type in which
+   * it is defined.
+   */
+  private static final class Key {
+    /**
+     * The element on which the member was created.
+     */
+    private final Element baseElement;
+
+    /**
+     * The element representing the class whose parameterized type defines the member.
+     */
+    private final Element definingElement;
+
+    /**
+     * The type arguments of the type in which the member is defined.
+     */
+    private final Type[] typeArguments;
+
+    /**
+     * The hash code of this key.
+     */
+    private final int hashCode;
+
+    public Key(Element baseElement, InterfaceType definingType) {
+      this.baseElement = baseElement;
+      this.definingElement = definingType.getElement();
+      this.typeArguments = definingType.getTypeArguments();
+      int hashCode = System.identityHashCode(baseElement) * 31
+          + System.identityHashCode(definingElement);
+      for (Type type : typeArguments) {
+        hashCode = hashCode * 31 + hashCodeOf(type);
+      }
+      this.hashCode = hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) object;
+      return baseElement == other.baseElement && definingElement == other.definingElement
+          && areSame(typeArguments, other.typeArguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * Instances of the class {@code MemberReference} weakly reference a cached member and remember
+   * the key under which it was cached, so that the entry can be removed when the member is
+   * discarded.
+   */
+  private static final class MemberReference extends WeakReference<Member> {
+    /**
+     * The key under which the member is cached.
+     */
+    private final Key key;
+
+    public MemberReference(Key key, Member member, ReferenceQueue<Member> queue) {
+      super(member, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * A table mapping keys to references to the members cached under them.
+   */
+  private static final HashMap<Key, MemberReference> cache = new HashMap<Key, MemberReference>();
+
+  /**
+   * The queue on which references to discarded members are placed.
+   */
+  private static final ReferenceQueue<Member> queue = new ReferenceQueue<Member>();
+
+  /**
+   * The number of members that have been added to the cache.
+   */
+  private static long createdCount = 0L;
+
+  /**
+   * The number of times a cached member was returned instead of a new member being created.
+   */
+  private static long reusedCount = 0L;
+
+  /**
+   * Add the given member to the cache so that it will be returned by subsequent invocations of
+   * {@link #get(Element, InterfaceType)} with an equivalent base element and defining type.
+   * 
+   * @param member the member to be cached
+   * @return the member that was given
+   */
+  public static <M extends Member> M add(M member) {
+    Key key = new Key(member.getBaseElement(), member.getDefiningType());
+    synchronized (cache) {
+      removeDiscardedMembers();
+      cache.put(key, new MemberReference(key, member, queue));
+      createdCount++;
+    }
+    return member;
+  }
+
+  /**
+   * Return the cached member representing the given element in the given parameterized type, or
+   * {@code null} if there is no such member in the cache.
+   * 
+   * @param baseElement the element on which the member was created
+   * @param definingType the type in which the element is defined
+   * @return the cached member representing the element in the type
+   */
+  public static Member get(Element baseElement, InterfaceType definingType) {
+    Key key = new Key(baseElement, definingType);
+    synchronized (cache) {
+      removeDiscardedMembers();
+      MemberReference reference = cache.get(key);
+      if (reference == null) {
+        return null;
+      }
+      Member member = reference.get();
+      if (member != null) {
+        reusedCount++;
+      }
+      return member;
+    }
+  }
+
+  /**
+   * Return the number of members that have been created and added to the cache.
+   * 
+   * @return the number of members that have been added to the cache
+   */
+  public static long getCreatedCount() {
+    synchronized (cache) {
+      return createdCount;
+    }
+  }
+
+  /**
+   * Return the number of times a cached member was returned instead of a new member being created.
+   * 
+   * @return the number of times a cached member was reused
+   */
+  public static long getReusedCount() {
+    synchronized (cache) {
+      return reusedCount;
+    }
+  }
+
+  /**
+   * Return the number of members currently in the cache.
+   * 
+   * @return the number of members currently in the cache
+   */
+  public static int size() {
+    synchronized (cache) {
+      removeDiscardedMembers();
+      return cache.size();
+    }
+  }
+
+  /**
+   * Return {@code true} if the given types are the same type, meaning that they are identical or
+   * are parameterizations of the same element by types that are the same.
+   * 
+   * @param firstType the first type being compared
+   * @param secondType the second type being compared
+   * @return {@code true} if the given types are the same type
+   */
+  private static boolean areSame(Type firstType, Type secondType) {
+    if (firstType == secondType) {
+      return true;
+    } else if (firstType instanceof InterfaceType && secondType instanceof InterfaceType) {
+      InterfaceType firstInterface = (InterfaceType) firstType;
+      InterfaceType secondInterface = (InterfaceType) secondType;
+      return firstInterface.getElement() == secondInterface.getElement()
+          && areSame(firstInterface.getTypeArguments(), secondInterface.getTypeArguments());
+    } else if (firstType instanceof TypeVariableType && secondType instanceof TypeVariableType) {
+      return firstType.getElement() == secondType.getElement();
+    }
+    return false;
+  }
+
+  /**
+   * Return {@code true} if the given arrays contain types that are pairwise the same.
+   * 
+   * @param firstTypes the first array of types being compared
+   * @param secondTypes the second array of types being compared
+   * @return {@code true} if the types in the arrays are the same
+   */
+  private static boolean areSame(Type[] firstTypes, Type[] secondTypes) {
+    int count = firstTypes.length;
+    if (secondTypes.length != count) {
+      return false;
+    }
+    for (int i = 0; i < count; i++) {
+      if (!areSame(firstTypes[i], secondTypes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return a hash code for the given type that is consistent with {@link #areSame(Type, Type)}.
+   * 
+   * @param type the type whose hash code is to be returned
+   * @return a hash code for the type
+   */
+  private static int hashCodeOf(Type type) {
+    if (type instanceof InterfaceType) {
+      InterfaceType interfaceType = (InterfaceType) type;
+      int hashCode = System.identityHashCode(interfaceType.getElement());
+      for (Type argument : interfaceType.getTypeArguments()) {
+        hashCode = hashCode * 31 + hashCodeOf(argument);
+      }
+      return hashCode;
+    } else if (type instanceof TypeVariableType) {
+      return System.identityHashCode(type.getElement());
+    }
+    return System.identityHashCode(type);
+  }
+
+  /**
+   * Remove the entries for members that have been discarded. This method must be invoked while
+   * holding the lock on the cache.
+   */
+  private static void removeDiscardedMembers() {
+    MemberReference reference = (MemberReference) queue.poll();
+    while (reference != null) {
+      if (cache.get(reference.key) == reference) {
+        cache.remove(reference.key);
+      }
+      reference = (MemberReference) queue.poll();
+    }
+  }
+
+  /**
+   * Prevent the creation of instances of this class.
+   */
+  private MemberCache() {
+  }
+}
@@ -42,6 +42,10 @@ public class MethodMember extends ExecutableMember implements MethodElement {
     if (baseMethod == null || definingType.getTypeArguments().length == 0) {
       return baseMethod;
     }
+    Member cachedMember = MemberCache.get(baseMethod, definingType);
+    if (cachedMember != null) {
+      return (MethodElement) cachedMember;
+    }
     FunctionType baseType = baseMethod.getType();
     Type[] argumentTypes = definingType.getTypeArguments();
     Type[] parameterTypes = TypeVariableTypeImpl.getTypes(definingType.getElement().getTypeVariables());
@@ -51,7 +55,7 @@ public class MethodMember extends ExecutableMember implements MethodElement {
     }
     // TODO(brianwilkerson) Consider caching the substituted type in the instance. It would use more
     // memory but speed up some operations. We need to see how often the type is being re-computed.
-    return new MethodMember(baseMethod, definingType);
+    return MemberCache.add(new MethodMember(baseMethod, definingType));
   }
 
   /**
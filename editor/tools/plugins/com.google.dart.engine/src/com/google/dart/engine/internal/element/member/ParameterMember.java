@@ -44,6 +44,10 @@ public class ParameterMember extends VariableMember implements ParameterElement
     if (baseParameter == null || definingType.getTypeArguments().length == 0) {
       return baseParameter;
     }
+    Member cachedMember = MemberCache.get(baseParameter, definingType);
+    if (cachedMember != null) {
+      return (ParameterElement) cachedMember;
+    }
     Type baseType = baseParameter.getType();
     Type[] argumentTypes = definingType.getTypeArguments();
     Type[] parameterTypes = TypeVariableTypeImpl.getTypes(definingType.getElement().getTypeVariables());
@@ -53,7 +57,7 @@ public class ParameterMember extends VariableMember implements ParameterElement
     }
     // TODO(brianwilkerson) Consider caching the substituted type in the instance. It would use more
     // memory but speed up some operations. We need to see how often the type is being re-computed.
-    return new ParameterMember(baseParameter, definingType);
+    return MemberCache.add(new ParameterMember(baseParameter, definingType));
   }
 
   /**
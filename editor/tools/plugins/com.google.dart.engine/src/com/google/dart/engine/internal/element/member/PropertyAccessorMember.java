@@ -44,6 +44,10 @@ public class PropertyAccessorMember extends ExecutableMember implements Property
     if (baseAccessor == null || definingType.getTypeArguments().length == 0) {
       return baseAccessor;
     }
+    Member cachedMember = MemberCache.get(baseAccessor, definingType);
+    if (cachedMember != null) {
+      return (PropertyAccessorElement) cachedMember;
+    }
     FunctionType baseType = baseAccessor.getType();
     Type[] argumentTypes = definingType.getTypeArguments();
     Type[] parameterTypes = TypeVariableTypeImpl.getTypes(definingType.getElement().getTypeVariables());
@@ -53,7 +57,7 @@ public class PropertyAccessorMember extends ExecutableMember implements Property
     }
     // TODO(brianwilkerson) Consider caching the substituted type in the instance. It would use more
     // memory but speed up some operations. We need to see how often the type is being re-computed.
-    return new PropertyAccessorMember(baseAccessor, definingType);
+    return MemberCache.add(new PropertyAccessorMember(baseAccessor, definingType));
   }
 
   /**
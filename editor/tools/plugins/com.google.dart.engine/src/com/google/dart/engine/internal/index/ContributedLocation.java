@@ -13,7 +13,9 @@
  */
 package com.google.dart.engine.internal.index;
 
+import com.google.dart.engine.element.Element;
 import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.FastRemoveList;
 
@@ -26,32 +28,56 @@ import java.util.List;
  * @coverage dart.engine.index
  */
 public class ContributedLocation {
-  private final FastRemoveList<ContributedLocation> declarationOwner;
+  private FastRemoveList<ContributedLocation> declarationOwner;
   private final FastRemoveList<ContributedLocation> locationOwner;
-  private final int declarationHandle;
+  private int declarationHandle;
   private final int locationHandle;
 
+  /**
+   * The element that is part of the relationship contributed by the contributor.
+   */
+  private final Element element;
+
+  /**
+   * The relationship between the element and the location.
+   */
+  private final Relationship relationship;
+
   /**
    * The location that is part of the relationship contributed by the contributor.
    */
-  private final Location location;
+  private Location location;
 
   /**
    * Initialize a newly created contributed location with the given information.
    * 
    * @param declarationOwner {@link List} to remove from when declaration {@link Source} is removed
    * @param locationOwner {@link List} to remove from when location {@link Source} is removed
+   * @param element the element that is part of the relationship contributed by the contributor
+   * @param relationship the relationship between the element and the location
    * @param location the location that is part of the relationship contributed by the contributor
    */
   public ContributedLocation(FastRemoveList<ContributedLocation> declarationOwner,
-      FastRemoveList<ContributedLocation> locationOwner, Location location) {
+      FastRemoveList<ContributedLocation> locationOwner, Element element,
+      Relationship relationship, Location location) {
     this.declarationOwner = declarationOwner;
     this.locationOwner = locationOwner;
     this.declarationHandle = declarationOwner.add(this);
     this.locationHandle = locationOwner.add(this);
+    this.element = element;
+    this.relationship = relationship;
     this.location = location;
   }
 
+  /**
+   * Return the element that is part of the relationship contributed by the contributor.
+   * 
+   * @return the element that is part of the relationship contributed by the contributor
+   */
+  public Element getElement() {
+    return element;
+  }
+
   /**
    * Return the location that is part of the relationship contributed by the contributor.
    * 
@@ -61,6 +87,32 @@ public class ContributedLocation {
     return location;
   }
 
+  /**
+   * Return the relationship between the element and the location.
+   * 
+   * @return the relationship between the element and the location
+   */
+  public Relationship getRelationship() {
+    return relationship;
+  }
+
+  /**
+   * Moves this {@link ContributedLocation} to the given "declaration" owner and replaces its
+   * location with the given one. This is used when a {@link Source} is indexed again and
+   * contributes the same relationship, so that the "location" owner does not have to be changed.
+   * 
+   * @param newDeclarationOwner {@link List} to remove from when declaration {@link Source} is
+   *          removed
+   * @param newLocation the location that replaces the current location
+   */
+  public void moveToDeclarationOwner(FastRemoveList<ContributedLocation> newDeclarationOwner,
+      Location newLocation) {
+    declarationOwner.remove(declarationHandle);
+    declarationOwner = newDeclarationOwner;
+    declarationHandle = newDeclarationOwner.add(this);
+    location = newLocation;
+  }
+
   /**
    * Removes this {@link ContributedLocation} from "declaration" owner.
    */
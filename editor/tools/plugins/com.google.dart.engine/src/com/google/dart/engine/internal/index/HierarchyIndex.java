@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code HierarchyIndex} record the direct supertype/subtype edges between
+ * types, so that the direct and indirect subtypes or supertypes of a type can be computed without
+ * querying the relationships of each type in the hierarchy separately.
+ * <p>
+ * Each type is assigned an integer identifier and the edges are kept as arrays of identifiers in
+ * both directions. A type is removed together with all of its edges, and a type that is left
+ * without edges is forgotten, so the identifiers of removed types can be reused.
+ * <p>
+ * Types are compared by their location and context, in the same way as elements are compared by
+ * the {@link MemoryIndexStoreImpl}, so a new version of a type replaces the previous one without
+ * losing the edges recorded by other sources.
+ * 
+ * @coverage dart.engine.index
+ */
+public class HierarchyIndex {
+  /**
+   * Instances of the class {@code Node} represent a single type in the hierarchy.
+   */
+  private static class Node {
+    /**
+     * The latest version of the type represented by this node.
+     */
+    private Element type;
+
+    /**
+     * The identifiers of the direct subtypes of the type, of which only the first
+     * {@link #subtypeCount} are valid.
+     */
+    private int[] subtypes = NO_IDS;
+
+    /**
+     * The number of direct subtypes of the type.
+     */
+    private int subtypeCount;
+
+    /**
+     * The identifiers of the direct supertypes of the type, of which only the first
+     * {@link #supertypeCount} are valid.
+     */
+    private int[] supertypes = NO_IDS;
+
+    /**
+     * The number of direct supertypes of the type.
+     */
+    private int supertypeCount;
+
+    public Node(Element type) {
+      this.type = type;
+    }
+
+    /**
+     * Return {@code true} if this node has neither subtypes nor supertypes.
+     */
+    public boolean isDisconnected() {
+      return subtypeCount == 0 && supertypeCount == 0;
+    }
+  }
+
+  /**
+   * Instances of the class {@code TypeKey} are used to look up the identifier of a type.
+   */
+  private static class TypeKey {
+    private final Element type;
+    private final AnalysisContext context;
+
+    public TypeKey(Element type) {
+      this.type = type;
+      this.context = type.getContext();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      TypeKey other = (TypeKey) obj;
+      return other.context == context && Objects.equal(other.type, type);
+    }
+
+    @Override
+    public int hashCode() {
+      return type.hashCode();
+    }
+  }
+
+  /**
+   * An empty array of identifiers.
+   */
+  private static final int[] NO_IDS = new int[0];
+
+  /**
+   * An empty array of elements.
+   */
+  private static final Element[] NO_ELEMENTS = new Element[0];
+
+  /**
+   * Add the given identifier to the first {@code count} identifiers in the given array, growing the
+   * array if necessary.
+   * 
+   * @param ids the array to which the identifier is to be added
+   * @param count the number of valid identifiers in the array
+   * @param id the identifier to be added
+   * @return the array containing the identifier
+   */
+  private static int[] add(int[] ids, int count, int id) {
+    if (count == ids.length) {
+      int[] newIds = new int[Math.max(4, count * 2)];
+      System.arraycopy(ids, 0, newIds, 0, count);
+      ids = newIds;
+    }
+    ids[count] = id;
+    return ids;
+  }
+
+  /**
+   * Return {@code true} if the given identifier is one of the first {@code count} identifiers in
+   * the given array.
+   */
+  private static boolean contains(int[] ids, int count, int id) {
+    for (int i = 0; i < count; i++) {
+      if (ids[i] == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remove the given identifier from the first {@code count} identifiers in the given array. The
+   * order of the remaining identifiers is not preserved.
+   * 
+   * @return the number of valid identifiers in the array after the removal
+   */
+  private static int remove(int[] ids, int count, int id) {
+    for (int i = 0; i < count; i++) {
+      if (ids[i] == id) {
+        ids[i] = ids[count - 1];
+        return count - 1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * A table mapping types to their identifiers.
+   */
+  private final Map<TypeKey, Integer> ids = Maps.newHashMap();
+
+  /**
+   * The nodes of the types, indexed by their identifier. Nodes of forgotten types are {@code null}.
+   */
+  private final ArrayList<Node> nodes = new ArrayList<Node>();
+
+  /**
+   * The identifiers of forgotten types that can be reused.
+   */
+  private final ArrayList<Integer> freeIds = new ArrayList<Integer>();
+
+  /**
+   * Record that the given subtype directly extends, mixes in or implements the given supertype.
+   * 
+   * @param supertype the type being extended, mixed in or implemented
+   * @param subtype the type that extends, mixes in or implements the supertype
+   */
+  public void addEdge(Element supertype, Element subtype) {
+    if (supertype == null || subtype == null || supertype.equals(subtype)) {
+      return;
+    }
+    int superId = getOrCreateId(supertype);
+    int subId = getOrCreateId(subtype);
+    Node superNode = nodes.get(superId);
+    if (contains(superNode.subtypes, superNode.subtypeCount, subId)) {
+      return;
+    }
+    superNode.subtypes = add(superNode.subtypes, superNode.subtypeCount++, subId);
+    Node subNode = nodes.get(subId);
+    subNode.supertypes = add(subNode.supertypes, subNode.supertypeCount++, superId);
+  }
+
+  /**
+   * Return the direct and indirect subtypes of the given type. The given type itself is never
+   * included, even if the hierarchy contains a cycle.
+   * 
+   * @param type the type whose subtypes are to be returned
+   * @return the direct and indirect subtypes of the given type
+   */
+  public Element[] getSubtypes(Element type) {
+    return computeClosure(type, true);
+  }
+
+  /**
+   * Return the direct and indirect supertypes of the given type that are known to this index. The
+   * given type itself is never included, even if the hierarchy contains a cycle.
+   * 
+   * @param type the type whose supertypes are to be returned
+   * @return the direct and indirect supertypes of the given type
+   */
+  public Element[] getSupertypes(Element type) {
+    return computeClosure(type, false);
+  }
+
+  /**
+   * Remove the given type and all of its edges from this index.
+   * 
+   * @param type the type to be removed
+   */
+  public void removeType(Element type) {
+    Integer id = ids.get(new TypeKey(type));
+    if (id == null) {
+      return;
+    }
+    Node node = nodes.get(id);
+    for (int i = 0; i < node.subtypeCount; i++) {
+      int subId = node.subtypes[i];
+      Node subNode = nodes.get(subId);
+      subNode.supertypeCount = remove(subNode.supertypes, subNode.supertypeCount, id);
+      forgetIfDisconnected(subId, subNode);
+    }
+    for (int i = 0; i < node.supertypeCount; i++) {
+      int superId = node.supertypes[i];
+      Node superNode = nodes.get(superId);
+      superNode.subtypeCount = remove(superNode.subtypes, superNode.subtypeCount, id);
+      forgetIfDisconnected(superId, superNode);
+    }
+    node.subtypeCount = 0;
+    node.supertypeCount = 0;
+    forgetIfDisconnected(id, node);
+  }
+
+  /**
+   * Remove the edges to the direct supertypes of the given type, which is being indexed again and
+   * records its supertypes again, and remember the given element as the latest version of the type.
+   * The edges to the subtypes of the type are kept.
+   * 
+   * @param type the new version of the type
+   */
+  public void resetSupertypes(Element type) {
+    Integer id = ids.get(new TypeKey(type));
+    if (id == null) {
+      return;
+    }
+    Node node = nodes.get(id);
+    node.type = type;
+    for (int i = 0; i < node.supertypeCount; i++) {
+      int superId = node.supertypes[i];
+      Node superNode = nodes.get(superId);
+      superNode.subtypeCount = remove(superNode.subtypes, superNode.subtypeCount, id);
+      forgetIfDisconnected(superId, superNode);
+    }
+    node.supertypeCount = 0;
+    forgetIfDisconnected(id, node);
+  }
+
+  /**
+   * Return the number of types in this index.
+   * 
+   * @return the number of types in this index
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  /**
+   * Return the types that can be reached from the given type by following subtype edges, if
+   * {@code subtypes} is {@code true}, or supertype edges otherwise.
+   */
+  private Element[] computeClosure(Element type, boolean subtypes) {
+    Integer startId = ids.get(new TypeKey(type));
+    if (startId == null) {
+      return NO_ELEMENTS;
+    }
+    BitSet visited = new BitSet(nodes.size());
+    visited.set(startId);
+    int[] queue = new int[16];
+    int queueSize = 0;
+    queue[queueSize++] = startId;
+    ArrayList<Element> result = new ArrayList<Element>();
+    for (int head = 0; head < queueSize; head++) {
+      Node node = nodes.get(queue[head]);
+      int[] edges = subtypes ? node.subtypes : node.supertypes;
+      int edgeCount = subtypes ? node.subtypeCount : node.supertypeCount;
+      for (int i = 0; i < edgeCount; i++) {
+        int id = edges[i];
+        if (!visited.get(id)) {
+          visited.set(id);
+          result.add(nodes.get(id).type);
+          queue = add(queue, queueSize++, id);
+        }
+      }
+    }
+    return result.toArray(new Element[result.size()]);
+  }
+
+  /**
+   * Forget the type represented by the given node if it no longer has any edges.
+   */
+  private void forgetIfDisconnected(int id, Node node) {
+    if (node.isDisconnected()) {
+      ids.remove(new TypeKey(node.type));
+      nodes.set(id, null);
+      freeIds.add(id);
+    }
+  }
+
+  /**
+   * Return the identifier of the given type, assigning a new identifier if the type is not yet in
+   * this index.
+   */
+  private int getOrCreateId(Element type) {
+    TypeKey key = new TypeKey(type);
+    Integer id = ids.get(key);
+    if (id != null) {
+      nodes.get(id).type = type;
+      return id;
+    }
+    Node node = new Node(type);
+    int newId;
+    if (freeIds.isEmpty()) {
+      newId = nodes.size();
+      nodes.add(node);
+    } else {
+      newId = freeIds.remove(freeIds.size() - 1);
+      nodes.set(newId, node);
+    }
+    ids.put(key, newId);
+    return newId;
+  }
+}
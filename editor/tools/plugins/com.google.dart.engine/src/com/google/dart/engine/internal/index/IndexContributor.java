@@ -21,10 +21,13 @@ import com.google.dart.engine.ast.ASTNode;
 import com.google.dart.engine.ast.ClassDeclaration;
 import com.google.dart.engine.ast.ClassTypeAlias;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
 import com.google.dart.engine.ast.ConstructorDeclaration;
 import com.google.dart.engine.ast.ConstructorName;
+import com.google.dart.engine.ast.Directive;
 import com.google.dart.engine.ast.ExportDirective;
 import com.google.dart.engine.ast.ExtendsClause;
+import com.google.dart.engine.ast.FieldDeclaration;
 import com.google.dart.engine.ast.FunctionDeclaration;
 import com.google.dart.engine.ast.FunctionTypeAlias;
 import com.google.dart.engine.ast.Identifier;
@@ -72,6 +75,7 @@ import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.utilities.collection.IntStack;
@@ -100,6 +104,48 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     return null;
   }
 
+  /**
+   * @return the key identifying the given directive or declaration within its unit. Keys don't have
+   *         to be unique, but are expected to be the same for the same declaration in different
+   *         versions of the unit.
+   */
+  @VisibleForTesting
+  static String getDeclarationKey(ASTNode node) {
+    if (node instanceof ClassDeclaration) {
+      return "class " + getName(((ClassDeclaration) node).getName());
+    }
+    if (node instanceof ClassTypeAlias) {
+      return "class " + getName(((ClassTypeAlias) node).getName());
+    }
+    if (node instanceof FunctionDeclaration) {
+      FunctionDeclaration function = (FunctionDeclaration) node;
+      return "function " + getName(function.getPropertyKeyword()) + getName(function.getName());
+    }
+    if (node instanceof FunctionTypeAlias) {
+      return "typedef " + getName(((FunctionTypeAlias) node).getName());
+    }
+    if (node instanceof TopLevelVariableDeclaration) {
+      return "variable " + getName(((TopLevelVariableDeclaration) node).getVariables());
+    }
+    if (node instanceof ConstructorDeclaration) {
+      ConstructorDeclaration constructor = (ConstructorDeclaration) node;
+      return getDeclarationKey(node.getParent()) + ".new " + getName(constructor.getName());
+    }
+    if (node instanceof MethodDeclaration) {
+      MethodDeclaration method = (MethodDeclaration) node;
+      return getDeclarationKey(node.getParent()) + ".method "
+          + getName(method.getPropertyKeyword()) + getName(method.getName());
+    }
+    if (node instanceof FieldDeclaration) {
+      return getDeclarationKey(node.getParent()) + ".field "
+          + getName(((FieldDeclaration) node).getFields());
+    }
+    if (node instanceof Directive) {
+      return "directive";
+    }
+    return "";
+  }
+
   /**
    * @return the library import prefix name, may be {@code null}.
    */
@@ -117,6 +163,32 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     return null;
   }
 
+  /**
+   * @return the name of the given identifier, or an empty {@link String} if there is no identifier.
+   */
+  private static String getName(SimpleIdentifier identifier) {
+    return identifier != null ? identifier.getName() : "";
+  }
+
+  /**
+   * @return the lexeme of the given keyword followed by a space, or an empty {@link String} if there
+   *         is no keyword.
+   */
+  private static String getName(Token keyword) {
+    return keyword != null ? keyword.getLexeme() + " " : "";
+  }
+
+  /**
+   * @return the name of the first variable in the given list, or an empty {@link String} if there
+   *         are no variables.
+   */
+  private static String getName(VariableDeclarationList variables) {
+    if (variables == null || variables.getVariables().isEmpty()) {
+      return "";
+    }
+    return getName(variables.getVariables().get(0).getName());
+  }
+
   /**
    * @return {@code true} if given "node" is part of {@link PrefixedIdentifier} "prefix.node".
    */
@@ -265,7 +337,16 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
       libraryElement = unitElement.getEnclosingElement();
       if (libraryElement != null) {
         recordUnitElements(unitElement);
-        return super.visitCompilationUnit(node);
+        // each directive and declaration is recorded separately, so that the store can keep the
+        // relationships of the declarations that were not changed
+        for (Directive directive : node.getDirectives()) {
+          beginDeclaration(directive);
+          directive.accept(this);
+        }
+        for (CompilationUnitMember declaration : node.getDeclarations()) {
+          beginDeclaration(declaration);
+          declaration.accept(this);
+        }
       }
     }
     return null;
@@ -273,6 +354,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
 
   @Override
   public Void visitConstructorDeclaration(ConstructorDeclaration node) {
+    beginDeclaration(node);
     ConstructorElement element = node.getElement();
     // define
     {
@@ -322,6 +404,12 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     return super.visitExportDirective(node);
   }
 
+  @Override
+  public Void visitFieldDeclaration(FieldDeclaration node) {
+    beginDeclaration(node);
+    return super.visitFieldDeclaration(node);
+  }
+
   @Override
   public Void visitFunctionDeclaration(FunctionDeclaration node) {
     Element element = node.getElement();
@@ -357,6 +445,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
 
   @Override
   public Void visitMethodDeclaration(MethodDeclaration node) {
+    beginDeclaration(node);
     ExecutableElement element = node.getElement();
     enterScope(element);
     try {
@@ -539,6 +628,32 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     unnamedFunctionCount.push(0);
   }
 
+  /**
+   * Notifies the {@link IndexStore} that the relationships recorded next have their locations in
+   * the given directive or declaration. The content hash of the declaration is computed from its
+   * tokens and their positions relative to the first token, so that moving a declaration or
+   * changing its documentation comment does not change the hash.
+   */
+  private void beginDeclaration(ASTNode node) {
+    int offset = node.getOffset();
+    Token endToken = node.getEndToken();
+    Token firstToken = endToken;
+    int hash = 0;
+    // comments are not linked into the token stream, so they are not part of the hash
+    Token token = endToken;
+    while (token != null && token.getOffset() >= offset) {
+      String lexeme = token.getLexeme();
+      hash = hash * 31 + (lexeme != null ? lexeme.hashCode() : 0);
+      hash = hash * 31 + endToken.getOffset() - token.getOffset();
+      firstToken = token;
+      if (token.getPrevious() == token) {
+        break;
+      }
+      token = token.getPrevious();
+    }
+    store.beginDeclaration(getDeclarationKey(node), hash, firstToken.getOffset());
+  }
+
   /**
    * @return the {@link Location} representing location of the {@link ASTNode}.
    */
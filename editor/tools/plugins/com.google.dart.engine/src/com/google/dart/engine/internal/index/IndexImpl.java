@@ -16,10 +16,12 @@ package com.google.dart.engine.internal.index;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.HierarchyCallback;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.operation.GetHierarchyOperation;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
@@ -57,6 +59,16 @@ public class IndexImpl implements Index {
     return store.getStatistics();
   }
 
+  @Override
+  public void getSubtypes(Element type, HierarchyCallback callback) {
+    queue.enqueue(new GetHierarchyOperation(store, type, true, callback));
+  }
+
+  @Override
+  public void getSupertypes(Element type, HierarchyCallback callback) {
+    queue.enqueue(new GetHierarchyOperation(store, type, false, callback));
+  }
+
   @Override
   public void indexUnit(AnalysisContext context, CompilationUnit unit) {
     if (unit == null) {
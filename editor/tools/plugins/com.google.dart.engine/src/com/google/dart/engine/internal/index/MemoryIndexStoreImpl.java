@@ -23,6 +23,7 @@ import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
@@ -48,35 +49,82 @@ import java.util.Set;
  * @coverage dart.engine.index
  */
 public class MemoryIndexStoreImpl implements MemoryIndexStore {
+  /**
+   * Instances of the class {@code ElementRelationKey} identify the locations recorded for an
+   * {@link Element} and a {@link Relationship}. Elements are compared by their location and
+   * context, so a new version of an element, built when its source is resolved again, finds the
+   * locations recorded by sources that still reference the previous version. Computing a location
+   * allocates, so the elements are first compared by identity, and the location is computed only
+   * when the keys hold different instances, and then remembered.
+   */
   static class ElementRelationKey {
     final Element element;
     final Relationship relationship;
+    final AnalysisContext context;
+    private ElementLocation location;
 
     public ElementRelationKey(Element element, Relationship relationship) {
       this.element = element;
       this.relationship = relationship;
+      this.context = element.getContext();
     }
 
     @Override
     public boolean equals(Object obj) {
       ElementRelationKey other = (ElementRelationKey) obj;
-      if (other.relationship != relationship) {
+      if (other.relationship != relationship || other.context != context) {
         return false;
       }
-      if (element instanceof NameElementImpl) {
-        return Objects.equal(other.element, element);
+      if (other.element == element) {
+        return true;
       }
-      return other.element == element;
+      return other.element.getClass() == element.getClass()
+          && other.getLocation().equals(getLocation());
     }
 
     @Override
     public int hashCode() {
       return Objects.hashCode(element, relationship);
     }
+
+    private ElementLocation getLocation() {
+      if (location == null) {
+        location = element.getLocation();
+      }
+      return location;
+    }
+  }
+
+  /**
+   * Instances of the class {@code DeclarationLocations} hold the {@link ContributedLocation}s whose
+   * locations are in a single declaration of a {@link Source}, together with the content hash and
+   * offset of the declaration at the time the source was indexed.
+   */
+  static class DeclarationLocations {
+    final int hash;
+    final int offset;
+    final FastRemoveList<ContributedLocation> locations = FastRemoveList.newInstance();
+
+    public DeclarationLocations(int hash, int offset) {
+      this.hash = hash;
+      this.offset = offset;
+    }
   }
 
   private static final Object WEAK_SET_VALUE = new Object();
 
+  /**
+   * The key of the declaration that holds the locations recorded outside of any declaration.
+   */
+  private static final String NO_DECLARATION = "";
+
+  /**
+   * The number of previously recorded locations that are looked at when trying to reuse one of them
+   * for a relationship that is recorded again. The locations are looked at in the order in which
+   * they were recorded, so this allows to skip relationships that are not recorded anymore.
+   */
+  private static final int REUSE_LOOKAHEAD = 8;
+
   /**
    * @return the {@link Source} which contains given {@link Element}, may be {@code null}.
    */
@@ -98,6 +146,16 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     return null;
   }
 
+  /**
+   * @return {@code true} if the given {@link Relationship} is one of the relationships recorded
+   *         between a type and its direct subtypes.
+   */
+  private static boolean isHierarchyRelationship(Relationship relationship) {
+    return relationship == IndexConstants.IS_EXTENDED_BY
+        || relationship == IndexConstants.IS_MIXED_IN_BY
+        || relationship == IndexConstants.IS_IMPLEMENTED_BY;
+  }
+
   /**
    * When logging is on, {@link AnalysisEngine} actually creates
    * {@link InstrumentedAnalysisContextImpl}, which wraps {@link AnalysisContextImpl} used to create
@@ -132,9 +190,147 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
   final Map<AnalysisContext, Map<Source, List<Element>>> sourceToDeclarations = Maps.newHashMapWithExpectedSize(64);
 
   /**
-   * {@link ContributedLocation}s by {@link Source} where they are contributed.
+   * {@link ContributedLocation}s by {@link Source} and declaration key where they are contributed.
+   */
+  final Map<AnalysisContext, Map<Source, Map<String, DeclarationLocations>>> sourceToLocations = Maps.newHashMapWithExpectedSize(64);
+
+  /**
+   * The direct supertype/subtype edges recorded by the hierarchy relationships. The edges recorded
+   * by a location are removed when the type enclosing the location, which is declared in the same
+   * {@link Source}, is removed.
+   */
+  private final HierarchyIndex hierarchy = new HierarchyIndex();
+
+  /**
+   * The {@link AnalysisContext} of the {@link Source} being indexed, {@code null} if no source is
+   * being indexed.
    */
-  final Map<AnalysisContext, Map<Source, FastRemoveList<ContributedLocation>>> sourceToLocations = Maps.newHashMapWithExpectedSize(64);
+  private AnalysisContext indexContext;
+
+  /**
+   * The {@link Source} being indexed, {@code null} if no source is being indexed.
+   */
+  private Source indexSource;
+
+  /**
+   * The {@link Element}s declared in the {@link Source} being indexed when it was indexed before,
+   * {@code null} if the new declared elements have been recorded.
+   */
+  private List<Element> previousElements;
+
+  /**
+   * The declarations of the {@link Source} being indexed that were recorded when it was indexed
+   * before and have not been begun again.
+   */
+  private Map<String, DeclarationLocations> previousDeclarations;
+
+  /**
+   * The declarations of the {@link Source} being indexed that have been begun.
+   */
+  private Map<String, DeclarationLocations> indexDeclarations;
+
+  /**
+   * The declaration whose locations are being recorded, {@code null} if no declaration was begun.
+   */
+  private DeclarationLocations currentDeclaration;
+
+  /**
+   * The previous version of {@link #currentDeclaration}, {@code null} if there is no previous
+   * version or its locations cannot be reused.
+   */
+  private DeclarationLocations previousDeclaration;
+
+  /**
+   * The {@link ContributedLocation}s of {@link #previousDeclaration} that can be reused, in the
+   * order in which they were recorded.
+   */
+  private final List<ContributedLocation> reusableLocations = Lists.newArrayList();
+
+  /**
+   * The index in {@link #reusableLocations} of the first location that was not reused or skipped.
+   */
+  private int reusableIndex;
+
+  @Override
+  public void aboutToIndex(AnalysisContext context, Source source) {
+    context = unwrapContext(context);
+    doneIndex();
+    if (removedContexts.containsKey(context)) {
+      return;
+    }
+    indexContext = context;
+    indexSource = source;
+    // detach declared elements, stale ones are removed when the new ones are recorded
+    {
+      Map<Source, List<Element>> contextElements = sourceToDeclarations.get(context);
+      if (contextElements != null) {
+        previousElements = contextElements.remove(source);
+        if (previousElements != null) {
+          elementCount -= previousElements.size();
+        }
+      }
+    }
+    // detach declarations, they are either reused or removed
+    Map<Source, Map<String, DeclarationLocations>> contextLocations = sourceToLocations.get(context);
+    if (contextLocations == null) {
+      contextLocations = Maps.newHashMap();
+      sourceToLocations.put(context, contextLocations);
+    }
+    previousDeclarations = contextLocations.get(source);
+    if (previousDeclarations == null) {
+      previousDeclarations = Maps.newHashMap();
+    }
+    indexDeclarations = Maps.newHashMap();
+    contextLocations.put(source, indexDeclarations);
+  }
+
+  @Override
+  public void beginDeclaration(String key, int hash, int offset) {
+    if (indexDeclarations == null) {
+      return;
+    }
+    finishDeclaration();
+    // keys are expected to be unique, but declarations with errors may have the same name
+    String uniqueKey = key;
+    for (int i = 2; indexDeclarations.containsKey(uniqueKey); i++) {
+      uniqueKey = key + "#" + i;
+    }
+    currentDeclaration = new DeclarationLocations(hash, offset);
+    indexDeclarations.put(uniqueKey, currentDeclaration);
+    // the hash decides if the previous locations should be reused or replaced
+    DeclarationLocations previous = previousDeclarations.remove(uniqueKey);
+    if (previous != null) {
+      if (previous.hash == hash) {
+        previousDeclaration = previous;
+        for (ContributedLocation contributedLocation : previous.locations) {
+          reusableLocations.add(contributedLocation);
+        }
+      } else {
+        removeSourceContributedLocations(previous.locations);
+      }
+    }
+  }
+
+  @Override
+  public void doneIndex() {
+    if (indexDeclarations == null) {
+      return;
+    }
+    finishDeclaration();
+    // remove declarations that are not in the source anymore
+    for (DeclarationLocations declaration : previousDeclarations.values()) {
+      removeSourceContributedLocations(declaration.locations);
+    }
+    // new declared elements were not recorded, so remove the previous ones
+    if (previousElements != null) {
+      removeSourceDeclaredElements(previousElements);
+    }
+    indexContext = null;
+    indexSource = null;
+    previousElements = null;
+    previousDeclarations = null;
+    indexDeclarations = null;
+  }
 
   @VisibleForTesting
   public int getDeclarationCount(AnalysisContext context) {
@@ -153,10 +349,12 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
   public int getLocationCount(AnalysisContext context) {
     context = unwrapContext(context);
     int count = 0;
-    Map<Source, FastRemoveList<ContributedLocation>> contextLocations = sourceToLocations.get(context);
+    Map<Source, Map<String, DeclarationLocations>> contextLocations = sourceToLocations.get(context);
     if (contextLocations != null) {
-      for (FastRemoveList<ContributedLocation> contributedLocations : contextLocations.values()) {
-        count += contributedLocations.size();
+      for (Map<String, DeclarationLocations> sourceDeclarations : contextLocations.values()) {
+        for (DeclarationLocations declaration : sourceDeclarations.values()) {
+          count += declaration.locations.size();
+        }
       }
     }
     return count;
@@ -184,6 +382,16 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
         + " sources";
   }
 
+  @Override
+  public Element[] getSubtypes(Element type) {
+    return hierarchy.getSubtypes(type);
+  }
+
+  @Override
+  public Element[] getSupertypes(Element type) {
+    return hierarchy.getSupertypes(type);
+  }
+
   public int internalGetElementCount() {
     Set<Element> elements = Sets.newHashSet();
     for (ElementRelationKey key : relationshipMap.keySet()) {
@@ -243,21 +451,23 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
         && !(element instanceof UniverseElementImpl)) {
       return;
     }
+    // prepare declaration of the location
+    FastRemoveList<ContributedLocation> sourceLocations;
+    if (locationContext == indexContext && Objects.equal(locationSource, indexSource)) {
+      if (currentDeclaration == null) {
+        beginDeclaration(NO_DECLARATION, 0, 0);
+      }
+      // the same relationship was recorded when the declaration was indexed before
+      if (reuseLocation(element, relationship, location)) {
+        return;
+      }
+      sourceLocations = currentDeclaration.locations;
+    } else {
+      sourceLocations = getDefaultDeclaration(locationContext, locationSource).locations;
+    }
     // remember sources
     addSource(elementContext, elementSource);
     addSource(locationContext, locationSource);
-    //
-    Map<Source, FastRemoveList<ContributedLocation>> contextLocations = sourceToLocations.get(locationContext);
-    if (contextLocations == null) {
-      contextLocations = Maps.newHashMap();
-      sourceToLocations.put(locationContext, contextLocations);
-    }
-    //
-    FastRemoveList<ContributedLocation> sourceLocations = contextLocations.get(locationSource);
-    if (sourceLocations == null) {
-      sourceLocations = FastRemoveList.newInstance();
-      contextLocations.put(locationSource, sourceLocations);
-    }
     // add ContributedLocation for "element"
     {
       ElementRelationKey relKey = new ElementRelationKey(element, relationship);
@@ -266,9 +476,13 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
         locations = FastRemoveList.newInstance();
         relationshipMap.put(relKey, locations);
       }
-      new ContributedLocation(sourceLocations, locations, location);
+      new ContributedLocation(sourceLocations, locations, element, relationship, location);
       relationshipCount++;
     }
+    // remember hierarchy edge
+    if (isHierarchyRelationship(relationship)) {
+      hierarchy.addEdge(element, location.getElement());
+    }
   }
 
   @Override
@@ -282,6 +496,12 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       contextElements = Maps.newHashMap();
       sourceToDeclarations.put(context, contextElements);
     }
+    // replace Element(s) declared in Source being indexed
+    if (unwrapContext(context) == indexContext && Objects.equal(source, indexSource)
+        && previousElements != null) {
+      removeReplacedElements(previousElements, elements);
+      previousElements = null;
+    }
     // remember Element in Source
     List<Element> sourceElements = contextElements.get(source);
     if (sourceElements == null) {
@@ -312,10 +532,10 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       }
     }
     // remove relationships in Source(s) of removed context
-    Map<Source, FastRemoveList<ContributedLocation>> contextLocations = sourceToLocations.remove(context);
+    Map<Source, Map<String, DeclarationLocations>> contextLocations = sourceToLocations.remove(context);
     if (contextLocations != null) {
-      for (FastRemoveList<ContributedLocation> sourceLocations : contextLocations.values()) {
-        removeSourceContributedLocations(sourceLocations);
+      for (Map<String, DeclarationLocations> sourceDeclarations : contextLocations.values()) {
+        removeSourceDeclarations(sourceDeclarations);
       }
     }
   }
@@ -342,11 +562,11 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       }
     }
     // remove relationships in removed source
-    Map<Source, FastRemoveList<ContributedLocation>> contextLocations = sourceToLocations.get(context);
+    Map<Source, Map<String, DeclarationLocations>> contextLocations = sourceToLocations.get(context);
     if (contextLocations != null) {
-      FastRemoveList<ContributedLocation> sourceLocations = contextLocations.remove(source);
-      if (sourceLocations != null) {
-        removeSourceContributedLocations(sourceLocations);
+      Map<String, DeclarationLocations> sourceDeclarations = contextLocations.remove(source);
+      if (sourceDeclarations != null) {
+        removeSourceDeclarations(sourceDeclarations);
       }
     }
   }
@@ -390,6 +610,92 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     }
   }
 
+  /**
+   * Removes the {@link ContributedLocation}s of the previous version of the current declaration
+   * that were not reused.
+   */
+  private void finishDeclaration() {
+    if (previousDeclaration != null) {
+      removeSourceContributedLocations(previousDeclaration.locations);
+      previousDeclaration = null;
+    }
+    reusableLocations.clear();
+    reusableIndex = 0;
+    currentDeclaration = null;
+  }
+
+  /**
+   * @return the {@link DeclarationLocations} for the locations recorded in the given {@link Source}
+   *         outside of any declaration.
+   */
+  private DeclarationLocations getDefaultDeclaration(AnalysisContext context, Source source) {
+    Map<Source, Map<String, DeclarationLocations>> contextLocations = sourceToLocations.get(context);
+    if (contextLocations == null) {
+      contextLocations = Maps.newHashMap();
+      sourceToLocations.put(context, contextLocations);
+    }
+    Map<String, DeclarationLocations> sourceDeclarations = contextLocations.get(source);
+    if (sourceDeclarations == null) {
+      sourceDeclarations = Maps.newHashMap();
+      contextLocations.put(source, sourceDeclarations);
+    }
+    DeclarationLocations declaration = sourceDeclarations.get(NO_DECLARATION);
+    if (declaration == null) {
+      declaration = new DeclarationLocations(0, 0);
+      sourceDeclarations.put(NO_DECLARATION, declaration);
+    }
+    return declaration;
+  }
+
+  /**
+   * @return {@code true} if the given {@link ContributedLocation} of the previous version of the
+   *         current declaration records the given relationship at the same position.
+   */
+  private boolean isSameRelationship(ContributedLocation contributedLocation, Element element,
+      Relationship relationship, Location location) {
+    if (contributedLocation.getRelationship() != relationship) {
+      return false;
+    }
+    Element previousElement = contributedLocation.getElement();
+    if (previousElement != element && !element.equals(previousElement)) {
+      return false;
+    }
+    Location previousLocation = contributedLocation.getLocation();
+    return previousLocation.getOffset() - previousDeclaration.offset == location.getOffset()
+        - currentDeclaration.offset
+        && previousLocation.getLength() == location.getLength()
+        && Objects.equal(previousLocation.getImportPrefix(), location.getImportPrefix());
+  }
+
+  /**
+   * Removes the relationships with the given previously declared {@link Element}s that are not
+   * declared anymore. Elements that are still declared, possibly as a new version with the same
+   * location, keep their relationships, including the ones recorded by other sources.
+   */
+  private void removeReplacedElements(List<Element> oldElements, List<Element> newElements) {
+    Map<Element, Element> newElementMap = Maps.newHashMapWithExpectedSize(newElements.size());
+    for (Element newElement : newElements) {
+      newElementMap.put(newElement, newElement);
+    }
+    List<Element> replacedElements = Lists.newArrayList();
+    for (Element oldElement : oldElements) {
+      Element newElement = newElementMap.get(oldElement);
+      if (newElement == null) {
+        replacedElements.add(oldElement);
+      } else {
+        // the supertypes are recorded again, the subtypes may be in other sources
+        hierarchy.resetSupertypes(newElement);
+        replaceKeyElement(newElement);
+      }
+    }
+    if (!replacedElements.isEmpty()) {
+      removeSourceDeclaredElements(replacedElements);
+      // some of the reusable locations may have been removed, so don't reuse them
+      reusableLocations.clear();
+      reusableIndex = 0;
+    }
+  }
+
   private void removeSourceContributedLocations(FastRemoveList<ContributedLocation> sourceLocations) {
     for (ContributedLocation contributedLocation : sourceLocations) {
       contributedLocation.removeFromLocationOwner();
@@ -397,8 +703,15 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     }
   }
 
+  private void removeSourceDeclarations(Map<String, DeclarationLocations> sourceDeclarations) {
+    for (DeclarationLocations declaration : sourceDeclarations.values()) {
+      removeSourceContributedLocations(declaration.locations);
+    }
+  }
+
   private void removeSourceDeclaredElements(List<Element> sourceElements) {
     for (Element sourceElement : sourceElements) {
+      hierarchy.removeType(sourceElement);
       for (Relationship relationship : Relationship.values()) {
         ElementRelationKey relKey = new ElementRelationKey(sourceElement, relationship);
         FastRemoveList<ContributedLocation> contributedLocations = relationshipMap.remove(relKey);
@@ -411,4 +724,41 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       }
     }
   }
+
+  /**
+   * Replaces the keys of the relationships with the previous version of the given {@link Element}
+   * with keys for the given version, so that the previous version can be garbage collected.
+   */
+  private void replaceKeyElement(Element element) {
+    for (Relationship relationship : Relationship.values()) {
+      ElementRelationKey relKey = new ElementRelationKey(element, relationship);
+      FastRemoveList<ContributedLocation> contributedLocations = relationshipMap.remove(relKey);
+      if (contributedLocations != null) {
+        relationshipMap.put(relKey, contributedLocations);
+      }
+    }
+  }
+
+  /**
+   * Attempts to reuse one of the {@link ContributedLocation}s of the previous version of the
+   * current declaration for the given relationship, which is being recorded again.
+   * 
+   * @return {@code true} if a {@link ContributedLocation} was reused
+   */
+  private boolean reuseLocation(Element element, Relationship relationship, Location location) {
+    int end = Math.min(reusableIndex + REUSE_LOOKAHEAD, reusableLocations.size());
+    for (int i = reusableIndex; i < end; i++) {
+      ContributedLocation contributedLocation = reusableLocations.get(i);
+      if (isSameRelationship(contributedLocation, element, relationship, location)) {
+        contributedLocation.moveToDeclarationOwner(currentDeclaration.locations, location);
+        reusableIndex = i + 1;
+        // the location may be in a new version of the subtype
+        if (isHierarchyRelationship(relationship)) {
+          hierarchy.addEdge(element, location.getElement());
+        }
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.HierarchyCallback;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.source.Source;
+
+/**
+ * Instances of the {@link GetHierarchyOperation} implement an operation used to access the direct
+ * and indirect subtypes or supertypes of a specified type.
+ * 
+ * @coverage dart.engine.index
+ */
+public class GetHierarchyOperation implements IndexOperation {
+  private final IndexStore indexStore;
+  private final Element type;
+  private final boolean subtypes;
+  private final HierarchyCallback callback;
+
+  /**
+   * Initialize a newly created operation that will access the subtypes or supertypes of a specified
+   * type.
+   * 
+   * @param indexStore the index store to be queried
+   * @param type the type whose subtypes or supertypes are to be accessed
+   * @param subtypes {@code true} if the subtypes are to be accessed, {@code false} if the
+   *          supertypes are to be accessed
+   * @param callback the callback that will be invoked with the types that were found
+   */
+  public GetHierarchyOperation(IndexStore indexStore, Element type, boolean subtypes,
+      HierarchyCallback callback) {
+    this.indexStore = indexStore;
+    this.type = type;
+    this.subtypes = subtypes;
+    this.callback = callback;
+  }
+
+  @VisibleForTesting
+  public HierarchyCallback getCallback() {
+    return callback;
+  }
+
+  @VisibleForTesting
+  public Element getType() {
+    return type;
+  }
+
+  @Override
+  public boolean isQuery() {
+    return true;
+  }
+
+  @VisibleForTesting
+  public boolean isSubtypes() {
+    return subtypes;
+  }
+
+  @Override
+  public void performOperation() {
+    Element[] types;
+    synchronized (indexStore) {
+      types = subtypes ? indexStore.getSubtypes(type) : indexStore.getSupertypes(type);
+    }
+    callback.hasTypes(type, types);
+  }
+
+  @Override
+  public boolean removeWhenSourceRemoved(Source source) {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return (subtypes ? "GetSubtypes(" : "GetSupertypes(") + type + ")";
+  }
+}
@@ -86,7 +86,7 @@ public class IndexUnitOperation implements IndexOperation {
   @Override
   public void performOperation() {
     synchronized (indexStore) {
-      indexStore.removeSource(context, source);
+      indexStore.aboutToIndex(context, source);
       try {
         IndexContributor contributor = new IndexContributor(indexStore);
         unit.accept(contributor);
@@ -94,6 +94,8 @@ public class IndexUnitOperation implements IndexOperation {
         AnalysisEngine.getInstance().getLogger().logError(
             "Could not index " + unit.getElement().getLocation(),
             exception);
+      } finally {
+        indexStore.doneIndex();
       }
     }
   }
@@ -27,6 +27,7 @@ import com.google.dart.engine.ast.ShowCombinator;
 import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.ast.StringLiteral;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ExportElement;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
@@ -43,7 +44,10 @@ import com.google.dart.engine.internal.element.ImportElementImpl;
 import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.element.PrefixElementImpl;
 import com.google.dart.engine.internal.element.ShowCombinatorImpl;
+import com.google.dart.engine.internal.element.member.MemberCache;
 import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
+import com.google.dart.engine.internal.scope.NamespaceSummaryBuilder;
 import com.google.dart.engine.internal.verifier.ConstantVerifier;
 import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.sdk.DartSdk;
@@ -177,6 +181,8 @@ public class LibraryResolver {
     try {
       instrumentation.metric("fullAnalysis", fullAnalysis);
       instrumentation.data("fullName", librarySource.getFullName());
+      long membersCreated = MemberCache.getCreatedCount();
+      long membersReused = MemberCache.getReusedCount();
       //
       // Create the objects representing the library being resolved and the core library.
       //
@@ -243,6 +249,8 @@ public class LibraryResolver {
       }
       recordResults();
       instrumentation.metric("recordResults", "complete");
+      instrumentation.metric("membersCreated", MemberCache.getCreatedCount() - membersCreated);
+      instrumentation.metric("membersReused", MemberCache.getReusedCount() - membersReused);
       return targetLibrary.getLibraryElement();
     } finally {
       instrumentation.log();
@@ -268,6 +276,8 @@ public class LibraryResolver {
     try {
       instrumentation.metric("fullAnalysis", fullAnalysis);
       instrumentation.data("fullName", librarySource.getFullName());
+      long membersCreated = MemberCache.getCreatedCount();
+      long membersReused = MemberCache.getReusedCount();
       //
       // Create the objects representing the library being resolved and the core library.
       //
@@ -334,6 +344,8 @@ public class LibraryResolver {
       }
       recordResults();
       instrumentation.metric("recordResults", "complete");
+      instrumentation.metric("membersCreated", MemberCache.getCreatedCount() - membersCreated);
+      instrumentation.metric("membersReused", MemberCache.getReusedCount() - membersReused);
       instrumentation.metric("librariesInCycles", librariesInCycles.size());
       for (Library lib : librariesInCycles) {
         instrumentation.metric(
@@ -689,6 +701,42 @@ public class LibraryResolver {
     return library;
   }
 
+  /**
+   * Create a summary of the public namespace of the given library from the compilation units that
+   * were resolved, so that the summary describes the same contents as the element model. The names
+   * exported by the library are taken from the summaries that have already been created during this
+   * resolution, or from the analysis context for libraries that were not resolved.
+   * 
+   * @param library the library whose public namespace is to be summarized
+   * @param summaryMap the summaries that have already been created during this resolution
+   * @return the summary of the public namespace of the library
+   * @throws AnalysisException if the AST structure of one of the compilation units is not available
+   */
+  private NamespaceSummary createSummary(Library library,
+      HashMap<Source, NamespaceSummary> summaryMap) throws AnalysisException {
+    CompilationUnit definingUnit = library.getDefiningCompilationUnit();
+    ArrayList<CompilationUnit> parts = new ArrayList<CompilationUnit>();
+    for (CompilationUnitElement part : library.getLibraryElement().getParts()) {
+      parts.add(library.getAST(part.getSource()));
+    }
+    ArrayList<NamespaceSummary> exportedSummaries = new ArrayList<NamespaceSummary>();
+    for (Directive directive : definingUnit.getDirectives()) {
+      if (directive instanceof ExportDirective) {
+        Library exportedLibrary = library.getExport((ExportDirective) directive);
+        NamespaceSummary exportedSummary = null;
+        if (exportedLibrary != null) {
+          Source exportedSource = exportedLibrary.getLibrarySource();
+          exportedSummary = summaryMap.get(exportedSource);
+          if (exportedSummary == null) {
+            exportedSummary = analysisContext.getPublicNamespaceSummary(exportedSource);
+          }
+        }
+        exportedSummaries.add(exportedSummary);
+      }
+    }
+    return new NamespaceSummaryBuilder().createSummary(definingUnit, parts, exportedSummaries);
+  }
+
   /**
    * Return {@code true} if and only if the passed {@link CompilationUnit} has a part-of directive.
    * 
@@ -749,11 +797,13 @@ public class LibraryResolver {
    * <ul>
    * <li>the resolved AST associated with each compilation unit,</li>
    * <li>the set of resolution errors produced for each compilation unit, and</li>
-   * <li>the element models produced for each library.</li>
+   * <li>the element models produced for each library, and</li>
+   * <li>the summary of the public namespace of each library that is not in the SDK.</li>
    * </ul>
    */
   private void recordResults() throws AnalysisException {
     HashMap<Source, LibraryElement> elementMap = new HashMap<Source, LibraryElement>();
+    HashMap<Source, NamespaceSummary> summaryMap = new HashMap<Source, NamespaceSummary>();
     for (Library library : librariesInCycles) {
       Source librarySource = library.getLibrarySource();
       recordResults(librarySource, librarySource, library.getDefiningCompilationUnit());
@@ -761,8 +811,11 @@ public class LibraryResolver {
         recordResults(source, librarySource, library.getAST(source));
       }
       elementMap.put(library.getLibrarySource(), library.getLibraryElement());
+      if (!librarySource.isInSystemLibrary()) {
+        summaryMap.put(librarySource, createSummary(library, summaryMap));
+      }
     }
-    analysisContext.recordLibraryElements(elementMap);
+    analysisContext.recordLibraryElements(elementMap, summaryMap);
   }
 
   private void recordResults(Source source, Source librarySource, CompilationUnit unit) {
@@ -813,7 +866,13 @@ public class LibraryResolver {
 
   /**
    * Run additional analyses, such as the {@link ConstantVerifier} and {@link ErrorVerifier}
-   * analysis in the given library.
+   * analysis in the given library. The {@link ErrorVerifier} also makes the checks of the
+   * {@link ConstantVerifier}, so a single traversal of each compilation unit is needed.
+   * <p>
+   * The compilation units are verified one at a time on the calling thread. The verifiers must not
+   * run concurrently: they read element and type information that is computed lazily and cached
+   * without synchronization, such as the member lookup tables of the {@link InheritanceManager}
+   * that is shared by all of the compilation units of the library.
    * 
    * @param library the library to have the extra analyses processes run
    * @throws AnalysisException if any of the identifiers could not be resolved or if the types in
@@ -830,9 +889,6 @@ public class LibraryResolver {
           typeProvider,
           library.getInheritanceManager());
       unit.accept(errorVerifier);
-
-      ConstantVerifier constantVerifier = new ConstantVerifier(errorReporter);
-      unit.accept(constantVerifier);
     }
   }
 
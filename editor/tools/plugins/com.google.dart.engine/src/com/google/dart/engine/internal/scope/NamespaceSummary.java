@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.element.ElementKind;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Instances of the class {@code NamespaceSummary} represent a compact summary of the names that a
+ * library makes available to the libraries that import it: the public names declared in the library
+ * and the names that it exports from other libraries. Unlike a {@link Namespace}, a summary does
+ * not reference any elements, so it can be computed without building the element model of the
+ * library and can be written to and read from a stream.
+ * <p>
+ * In addition to the names and the kinds of the elements they represent, a summary records an API
+ * signature: a hash of the declarations in the library, excluding the bodies of functions and
+ * methods, combined with the signatures of the exported libraries. Two versions of a library that
+ * have the same API signature are guaranteed to have the same public API, so edits that only
+ * change function bodies do not change the signature.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class NamespaceSummary {
+  /**
+   * The public names defined by the library, in sorted order.
+   */
+  private final String[] names;
+
+  /**
+   * The kinds of the elements represented by the names, parallel to {@link #names}.
+   */
+  private final ElementKind[] kinds;
+
+  /**
+   * The hash of the declarations in the library, excluding function bodies.
+   */
+  private final long apiSignature;
+
+  /**
+   * An array containing all of the element kinds, used to map ordinals back to kinds when reading.
+   */
+  private static final ElementKind[] ELEMENT_KINDS = ElementKind.values();
+
+  /**
+   * Initialize a newly created summary.
+   * 
+   * @param names the public names defined by the library, in sorted order
+   * @param kinds the kinds of the elements represented by the names
+   * @param apiSignature the hash of the declarations in the library, excluding function bodies
+   */
+  public NamespaceSummary(String[] names, ElementKind[] kinds, long apiSignature) {
+    this.names = names;
+    this.kinds = kinds;
+    this.apiSignature = apiSignature;
+  }
+
+  /**
+   * Read a summary from the given input. The summary must have been written by
+   * {@link #writeTo(DataOutput)}.
+   * 
+   * @param input the input from which the summary is to be read
+   * @return the summary that was read
+   * @throws IOException if the summary could not be read
+   */
+  public static NamespaceSummary readFrom(DataInput input) throws IOException {
+    long apiSignature = input.readLong();
+    int count = input.readInt();
+    String[] names = new String[count];
+    ElementKind[] kinds = new ElementKind[count];
+    for (int i = 0; i < count; i++) {
+      names[i] = input.readUTF();
+      int ordinal = input.readByte();
+      if (ordinal < 0 || ordinal >= ELEMENT_KINDS.length) {
+        throw new IOException("Invalid element kind in namespace summary: " + ordinal);
+      }
+      kinds[i] = ELEMENT_KINDS[ordinal];
+    }
+    return new NamespaceSummary(names, kinds, apiSignature);
+  }
+
+  /**
+   * Return {@code true} if the given name is defined in the public namespace of the library.
+   * 
+   * @param name the name being tested
+   * @return {@code true} if the given name is defined in the public namespace
+   */
+  public boolean contains(String name) {
+    return Arrays.binarySearch(names, name) >= 0;
+  }
+
+  /**
+   * Return the hash of the declarations in the library, excluding function bodies.
+   * 
+   * @return the API signature of the library
+   */
+  public long getApiSignature() {
+    return apiSignature;
+  }
+
+  /**
+   * Return the kind of the element represented by the given name, or {@code null} if the name is
+   * not defined in the public namespace of the library.
+   * 
+   * @param name the name whose kind is to be returned
+   * @return the kind of the element represented by the given name
+   */
+  public ElementKind getKind(String name) {
+    int index = Arrays.binarySearch(names, name);
+    if (index < 0) {
+      return null;
+    }
+    return kinds[index];
+  }
+
+  /**
+   * Return the public names defined by the library, in sorted order.
+   * 
+   * @return the public names defined by the library
+   */
+  public String[] getNames() {
+    return names.clone();
+  }
+
+  /**
+   * Return {@code true} if this summary describes the same public API as the given summary.
+   * 
+   * @param summary the summary being compared with this summary
+   * @return {@code true} if the summaries describe the same public API
+   */
+  public boolean hasSameApi(NamespaceSummary summary) {
+    return summary != null && apiSignature == summary.apiSignature
+        && Arrays.equals(names, summary.names) && Arrays.equals(kinds, summary.kinds);
+  }
+
+  /**
+   * Return the number of public names defined by the library.
+   * 
+   * @return the number of public names defined by the library
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Write this summary to the given output in a form that can be read by
+   * {@link #readFrom(DataInput)}.
+   * 
+   * @param output the output to which this summary is to be written
+   * @throws IOException if the summary could not be written
+   */
+  public void writeTo(DataOutput output) throws IOException {
+    output.writeLong(apiSignature);
+    output.writeInt(names.length);
+    for (int i = 0; i < names.length; i++) {
+      output.writeUTF(names[i]);
+      output.writeByte(kinds[i].ordinal());
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.ast.Block;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.ast.ClassTypeAlias;
+import com.google.dart.engine.ast.Combinator;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.CompilationUnitMember;
+import com.google.dart.engine.ast.Directive;
+import com.google.dart.engine.ast.ExportDirective;
+import com.google.dart.engine.ast.Expression;
+import com.google.dart.engine.ast.ExpressionFunctionBody;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.FunctionTypeAlias;
+import com.google.dart.engine.ast.HideCombinator;
+import com.google.dart.engine.ast.NodeList;
+import com.google.dart.engine.ast.ShowCombinator;
+import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.TopLevelVariableDeclaration;
+import com.google.dart.engine.ast.VariableDeclaration;
+import com.google.dart.engine.ast.VariableDeclarationList;
+import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.scanner.Token;
+import com.google.dart.engine.scanner.TokenType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Instances of the class {@code NamespaceSummaryBuilder} are used to build a
+ * {@link NamespaceSummary} from the AST structures of the compilation units in a library and the
+ * summaries of the libraries that it exports. Only the declarations are examined, so the
+ * compilation units can have been parsed without parsing function bodies. Summary builders are
+ * thread-safe and re-usable.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class NamespaceSummaryBuilder {
+  /**
+   * Initialize a newly created summary builder.
+   */
+  public NamespaceSummaryBuilder() {
+    super();
+  }
+
+  /**
+   * Create a summary of the names that the library composed of the given compilation units makes
+   * available to the libraries that import it: the public names that it declares and the names that
+   * it exports from other libraries. This must be kept consistent with the names added by
+   * {@link NamespaceBuilder#createExportNamespace(com.google.dart.engine.element.LibraryElement)}.
+   * 
+   * @param definingUnit the defining compilation unit of the library
+   * @param parts the compilation units of the parts included in the library, in the order in which
+   *          they are included
+   * @param exportedSummaries the summaries of the libraries exported by the library, one for each
+   *          export directive in the defining compilation unit in the order in which they appear,
+   *          with {@code null} for a directive whose library does not exist or is not added because
+   *          of a cycle of exports
+   * @return the summary that was created
+   */
+  public NamespaceSummary createSummary(CompilationUnit definingUnit, List<CompilationUnit> parts,
+      List<NamespaceSummary> exportedSummaries) {
+    HashMap<String, ElementKind> definedNames = new HashMap<String, ElementKind>();
+    long apiSignature = 17L;
+    int exportIndex = 0;
+    for (Directive directive : definingUnit.getDirectives()) {
+      if (directive instanceof ExportDirective) {
+        NamespaceSummary exportedSummary = exportedSummaries.get(exportIndex++);
+        if (exportedSummary != null) {
+          addExportedNames(
+              definedNames,
+              exportedSummary,
+              ((ExportDirective) directive).getCombinators());
+          apiSignature = 31 * apiSignature + exportedSummary.getApiSignature();
+        }
+      }
+    }
+    addPublicNames(definedNames, definingUnit);
+    apiSignature = computeApiSignature(apiSignature, definingUnit);
+    for (CompilationUnit part : parts) {
+      addPublicNames(definedNames, part);
+      apiSignature = computeApiSignature(apiSignature, part);
+    }
+    String[] names = definedNames.keySet().toArray(new String[definedNames.size()]);
+    Arrays.sort(names);
+    ElementKind[] kinds = new ElementKind[names.length];
+    for (int i = 0; i < names.length; i++) {
+      kinds[i] = definedNames.get(names[i]);
+    }
+    return new NamespaceSummary(names, kinds, apiSignature);
+  }
+
+  /**
+   * Add to the given mapping table the names in the given summary of an exported library that are
+   * not hidden by the given combinators. As in the {@link NamespaceBuilder}, a combinator applies
+   * to the exact names that it lists.
+   * 
+   * @param definedNames the mapping table to which the exported names are to be added
+   * @param exportedSummary the summary of the exported library
+   * @param combinators the combinators of the export directive
+   */
+  private void addExportedNames(HashMap<String, ElementKind> definedNames,
+      NamespaceSummary exportedSummary, NodeList<Combinator> combinators) {
+    HashSet<String> exportedNames = new HashSet<String>(Arrays.asList(exportedSummary.getNames()));
+    for (Combinator combinator : combinators) {
+      if (combinator instanceof HideCombinator) {
+        for (SimpleIdentifier name : ((HideCombinator) combinator).getHiddenNames()) {
+          exportedNames.remove(name.getName());
+        }
+      } else if (combinator instanceof ShowCombinator) {
+        HashSet<String> shownNames = new HashSet<String>();
+        for (SimpleIdentifier name : ((ShowCombinator) combinator).getShownNames()) {
+          if (exportedNames.contains(name.getName())) {
+            shownNames.add(name.getName());
+          }
+        }
+        exportedNames = shownNames;
+      }
+    }
+    for (String name : exportedNames) {
+      definedNames.put(name, exportedSummary.getKind(name));
+    }
+  }
+
+  /**
+   * Add the given name to the given mapping table if it is a publicly visible name.
+   * 
+   * @param definedNames the mapping table to which the public name is to be added
+   * @param identifier the identifier whose name is to be added
+   * @param suffix the suffix to be added to the name, used to distinguish setters from getters
+   * @param kind the kind of element represented by the name
+   */
+  private void addIfPublic(HashMap<String, ElementKind> definedNames, SimpleIdentifier identifier,
+      String suffix, ElementKind kind) {
+    if (identifier == null) {
+      return;
+    }
+    String name = identifier.getName();
+    if (name != null && name.length() > 0 && !Scope.isPrivateName(name)) {
+      definedNames.put(name + suffix, kind);
+    }
+  }
+
+  /**
+   * Add to the given mapping table all of the public top-level names that are declared in the given
+   * compilation unit. This must be kept consistent with the names added by
+   * {@link NamespaceBuilder#createPublicNamespace(com.google.dart.engine.element.LibraryElement)}.
+   * 
+   * @param definedNames the mapping table to which the public names are to be added
+   * @param unit the compilation unit declaring the names to be added
+   */
+  private void addPublicNames(HashMap<String, ElementKind> definedNames, CompilationUnit unit) {
+    for (CompilationUnitMember member : unit.getDeclarations()) {
+      if (member instanceof ClassDeclaration) {
+        addIfPublic(definedNames, ((ClassDeclaration) member).getName(), "", ElementKind.CLASS);
+      } else if (member instanceof ClassTypeAlias) {
+        addIfPublic(definedNames, ((ClassTypeAlias) member).getName(), "", ElementKind.CLASS);
+      } else if (member instanceof FunctionTypeAlias) {
+        addIfPublic(
+            definedNames,
+            ((FunctionTypeAlias) member).getName(),
+            "",
+            ElementKind.FUNCTION_TYPE_ALIAS);
+      } else if (member instanceof FunctionDeclaration) {
+        FunctionDeclaration function = (FunctionDeclaration) member;
+        if (function.isGetter()) {
+          addIfPublic(definedNames, function.getName(), "", ElementKind.GETTER);
+        } else if (function.isSetter()) {
+          addIfPublic(definedNames, function.getName(), "=", ElementKind.SETTER);
+        } else {
+          addIfPublic(definedNames, function.getName(), "", ElementKind.FUNCTION);
+        }
+      } else if (member instanceof TopLevelVariableDeclaration) {
+        VariableDeclarationList list = ((TopLevelVariableDeclaration) member).getVariables();
+        boolean hasSetter = !list.isConst() && !list.isFinal();
+        for (VariableDeclaration variable : list.getVariables()) {
+          addIfPublic(definedNames, variable.getName(), "", ElementKind.GETTER);
+          if (hasSetter) {
+            addIfPublic(definedNames, variable.getName(), "=", ElementKind.SETTER);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Combine the given signature with a hash of the tokens in the given compilation unit, excluding
+   * the tokens in function bodies and comments.
+   * 
+   * @param signature the signature computed from the compilation units that have already been
+   *          visited
+   * @param unit the compilation unit whose tokens are to be added to the signature
+   * @return the signature of the compilation unit combined with the given signature
+   */
+  private long computeApiSignature(long signature, CompilationUnit unit) {
+    //
+    // Build a table mapping the first token of each function body to the token following the body.
+    //
+    final HashMap<Token, Token> bodies = new HashMap<Token, Token>();
+    unit.accept(new RecursiveASTVisitor<Void>() {
+      @Override
+      public Void visitBlockFunctionBody(BlockFunctionBody node) {
+        Block block = node.getBlock();
+        Token first = block.getLeftBracket().getNext();
+        if (first != block.getRightBracket()) {
+          bodies.put(first, block.getRightBracket());
+        }
+        return null;
+      }
+
+      @Override
+      public Void visitExpressionFunctionBody(ExpressionFunctionBody node) {
+        Expression expression = node.getExpression();
+        bodies.put(expression.getBeginToken(), expression.getEndToken().getNext());
+        return null;
+      }
+    });
+    //
+    // Hash the remaining tokens.
+    //
+    signature = 31 * signature + unit.getDeclarations().size();
+    Token token = unit.getBeginToken();
+    while (token != null && token.getType() != TokenType.EOF) {
+      Token next = bodies.get(token);
+      if (next != null) {
+        signature = 31 * signature + 1;
+        token = next;
+      } else {
+        signature = 31 * signature + token.getLexeme().hashCode();
+        token = token.getNext();
+      }
+    }
+    return signature;
+  }
+}
@@ -13,6 +13,9 @@
  */
 package com.google.dart.engine.internal.search;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
@@ -28,6 +31,7 @@ import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.PropertyInducingElement;
 import com.google.dart.engine.element.TypeVariableElement;
 import com.google.dart.engine.element.VariableElement;
+import com.google.dart.engine.index.HierarchyCallback;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
@@ -48,9 +52,14 @@ import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.search.SearchScope;
+import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.SourceRange;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implementation of {@link SearchEngine}.
@@ -186,6 +195,28 @@ public class SearchEngineImpl implements SearchEngine {
     this.index = index;
   }
 
+  @Override
+  public Set<ClassElement> searchAllSubtypes(ClassElement type) {
+    final AtomicReference<Element[]> result = new AtomicReference<Element[]>();
+    index.getSubtypes(type, new HierarchyCallback() {
+      @Override
+      public void hasTypes(Element type, Element[] types) {
+        result.set(types);
+      }
+    });
+    while (result.get() == null) {
+      Thread.yield();
+    }
+    Set<ClassElement> subtypes = Sets.newHashSet();
+    for (Element subtype : result.get()) {
+      if (subtype instanceof ClassElement) {
+        subtypes.add((ClassElement) subtype);
+      }
+    }
+    subtypes.remove(type);
+    return subtypes;
+  }
+
   @Override
   public List<SearchMatch> searchDeclarations(final String name, final SearchScope scope,
       final SearchFilter filter) {
@@ -262,6 +293,33 @@ public class SearchEngineImpl implements SearchEngine {
         newCallback(MatchKind.NAME_REFERENCE_UNRESOLVED, scope, listener));
   }
 
+  @Override
+  public Map<Source, List<SearchMatch>> searchReferences(
+      final Collection<? extends Element> elements, final SearchScope scope,
+      final SearchFilter filter) {
+    List<SearchMatch> matches = gatherResults(new SearchRunner() {
+      @Override
+      public void performSearch(SearchListener listener) {
+        listener = new CountingSearchListener(elements.size(), listener);
+        for (Element element : elements) {
+          searchReferences(element, scope, filter, listener);
+        }
+      }
+    });
+    // partition by Source
+    Map<Source, List<SearchMatch>> matchesBySource = Maps.newHashMap();
+    for (SearchMatch match : matches) {
+      Source source = match.getElement().getSource();
+      List<SearchMatch> sourceMatches = matchesBySource.get(source);
+      if (sourceMatches == null) {
+        sourceMatches = Lists.newArrayList();
+        matchesBySource.put(source, sourceMatches);
+      }
+      sourceMatches.add(match);
+    }
+    return matchesBySource;
+  }
+
   @Override
   public List<SearchMatch> searchReferences(final Element element, final SearchScope scope,
       final SearchFilter filter) {
@@ -27,7 +27,8 @@ import com.google.dart.engine.ast.MethodDeclaration;
 import com.google.dart.engine.ast.NamedExpression;
 import com.google.dart.engine.ast.SwitchCase;
 import com.google.dart.engine.ast.VariableDeclaration;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.DelegatingASTVisitor;
+import com.google.dart.engine.ast.visitor.SimpleASTVisitor;
 import com.google.dart.engine.error.CompileTimeErrorCode;
 import com.google.dart.engine.error.ErrorCode;
 import com.google.dart.engine.error.StaticWarningCode;
@@ -42,13 +43,17 @@ import java.util.ArrayList;
 import java.util.HashSet;
 
 /**
- * Instances of the class {@code ConstantVerifier} traverse an AST structure looking for additional
- * errors and warnings not covered by the parser and resolver. In particular, it looks for errors
- * and warnings related to constant expressions.
+ * Instances of the class {@code ConstantVerifier} look for additional errors and warnings not
+ * covered by the parser and resolver. In particular, it looks for errors and warnings related to
+ * constant expressions.
+ * <p>
+ * A constant verifier only examines the nodes that it is asked to visit, and does not visit their
+ * children. It is intended to be used as a delegate of a {@link DelegatingASTVisitor}, such as the
+ * {@link ErrorVerifier}, so that it does not require a separate traversal of the structure.
  * 
  * @coverage dart.engine.resolver
  */
-public class ConstantVerifier extends RecursiveASTVisitor<Void> {
+public class ConstantVerifier extends SimpleASTVisitor<Void> {
   /**
    * The error reporter by which errors will be reported.
    */
@@ -65,7 +70,6 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
 
   @Override
   public Void visitFunctionExpression(FunctionExpression node) {
-    super.visitFunctionExpression(node);
     validateDefaultValues(node.getParameters());
     return null;
   }
@@ -73,12 +77,11 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
   @Override
   public Void visitInstanceCreationExpression(InstanceCreationExpression node) {
     validateConstantArguments(node);
-    return super.visitInstanceCreationExpression(node);
+    return null;
   }
 
   @Override
   public Void visitListLiteral(ListLiteral node) {
-    super.visitListLiteral(node);
     if (node.getModifier() != null) {
       for (Expression element : node.getElements()) {
         validate(element, CompileTimeErrorCode.NON_CONSTANT_LIST_ELEMENT);
@@ -89,7 +92,6 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
 
   @Override
   public Void visitMapLiteral(MapLiteral node) {
-    super.visitMapLiteral(node);
     boolean isConst = node.getModifier() != null;
     boolean reportEqualKeys = true;
     HashSet<Object> keys = new HashSet<Object>();
@@ -131,21 +133,18 @@ public class ConstantVerifier extends RecursiveASTVisitor<Void> {
 
   @Override
   public Void visitMethodDeclaration(MethodDeclaration node) {
-    super.visitMethodDeclaration(node);
     validateDefaultValues(node.getParameters());
     return null;
   }
 
   @Override
   public Void visitSwitchCase(SwitchCase node) {
-    super.visitSwitchCase(node);
     validate(node.getExpression(), CompileTimeErrorCode.NON_CONSTANT_CASE_EXPRESSION);
     return null;
   }
 
   @Override
   public Void visitVariableDeclaration(VariableDeclaration node) {
-    super.visitVariableDeclaration(node);
     Expression initializer = node.getInitializer();
     if (initializer != null && node.isConst()) {
       VariableElementImpl element = (VariableElementImpl) node.getElement();
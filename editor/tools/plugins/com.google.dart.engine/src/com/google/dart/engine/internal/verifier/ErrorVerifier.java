@@ -73,7 +73,7 @@ import com.google.dart.engine.ast.VariableDeclarationList;
 import com.google.dart.engine.ast.VariableDeclarationStatement;
 import com.google.dart.engine.ast.WhileStatement;
 import com.google.dart.engine.ast.WithClause;
-import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.ast.visitor.DelegatingASTVisitor;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
@@ -115,11 +115,12 @@ import java.util.Set;
 
 /**
  * Instances of the class {@code ErrorVerifier} traverse an AST structure looking for additional
- * errors and warnings not covered by the parser and resolver.
+ * errors and warnings not covered by the parser and resolver. The checks performed by a
+ * {@link ConstantVerifier} are made during the same traversal.
  * 
  * @coverage dart.engine.resolver
  */
-public class ErrorVerifier extends RecursiveASTVisitor<Void> {
+public class ErrorVerifier extends DelegatingASTVisitor<Void> {
   /**
    * This enum holds one of four states of a field initialization state through a constructor
    * signature, not initialized, initialized in the field declaration, initialized in the field
@@ -225,6 +226,7 @@ public class ErrorVerifier extends RecursiveASTVisitor<Void> {
 
   public ErrorVerifier(ErrorReporter errorReporter, LibraryElement currentLibrary,
       TypeProvider typeProvider, InheritanceManager inheritanceManager) {
+    super(new ConstantVerifier(errorReporter));
     this.errorReporter = errorReporter;
     this.currentLibrary = currentLibrary;
     this.isInSystemLibrary = currentLibrary.getSource().isInSystemLibrary();
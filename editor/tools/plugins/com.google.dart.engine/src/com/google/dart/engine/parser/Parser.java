@@ -15,6 +15,7 @@ package com.google.dart.engine.parser;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.dart.engine.ast.*;
+import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.internal.parser.CommentAndMetadata;
@@ -68,6 +69,13 @@ public class Parser {
    */
   private boolean inSwitch = false;
 
+  /**
+   * A flag indicating whether the statements in block function bodies should be parsed. When
+   * {@code false}, each block function body is represented by an empty block that spans the body,
+   * and the statements can be parsed later by {@link #parseSkippedFunctionBody(BlockFunctionBody)}.
+   */
+  private boolean parseFunctionBodies = true;
+
   private static final String HIDE = "hide"; //$NON-NLS-1$
   private static final String OF = "of"; //$NON-NLS-1$
   private static final String ON = "on"; //$NON-NLS-1$
@@ -119,6 +127,55 @@ public class Parser {
     }
   }
 
+  /**
+   * Parse the statements in the given function body if they were skipped because function bodies
+   * were not being parsed when the body was created. Any errors found while parsing the statements
+   * are reported to this parser's error listener.
+   * 
+   * @param body the function body whose statements are to be parsed
+   * @return {@code true} if the statements in the body had been skipped and have now been parsed
+   */
+  public boolean parseSkippedFunctionBody(BlockFunctionBody body) {
+    if (!isSkippedFunctionBody(body)) {
+      return false;
+    }
+    InstrumentationBuilder instrumentation = Instrumentation.builder("dart.engine.Parser.parseSkippedFunctionBody");
+    boolean wasParsingFunctionBodies = parseFunctionBodies;
+    boolean wasInLoop = inLoop;
+    boolean wasInSwitch = inSwitch;
+    parseFunctionBodies = true;
+    inLoop = false;
+    inSwitch = false;
+    try {
+      currentToken = body.getBlock().getLeftBracket();
+      body.setBlock(parseBlock());
+      return true;
+    } finally {
+      parseFunctionBodies = wasParsingFunctionBodies;
+      inLoop = wasInLoop;
+      inSwitch = wasInSwitch;
+      instrumentation.log();
+    }
+  }
+
+  /**
+   * Parse the statements in all of the function bodies within the given node that were skipped
+   * because function bodies were not being parsed when the node was created.
+   * 
+   * @param node the node containing the function bodies whose statements are to be parsed
+   */
+  public void parseSkippedFunctionBodies(ASTNode node) {
+    node.accept(new RecursiveASTVisitor<Void>() {
+      @Override
+      public Void visitBlockFunctionBody(BlockFunctionBody body) {
+        if (!parseSkippedFunctionBody(body)) {
+          return super.visitBlockFunctionBody(body);
+        }
+        return null;
+      }
+    });
+  }
+
   /**
    * Parse a statement, starting with the given token.
    * 
@@ -153,6 +210,19 @@ public class Parser {
     }
   }
 
+  /**
+   * Set whether the statements in block function bodies should be parsed. Clients that only need
+   * the declarations in a compilation unit, such as when building the element model or public
+   * namespace of a library, can avoid the cost of parsing the bodies by passing {@code false}. The
+   * skipped bodies can be parsed later by {@link #parseSkippedFunctionBody(BlockFunctionBody)} or
+   * {@link #parseSkippedFunctionBodies(ASTNode)}.
+   * 
+   * @param parseFunctionBodies {@code true} if the statements in function bodies should be parsed
+   */
+  public void setParseFunctionBodies(boolean parseFunctionBodies) {
+    this.parseFunctionBodies = parseFunctionBodies;
+  }
+
   @VisibleForTesting
   void setCurrentToken(Token currentToken) {
     this.currentToken = currentToken;
@@ -665,6 +735,24 @@ public class Parser {
     return false;
   }
 
+  /**
+   * Return {@code true} if the statements in the given function body were skipped because function
+   * bodies were not being parsed when the body was created.
+   * 
+   * @param body the function body being tested
+   * @return {@code true} if the statements in the given function body were skipped
+   */
+  private boolean isSkippedFunctionBody(BlockFunctionBody body) {
+    Block block = body.getBlock();
+    if (block == null || !block.getStatements().isEmpty()) {
+      return false;
+    }
+    // Comments are attached to the following token, so an empty body has no tokens between the
+    // brackets.
+    Token leftBracket = block.getLeftBracket();
+    return leftBracket != null && leftBracket.getNext() != block.getRightBracket();
+  }
+
   /**
    * Return {@code true} if the current token appears to be the beginning of a switch member.
    * 
@@ -2983,6 +3071,19 @@ public class Parser {
         }
         return new ExpressionFunctionBody(functionDefinition, expression, semicolon);
       } else if (matches(TokenType.OPEN_CURLY_BRACKET)) {
+        if (!parseFunctionBodies) {
+          Token next = skipPastMatchingToken(currentToken);
+          if (next != null) {
+            // Record the extent of the body so that the statements can be parsed on demand.
+            Token leftBracket = currentToken;
+            Token rightBracket = ((BeginToken) leftBracket).getEndToken();
+            currentToken = next;
+            return new BlockFunctionBody(new Block(
+                leftBracket,
+                new ArrayList<Statement>(),
+                rightBracket));
+          }
+        }
         return new BlockFunctionBody(parseBlock());
       } else if (matches(NATIVE)) {
         Token nativeToken = getAndAdvance();
@@ -17,12 +17,10 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.IntList;
+import com.google.dart.engine.utilities.collection.IntStack;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The abstract class {@code AbstractScanner} implements a scanner for Dart code. Subclasses are
  * required to implement the interface used to access the characters being scanned.
@@ -32,6 +30,9 @@ import java.util.List;
  * should be scanned as a single left-shift operator or as two left angle brackets. This scanner
  * does not have any context, so it always resolves such conflicts by scanning the longest possible
  * token.
+ * <p>
+ * Tokens are recorded in a {@link TokenBuffer} as they are scanned. The buffer can either be used
+ * directly or converted into a linked list of {@link Token tokens}.
  * 
  * @coverage dart.engine.parser
  */
@@ -47,24 +48,9 @@ public abstract class AbstractScanner {
   private AnalysisErrorListener errorListener;
 
   /**
-   * The token pointing to the head of the linked list of tokens.
-   */
-  private final Token tokens;
-
-  /**
-   * The last token that was scanned.
-   */
-  private Token tail;
-
-  /**
-   * The first token in the list of comment tokens found since the last non-comment token.
+   * The buffer in which the tokens that have been scanned are recorded.
    */
-  private Token firstComment;
-
-  /**
-   * The last token in the list of comment tokens found since the last non-comment token.
-   */
-  private Token lastComment;
+  private final TokenBuffer tokenBuffer;
 
   /**
    * The index of the first character of the current token.
@@ -77,10 +63,10 @@ public abstract class AbstractScanner {
   private IntList lineStarts = new IntList();
 
   /**
-   * A list, treated something like a stack, of tokens representing the beginning of a matched pair.
-   * It is used to pair the end tokens with the begin tokens.
+   * A stack of the indices of the tokens representing the beginning of a matched pair. It is used
+   * to pair the end tokens with the begin tokens.
    */
-  private List<BeginToken> groupingStack = new ArrayList<BeginToken>();
+  private IntStack groupingStack = new IntStack();
 
   /**
    * A flag indicating whether any unmatched groups were found during the parse.
@@ -92,6 +78,13 @@ public abstract class AbstractScanner {
    */
   private static final int $NBSP = 160;
 
+  /**
+   * A conservative estimate of the average number of characters per token, used to size the token
+   * buffer so that it rarely needs to grow. Typical Dart code averages about six characters per
+   * token, including white space and comments.
+   */
+  private static final int CHARACTERS_PER_TOKEN = 5;
+
   /**
    * Initialize a newly created scanner.
    * 
@@ -99,11 +92,20 @@ public abstract class AbstractScanner {
    * @param errorListener the error listener that will be informed of any errors that are found
    */
   public AbstractScanner(Source source, AnalysisErrorListener errorListener) {
+    this(source, errorListener, 0);
+  }
+
+  /**
+   * Initialize a newly created scanner.
+   * 
+   * @param source the source being scanned
+   * @param errorListener the error listener that will be informed of any errors that are found
+   * @param sourceLength the number of characters to be scanned, or zero if the length is not known
+   */
+  public AbstractScanner(Source source, AnalysisErrorListener errorListener, int sourceLength) {
     this.source = source;
     this.errorListener = errorListener;
-    tokens = new Token(TokenType.EOF, -1);
-    tokens.setNext(tokens);
-    tail = tokens;
+    tokenBuffer = new TokenBuffer(new SymbolTable(), sourceLength / CHARACTERS_PER_TOKEN + 1);
     tokenStart = -1;
     lineStarts.add(0);
   }
@@ -141,6 +143,16 @@ public abstract class AbstractScanner {
    * @return the first token in the list of tokens that were produced
    */
   public Token tokenize() {
+    return tokenizeToBuffer().toTokens();
+  }
+
+  /**
+   * Scan the source code to produce a buffer holding the tokens representing the source. This
+   * avoids creating a {@link Token} object for each token.
+   * 
+   * @return the buffer holding the tokens that were produced
+   */
+  public TokenBuffer tokenizeToBuffer() {
 
     InstrumentationBuilder instrumentation = Instrumentation.builder("dart.engine.AbstractScanner.tokenize");
     int tokenCounter = 0;
@@ -154,7 +166,7 @@ public abstract class AbstractScanner {
       appendEofToken();
       instrumentation.metric("tokensCount", tokenCounter);
 
-      return firstToken();
+      return tokenBuffer;
 
     } finally {
       instrumentation.log();
@@ -182,6 +194,23 @@ public abstract class AbstractScanner {
    */
   protected abstract String getString(int start, int endDelta);
 
+  /**
+   * Return the identifier in the given symbol table of the substring of the source code between the
+   * start offset and the modified current position. The current position is modified by adding the
+   * end delta. Subclasses that have direct access to the characters being scanned should override
+   * this method so that a string is not created for substrings that are already in the table.
+   * 
+   * @param symbols the symbol table in which the substring is to be interned
+   * @param start the offset to the beginning of the string, relative to the start of the file
+   * @param endDelta the number of character after the current location to be included in the
+   *          string, or the number of characters before the current location to be excluded if the
+   *          offset is negative
+   * @return the identifier of the specified substring of the source code
+   */
+  protected int internString(SymbolTable symbols, int start, int endDelta) {
+    return symbols.intern(getString(start, endDelta));
+  }
+
   /**
    * Return the character at the current position without changing the current position.
    * 
@@ -197,59 +226,26 @@ public abstract class AbstractScanner {
   }
 
   private void appendBeginToken(TokenType type) {
-    BeginToken token;
-    if (firstComment == null) {
-      token = new BeginToken(type, tokenStart);
-    } else {
-      token = new BeginTokenWithComment(type, tokenStart, firstComment);
-      firstComment = null;
-      lastComment = null;
-    }
-    tail = tail.setNext(token);
-    groupingStack.add(token);
+    groupingStack.push(tokenBuffer.addBeginToken(type, tokenStart));
   }
 
-  private void appendCommentToken(TokenType type, String value) {
-    if (firstComment == null) {
-      firstComment = new StringToken(type, value, tokenStart);
-      lastComment = firstComment;
-    } else {
-      lastComment = lastComment.setNext(new StringToken(type, value, tokenStart));
-    }
+  private void appendCommentToken(TokenType type, int symbol) {
+    tokenBuffer.addComment(type, symbol, tokenStart);
   }
 
   private void appendEndToken(TokenType type, TokenType beginType) {
-    Token token;
-    if (firstComment == null) {
-      token = new Token(type, tokenStart);
-    } else {
-      token = new TokenWithComment(type, tokenStart, firstComment);
-      firstComment = null;
-      lastComment = null;
-    }
-    tail = tail.setNext(token);
-    int last = groupingStack.size() - 1;
-    if (last >= 0) {
-      BeginToken begin = groupingStack.get(last);
-      if (begin.getType() == beginType) {
-        begin.setEndToken(token);
-        groupingStack.remove(last);
+    int token = tokenBuffer.addToken(type, tokenStart);
+    if (!groupingStack.isEmpty()) {
+      int begin = groupingStack.peek();
+      if (tokenBuffer.getType(begin) == beginType) {
+        tokenBuffer.setEndToken(begin, token);
+        groupingStack.pop();
       }
     }
   }
 
   private void appendEofToken() {
-    Token eofToken;
-    if (firstComment == null) {
-      eofToken = new Token(TokenType.EOF, getOffset() + 1);
-    } else {
-      eofToken = new TokenWithComment(TokenType.EOF, getOffset() + 1, firstComment);
-      firstComment = null;
-      lastComment = null;
-    }
-    // The EOF token points to itself so that there is always infinite look-ahead.
-    eofToken.setNext(eofToken);
-    tail = tail.setNext(eofToken);
+    tokenBuffer.addToken(TokenType.EOF, getOffset() + 1);
     if (!groupingStack.isEmpty()) {
       hasUnmatchedGroups = true;
       // TODO(brianwilkerson) Fix the ungrouped tokens?
@@ -257,53 +253,23 @@ public abstract class AbstractScanner {
   }
 
   private void appendKeywordToken(Keyword keyword) {
-    if (firstComment == null) {
-      tail = tail.setNext(new KeywordToken(keyword, tokenStart));
-    } else {
-      tail = tail.setNext(new KeywordTokenWithComment(keyword, tokenStart, firstComment));
-      firstComment = null;
-      lastComment = null;
-    }
+    tokenBuffer.addKeywordToken(keyword, tokenStart);
   }
 
-  private void appendStringToken(TokenType type, String value) {
-    if (firstComment == null) {
-      tail = tail.setNext(new StringToken(type, value, tokenStart));
-    } else {
-      tail = tail.setNext(new StringTokenWithComment(type, value, tokenStart, firstComment));
-      firstComment = null;
-      lastComment = null;
-    }
+  private void appendStringToken(TokenType type, int symbol) {
+    tokenBuffer.addStringToken(type, symbol, tokenStart);
   }
 
-  private void appendStringToken(TokenType type, String value, int offset) {
-    if (firstComment == null) {
-      tail = tail.setNext(new StringToken(type, value, tokenStart + offset));
-    } else {
-      tail = tail.setNext(new StringTokenWithComment(type, value, tokenStart + offset, firstComment));
-      firstComment = null;
-      lastComment = null;
-    }
+  private void appendStringToken(TokenType type, int symbol, int offset) {
+    tokenBuffer.addStringToken(type, symbol, tokenStart + offset);
   }
 
   private void appendToken(TokenType type) {
-    if (firstComment == null) {
-      tail = tail.setNext(new Token(type, tokenStart));
-    } else {
-      tail = tail.setNext(new TokenWithComment(type, tokenStart, firstComment));
-      firstComment = null;
-      lastComment = null;
-    }
+    tokenBuffer.addToken(type, tokenStart);
   }
 
   private void appendToken(TokenType type, int offset) {
-    if (firstComment == null) {
-      tail = tail.setNext(new Token(type, offset));
-    } else {
-      tail = tail.setNext(new TokenWithComment(type, offset, firstComment));
-      firstComment = null;
-      lastComment = null;
-    }
+    tokenBuffer.addToken(type, offset);
   }
 
   private void beginToken() {
@@ -499,33 +465,42 @@ public abstract class AbstractScanner {
   }
 
   /**
-   * Return the beginning token corresponding to a closing brace that was found while scanning
-   * inside a string interpolation expression. Tokens that cannot be matched with the closing brace
-   * will be dropped from the stack.
+   * Return the index of the beginning token corresponding to a closing brace that was found while
+   * scanning inside a string interpolation expression. Tokens that cannot be matched with the
+   * closing brace will be dropped from the stack.
    * 
-   * @return the token to be paired with the closing brace
+   * @return the index of the token to be paired with the closing brace
    */
-  private BeginToken findTokenMatchingClosingBraceInInterpolationExpression() {
-    int last = groupingStack.size() - 1;
-    while (last >= 0) {
-      BeginToken begin = groupingStack.get(last);
-      if (begin.getType() == TokenType.OPEN_CURLY_BRACKET
-          || begin.getType() == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+  private int findTokenMatchingClosingBraceInInterpolationExpression() {
+    while (!groupingStack.isEmpty()) {
+      int begin = groupingStack.peek();
+      TokenType type = tokenBuffer.getType(begin);
+      if (type == TokenType.OPEN_CURLY_BRACKET
+          || type == TokenType.STRING_INTERPOLATION_EXPRESSION) {
         return begin;
       }
       hasUnmatchedGroups = true;
-      groupingStack.remove(last);
-      last--;
+      groupingStack.pop();
     }
     //
     // We should never get to this point because we wouldn't be inside a string interpolation
     // expression unless we had previously found the start of the expression.
     //
-    return null;
+    return -1;
   }
 
-  private Token firstToken() {
-    return tokens.getNext();
+  /**
+   * Return the identifier of the substring of the source code between the start offset and the
+   * modified current position in the symbol table of the token buffer.
+   * 
+   * @param start the offset to the beginning of the string, relative to the start of the file
+   * @param endDelta the number of character after the current location to be included in the
+   *          string, or the number of characters before the current location to be excluded if the
+   *          offset is negative
+   * @return the identifier of the specified substring of the source code
+   */
+  private int getSymbol(int start, int endDelta) {
+    return internString(tokenBuffer.getSymbolTable(), start, endDelta);
   }
 
   /**
@@ -678,7 +653,7 @@ public abstract class AbstractScanner {
       next = advance();
     }
     if (!hasDigit) {
-      appendStringToken(TokenType.INT, getString(start, -2));
+      appendStringToken(TokenType.INT, getSymbol(start, -2));
       if ('.' == next) {
         return select('.', TokenType.PERIOD_PERIOD_PERIOD, TokenType.PERIOD_PERIOD, getOffset() - 1);
       }
@@ -688,7 +663,7 @@ public abstract class AbstractScanner {
     if (next == 'd' || next == 'D') {
       next = advance();
     }
-    appendStringToken(TokenType.DOUBLE, getString(start, next < 0 ? 0 : -1));
+    appendStringToken(TokenType.DOUBLE, getSymbol(start, next < 0 ? 0 : -1));
     return next;
   }
 
@@ -725,7 +700,7 @@ public abstract class AbstractScanner {
         if (!hasDigits) {
           reportError(ScannerErrorCode.MISSING_HEX_DIGIT);
         }
-        appendStringToken(TokenType.HEXADECIMAL, getString(start, next < 0 ? 0 : -1));
+        appendStringToken(TokenType.HEXADECIMAL, getSymbol(start, next < 0 ? 0 : -1));
         return next;
       }
     }
@@ -746,7 +721,7 @@ public abstract class AbstractScanner {
         || Character.isLetterOrDigit(next)) {
       next = advance();
     }
-    appendStringToken(TokenType.IDENTIFIER, getString(start, next < 0 ? 0 : -1));
+    appendStringToken(TokenType.IDENTIFIER, getSymbol(start, next < 0 ? 0 : -1));
     return next;
   }
 
@@ -755,19 +730,19 @@ public abstract class AbstractScanner {
     next = advance();
     while (next != -1) {
       if (next == '}') {
-        BeginToken begin = findTokenMatchingClosingBraceInInterpolationExpression();
-        if (begin == null) {
+        int begin = findTokenMatchingClosingBraceInInterpolationExpression();
+        if (begin < 0) {
           beginToken();
           appendToken(TokenType.CLOSE_CURLY_BRACKET);
           next = advance();
           beginToken();
           return next;
-        } else if (begin.getType() == TokenType.OPEN_CURLY_BRACKET) {
+        } else if (tokenBuffer.getType(begin) == TokenType.OPEN_CURLY_BRACKET) {
           beginToken();
           appendEndToken(TokenType.CLOSE_CURLY_BRACKET, TokenType.OPEN_CURLY_BRACKET);
           next = advance();
           beginToken();
-        } else if (begin.getType() == TokenType.STRING_INTERPOLATION_EXPRESSION) {
+        } else if (tokenBuffer.getType(begin) == TokenType.STRING_INTERPOLATION_EXPRESSION) {
           beginToken();
           appendEndToken(TokenType.CLOSE_CURLY_BRACKET, TokenType.STRING_INTERPOLATION_EXPRESSION);
           next = advance();
@@ -787,7 +762,10 @@ public abstract class AbstractScanner {
   }
 
   private int tokenizeInterpolatedIdentifier(int next, int start) {
-    appendStringToken(TokenType.STRING_INTERPOLATION_IDENTIFIER, "$", 0);
+    appendStringToken(
+        TokenType.STRING_INTERPOLATION_IDENTIFIER,
+        tokenBuffer.getSymbolTable().intern("$"),
+        0);
     beginToken();
     next = tokenizeKeywordOrIdentifier(next, false);
     beginToken();
@@ -849,14 +827,14 @@ public abstract class AbstractScanner {
     while (true) {
       if (-1 == next) {
         reportError(ScannerErrorCode.UNTERMINATED_MULTI_LINE_COMMENT);
-        appendCommentToken(TokenType.MULTI_LINE_COMMENT, getString(tokenStart, 0));
+        appendCommentToken(TokenType.MULTI_LINE_COMMENT, getSymbol(tokenStart, 0));
         return next;
       } else if ('*' == next) {
         next = advance();
         if ('/' == next) {
           --nesting;
           if (0 == nesting) {
-            appendCommentToken(TokenType.MULTI_LINE_COMMENT, getString(tokenStart, 0));
+            appendCommentToken(TokenType.MULTI_LINE_COMMENT, getSymbol(tokenStart, 0));
             return advance();
           } else {
             next = advance();
@@ -896,13 +874,13 @@ public abstract class AbstractScanner {
       if (next == quoteChar) {
         next = advance();
         if (next == quoteChar) {
-          appendStringToken(TokenType.STRING, getString(start, 0));
+          appendStringToken(TokenType.STRING, getSymbol(start, 0));
           return advance();
         }
       }
     }
     reportError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL);
-    appendStringToken(TokenType.STRING, getString(start, 0));
+    appendStringToken(TokenType.STRING, getSymbol(start, 0));
     return advance();
   }
 
@@ -913,7 +891,7 @@ public abstract class AbstractScanner {
     int next = advance();
     while (next != -1) {
       if (next == '$') {
-        appendStringToken(TokenType.STRING, getString(start, -1));
+        appendStringToken(TokenType.STRING, getSymbol(start, -1));
         beginToken();
         next = tokenizeStringInterpolation(start);
         start = getOffset();
@@ -924,7 +902,7 @@ public abstract class AbstractScanner {
         if (next == quoteChar) {
           next = advance();
           if (next == quoteChar) {
-            appendStringToken(TokenType.STRING, getString(start, 0));
+            appendStringToken(TokenType.STRING, getSymbol(start, 0));
             return advance();
           }
         }
@@ -939,7 +917,7 @@ public abstract class AbstractScanner {
       next = advance();
     }
     reportError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL);
-    appendStringToken(TokenType.STRING, getString(start, 0));
+    appendStringToken(TokenType.STRING, getSymbol(start, 0));
     return advance();
   }
 
@@ -957,12 +935,12 @@ public abstract class AbstractScanner {
       } else if (next == '.') {
         return tokenizeFractionPart(advance(), start);
       } else if (next == 'd' || next == 'D') {
-        appendStringToken(TokenType.DOUBLE, getString(start, 0));
+        appendStringToken(TokenType.DOUBLE, getSymbol(start, 0));
         return advance();
       } else if (next == 'e' || next == 'E') {
         return tokenizeFractionPart(next, start);
       } else {
-        appendStringToken(TokenType.INT, getString(start, next < 0 ? 0 : -1));
+        appendStringToken(TokenType.INT, getSymbol(start, next < 0 ? 0 : -1));
         return next;
       }
     }
@@ -1003,7 +981,7 @@ public abstract class AbstractScanner {
     while (true) {
       next = advance();
       if ('\n' == next || '\r' == next || -1 == next) {
-        appendCommentToken(TokenType.SINGLE_LINE_COMMENT, getString(tokenStart, 0));
+        appendCommentToken(TokenType.SINGLE_LINE_COMMENT, getSymbol(tokenStart, 0));
         return next;
       }
     }
@@ -1013,17 +991,17 @@ public abstract class AbstractScanner {
     next = advance();
     while (next != -1) {
       if (next == quoteChar) {
-        appendStringToken(TokenType.STRING, getString(start, 0));
+        appendStringToken(TokenType.STRING, getSymbol(start, 0));
         return advance();
       } else if (next == '\r' || next == '\n') {
         reportError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL);
-        appendStringToken(TokenType.STRING, getString(start, 0));
+        appendStringToken(TokenType.STRING, getSymbol(start, 0));
         return advance();
       }
       next = advance();
     }
     reportError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL);
-    appendStringToken(TokenType.STRING, getString(start, 0));
+    appendStringToken(TokenType.STRING, getSymbol(start, 0));
     return advance();
   }
 
@@ -1032,7 +1010,7 @@ public abstract class AbstractScanner {
       if (next == '\\') {
         next = advance();
       } else if (next == '$') {
-        appendStringToken(TokenType.STRING, getString(start, -1));
+        appendStringToken(TokenType.STRING, getSymbol(start, -1));
         beginToken();
         next = tokenizeStringInterpolation(start);
         start = getOffset();
@@ -1040,12 +1018,12 @@ public abstract class AbstractScanner {
       }
       if (next <= '\r' && (next == '\n' || next == '\r' || next == -1)) {
         reportError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL);
-        appendStringToken(TokenType.STRING, getString(start, 0));
+        appendStringToken(TokenType.STRING, getSymbol(start, 0));
         return advance();
       }
       next = advance();
     }
-    appendStringToken(TokenType.STRING, getString(start, 0));
+    appendStringToken(TokenType.STRING, getSymbol(start, 0));
     return advance();
   }
 
@@ -1074,7 +1052,7 @@ public abstract class AbstractScanner {
         return tokenizeMultiLineString(quoteChar, start, raw);
       } else {
         // Empty string.
-        appendStringToken(TokenType.STRING, getString(start, -1));
+        appendStringToken(TokenType.STRING, getSymbol(start, -1));
         return next;
       }
     }
@@ -1102,7 +1080,7 @@ public abstract class AbstractScanner {
         do {
           next = advance();
         } while (next != '\n' && next != '\r' && next > 0);
-        appendStringToken(TokenType.SCRIPT_TAG, getString(tokenStart, 0));
+        appendStringToken(TokenType.SCRIPT_TAG, getSymbol(tokenStart, 0));
         return next;
       }
     }
@@ -48,7 +48,7 @@ public class CharBufferScanner extends AbstractScanner {
    * @param errorListener the error listener that will be informed of any errors that are found
    */
   public CharBufferScanner(Source source, CharBuffer buffer, AnalysisErrorListener errorListener) {
-    super(source, errorListener);
+    super(source, errorListener, buffer.length());
     this.buffer = buffer;
     this.bufferLength = buffer.length();
     this.charOffset = -1;
@@ -72,6 +72,11 @@ public class CharBufferScanner extends AbstractScanner {
     return ((CharSequence) buffer).subSequence(start, charOffset + 1 + endDelta).toString();
   }
 
+  @Override
+  protected int internString(SymbolTable symbols, int start, int endDelta) {
+    return symbols.intern(buffer, start, charOffset + 1 + endDelta);
+  }
+
   @Override
   protected int peek() {
     if (charOffset + 1 >= buffer.length()) {
@@ -51,7 +51,7 @@ public class StringScanner extends AbstractScanner {
    * @param errorListener the error listener that will be informed of any errors that are found
    */
   public StringScanner(Source source, String string, AnalysisErrorListener errorListener) {
-    super(source, errorListener);
+    super(source, errorListener, string.length());
     this.offsetDelta = 0;
     this.string = string;
     this.stringLength = string.length();
@@ -102,6 +102,11 @@ public class StringScanner extends AbstractScanner {
     return string.substring(start - offsetDelta, charOffset + 1 + endDelta);
   }
 
+  @Override
+  protected int internString(SymbolTable symbols, int start, int endDelta) {
+    return symbols.intern(string, start - offsetDelta, charOffset + 1 + endDelta);
+  }
+
   @Override
   protected int peek() {
     if (charOffset + 1 >= string.length()) {
@@ -39,6 +39,20 @@ public class StringToken extends Token {
     this.value = StringUtilities.intern(value);
   }
 
+  /**
+   * Initialize a newly created token to represent a token of the given type with the given value.
+   * 
+   * @param type the type of the token
+   * @param value the lexeme represented by this token
+   * @param offset the offset from the beginning of the file to the first character in the token
+   * @param isInterned {@code true} if the value is already a canonical instance, such as a lexeme
+   *          taken from a {@link SymbolTable}, and does not need to be interned again
+   */
+  StringToken(TokenType type, String value, int offset, boolean isInterned) {
+    super(type, offset);
+    this.value = isInterned ? value : StringUtilities.intern(value);
+  }
+
   @Override
   public String getLexeme() {
     return value;
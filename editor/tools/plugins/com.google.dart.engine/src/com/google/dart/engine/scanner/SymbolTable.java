@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.general.StringUtilities;
+
+import java.util.Arrays;
+
+/**
+ * Instances of the class {@code SymbolTable} assign a small integer identifier to each distinct
+ * lexeme found during a single scan. Lexemes can be looked up by a range of characters, and new
+ * lexemes are interned through {@link StringUtilities}, so a string is only created the first time a
+ * given lexeme is seen by any scan.
+ * <p>
+ * Instances of this class are not thread safe.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class SymbolTable {
+  /**
+   * The symbols that have been added to this table, indexed by their identifier.
+   */
+  private String[] symbols;
+
+  /**
+   * The hash codes of the symbols that have been added to this table, indexed by their identifier.
+   */
+  private int[] hashCodes;
+
+  /**
+   * The number of symbols that have been added to this table.
+   */
+  private int symbolCount = 0;
+
+  /**
+   * An open-addressed hash table whose entries are one more than the identifier of the symbol
+   * stored in the slot, or zero if the slot is empty. The length is always a power of two.
+   */
+  private int[] slots;
+
+  /**
+   * Initialize a newly created table to be empty.
+   */
+  public SymbolTable() {
+    symbols = new String[64];
+    hashCodes = new int[64];
+    slots = new int[128];
+  }
+
+  /**
+   * Return the symbol with the given identifier.
+   * 
+   * @param id the identifier of the symbol to be returned
+   * @return the symbol with the given identifier
+   */
+  public String getSymbol(int id) {
+    return symbols[id];
+  }
+
+  /**
+   * Return the identifier of the symbol composed of the characters in the given range of the given
+   * sequence, adding the symbol to this table if it is not already present.
+   * 
+   * @param chars the sequence containing the characters of the symbol
+   * @param start the index of the first character of the symbol
+   * @param end the index one past the last character of the symbol
+   * @return the identifier of the symbol
+   */
+  public int intern(CharSequence chars, int start, int end) {
+    int hashCode = 0;
+    for (int i = start; i < end; i++) {
+      hashCode = 31 * hashCode + chars.charAt(i);
+    }
+    int mask = slots.length - 1;
+    int index = (hashCode ^ (hashCode >>> 16)) & mask;
+    while (true) {
+      int entry = slots[index];
+      if (entry == 0) {
+        break;
+      }
+      int id = entry - 1;
+      if (hashCodes[id] == hashCode && matches(symbols[id], chars, start, end)) {
+        return id;
+      }
+      index = (index + 1) & mask;
+    }
+    return add(StringUtilities.intern(chars, start, end), hashCode, index);
+  }
+
+  /**
+   * Return the identifier of the given symbol, adding it to this table if it is not already
+   * present.
+   * 
+   * @param symbol the symbol whose identifier is to be returned
+   * @return the identifier of the symbol
+   */
+  public int intern(String symbol) {
+    int hashCode = symbol.hashCode();
+    int mask = slots.length - 1;
+    int index = (hashCode ^ (hashCode >>> 16)) & mask;
+    while (true) {
+      int entry = slots[index];
+      if (entry == 0) {
+        break;
+      }
+      int id = entry - 1;
+      if (hashCodes[id] == hashCode && symbols[id].equals(symbol)) {
+        return id;
+      }
+      index = (index + 1) & mask;
+    }
+    return add(StringUtilities.intern(symbol), hashCode, index);
+  }
+
+  /**
+   * Return the number of symbols in this table.
+   * 
+   * @return the number of symbols in this table
+   */
+  public int size() {
+    return symbolCount;
+  }
+
+  /**
+   * Add the given symbol to this table.
+   * 
+   * @param symbol the symbol to be added
+   * @param hashCode the hash code of the symbol
+   * @param index the index of the empty slot in which the symbol is to be recorded
+   * @return the identifier assigned to the symbol
+   */
+  private int add(String symbol, int hashCode, int index) {
+    int id = symbolCount++;
+    if (id == symbols.length) {
+      symbols = Arrays.copyOf(symbols, id * 2);
+      hashCodes = Arrays.copyOf(hashCodes, id * 2);
+    }
+    symbols[id] = symbol;
+    hashCodes[id] = hashCode;
+    slots[index] = id + 1;
+    if (symbolCount * 2 > slots.length) {
+      rehash();
+    }
+    return id;
+  }
+
+  /**
+   * Return {@code true} if the given symbol is composed of the characters in the given range.
+   * 
+   * @param symbol the symbol being compared
+   * @param chars the sequence containing the characters being compared
+   * @param start the index of the first character being compared
+   * @param end the index one past the last character being compared
+   * @return {@code true} if the symbol is composed of the characters in the range
+   */
+  private boolean matches(String symbol, CharSequence chars, int start, int end) {
+    int length = end - start;
+    if (symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != chars.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Double the number of slots in the hash table.
+   */
+  private void rehash() {
+    int[] newSlots = new int[slots.length * 2];
+    int mask = newSlots.length - 1;
+    for (int id = 0; id < symbolCount; id++) {
+      int hashCode = hashCodes[id];
+      int index = (hashCode ^ (hashCode >>> 16)) & mask;
+      while (newSlots[index] != 0) {
+        index = (index + 1) & mask;
+      }
+      newSlots[index] = id + 1;
+    }
+    slots = newSlots;
+  }
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.collection.IntStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Instances of the class {@code TokenBuffer} hold the tokens produced by a scan in parallel arrays
+ * rather than as a linked list of {@link Token} objects. Tokens are identified by their index in
+ * the buffer. Comments are rare compared to other tokens, so the comments preceding a token are held
+ * in a separate set of arrays and are identified by their index among the comments.
+ * <p>
+ * The lexemes of tokens whose lexeme is not determined by their type are held in a
+ * {@link SymbolTable}, so each distinct lexeme is stored once no matter how many tokens share it.
+ * Clients that need the linked list of tokens, such as the parser, can use {@link #toTokens()}.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class TokenBuffer {
+  /**
+   * The kind of a token whose lexeme is defined by its type.
+   */
+  private static final byte KIND_SIMPLE = 0;
+
+  /**
+   * The kind of a token that begins a group that can be matched with a closing token.
+   */
+  private static final byte KIND_BEGIN = 1;
+
+  /**
+   * The kind of a token representing a keyword.
+   */
+  private static final byte KIND_KEYWORD = 2;
+
+  /**
+   * The kind of a token whose lexeme is held in the symbol table.
+   */
+  private static final byte KIND_STRING = 3;
+
+  /**
+   * The number of tokens that can be held without growing the arrays when no better estimate is
+   * available.
+   */
+  private static final int DEFAULT_CAPACITY = 256;
+
+  /**
+   * An array of all of the token types, used to map the stored ordinals back to types.
+   */
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+  /**
+   * An array of all of the keywords, used to map the stored ordinals back to keywords.
+   */
+  private static final Keyword[] KEYWORDS = Keyword.values();
+
+  /**
+   * The table containing the lexemes of the tokens in this buffer.
+   */
+  private final SymbolTable symbols;
+
+  /**
+   * The number of tokens in this buffer.
+   */
+  private int tokenCount = 0;
+
+  /**
+   * The kind of each token.
+   */
+  private byte[] kinds;
+
+  /**
+   * The ordinal of the type of each token.
+   */
+  private byte[] types;
+
+  /**
+   * The offset of each token.
+   */
+  private int[] offsets;
+
+  /**
+   * The length of each token.
+   */
+  private int[] lengths;
+
+  /**
+   * For each token, the identifier of its lexeme in the symbol table if it is a string token, the
+   * ordinal of its keyword if it is a keyword token, the index of the matching end token if it is a
+   * begin token that was matched, or {@code -1} otherwise.
+   */
+  private int[] values;
+
+  /**
+   * The number of comments in this buffer.
+   */
+  private int commentCount = 0;
+
+  /**
+   * The index of the token that each comment precedes. The indices are in ascending order.
+   */
+  private int[] commentTokens;
+
+  /**
+   * The ordinal of the type of each comment.
+   */
+  private int[] commentTypes;
+
+  /**
+   * The offset of each comment.
+   */
+  private int[] commentOffsets;
+
+  /**
+   * The identifier of the lexeme of each comment in the symbol table.
+   */
+  private int[] commentValues;
+
+  /**
+   * Initialize a newly created buffer to be empty.
+   */
+  public TokenBuffer() {
+    this(new SymbolTable(), DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Initialize a newly created buffer to be empty.
+   * 
+   * @param symbols the table in which the lexemes of the tokens are to be held
+   * @param initialCapacity the number of tokens that can be held before the buffer needs to grow
+   */
+  public TokenBuffer(SymbolTable symbols, int initialCapacity) {
+    this.symbols = symbols;
+    int capacity = Math.max(initialCapacity, 16);
+    kinds = new byte[capacity];
+    types = new byte[capacity];
+    offsets = new int[capacity];
+    lengths = new int[capacity];
+    values = new int[capacity];
+    commentTokens = new int[16];
+    commentTypes = new int[16];
+    commentOffsets = new int[16];
+    commentValues = new int[16];
+  }
+
+  /**
+   * Return the number of comments preceding the token at the given index.
+   * 
+   * @param index the index of the token
+   * @return the number of comments preceding the token
+   */
+  public int getCommentCount(int index) {
+    int first = getFirstComment(index);
+    if (first < 0) {
+      return 0;
+    }
+    int last = first + 1;
+    while (last < commentCount && commentTokens[last] == index) {
+      last++;
+    }
+    return last - first;
+  }
+
+  /**
+   * Return the lexeme of the comment at the given index.
+   * 
+   * @param comment the index of the comment
+   * @return the lexeme of the comment
+   */
+  public String getCommentLexeme(int comment) {
+    return symbols.getSymbol(commentValues[comment]);
+  }
+
+  /**
+   * Return the offset of the comment at the given index.
+   * 
+   * @param comment the index of the comment
+   * @return the offset of the comment
+   */
+  public int getCommentOffset(int comment) {
+    return commentOffsets[comment];
+  }
+
+  /**
+   * Return the type of the comment at the given index.
+   * 
+   * @param comment the index of the comment
+   * @return the type of the comment
+   */
+  public TokenType getCommentType(int comment) {
+    return TOKEN_TYPES[commentTypes[comment]];
+  }
+
+  /**
+   * Return the index of the token that closes the group opened by the token at the given index, or
+   * {@code -1} if the token does not open a group or the group was not closed.
+   * 
+   * @param index the index of the token
+   * @return the index of the matching end token
+   */
+  public int getEndToken(int index) {
+    if (kinds[index] != KIND_BEGIN) {
+      return -1;
+    }
+    return values[index];
+  }
+
+  /**
+   * Return the index of the first comment preceding the token at the given index, or {@code -1} if
+   * there are no preceding comments.
+   * 
+   * @param index the index of the token
+   * @return the index of the first comment preceding the token
+   */
+  public int getFirstComment(int index) {
+    int low = 0;
+    int high = commentCount - 1;
+    int first = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int token = commentTokens[middle];
+      if (token < index) {
+        low = middle + 1;
+      } else {
+        if (token == index) {
+          first = middle;
+        }
+        high = middle - 1;
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Return the keyword of the token at the given index, or {@code null} if the token is not a
+   * keyword.
+   * 
+   * @param index the index of the token
+   * @return the keyword of the token
+   */
+  public Keyword getKeyword(int index) {
+    if (kinds[index] != KIND_KEYWORD) {
+      return null;
+    }
+    return KEYWORDS[values[index]];
+  }
+
+  /**
+   * Return the length of the token at the given index.
+   * 
+   * @param index the index of the token
+   * @return the length of the token
+   */
+  public int getLength(int index) {
+    return lengths[index];
+  }
+
+  /**
+   * Return the lexeme of the token at the given index.
+   * 
+   * @param index the index of the token
+   * @return the lexeme of the token
+   */
+  public String getLexeme(int index) {
+    switch (kinds[index]) {
+      case KIND_KEYWORD:
+        return KEYWORDS[values[index]].getSyntax();
+      case KIND_STRING:
+        return symbols.getSymbol(values[index]);
+      default:
+        return TOKEN_TYPES[types[index]].getLexeme();
+    }
+  }
+
+  /**
+   * Return the offset of the token at the given index.
+   * 
+   * @param index the index of the token
+   * @return the offset of the token
+   */
+  public int getOffset(int index) {
+    return offsets[index];
+  }
+
+  /**
+   * Return the table containing the lexemes of the tokens in this buffer.
+   * 
+   * @return the table containing the lexemes of the tokens
+   */
+  public SymbolTable getSymbolTable() {
+    return symbols;
+  }
+
+  /**
+   * Return the type of the token at the given index.
+   * 
+   * @param index the index of the token
+   * @return the type of the token
+   */
+  public TokenType getType(int index) {
+    return TOKEN_TYPES[types[index]];
+  }
+
+  /**
+   * Return the number of tokens in this buffer.
+   * 
+   * @return the number of tokens in this buffer
+   */
+  public int size() {
+    return tokenCount;
+  }
+
+  /**
+   * Create the linked list of tokens represented by this buffer. The first token is preceded by a
+   * synthetic {@link TokenType#EOF EOF} token and the last token in the buffer is expected to be an
+   * end-of-file token that points to itself, as is the case for the tokens produced by the scanner.
+   * 
+   * @return the first token in the list of tokens
+   */
+  public Token toTokens() {
+    Token head = new Token(TokenType.EOF, -1);
+    head.setNext(head);
+    Token tail = head;
+    // Matched groups are properly nested, so the only begin token that can be closed by a given
+    // token is the most recent begin token that has not yet been closed.
+    ArrayList<BeginToken> openGroups = new ArrayList<BeginToken>();
+    IntStack openGroupEnds = new IntStack();
+    int comment = 0;
+    for (int i = 0; i < tokenCount; i++) {
+      Token firstComment = null;
+      if (comment < commentCount && commentTokens[comment] == i) {
+        firstComment = createComment(comment++);
+        Token lastComment = firstComment;
+        while (comment < commentCount && commentTokens[comment] == i) {
+          lastComment = lastComment.setNext(createComment(comment++));
+        }
+      }
+      Token token = createToken(i, firstComment);
+      if (!openGroupEnds.isEmpty() && openGroupEnds.peek() == i) {
+        openGroups.remove(openGroups.size() - 1).setEndToken(token);
+        openGroupEnds.pop();
+      }
+      if (kinds[i] == KIND_BEGIN && values[i] >= 0) {
+        openGroups.add((BeginToken) token);
+        openGroupEnds.push(values[i]);
+      }
+      if (i == tokenCount - 1 && types[i] == TokenType.EOF.ordinal()) {
+        // The EOF token points to itself so that there is always infinite look-ahead.
+        token.setNext(token);
+      }
+      tail = tail.setNext(token);
+    }
+    return head.getNext();
+  }
+
+  /**
+   * Add a token that begins a group to this buffer.
+   * 
+   * @param type the type of the token
+   * @param offset the offset of the token
+   * @return the index of the token that was added
+   */
+  int addBeginToken(TokenType type, int offset) {
+    return add(KIND_BEGIN, type, offset, type.getLexeme().length(), -1);
+  }
+
+  /**
+   * Add a comment to this buffer. The comment will precede the next token that is added.
+   * 
+   * @param type the type of the comment
+   * @param symbol the identifier of the lexeme of the comment in the symbol table
+   * @param offset the offset of the comment
+   */
+  void addComment(TokenType type, int symbol, int offset) {
+    if (commentCount == commentTypes.length) {
+      int capacity = commentCount * 2;
+      commentTokens = Arrays.copyOf(commentTokens, capacity);
+      commentTypes = Arrays.copyOf(commentTypes, capacity);
+      commentOffsets = Arrays.copyOf(commentOffsets, capacity);
+      commentValues = Arrays.copyOf(commentValues, capacity);
+    }
+    commentTokens[commentCount] = tokenCount;
+    commentTypes[commentCount] = type.ordinal();
+    commentOffsets[commentCount] = offset;
+    commentValues[commentCount] = symbol;
+    commentCount++;
+  }
+
+  /**
+   * Add a keyword token to this buffer.
+   * 
+   * @param keyword the keyword represented by the token
+   * @param offset the offset of the token
+   * @return the index of the token that was added
+   */
+  int addKeywordToken(Keyword keyword, int offset) {
+    return add(
+        KIND_KEYWORD,
+        TokenType.KEYWORD,
+        offset,
+        keyword.getSyntax().length(),
+        keyword.ordinal());
+  }
+
+  /**
+   * Add a token whose lexeme is held in the symbol table to this buffer.
+   * 
+   * @param type the type of the token
+   * @param symbol the identifier of the lexeme of the token in the symbol table
+   * @param offset the offset of the token
+   * @return the index of the token that was added
+   */
+  int addStringToken(TokenType type, int symbol, int offset) {
+    return add(KIND_STRING, type, offset, symbols.getSymbol(symbol).length(), symbol);
+  }
+
+  /**
+   * Add a token whose lexeme is defined by its type to this buffer.
+   * 
+   * @param type the type of the token
+   * @param offset the offset of the token
+   * @return the index of the token that was added
+   */
+  int addToken(TokenType type, int offset) {
+    return add(KIND_SIMPLE, type, offset, type.getLexeme().length(), -1);
+  }
+
+  /**
+   * Record that the token at the given begin index is closed by the token at the given end index.
+   * 
+   * @param begin the index of the token that begins the group
+   * @param end the index of the token that ends the group
+   */
+  void setEndToken(int begin, int end) {
+    values[begin] = end;
+  }
+
+  /**
+   * Add a token to this buffer.
+   * 
+   * @param kind the kind of the token
+   * @param type the type of the token
+   * @param offset the offset of the token
+   * @param length the length of the token
+   * @param value the value associated with the token
+   * @return the index of the token that was added
+   */
+  private int add(byte kind, TokenType type, int offset, int length, int value) {
+    if (tokenCount == types.length) {
+      int capacity = tokenCount * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      types = Arrays.copyOf(types, capacity);
+      offsets = Arrays.copyOf(offsets, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+    int index = tokenCount++;
+    kinds[index] = kind;
+    types[index] = (byte) type.ordinal();
+    offsets[index] = offset;
+    lengths[index] = length;
+    values[index] = value;
+    return index;
+  }
+
+  /**
+   * Create a token representing the comment at the given index.
+   * 
+   * @param comment the index of the comment
+   * @return the token that was created
+   */
+  private Token createComment(int comment) {
+    return new StringToken(
+        TOKEN_TYPES[commentTypes[comment]],
+        symbols.getSymbol(commentValues[comment]),
+        commentOffsets[comment],
+        true);
+  }
+
+  /**
+   * Create a token representing the token at the given index.
+   * 
+   * @param index the index of the token
+   * @param comment the first comment preceding the token, or {@code null} if there are none
+   * @return the token that was created
+   */
+  private Token createToken(int index, Token comment) {
+    TokenType type = TOKEN_TYPES[types[index]];
+    int offset = offsets[index];
+    switch (kinds[index]) {
+      case KIND_BEGIN:
+        if (comment == null) {
+          return new BeginToken(type, offset);
+        }
+        return new BeginTokenWithComment(type, offset, comment);
+      case KIND_KEYWORD:
+        if (comment == null) {
+          return new KeywordToken(KEYWORDS[values[index]], offset);
+        }
+        return new KeywordTokenWithComment(KEYWORDS[values[index]], offset, comment);
+      case KIND_STRING:
+        if (comment == null) {
+          return new StringToken(type, symbols.getSymbol(values[index]), offset, true);
+        }
+        return new StringTokenWithComment(type, symbols.getSymbol(values[index]), offset, comment);
+      default:
+        if (comment == null) {
+          return new Token(type, offset);
+        }
+        return new TokenWithComment(type, offset, comment);
+    }
+  }
+}
@@ -15,8 +15,12 @@ package com.google.dart.engine.search;
 
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.source.Source;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The interface <code>SearchEngine</code> defines the behavior of objects that can be used to
@@ -26,6 +30,16 @@ import java.util.List;
  */
 public interface SearchEngine {
 
+  /**
+   * Synchronously search for all of the direct and indirect subtypes of the given type. The whole
+   * hierarchy below the type is computed by a single index query, which is much cheaper than
+   * searching for the direct subtypes of each subtype.
+   * 
+   * @param type the type whose subtypes are to be returned
+   * @return the direct and indirect subtypes of the given type, not including the type itself
+   */
+  Set<ClassElement> searchAllSubtypes(ClassElement type);
+
   /**
    * Synchronously search for declarations of the given name within the given scope. Return all
    * matches that pass the optional filter.
@@ -106,6 +120,23 @@ public interface SearchEngine {
   void searchQualifiedMemberReferences(String name, SearchScope scope, SearchFilter filter,
       SearchListener listener);
 
+  /**
+   * Synchronously search for references to any of the given {@link Element}s within the given
+   * scope. The relationships that are searched for each element are the same as those searched by
+   * {@link #searchReferences(Element, SearchScope, SearchFilter)}, but the index queries for all of
+   * the elements are issued together and their results are gathered once. Return all matches that
+   * pass the optional filter, partitioned by the {@link Source} containing them.
+   * 
+   * @param elements the elements being referenced by the found matches
+   * @param scope the scope containing the references to be searched, may be {@code null} if all
+   *          references should be returned
+   * @param filter the filter used to determine which matches should be returned, or {@code null} if
+   *          all of the matches should be returned
+   * @return the matches that were found, keyed by the {@link Source} containing them
+   */
+  Map<Source, List<SearchMatch>> searchReferences(Collection<? extends Element> elements,
+      SearchScope scope, SearchFilter filter);
+
   /**
    * Synchronously search for references to the given {@link Element} within the given scope. This
    * method will call corresponding <code>searchReferences</code> method depending on concrete type
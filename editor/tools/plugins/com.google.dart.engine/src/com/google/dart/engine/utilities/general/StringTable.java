@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Instances of the class {@code StringTable} hold a canonical instance of each distinct string that
+ * has been interned. Strings are only weakly referenced by the table, so a string is removed once it
+ * is no longer used elsewhere.
+ * <p>
+ * Strings can be looked up by a range of characters, so that a string only needs to be created the
+ * first time a given sequence of characters is interned. The table is divided into segments that
+ * are locked independently, so that it can be used by multiple threads.
+ * 
+ * @coverage dart.engine.utilities
+ */
+public class StringTable {
+  /**
+   * Instances of the class {@code Entry} weakly reference a string in a segment.
+   */
+  private static class Entry extends WeakReference<String> {
+    /**
+     * The hash code of the string.
+     */
+    private final int hashCode;
+
+    /**
+     * The next entry in the same bucket, or {@code null} if this is the last entry in the bucket.
+     */
+    private Entry next;
+
+    /**
+     * Initialize a newly created entry.
+     * 
+     * @param string the string referenced by the entry
+     * @param hashCode the hash code of the string
+     * @param next the next entry in the same bucket
+     * @param queue the queue with which the entry is registered
+     */
+    public Entry(String string, int hashCode, Entry next, ReferenceQueue<String> queue) {
+      super(string, queue);
+      this.hashCode = hashCode;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Instances of the class {@code Segment} hold the strings whose hash codes select the segment.
+   * All access to a segment is synchronized on the segment.
+   */
+  private static class Segment {
+    /**
+     * The buckets of the hash table. The length is always a power of two.
+     */
+    private Entry[] buckets = new Entry[INITIAL_BUCKET_COUNT];
+
+    /**
+     * The number of entries in this segment, including entries whose string has been collected but
+     * not yet removed.
+     */
+    private int count = 0;
+
+    /**
+     * The queue to which entries are added when their string has been collected.
+     */
+    private final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+
+    /**
+     * Return the string in this segment composed of the characters in the given range, adding a
+     * string if there is none.
+     * 
+     * @param chars the sequence containing the characters of the string
+     * @param start the index of the first character of the string
+     * @param end the index one past the last character of the string
+     * @param hashCode the hash code of the string
+     * @return the canonical string composed of the characters in the range
+     */
+    public synchronized String intern(CharSequence chars, int start, int end, int hashCode) {
+      removeCollectedEntries();
+      int index = hashCode & (buckets.length - 1);
+      for (Entry entry = buckets[index]; entry != null; entry = entry.next) {
+        if (entry.hashCode == hashCode) {
+          String string = entry.get();
+          if (string != null && matches(string, chars, start, end)) {
+            return string;
+          }
+        }
+      }
+      String string = copy(chars, start, end);
+      buckets[index] = new Entry(string, hashCode, buckets[index], queue);
+      if (++count > buckets.length - (buckets.length >> 2)) {
+        rehash();
+      }
+      return string;
+    }
+
+    /**
+     * Return the number of strings in this segment that have not been collected.
+     * 
+     * @return the number of strings in this segment
+     */
+    public synchronized int size() {
+      removeCollectedEntries();
+      return count;
+    }
+
+    /**
+     * Double the number of buckets in the hash table.
+     */
+    private void rehash() {
+      Entry[] newBuckets = new Entry[buckets.length * 2];
+      int mask = newBuckets.length - 1;
+      for (Entry entry : buckets) {
+        while (entry != null) {
+          Entry next = entry.next;
+          int index = entry.hashCode & mask;
+          entry.next = newBuckets[index];
+          newBuckets[index] = entry;
+          entry = next;
+        }
+      }
+      buckets = newBuckets;
+    }
+
+    /**
+     * Remove the entries whose string has been collected.
+     */
+    private void removeCollectedEntries() {
+      Object reference;
+      while ((reference = queue.poll()) != null) {
+        Entry collected = (Entry) reference;
+        int index = collected.hashCode & (buckets.length - 1);
+        Entry previous = null;
+        for (Entry entry = buckets[index]; entry != null; entry = entry.next) {
+          if (entry == collected) {
+            if (previous == null) {
+              buckets[index] = entry.next;
+            } else {
+              previous.next = entry.next;
+            }
+            count--;
+            break;
+          }
+          previous = entry;
+        }
+      }
+    }
+  }
+
+  /**
+   * The number of segments in a table. Must be consistent with the number of bits used to select a
+   * segment in {@link #getSegment(int)}.
+   */
+  private static final int SEGMENT_COUNT = 16;
+
+  /**
+   * The initial number of buckets in each segment. Must be a power of two.
+   */
+  private static final int INITIAL_BUCKET_COUNT = 64;
+
+  /**
+   * Return a string composed of the characters in the given range that does not share its
+   * characters with any other string.
+   */
+  private static String copy(CharSequence chars, int start, int end) {
+    char[] characters = new char[end - start];
+    for (int i = start; i < end; i++) {
+      characters[i - start] = chars.charAt(i);
+    }
+    return new String(characters);
+  }
+
+  /**
+   * Return {@code true} if the given string is composed of the characters in the given range.
+   */
+  private static boolean matches(String string, CharSequence chars, int start, int end) {
+    int length = end - start;
+    if (string.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (string.charAt(i) != chars.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The segments of this table.
+   */
+  private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+  /**
+   * Initialize a newly created table to be empty.
+   */
+  public StringTable() {
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /**
+   * Return the canonical string composed of the characters in the given range of the given
+   * sequence, adding a string to this table if there is none. No string is created if the table
+   * already contains the characters.
+   * 
+   * @param chars the sequence containing the characters of the string
+   * @param start the index of the first character of the string
+   * @param end the index one past the last character of the string
+   * @return the canonical string composed of the characters in the range
+   */
+  public String intern(CharSequence chars, int start, int end) {
+    int hashCode = 0;
+    for (int i = start; i < end; i++) {
+      hashCode = 31 * hashCode + chars.charAt(i);
+    }
+    return getSegment(hashCode).intern(chars, start, end, hashCode);
+  }
+
+  /**
+   * Return the canonical string equal to the given string, adding a copy of the given string to
+   * this table if there is none. A copy is added so that the table never retains characters shared
+   * with a larger string.
+   * 
+   * @param string the string to be interned
+   * @return the canonical string equal to the given string
+   */
+  public String intern(String string) {
+    return getSegment(string.hashCode()).intern(string, 0, string.length(), string.hashCode());
+  }
+
+  /**
+   * Return the number of strings in this table that have not been collected.
+   * 
+   * @return the number of strings in this table
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Return the segment containing strings with the given hash code. The hash code is multiplied by
+   * the golden ratio so that the top four bits, which select one of the {@link #SEGMENT_COUNT}
+   * segments, depend on all of the bits of the hash code, while the segments use the low bits.
+   */
+  private Segment getSegment(int hashCode) {
+    return segments[((hashCode ^ (hashCode >>> 16)) * 0x9E3779B9) >>> 28];
+  }
+}
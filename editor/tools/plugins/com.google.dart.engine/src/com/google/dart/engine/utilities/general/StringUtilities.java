@@ -13,9 +13,6 @@
  */
 package com.google.dart.engine.utilities.general;
 
-import com.google.common.collect.Interner;
-import com.google.common.collect.Interners;
-
 /**
  * The class {@code StringUtilities} defines utility methods for strings.
  * 
@@ -33,9 +30,10 @@ public final class StringUtilities {
   public static final String[] EMPTY_ARRAY = new String[0];
 
   /**
-   * The {@link Interner} instance to use for {@link #intern(String)}.
+   * The table of canonical strings used by {@link #intern(String)} and
+   * {@link #intern(CharSequence, int, int)}.
    */
-  private static final Interner<String> INTERNER = Interners.newWeakInterner();
+  private static final StringTable STRING_TABLE = new StringTable();
 
   /**
    * Returns a canonical representation for the given {@link String}.
@@ -46,8 +44,21 @@ public final class StringUtilities {
     if (str == null) {
       return null;
     }
-    str = new String(str);
-    return INTERNER.intern(str);
+    return STRING_TABLE.intern(str);
+  }
+
+  /**
+   * Returns a canonical representation of the characters in the given range of the given
+   * {@link CharSequence}. A {@link String} is only created if there is no canonical representation
+   * of the characters yet.
+   * 
+   * @param chars the sequence containing the characters
+   * @param start the index of the first character
+   * @param end the index one past the last character
+   * @return the canonical {@link String} composed of the characters in the range
+   */
+  public static String intern(CharSequence chars, int start, int end) {
+    return STRING_TABLE.intern(chars, start, end);
   }
 
   /**
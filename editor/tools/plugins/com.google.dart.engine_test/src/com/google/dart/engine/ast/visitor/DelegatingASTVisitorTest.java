@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.ast.visitor;
+
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.parser.ParserTestCase;
+
+import java.util.ArrayList;
+
+public class DelegatingASTVisitorTest extends ParserTestCase {
+  /**
+   * Instances of the class {@code NodeRecorder} record the nodes they are asked to visit without
+   * visiting the children of those nodes.
+   */
+  private static class NodeRecorder extends GeneralizingASTVisitor<Void> {
+    private final ArrayList<ASTNode> nodes = new ArrayList<ASTNode>();
+
+    @Override
+    public Void visitNode(ASTNode node) {
+      nodes.add(node);
+      return null;
+    }
+  }
+
+  public void test_visit() throws Exception {
+    CompilationUnit unit = parseCompilationUnit(createSource(
+        "library lib;",
+        "class A {",
+        "  int f = 0;",
+        "  m(p) {",
+        "    return [p, f];",
+        "  }",
+        "}"));
+    final ArrayList<ASTNode> expectedNodes = new ArrayList<ASTNode>();
+    unit.accept(new GeneralizingASTVisitor<Void>() {
+      @Override
+      public Void visitNode(ASTNode node) {
+        expectedNodes.add(node);
+        return super.visitNode(node);
+      }
+    });
+    NodeRecorder first = new NodeRecorder();
+    NodeRecorder second = new NodeRecorder();
+    unit.accept(new DelegatingASTVisitor<Void>(first, second));
+    assertEquals(expectedNodes, first.nodes);
+    assertEquals(expectedNodes, second.nodes);
+  }
+}
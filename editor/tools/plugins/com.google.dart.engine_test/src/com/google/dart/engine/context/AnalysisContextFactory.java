@@ -26,6 +26,7 @@ import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
 import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.element.TopLevelVariableElementImpl;
 import com.google.dart.engine.internal.resolver.TestTypeProvider;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.source.DartUriResolver;
@@ -115,7 +116,7 @@ public final class AnalysisContextFactory {
     HashMap<Source, LibraryElement> elementMap = new HashMap<Source, LibraryElement>();
     elementMap.put(coreSource, coreLibrary);
     elementMap.put(htmlSource, htmlLibrary);
-    sdkContext.recordLibraryElements(elementMap);
+    sdkContext.recordLibraryElements(elementMap, new HashMap<Source, NamespaceSummary>());
 
     AnalysisContextImpl context = new DelegatingAnalysisContextImpl();
     sourceFactory = new SourceFactory(new DartUriResolver(
@@ -20,6 +20,7 @@ import com.google.dart.engine.parser.ParserErrorCode;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.TestSource;
 
+import static com.google.dart.engine.ast.ASTFactory.compilationUnit;
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 public class DartEntryImplTest extends EngineTestCase {
@@ -34,6 +35,25 @@ public class DartEntryImplTest extends EngineTestCase {
     assertSame(CacheState.INVALID, info.getState(DartEntry.PARSE_ERRORS));
     assertSame(CacheState.INVALID, info.getState(DartEntry.PARSED_UNIT));
     assertSame(CacheState.INVALID, info.getState(DartEntry.PUBLIC_NAMESPACE));
+    assertSame(CacheState.INVALID, info.getState(DartEntry.PUBLIC_NAMESPACE_SUMMARY));
+  }
+
+  public void test_hasParsedUnitBeenAccessed() throws Exception {
+    DartEntryImpl info = new DartEntryImpl();
+    assertFalse(info.hasParsedUnitBeenAccessed());
+    info.setValue(DartEntry.PARSED_UNIT, compilationUnit());
+    assertFalse(info.hasParsedUnitBeenAccessed());
+    info.recordParsedUnitAccessed();
+    assertTrue(info.hasParsedUnitBeenAccessed());
+    // copied
+    DartEntryImpl copy = info.getWritableCopy();
+    assertTrue(copy.hasParsedUnitBeenAccessed());
+    // resolution invalidated
+    copy.invalidateAllResolutionInformation();
+    assertTrue(copy.hasParsedUnitBeenAccessed());
+    // flushed
+    info.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+    assertFalse(info.hasParsedUnitBeenAccessed());
   }
 
   public void test_isClient() throws Exception {
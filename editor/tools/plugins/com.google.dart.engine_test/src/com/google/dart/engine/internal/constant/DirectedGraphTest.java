@@ -16,6 +16,7 @@ package com.google.dart.engine.internal.constant;
 import com.google.dart.engine.EngineTestCase;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class DirectedGraphTest extends EngineTestCase {
   /**
@@ -24,17 +25,6 @@ public class DirectedGraphTest extends EngineTestCase {
   private static class Node {
   }
 
-  public void fail_findCycle() {
-    Node node1 = new Node();
-    Node node2 = new Node();
-    DirectedGraph<Node> graph = new DirectedGraph<Node>();
-    assertNull(graph.findCycle());
-    graph.addEdge(node1, node2);
-    assertNull(graph.findCycle());
-    graph.addEdge(node2, node1);
-    assertNotNull(graph.findCycle());
-  }
-
   public void test_addEdge() {
     DirectedGraph<Node> graph = new DirectedGraph<Node>();
     assertTrue(graph.isEmpty());
@@ -53,6 +43,33 @@ public class DirectedGraphTest extends EngineTestCase {
     assertNotNull(new DirectedGraph<Node>());
   }
 
+  public void test_findCycle() {
+    Node node1 = new Node();
+    Node node2 = new Node();
+    DirectedGraph<Node> graph = new DirectedGraph<Node>();
+    assertNull(graph.findCycle());
+    graph.addEdge(node1, node2);
+    assertNull(graph.findCycle());
+    graph.addEdge(node2, node1);
+    assertNotNull(graph.findCycle());
+  }
+
+  public void test_findCycle_withTail() {
+    Node node1 = new Node();
+    Node node2 = new Node();
+    Node node3 = new Node();
+    Node node4 = new Node();
+    DirectedGraph<Node> graph = new DirectedGraph<Node>();
+    graph.addEdge(node1, node2);
+    graph.addEdge(node2, node3);
+    graph.addEdge(node3, node4);
+    assertNull(graph.findCycle());
+    graph.addEdge(node4, node2);
+    List<Node> cycle = graph.findCycle();
+    assertSize(3, cycle);
+    assertFalse(cycle.contains(node1));
+  }
+
   public void test_getNodeCount() {
     Node node1 = new Node();
     Node node2 = new Node();
@@ -116,6 +133,19 @@ public class DirectedGraphTest extends EngineTestCase {
     assertSize(1, graph.getTails(node1));
   }
 
+  public void test_removeEdge_createsSink() {
+    Node node1 = new Node();
+    Node node2 = new Node();
+    DirectedGraph<Node> graph = new DirectedGraph<Node>();
+    graph.addEdge(node1, node2);
+    graph.addEdge(node2, node1);
+    assertNull(graph.removeSink());
+    graph.removeEdge(node2, node1);
+    assertSame(node2, graph.removeSink());
+    assertSame(node1, graph.removeSink());
+    assertTrue(graph.isEmpty());
+  }
+
   public void test_removeSink() {
     Node node1 = new Node();
     Node node2 = new Node();
@@ -125,4 +155,21 @@ public class DirectedGraphTest extends EngineTestCase {
     assertSame(node1, graph.removeSink());
     assertTrue(graph.isEmpty());
   }
+
+  public void test_removeSink_chain() {
+    int count = 1000;
+    Node[] nodes = new Node[count];
+    DirectedGraph<Node> graph = new DirectedGraph<Node>();
+    for (int i = 0; i < count; i++) {
+      nodes[i] = new Node();
+      if (i > 0) {
+        graph.addEdge(nodes[i], nodes[i - 1]);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      assertSame(nodes[i], graph.removeSink());
+    }
+    assertNull(graph.removeSink());
+    assertTrue(graph.isEmpty());
+  }
 }
@@ -23,13 +23,23 @@ import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.HtmlElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.internal.cache.DartEntry;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.internal.index.IndexConstants;
+import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
+import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.scope.NamespaceSummary;
+import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
 import com.google.dart.engine.source.Source;
@@ -40,6 +50,8 @@ import com.google.dart.engine.utilities.source.LineInfo;
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Map;
 
 public class AnalysisContextImplTest extends EngineTestCase {
   /**
@@ -107,11 +119,64 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertSame(declarationElement, ((PropertyAccessorElement) useElement).getVariable());
   }
 
+  public void test_applyChanges_change_multipleLibraries() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source firstSource = addSource("/first.dart", createSource(//
+        "library first;",
+        "int f() => 0;"));
+    Source secondSource = addSource("/second.dart", createSource(//
+        "library second;",
+        "int g() => 0;"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'first.dart';",
+        "import 'second.dart';",
+        "main() => f() + g();"));
+    Source otherSource = addSource("/other.dart", createSource(//
+        "library other;",
+        "int h() => 0;"));
+    context.computeLibraryElement(testSource);
+    LibraryElement otherLibrary = context.computeLibraryElement(otherSource);
+
+    sourceFactory.setContents(firstSource, createSource(//
+        "library first;",
+        "int f(int x) => 0;"));
+    sourceFactory.setContents(secondSource, createSource(//
+        "library second;",
+        "int g() => 1;"));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.changed(firstSource);
+    changeSet.changed(secondSource);
+    context.applyChanges(changeSet);
+    assertNull(context.getLibraryElement(firstSource));
+    assertNull(context.getLibraryElement(secondSource));
+    assertNull(context.getLibraryElement(testSource));
+    assertSame(otherLibrary, context.getLibraryElement(otherSource));
+  }
+
   public void test_applyChanges_empty() {
     context.applyChanges(new ChangeSet());
     assertNull(context.performAnalysisTask());
   }
 
+  public void test_applyChanges_removeContainers() throws Exception {
+    Source firstSource = addSource("/first/lib.dart", "library first;");
+    Source secondSource = addSource("/second/lib.dart", "library second;");
+    Source thirdSource = addSource("/third/lib.dart", "library third;");
+    Source prefixSource = addSource("/firstOther/lib.dart", "library firstOther;");
+    for (Source source : new Source[] {firstSource, secondSource, thirdSource, prefixSource}) {
+      assertSame(SourceKind.LIBRARY, context.computeKindOf(source));
+    }
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.removedContainer(new DirectoryBasedSourceContainer(createFile("/first")));
+    changeSet.removedContainer(new DirectoryBasedSourceContainer(createFile("/second")));
+    context.applyChanges(changeSet);
+    assertSame(SourceKind.UNKNOWN, context.getKindOf(firstSource));
+    assertSame(SourceKind.UNKNOWN, context.getKindOf(secondSource));
+    assertSame(SourceKind.LIBRARY, context.getKindOf(thirdSource));
+    assertSame(SourceKind.LIBRARY, context.getKindOf(prefixSource));
+  }
+
   public void test_computeDocumentationComment_none() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -204,6 +269,26 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(info);
   }
 
+  public void test_computeResolvableCompilationUnit_parsedUnitNotAccessed() throws Exception {
+    Source source = addSource("/lib.dart", "library lib; class A {}");
+    context.computeLineInfo(source);
+    DartEntry dartEntry = getDartEntry(source);
+    CompilationUnit parsedUnit = dartEntry.getValue(DartEntry.PARSED_UNIT);
+    assertNotNull(parsedUnit);
+    assertFalse(dartEntry.hasParsedUnitBeenAccessed());
+    // the parsed unit is handed over rather than copied
+    assertSame(parsedUnit, context.computeResolvableCompilationUnit(source));
+    assertSame(CacheState.FLUSHED, getDartEntry(source).getState(DartEntry.PARSED_UNIT));
+    // so a client asking for the parsed unit gets a new one
+    CompilationUnit reparsedUnit = context.parseCompilationUnit(source);
+    assertNotSame(parsedUnit, reparsedUnit);
+    assertEquals(parsedUnit.toSource(), reparsedUnit.toSource());
+    dartEntry = getDartEntry(source);
+    assertSame(CacheState.VALID, dartEntry.getState(DartEntry.PARSED_UNIT));
+    assertSame(reparsedUnit, dartEntry.getValue(DartEntry.PARSED_UNIT));
+    assertTrue(dartEntry.hasParsedUnitBeenAccessed());
+  }
+
   public void test_getElement() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -346,6 +431,12 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertEquals(source, sources[0]);
   }
 
+  public void test_getLibraryElement_nullSource() {
+    assertNull(context.getLibraryElement(null));
+    assertNull(context.getLineInfo(null));
+    assertNull(context.getHtmlElement(null));
+  }
+
   public void test_getLineInfo() throws Exception {
     Source source = addSource("/test.dart", createSource("library lib;", "", "main() {}"));
     LineInfo info = context.getLineInfo(source);
@@ -375,6 +466,100 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertInstanceOf(ClassElement.class, namespace.get("A"));
   }
 
+  public void test_getPublicNamespaceSummary() throws Exception {
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {}"));
+    addSource("/part.dart", createSource(//
+        "part of lib;",
+        "int b() => 0;"));
+    NamespaceSummary summary = context.getPublicNamespaceSummary(librarySource);
+    assertNotNull(summary);
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.FUNCTION, summary.getKind("b"));
+    assertNull(context.getLibraryElement(librarySource));
+    assertSame(summary, context.getPublicNamespaceSummary(librarySource));
+  }
+
+  public void test_getPublicNamespaceSummary_afterChange() throws Exception {
+    Source librarySource = addSource("/lib.dart", "int f() => 0;");
+    NamespaceSummary summary = context.getPublicNamespaceSummary(librarySource);
+    context.setContents(librarySource, "int f() => 1;");
+    NamespaceSummary bodyChanged = context.getPublicNamespaceSummary(librarySource);
+    assertNotSame(summary, bodyChanged);
+    assertTrue(summary.hasSameApi(bodyChanged));
+    context.setContents(librarySource, "int f(x) => 1;");
+    assertFalse(summary.hasSameApi(context.getPublicNamespaceSummary(librarySource)));
+  }
+
+  public void test_getPublicNamespaceSummary_export() throws Exception {
+    Source librarySource = addSource("/a.dart", createSource(//
+        "library a;",
+        "export 'b.dart' hide C;",
+        "class A {}"));
+    addSource("/b.dart", createSource(//
+        "library b;",
+        "export 'c.dart';",
+        "class B {}"));
+    Source exportedSource = addSource("/c.dart", createSource(//
+        "library c;",
+        "class C {}",
+        "class D {}"));
+    NamespaceSummary summary = context.getPublicNamespaceSummary(librarySource);
+    assertEquals(3, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    assertEquals(ElementKind.CLASS, summary.getKind("D"));
+    context.setContents(exportedSource, createSource(//
+        "library c;",
+        "class C {}",
+        "class E {}"));
+    NamespaceSummary changedSummary = context.getPublicNamespaceSummary(librarySource);
+    assertFalse(summary.hasSameApi(changedSummary));
+    assertEquals(ElementKind.CLASS, changedSummary.getKind("E"));
+    assertFalse(changedSummary.contains("D"));
+  }
+
+  public void test_getPublicNamespaceSummary_exportCycle() throws Exception {
+    Source librarySource = addSource("/a.dart", createSource(//
+        "library a;",
+        "export 'b.dart';",
+        "class A {}"));
+    Source exportedSource = addSource("/b.dart", createSource(//
+        "library b;",
+        "export 'a.dart';",
+        "class B {}"));
+    NamespaceSummary summary = context.getPublicNamespaceSummary(librarySource);
+    assertEquals(2, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    summary = context.getPublicNamespaceSummary(exportedSource);
+    assertEquals(2, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+  }
+
+  public void test_getPublicNamespaceSummary_resolved() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/a.dart", createSource(//
+        "library a;",
+        "export 'b.dart' show B;",
+        "class A {}"));
+    addSource("/b.dart", createSource(//
+        "library b;",
+        "class B {}",
+        "class C {}"));
+    NamespaceSummary summary = context.getPublicNamespaceSummary(librarySource);
+    context.computeLibraryElement(librarySource);
+    NamespaceSummary resolvedSummary = context.getPublicNamespaceSummary(librarySource);
+    assertNotSame(summary, resolvedSummary);
+    assertTrue(summary.hasSameApi(resolvedSummary));
+    assertEquals(2, resolvedSummary.size());
+    assertEquals(ElementKind.CLASS, resolvedSummary.getKind("B"));
+  }
+
   public void test_getResolvedCompilationUnit_library() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -483,6 +668,31 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(compilationUnit);
   }
 
+  public void test_resolveCompilationUnit_parsedUnitAccessed() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", "library lib;");
+    CompilationUnit parsedUnit = context.parseCompilationUnit(source);
+    CompilationUnit resolvedUnit = context.resolveCompilationUnit(source, source);
+    assertNotNull(resolvedUnit);
+    assertNotSame(parsedUnit, resolvedUnit);
+    assertNull(parsedUnit.getElement());
+    assertNotNull(resolvedUnit.getElement());
+  }
+
+  public void test_resolveCompilationUnit_parsedUnitNotAccessed() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source source = addSource("/lib.dart", "library lib; class A {}");
+    context.computeLineInfo(source);
+    CompilationUnit parsedUnit = getDartEntry(source).getValue(DartEntry.PARSED_UNIT);
+    assertNotNull(parsedUnit);
+    CompilationUnit resolvedUnit = context.resolveCompilationUnit(source, source);
+    assertSame(parsedUnit, resolvedUnit);
+    assertNotNull(resolvedUnit.getElement());
+    assertSame(CacheState.FLUSHED, getDartEntry(source).getState(DartEntry.PARSED_UNIT));
+  }
+
   public void test_resolveCompilationUnit_source() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -516,6 +726,114 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNull(context.getResolvedCompilationUnit(partSource, librarySource));
   }
 
+  public void test_setContents_importedLibrary_apiChange() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'lib.dart';",
+        "main() => f();"));
+    context.computeLibraryElement(testSource);
+
+    context.setContents(librarySource, createSource(//
+        "library lib;",
+        "int g() => 0;"));
+    assertNull(context.getLibraryElement(librarySource));
+    assertNull(context.getLibraryElement(testSource));
+  }
+
+  public void test_setContents_importedLibrary_bodyChange() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'lib.dart';",
+        "main() => f();"));
+    LibraryElement testLibrary = context.computeLibraryElement(testSource);
+
+    context.setContents(librarySource, createSource(//
+        "library lib;",
+        "int f() => 1;"));
+    assertNull(context.getLibraryElement(librarySource));
+    assertSame(testLibrary, context.getLibraryElement(testSource));
+  }
+
+  public void test_setContents_importedLibrary_bodyChange_index() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'lib.dart';",
+        "main() => f();"));
+    MemoryIndexStoreImpl store = new MemoryIndexStoreImpl();
+    indexUnit(store, librarySource);
+    indexUnit(store, testSource);
+
+    context.setContents(librarySource, createSource(//
+        "library lib;",
+        "int f() => 1;"));
+    indexUnit(store, librarySource);
+    LibraryElement library = context.getLibraryElement(librarySource);
+    FunctionElement function = library.getDefiningCompilationUnit().getFunctions()[0];
+    Location[] locations = store.getRelationships(function, IndexConstants.IS_INVOKED_BY);
+    assertLength(1, locations);
+    assertEquals(testSource, locations[0].getElement().getSource());
+  }
+
+  public void test_setContents_importedLibrary_transitive() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    addSource("/exporter.dart", createSource(//
+        "library exporter;",
+        "export 'lib.dart';"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'exporter.dart';",
+        "main() => f();"));
+    context.computeLibraryElement(testSource);
+
+    context.setContents(librarySource, createSource(//
+        "library lib;",
+        "int f(int x) => 0;"));
+    assertNull(context.getLibraryElement(testSource));
+  }
+
+  public void test_setContents_importedLibrary_transitive_unresolved() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "int f() => 0;"));
+    Source exporterSource = addSource("/exporter.dart", createSource(//
+        "library exporter;",
+        "export 'lib.dart';",
+        "int g() => 0;"));
+    Source testSource = addSource("/test.dart", createSource(//
+        "import 'exporter.dart';",
+        "main() => f();"));
+    context.computeLibraryElement(testSource);
+    // the exporter is not resolved, but the test library still uses its element model
+    context.setContents(exporterSource, createSource(//
+        "library exporter;",
+        "export 'lib.dart';",
+        "int g() => 1;"));
+    assertNull(context.getLibraryElement(exporterSource));
+    assertNotNull(context.getLibraryElement(testSource));
+
+    context.setContents(librarySource, createSource(//
+        "library lib;",
+        "int f(int x) => 0;"));
+    assertNull(context.getLibraryElement(testSource));
+  }
+
   public void test_setSourceFactory() {
     assertEquals(sourceFactory, context.getSourceFactory());
     SourceFactory factory = new SourceFactory();
@@ -532,6 +850,16 @@ public class AnalysisContextImplTest extends EngineTestCase {
     return source;
   }
 
+  /**
+   * Return the cache entry of the given source, read directly from the cache so that the parsed unit
+   * is not marked as accessed.
+   */
+  private DartEntry getDartEntry(Source source) throws Exception {
+    Field sourceMapField = AnalysisContextImpl.class.getDeclaredField("sourceMap");
+    sourceMapField.setAccessible(true);
+    return (DartEntry) ((Map<?, ?>) sourceMapField.get(context)).get(source);
+  }
+
   /**
    * Search the given compilation unit for a class with the given name. Return the class with the
    * given name, or {@code null} if the class cannot be found.
@@ -548,4 +876,12 @@ public class AnalysisContextImplTest extends EngineTestCase {
     }
     return null;
   }
+
+  /**
+   * Resolve the given library and record its relationships in the given index store.
+   */
+  private void indexUnit(IndexStore store, Source librarySource) throws AnalysisException {
+    CompilationUnit unit = context.resolveCompilationUnit(librarySource, librarySource);
+    new IndexUnitOperation(store, context, unit).performOperation();
+  }
 }
@@ -25,6 +25,7 @@ public class TestAll {
     suite.addTestSuite(ElementLocationImplTest.class);
     suite.addTestSuite(ElementImplTest.class);
     suite.addTestSuite(LibraryElementImplTest.class);
+    suite.addTest(com.google.dart.engine.internal.element.member.TestAll.suite());
     return suite;
   }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.element.member;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.internal.element.MethodElementImpl;
+import com.google.dart.engine.internal.type.InterfaceTypeImpl;
+import com.google.dart.engine.type.Type;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+import static com.google.dart.engine.element.ElementFactory.methodElement;
+
+public class MemberCacheTest extends EngineTestCase {
+  public void test_from_differentArguments() {
+    ClassElementImpl classA = classElement("A", "E");
+    Type typeE = classA.getTypeVariables()[0].getType();
+    MethodElementImpl method = methodElement("m", typeE, typeE);
+    classA.setMethods(new MethodElement[] {method});
+    MethodElement first = MethodMember.from(method, parameterize(classA, classElement("B")));
+    MethodElement second = MethodMember.from(method, parameterize(classA, classElement("C")));
+    assertInstanceOf(MethodMember.class, first);
+    assertInstanceOf(MethodMember.class, second);
+    assertNotSame(first, second);
+  }
+
+  public void test_from_noSubstitution() {
+    ClassElementImpl classA = classElement("A", "E");
+    ClassElement classB = classElement("B");
+    MethodElementImpl method = methodElement("m", classB.getType());
+    classA.setMethods(new MethodElement[] {method});
+    assertSame(method, MethodMember.from(method, parameterize(classA, classB)));
+  }
+
+  public void test_from_sameArguments() {
+    ClassElementImpl classA = classElement("A", "E");
+    ClassElement classB = classElement("B");
+    Type typeE = classA.getTypeVariables()[0].getType();
+    MethodElementImpl method = methodElement("m", typeE, typeE);
+    classA.setMethods(new MethodElement[] {method});
+    long reusedCount = MemberCache.getReusedCount();
+    MethodElement first = MethodMember.from(method, parameterize(classA, classB));
+    MethodElement second = MethodMember.from(method, parameterize(classA, classB));
+    assertInstanceOf(MethodMember.class, first);
+    assertSame(first, second);
+    assertSame(classB.getType(), first.getType().getReturnType());
+    assertTrue(MemberCache.getReusedCount() > reusedCount);
+  }
+
+  public void test_from_sameNestedArguments() {
+    ClassElementImpl classA = classElement("A", "E");
+    ClassElement classB = classElement("B", "F");
+    ClassElement classC = classElement("C");
+    Type typeE = classA.getTypeVariables()[0].getType();
+    MethodElementImpl method = methodElement("m", typeE);
+    classA.setMethods(new MethodElement[] {method});
+    MethodElement first = MethodMember.from(
+        method,
+        parameterize(classA, parameterize(classB, classC)));
+    MethodElement second = MethodMember.from(
+        method,
+        parameterize(classA, parameterize(classB, classC)));
+    assertInstanceOf(MethodMember.class, first);
+    assertSame(first, second);
+  }
+
+  private InterfaceTypeImpl parameterize(ClassElement element, ClassElement argument) {
+    return parameterize(element, argument.getType());
+  }
+
+  private InterfaceTypeImpl parameterize(ClassElement element, Type argument) {
+    InterfaceTypeImpl type = new InterfaceTypeImpl(element);
+    type.setTypeArguments(new Type[] {argument});
+    return type;
+  }
+}
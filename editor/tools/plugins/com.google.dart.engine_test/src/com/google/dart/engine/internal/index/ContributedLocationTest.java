@@ -14,21 +14,52 @@
 package com.google.dart.engine.internal.index;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.Element;
 import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.utilities.collection.FastRemoveList;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 public class ContributedLocationTest extends EngineTestCase {
+  public void test_moveToDeclarationOwner() throws Exception {
+    FastRemoveList<ContributedLocation> declarationOwner = FastRemoveList.newInstance();
+    FastRemoveList<ContributedLocation> locationOwner = FastRemoveList.newInstance();
+    Location location = mock(Location.class);
+    ContributedLocation contributedLocation = new ContributedLocation(
+        declarationOwner,
+        locationOwner,
+        mock(Element.class),
+        Relationship.getRelationship("test-relationship"),
+        location);
+    // move to new "declaration"
+    FastRemoveList<ContributedLocation> newDeclarationOwner = FastRemoveList.newInstance();
+    Location newLocation = mock(Location.class);
+    contributedLocation.moveToDeclarationOwner(newDeclarationOwner, newLocation);
+    assertSame(newLocation, contributedLocation.getLocation());
+    assertThat(declarationOwner).isEmpty();
+    assertThat(newDeclarationOwner).containsOnly(contributedLocation);
+    assertThat(locationOwner).containsOnly(contributedLocation);
+    // remove from new "declaration"
+    contributedLocation.removeFromDeclarationOwner();
+    assertThat(newDeclarationOwner).isEmpty();
+  }
+
   public void test_new() throws Exception {
     FastRemoveList<ContributedLocation> declarationOwner = FastRemoveList.newInstance();
     FastRemoveList<ContributedLocation> locationOwner = FastRemoveList.newInstance();
+    Element element = mock(Element.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
     Location location = mock(Location.class);
     ContributedLocation contributedLocation = new ContributedLocation(
         declarationOwner,
         locationOwner,
+        element,
+        relationship,
         location);
+    assertSame(element, contributedLocation.getElement());
+    assertSame(relationship, contributedLocation.getRelationship());
     assertSame(location, contributedLocation.getLocation());
     assertThat(declarationOwner).containsOnly(contributedLocation);
     assertThat(locationOwner).containsOnly(contributedLocation);
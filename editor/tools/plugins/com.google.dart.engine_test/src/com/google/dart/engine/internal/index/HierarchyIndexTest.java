@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class HierarchyIndexTest extends EngineTestCase {
+  private HierarchyIndex hierarchy = new HierarchyIndex();
+  private Element elementA = mock(Element.class);
+  private Element elementB = mock(Element.class);
+  private Element elementC = mock(Element.class);
+  private Element elementD = mock(Element.class);
+
+  public void test_addEdge_duplicate() throws Exception {
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementA, elementB);
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementB);
+    // a single removal removes both
+    hierarchy.removeType(elementB);
+    assertThat(hierarchy.getSubtypes(elementA)).isEmpty();
+    assertEquals(0, hierarchy.size());
+  }
+
+  public void test_addEdge_self() throws Exception {
+    hierarchy.addEdge(elementA, elementA);
+    assertThat(hierarchy.getSubtypes(elementA)).isEmpty();
+    assertEquals(0, hierarchy.size());
+  }
+
+  public void test_getSubtypes() throws Exception {
+    // A <- B <- C, A <- C, B <- D
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementB, elementC);
+    hierarchy.addEdge(elementA, elementC);
+    hierarchy.addEdge(elementB, elementD);
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementB, elementC, elementD);
+    assertThat(hierarchy.getSubtypes(elementB)).containsOnly(elementC, elementD);
+    assertThat(hierarchy.getSubtypes(elementC)).isEmpty();
+  }
+
+  public void test_getSubtypes_cycle() throws Exception {
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementB, elementC);
+    hierarchy.addEdge(elementC, elementA);
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementB, elementC);
+    assertThat(hierarchy.getSupertypes(elementA)).containsOnly(elementB, elementC);
+  }
+
+  public void test_getSubtypes_newVersion() throws Exception {
+    ClassElement oldB = classElement("B");
+    ClassElement newB = classElement("B");
+    hierarchy.addEdge(oldB, elementC);
+    // the new version of B finds the subtypes recorded for the old one
+    assertThat(hierarchy.getSubtypes(newB)).containsOnly(elementC);
+  }
+
+  public void test_getSubtypes_unknown() throws Exception {
+    assertThat(hierarchy.getSubtypes(elementA)).isEmpty();
+    assertThat(hierarchy.getSupertypes(elementA)).isEmpty();
+  }
+
+  public void test_getSupertypes() throws Exception {
+    // A <- B <- C, D <- C
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementB, elementC);
+    hierarchy.addEdge(elementD, elementC);
+    assertThat(hierarchy.getSupertypes(elementC)).containsOnly(elementA, elementB, elementD);
+    assertThat(hierarchy.getSupertypes(elementB)).containsOnly(elementA);
+    assertThat(hierarchy.getSupertypes(elementA)).isEmpty();
+  }
+
+  public void test_removeType() throws Exception {
+    // A <- B <- C
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementB, elementC);
+    assertEquals(3, hierarchy.size());
+    // remove B, A and C have no edges left
+    hierarchy.removeType(elementB);
+    assertThat(hierarchy.getSubtypes(elementA)).isEmpty();
+    assertThat(hierarchy.getSupertypes(elementC)).isEmpty();
+    assertEquals(0, hierarchy.size());
+  }
+
+  public void test_removeType_reuseIdentifier() throws Exception {
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.addEdge(elementA, elementC);
+    hierarchy.removeType(elementB);
+    assertEquals(2, hierarchy.size());
+    // D takes the identifier of B
+    hierarchy.addEdge(elementC, elementD);
+    assertEquals(3, hierarchy.size());
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementC, elementD);
+    assertThat(hierarchy.getSupertypes(elementD)).containsOnly(elementA, elementC);
+  }
+
+  public void test_removeType_unknown() throws Exception {
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.removeType(elementC);
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementB);
+  }
+
+  public void test_resetSupertypes() throws Exception {
+    // A <- B <- C
+    ClassElement oldB = classElement("B");
+    hierarchy.addEdge(elementA, oldB);
+    hierarchy.addEdge(oldB, elementC);
+    // B is indexed again, the edge to C is kept
+    ClassElement newB = classElement("B");
+    hierarchy.resetSupertypes(newB);
+    assertThat(hierarchy.getSubtypes(elementA)).isEmpty();
+    Element[] supertypes = hierarchy.getSupertypes(elementC);
+    assertLength(1, supertypes);
+    assertSame(newB, supertypes[0]);
+    // the supertypes of B are recorded again
+    hierarchy.addEdge(elementA, newB);
+    assertThat(hierarchy.getSupertypes(elementC)).containsOnly(newB, elementA);
+  }
+
+  public void test_resetSupertypes_unknown() throws Exception {
+    hierarchy.addEdge(elementA, elementB);
+    hierarchy.resetSupertypes(elementC);
+    assertThat(hierarchy.getSubtypes(elementA)).containsOnly(elementB);
+  }
+}
@@ -18,9 +18,11 @@ import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.HierarchyCallback;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.operation.GetHierarchyOperation;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
@@ -64,6 +66,30 @@ public class IndexImplTest extends EngineTestCase {
     assertSame(callback, argument.getValue().getCallback());
   }
 
+  public void test_getSubtypes() throws Exception {
+    Element type = mock(Element.class);
+    HierarchyCallback callback = mock(HierarchyCallback.class);
+    index.getSubtypes(type, callback);
+    // verify
+    ArgumentCaptor<GetHierarchyOperation> argument = ArgumentCaptor.forClass(GetHierarchyOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(type, argument.getValue().getType());
+    assertTrue(argument.getValue().isSubtypes());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
+  public void test_getSupertypes() throws Exception {
+    Element type = mock(Element.class);
+    HierarchyCallback callback = mock(HierarchyCallback.class);
+    index.getSupertypes(type, callback);
+    // verify
+    ArgumentCaptor<GetHierarchyOperation> argument = ArgumentCaptor.forClass(GetHierarchyOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(type, argument.getValue().getType());
+    assertFalse(argument.getValue().isSubtypes());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
   public void test_indexUnit() throws Exception {
     Source unitSource = mock(Source.class);
     CompilationUnitElement unitElement = mock(CompilationUnitElement.class);
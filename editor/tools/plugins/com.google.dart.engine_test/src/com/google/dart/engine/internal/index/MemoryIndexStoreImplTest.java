@@ -26,16 +26,20 @@ import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.internal.context.InstrumentedAnalysisContextImpl;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.index.MemoryIndexStoreImpl.ElementRelationKey;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import static com.google.dart.engine.element.ElementFactory.classElement;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
@@ -84,6 +88,137 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
 
   private Location location = mock(Location.class);
 
+  public void test_ElementRelationKey_newVersion() throws Exception {
+    ElementRelationKey oldKey = new ElementRelationKey(classElement("A"), relationship);
+    ElementRelationKey newKey = new ElementRelationKey(classElement("A"), relationship);
+    assertEquals(oldKey, newKey);
+    assertEquals(oldKey.hashCode(), newKey.hashCode());
+    Relationship otherRelationship = Relationship.getRelationship("test-relationship-other");
+    assertFalse(oldKey.equals(new ElementRelationKey(classElement("A"), otherRelationship)));
+    assertFalse(oldKey.equals(new ElementRelationKey(classElement("B"), relationship)));
+  }
+
+  public void test_ElementRelationKey_sameElement() throws Exception {
+    ElementRelationKey keyA = new ElementRelationKey(elementA, relationship);
+    ElementRelationKey keyB = new ElementRelationKey(elementA, relationship);
+    assertEquals(keyA, keyB);
+    // the same instance is not compared by location
+    verify(elementA, never()).getLocation();
+  }
+
+  public void test_aboutToIndex_changedDeclaration() throws Exception {
+    Location locationB = mockLocation(elementB, 15);
+    Location locationB2 = mockLocation(elementB, 25);
+    // index B: [B -> A]
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 10);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.doneIndex();
+    ContributedLocation contributedLocation = getContributedLocation(elementA, relationship);
+    // index B again, hash of "f" is changed, so location is replaced
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 2, 20);
+    store.recordRelationship(elementA, relationship, locationB2);
+    store.doneIndex();
+    assertNotSame(contributedLocation, getContributedLocation(elementA, relationship));
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB2);
+    assertEquals(1, store.internalGetRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+  }
+
+  public void test_aboutToIndex_removedDeclaration() throws Exception {
+    Location locationB = mockLocation(elementB, 15);
+    Location locationB2 = mockLocation(elementB, 35);
+    // index B: [B -> A] in "f" and "g"
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 10);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.beginDeclaration("g", 1, 30);
+    store.recordRelationship(elementA, relationship, locationB2);
+    store.doneIndex();
+    assertEquals(2, store.internalGetRelationshipCount());
+    // index B again, without "f"
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("g", 1, 30);
+    store.recordRelationship(elementA, relationship, locationB2);
+    store.doneIndex();
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationB2);
+    assertEquals(1, store.internalGetRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+  }
+
+  public void test_aboutToIndex_replacedElements() throws Exception {
+    Element elementB2 = mock(Element.class);
+    when(elementB2.getContext()).thenReturn(contextA);
+    when(elementB2.getEnclosingElement()).thenReturn(unitElementB);
+    Location locationC = mockLocation(elementC, 5);
+    // index B, which declares B; record [C -> B] and [C -> A]
+    store.aboutToIndex(contextA, sourceB);
+    store.recordSourceElements(contextA, sourceB, ImmutableList.of(elementB));
+    store.doneIndex();
+    store.recordRelationship(elementB, relationship, locationC);
+    store.recordRelationship(elementA, relationship, locationC);
+    // index B again, B is still declared
+    store.aboutToIndex(contextA, sourceB);
+    store.recordSourceElements(contextA, sourceB, ImmutableList.of(elementB));
+    store.doneIndex();
+    assertThat(store.getRelationships(elementB, relationship)).containsOnly(locationC);
+    assertEquals(1, store.getDeclarationCount(contextA));
+    // index B again, now B2 is declared instead of B
+    store.aboutToIndex(contextA, sourceB);
+    store.recordSourceElements(contextA, sourceB, ImmutableList.of(elementB2));
+    store.doneIndex();
+    assertThat(store.getRelationships(elementB, relationship)).isEmpty();
+    assertThat(store.getRelationships(elementA, relationship)).containsOnly(locationC);
+    assertEquals(1, store.getDeclarationCount(contextA));
+    assertEquals(1, store.getLocationCount(contextA));
+  }
+
+  public void test_aboutToIndex_unchangedDeclaration() throws Exception {
+    Location locationB = mockLocation(elementB, 15);
+    Location locationB2 = mockLocation(elementB, 25);
+    // index B: [B extends A]
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 10);
+    store.recordRelationship(elementA, IndexConstants.IS_EXTENDED_BY, locationB);
+    store.doneIndex();
+    ContributedLocation contributedLocation = getContributedLocation(
+        elementA,
+        IndexConstants.IS_EXTENDED_BY);
+    // index B again, "f" was moved, but not changed, so location is reused
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 20);
+    store.recordRelationship(elementA, IndexConstants.IS_EXTENDED_BY, locationB2);
+    store.doneIndex();
+    assertSame(
+        contributedLocation,
+        getContributedLocation(elementA, IndexConstants.IS_EXTENDED_BY));
+    assertThat(store.getRelationships(elementA, IndexConstants.IS_EXTENDED_BY)).containsOnly(
+        locationB2);
+    assertThat(store.getSubtypes(elementA)).containsOnly(elementB);
+    assertEquals(1, store.internalGetRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+  }
+
+  public void test_aboutToIndex_unchangedDeclaration_differentRelationship() throws Exception {
+    Location locationB = mockLocation(elementB, 15);
+    Location locationB2 = mockLocation(elementB, 25);
+    // index B: [B -> A]
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 10);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.doneIndex();
+    // index B again, hash of "f" is the same, but now [B -> D] is recorded
+    store.aboutToIndex(contextA, sourceB);
+    store.beginDeclaration("f", 1, 20);
+    store.recordRelationship(elementD, relationship, locationB2);
+    store.doneIndex();
+    assertThat(store.getRelationships(elementA, relationship)).isEmpty();
+    assertThat(store.getRelationships(elementD, relationship)).containsOnly(locationB2);
+    assertEquals(1, store.internalGetRelationshipCount());
+    assertEquals(1, store.getLocationCount(contextA));
+  }
+
   public void test_findSource_ClassElement() throws Exception {
     Source source = mock(Source.class);
     CompilationUnitElement unitElement = mock(CompilationUnitElement.class);
@@ -209,6 +344,23 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     assertEquals(2, store.internalGetSourceCount());
   }
 
+  public void test_getSubtypes() throws Exception {
+    Location locationB = mock(Location.class);
+    Location locationC = mock(Location.class);
+    when(locationB.getElement()).thenReturn(elementB);
+    when(locationC.getElement()).thenReturn(elementC);
+    // record: [B extends A] and [C implements B]
+    store.recordRelationship(elementA, IndexConstants.IS_EXTENDED_BY, locationB);
+    store.recordRelationship(elementB, IndexConstants.IS_IMPLEMENTED_BY, locationC);
+    // not a hierarchy relationship
+    store.recordRelationship(elementC, relationship, location);
+    // verify
+    assertThat(store.getSubtypes(elementA)).containsOnly(elementB, elementC);
+    assertThat(store.getSubtypes(elementB)).containsOnly(elementC);
+    assertThat(store.getSubtypes(elementC)).isEmpty();
+    assertThat(store.getSupertypes(elementC)).containsOnly(elementA, elementB);
+  }
+
   public void test_recordRelationship() throws Exception {
     // no relationships initially
     assertEquals(0, store.internalGetRelationshipCount());
@@ -349,6 +501,25 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     assertEquals(0, store.getLocationCount(contextA));
   }
 
+  public void test_removeSource_withHierarchy() throws Exception {
+    Location locationB = mock(Location.class);
+    Location locationC = mock(Location.class);
+    when(locationB.getElement()).thenReturn(elementB);
+    when(locationC.getElement()).thenReturn(elementC);
+    // record: [B extends A] and [C extends B]
+    {
+      store.recordSourceElements(contextA, sourceB, ImmutableList.of(elementB));
+      store.recordSourceElements(contextA, sourceC, ImmutableList.of(elementC));
+      store.recordRelationship(elementA, IndexConstants.IS_EXTENDED_BY, locationB);
+      store.recordRelationship(elementB, IndexConstants.IS_EXTENDED_BY, locationC);
+      assertThat(store.getSubtypes(elementA)).containsOnly(elementB, elementC);
+    }
+    // remove B, C is not a subtype of A anymore
+    store.removeSource(contextA, sourceB);
+    assertThat(store.getSubtypes(elementA)).isEmpty();
+    assertThat(store.getSupertypes(elementC)).isEmpty();
+  }
+
   public void test_removeSource_withRelationship() throws Exception {
     Location locationB = mock(Location.class);
     Location locationC = mock(Location.class);
@@ -572,4 +743,30 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     when(unitElementC.getSource()).thenReturn(sourceC);
     when(unitElementD.getSource()).thenReturn(sourceD);
   }
+
+  /**
+   * @return the single {@link ContributedLocation} of the given relationship with the given
+   *         {@link Element}.
+   */
+  private ContributedLocation getContributedLocation(Element element, Relationship relationship) {
+    ElementRelationKey key = new ElementRelationKey(element, relationship);
+    ContributedLocation result = null;
+    for (ContributedLocation contributedLocation : store.relationshipMap.get(key)) {
+      assertNull(result);
+      result = contributedLocation;
+    }
+    assertNotNull(result);
+    return result;
+  }
+
+  /**
+   * @return the {@link Location} mock in the given {@link Element} at the given offset.
+   */
+  private Location mockLocation(Element element, int offset) {
+    Location location = mock(Location.class);
+    when(location.getElement()).thenReturn(element);
+    when(location.getOffset()).thenReturn(offset);
+    when(location.getLength()).thenReturn(1);
+    return location;
+  }
 }
@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTest(com.google.dart.engine.internal.index.operation.TestAll.suite());
     suite.addTestSuite(ContributedLocationTest.class);
+    suite.addTestSuite(HierarchyIndexTest.class);
     suite.addTestSuite(IndexContributorTest.class);
     suite.addTestSuite(IndexImplTest.class);
     suite.addTestSuite(MemoryIndexStoreImplTest.class);
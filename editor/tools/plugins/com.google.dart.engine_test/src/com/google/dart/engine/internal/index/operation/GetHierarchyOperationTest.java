@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.HierarchyCallback;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.source.Source;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GetHierarchyOperationTest extends EngineTestCase {
+  private IndexStore store = mock(IndexStore.class);
+  private Element type = mock(Element.class);
+  private HierarchyCallback callback = mock(HierarchyCallback.class);
+  private GetHierarchyOperation operation = new GetHierarchyOperation(store, type, true, callback);
+
+  public void test_isQuery() throws Exception {
+    assertTrue(operation.isQuery());
+  }
+
+  public void test_performOperation_subtypes() throws Exception {
+    Element[] types = new Element[2];
+    when(store.getSubtypes(type)).thenReturn(types);
+    operation.performOperation();
+    verify(callback).hasTypes(type, types);
+  }
+
+  public void test_performOperation_supertypes() throws Exception {
+    Element[] types = new Element[2];
+    when(store.getSupertypes(type)).thenReturn(types);
+    operation = new GetHierarchyOperation(store, type, false, callback);
+    operation.performOperation();
+    verify(callback).hasTypes(type, types);
+  }
+
+  public void test_removeWhenSourceRemoved() throws Exception {
+    Source source = mock(Source.class);
+    assertFalse(operation.removeWhenSourceRemoved(source));
+  }
+
+  public void test_toString() throws Exception {
+    when(type.toString()).thenReturn("myType");
+    assertEquals("GetSubtypes(myType)", operation.toString());
+    operation = new GetHierarchyOperation(store, type, false, callback);
+    assertEquals("GetSupertypes(myType)", operation.toString());
+  }
+}
@@ -23,9 +23,12 @@ import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
+
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,8 +55,10 @@ public class IndexUnitOperationTest extends EngineTestCase {
 
   public void test_performOperation() throws Exception {
     operation.performOperation();
-    verify(store).removeSource(context, unitSource);
-    verify(unit).accept(isA(IndexContributor.class));
+    InOrder inOrder = inOrder(store, unit);
+    inOrder.verify(store).aboutToIndex(context, unitSource);
+    inOrder.verify(unit).accept(isA(IndexContributor.class));
+    inOrder.verify(store).doneIndex();
   }
 
   public void test_performOperation_whenException() throws Exception {
@@ -68,6 +73,8 @@ public class IndexUnitOperationTest extends EngineTestCase {
       operation.performOperation();
       // verify that "myException" was logged
       verify(logger).logError(anyString(), same(myException));
+      // indexing of the source is done anyway
+      verify(store).doneIndex();
     } finally {
       AnalysisEngine.getInstance().setLogger(oldLogger);
     }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.element.ElementKind;
+
+import static com.google.dart.engine.parser.ParserTestCase.parseCompilationUnit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class NamespaceSummaryBuilderTest extends EngineTestCase {
+  public void test_createSummary_export() throws Exception {
+    NamespaceSummary exported = createSummary("class A {} class B {} var c;");
+    NamespaceSummary summary = createSummary("export 'a.dart'; class D {}", exported);
+    assertEquals(5, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    assertEquals(ElementKind.GETTER, summary.getKind("c"));
+    assertEquals(ElementKind.SETTER, summary.getKind("c="));
+    assertEquals(ElementKind.CLASS, summary.getKind("D"));
+  }
+
+  public void test_createSummary_export_hide() throws Exception {
+    NamespaceSummary exported = createSummary("class A {} class B {} var c;");
+    NamespaceSummary summary = createSummary("export 'a.dart' hide A, c;", exported);
+    assertEquals(2, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    assertEquals(ElementKind.SETTER, summary.getKind("c="));
+  }
+
+  public void test_createSummary_export_missing() throws Exception {
+    NamespaceSummary exported = createSummary("class B {}");
+    NamespaceSummary summary = createSummary(
+        "export 'a.dart'; export 'b.dart'; class C {}",
+        null,
+        exported);
+    assertEquals(2, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    assertEquals(ElementKind.CLASS, summary.getKind("C"));
+  }
+
+  public void test_createSummary_export_show() throws Exception {
+    NamespaceSummary exported = createSummary("class A {} class B {} var c;");
+    NamespaceSummary summary = createSummary("export 'a.dart' show A, c, D;", exported);
+    assertEquals(2, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.GETTER, summary.getKind("c"));
+  }
+
+  public void test_createSummary_export_showHide() throws Exception {
+    NamespaceSummary exported = createSummary("class A {} class B {} class C {}");
+    NamespaceSummary summary = createSummary("export 'a.dart' show A, B hide A;", exported);
+    assertEquals(1, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+  }
+
+  public void test_createSummary_export_signature() throws Exception {
+    NamespaceSummary first = createSummary(
+        "export 'a.dart'; class D {}",
+        createSummary("class A { m() {} }"));
+    NamespaceSummary second = createSummary(
+        "export 'a.dart'; class D {}",
+        createSummary("class A { m(x) {} }"));
+    assertFalse(first.hasSameApi(second));
+  }
+
+  public void test_createSummary_names() throws Exception {
+    NamespaceSummary summary = createSummary(createSource(//
+        "class A {}",
+        "typedef B = Object with A;",
+        "typedef F();",
+        "f() {}",
+        "get g => 0;",
+        "set s(x) {}",
+        "var v;",
+        "final w = 0;",
+        "class _P {}",
+        "_f() {}"));
+    assertEquals(9, summary.size());
+    assertEquals(ElementKind.CLASS, summary.getKind("A"));
+    assertEquals(ElementKind.CLASS, summary.getKind("B"));
+    assertEquals(ElementKind.FUNCTION_TYPE_ALIAS, summary.getKind("F"));
+    assertEquals(ElementKind.FUNCTION, summary.getKind("f"));
+    assertEquals(ElementKind.GETTER, summary.getKind("g"));
+    assertEquals(ElementKind.SETTER, summary.getKind("s="));
+    assertEquals(ElementKind.GETTER, summary.getKind("v"));
+    assertEquals(ElementKind.SETTER, summary.getKind("v="));
+    assertEquals(ElementKind.GETTER, summary.getKind("w"));
+    assertFalse(summary.contains("w="));
+    assertFalse(summary.contains("_P"));
+    assertFalse(summary.contains("_f"));
+  }
+
+  public void test_createSummary_signature_bodyChanged() throws Exception {
+    NamespaceSummary first = createSummary("class A { m() { return 1; } } f() => 1;");
+    NamespaceSummary second = createSummary("class A { m() { return 2; } } f() => 2;");
+    assertTrue(first.hasSameApi(second));
+  }
+
+  public void test_createSummary_signature_declarationChanged() throws Exception {
+    NamespaceSummary first = createSummary("class A { m() {} }");
+    NamespaceSummary second = createSummary("class A { m(x) {} }");
+    assertFalse(first.hasSameApi(second));
+  }
+
+  public void test_readFrom_writeTo() throws Exception {
+    NamespaceSummary summary = createSummary("class A {} var b;");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    summary.writeTo(new DataOutputStream(bytes));
+    NamespaceSummary result = NamespaceSummary.readFrom(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+    assertTrue(summary.hasSameApi(result));
+    assertEquals(summary.getApiSignature(), result.getApiSignature());
+    assertEquals(ElementKind.SETTER, result.getKind("b="));
+  }
+
+  private NamespaceSummary createSummary(String source, NamespaceSummary... exportedSummaries)
+      throws Exception {
+    CompilationUnit unit = parseCompilationUnit(source);
+    return new NamespaceSummaryBuilder().createSummary(
+        unit,
+        new ArrayList<CompilationUnit>(),
+        Arrays.asList(exportedSummaries));
+  }
+}
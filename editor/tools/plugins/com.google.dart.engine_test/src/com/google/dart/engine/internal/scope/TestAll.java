@@ -24,6 +24,7 @@ public class TestAll {
     suite.addTestSuite(EnclosedScopeTest.class);
     suite.addTestSuite(LibraryImportScopeTest.class);
     suite.addTestSuite(LibraryScopeTest.class);
+    suite.addTestSuite(NamespaceSummaryBuilderTest.class);
     suite.addTestSuite(ScopeTest.class);
     return suite;
   }
@@ -56,6 +56,7 @@ import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.search.SearchPatternFactory;
 import com.google.dart.engine.search.SearchScope;
 import com.google.dart.engine.search.SearchScopeFactory;
+import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.SourceRange;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -63,6 +64,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -147,6 +150,39 @@ public class SearchEngineImplTest extends EngineTestCase {
   private final Element elementD = mock(Element.class);
   private final Element elementE = mock(Element.class);
 
+  public void test_searchAllSubtypes() throws Exception {
+    final ClassElement classA = mock2(ClassElement.class, ElementKind.CLASS);
+    ClassElement classB = mock2(ClassElement.class, ElementKind.CLASS);
+    ClassElement classC = mock2(ClassElement.class, ElementKind.CLASS);
+    ClassElement classD = mock2(ClassElement.class, ElementKind.CLASS);
+    indexStore.recordRelationship(
+        classA,
+        IndexConstants.IS_EXTENDED_BY,
+        new Location(classB, 10, 1, null));
+    indexStore.recordRelationship(
+        classB,
+        IndexConstants.IS_MIXED_IN_BY,
+        new Location(classC, 20, 1, null));
+    indexStore.recordRelationship(
+        classA,
+        IndexConstants.IS_IMPLEMENTED_BY,
+        new Location(classC, 30, 1, null));
+    indexStore.recordRelationship(
+        classD,
+        IndexConstants.IS_EXTENDED_BY,
+        new Location(classA, 40, 1, null));
+    // search subtypes
+    Set<ClassElement> subtypes = runSearch(new SearchRunner<Set<ClassElement>>() {
+      @Override
+      public Set<ClassElement> run(OperationQueue queue, OperationProcessor processor,
+          Index index, SearchEngine engine) throws Exception {
+        return engine.searchAllSubtypes(classA);
+      }
+    });
+    // verify
+    assertThat(subtypes).containsOnly(classB, classC);
+  }
+
   public void test_searchDeclarations_String() throws Exception {
     Element referencedElement = new NameElementImpl("test");
     {
@@ -328,6 +364,49 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.TYPE_REFERENCE, 10, 20, "prefB"));
   }
 
+  public void test_searchReferences_Collection() throws Exception {
+    final FunctionElement functionElement = mock2(FunctionElement.class, ElementKind.FUNCTION);
+    final ClassElement classElement = mock2(ClassElement.class, ElementKind.CLASS);
+    Source sourceA = mock(Source.class);
+    Source sourceB = mock(Source.class);
+    when(elementA.getSource()).thenReturn(sourceA);
+    when(elementB.getSource()).thenReturn(sourceB);
+    when(elementC.getSource()).thenReturn(sourceA);
+    {
+      Location location = new Location(elementA, 1, 10, null);
+      indexStore.recordRelationship(functionElement, IndexConstants.IS_INVOKED_BY, location);
+    }
+    {
+      Location location = new Location(elementB, 2, 20, null);
+      indexStore.recordRelationship(functionElement, IndexConstants.IS_REFERENCED_BY, location);
+    }
+    {
+      Location location = new Location(elementC, 3, 30, null);
+      indexStore.recordRelationship(classElement, IndexConstants.IS_REFERENCED_BY, location);
+    }
+    // search matches
+    final List<Element> elements = Lists.<Element> newArrayList(functionElement, classElement);
+    Map<Source, List<SearchMatch>> matches;
+    matches = runSearch(new SearchRunner<Map<Source, List<SearchMatch>>>() {
+      @Override
+      public Map<Source, List<SearchMatch>> run(OperationQueue queue,
+          OperationProcessor processor, Index index, SearchEngine engine) throws Exception {
+        return engine.searchReferences(elements, null, null);
+      }
+    });
+    // verify
+    assertThat(matches).hasSize(2);
+    assertMatches(
+        matches.get(sourceA),
+        new ExpectedMatch(elementA, MatchKind.FUNCTION_EXECUTION, 1, 10),
+        new ExpectedMatch(elementC, MatchKind.TYPE_REFERENCE, 3, 30));
+    assertMatches(matches.get(sourceB), new ExpectedMatch(
+        elementB,
+        MatchKind.FUNCTION_REFERENCE,
+        2,
+        20));
+  }
+
   public void test_searchReferences_CompilationUnitElement() throws Exception {
     CompilationUnitElement referencedElement = mock2(
         CompilationUnitElement.class,
@@ -1505,6 +1505,28 @@ public class SimpleParserTest extends ParserTestCase {
     assertSize(0, unit.getDeclarations());
   }
 
+  public void test_parseCompilationUnit_skipFunctionBodies() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    String source = "class A { m() { return 0; } } f() => 1; g() {}";
+    Token token = new StringScanner(null, source, listener).tokenize();
+    Parser parser = new Parser(null, listener);
+    parser.setParseFunctionBodies(false);
+    CompilationUnit unit = parser.parseCompilationUnit(token);
+    listener.assertNoErrors();
+    NodeList<CompilationUnitMember> declarations = unit.getDeclarations();
+    assertSize(3, declarations);
+    ClassDeclaration classA = (ClassDeclaration) declarations.get(0);
+    MethodDeclaration method = (MethodDeclaration) classA.getMembers().get(0);
+    Block block = ((BlockFunctionBody) method.getBody()).getBlock();
+    assertSize(0, block.getStatements());
+    assertEquals("{", block.getLeftBracket().getLexeme());
+    assertEquals("}", block.getRightBracket().getLexeme());
+    assertEquals(14, block.getOffset());
+    assertEquals(13, block.getLength());
+    FunctionDeclaration function = (FunctionDeclaration) declarations.get(1);
+    assertInstanceOf(ExpressionFunctionBody.class, function.getFunctionExpression().getBody());
+  }
+
   public void test_parseCompilationUnit_topLevelDeclaration() throws Exception {
     CompilationUnit unit = parse("parseCompilationUnit", "class A {}");
     assertNull(unit.getScriptTag());
@@ -3787,6 +3809,40 @@ public class SimpleParserTest extends ParserTestCase {
     // TODO(brianwilkerson) Implement tests for this method.
   }
 
+  public void test_parseSkippedFunctionBodies() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    String source = "class A { m() { return 0; } } g() { for (;;) { break; } }";
+    Token token = new StringScanner(null, source, listener).tokenize();
+    Parser parser = new Parser(null, listener);
+    parser.setParseFunctionBodies(false);
+    CompilationUnit unit = parser.parseCompilationUnit(token);
+    parser.parseSkippedFunctionBodies(unit);
+    listener.assertNoErrors();
+    NodeList<CompilationUnitMember> declarations = unit.getDeclarations();
+    ClassDeclaration classA = (ClassDeclaration) declarations.get(0);
+    MethodDeclaration method = (MethodDeclaration) classA.getMembers().get(0);
+    BlockFunctionBody methodBody = (BlockFunctionBody) method.getBody();
+    assertSize(1, methodBody.getBlock().getStatements());
+    assertSame(methodBody, methodBody.getBlock().getParent());
+    FunctionDeclaration function = (FunctionDeclaration) declarations.get(1);
+    BlockFunctionBody functionBody = (BlockFunctionBody) function.getFunctionExpression().getBody();
+    assertSize(1, functionBody.getBlock().getStatements());
+  }
+
+  public void test_parseSkippedFunctionBody_empty() throws Exception {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    Token token = new StringScanner(null, "f() { /* comment */ }", listener).tokenize();
+    Parser parser = new Parser(null, listener);
+    parser.setParseFunctionBodies(false);
+    CompilationUnit unit = parser.parseCompilationUnit(token);
+    FunctionDeclaration function = (FunctionDeclaration) unit.getDeclarations().get(0);
+    BlockFunctionBody body = (BlockFunctionBody) function.getFunctionExpression().getBody();
+    Block block = body.getBlock();
+    assertFalse(parser.parseSkippedFunctionBody(body));
+    assertSame(block, body.getBlock());
+    listener.assertNoErrors();
+  }
+
   public void test_parseStatement_functionDeclaration() throws Exception {
     // TODO(brianwilkerson) Implement more tests for this method.
     FunctionDeclarationStatement statement = parse("parseStatement", "int f(a, b) {};");
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+
+public class SymbolTableTest extends EngineTestCase {
+  public void test_intern_range() {
+    SymbolTable table = new SymbolTable();
+    int first = table.intern("a foo b", 2, 5);
+    int second = table.intern("foo", 0, 3);
+    assertEquals(first, second);
+    assertEquals("foo", table.getSymbol(first));
+    assertEquals(1, table.size());
+  }
+
+  public void test_intern_range_distinct() {
+    SymbolTable table = new SymbolTable();
+    int first = table.intern("foobar", 0, 3);
+    int second = table.intern("foobar", 3, 6);
+    assertTrue(first != second);
+    assertEquals("foo", table.getSymbol(first));
+    assertEquals("bar", table.getSymbol(second));
+    assertEquals(2, table.size());
+  }
+
+  public void test_intern_rehash() {
+    SymbolTable table = new SymbolTable();
+    int count = 1000;
+    int[] ids = new int[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = table.intern("s" + i);
+    }
+    assertEquals(count, table.size());
+    for (int i = 0; i < count; i++) {
+      String symbol = "s" + i;
+      assertEquals(ids[i], table.intern(symbol, 0, symbol.length()));
+      assertEquals(symbol, table.getSymbol(ids[i]));
+    }
+  }
+
+  public void test_intern_string() {
+    SymbolTable table = new SymbolTable();
+    int id = table.intern(new String("x"));
+    assertEquals(id, table.intern("x", 0, 1));
+    assertSame(table.getSymbol(id), table.getSymbol(table.intern("x")));
+  }
+}
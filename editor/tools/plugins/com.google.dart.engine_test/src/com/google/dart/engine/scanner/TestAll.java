@@ -24,6 +24,8 @@ public class TestAll {
     suite.addTestSuite(CharBufferScannerTest.class);
     suite.addTestSuite(KeywordStateTest.class);
     suite.addTestSuite(StringScannerTest.class);
+    suite.addTestSuite(SymbolTableTest.class);
+    suite.addTestSuite(TokenBufferTest.class);
     suite.addTestSuite(TokenTypeTest.class);
     return suite;
   }
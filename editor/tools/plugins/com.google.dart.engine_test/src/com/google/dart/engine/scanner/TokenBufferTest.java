@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.GatheringErrorListener;
+
+public class TokenBufferTest extends EngineTestCase {
+  public void test_comments() {
+    TokenBuffer buffer = scan("/* a */\n/** b */ x // c");
+    assertEquals(2, buffer.size());
+    assertEquals(2, buffer.getCommentCount(0));
+    int first = buffer.getFirstComment(0);
+    assertEquals(TokenType.MULTI_LINE_COMMENT, buffer.getCommentType(first));
+    assertEquals("/* a */", buffer.getCommentLexeme(first));
+    assertEquals(0, buffer.getCommentOffset(first));
+    assertEquals("/** b */", buffer.getCommentLexeme(first + 1));
+    assertEquals(8, buffer.getCommentOffset(first + 1));
+    assertEquals(1, buffer.getCommentCount(1));
+    int last = buffer.getFirstComment(1);
+    assertEquals(TokenType.SINGLE_LINE_COMMENT, buffer.getCommentType(last));
+    assertEquals("// c", buffer.getCommentLexeme(last));
+  }
+
+  public void test_groups() {
+    TokenBuffer buffer = scan("f(a[0]) {");
+    assertEquals(9, buffer.size());
+    assertEquals(TokenType.OPEN_PAREN, buffer.getType(1));
+    assertEquals(6, buffer.getEndToken(1));
+    assertEquals(TokenType.OPEN_SQUARE_BRACKET, buffer.getType(3));
+    assertEquals(5, buffer.getEndToken(3));
+    assertEquals(TokenType.OPEN_CURLY_BRACKET, buffer.getType(7));
+    assertEquals(-1, buffer.getEndToken(7));
+    assertEquals(-1, buffer.getEndToken(0));
+  }
+
+  public void test_tokens() {
+    TokenBuffer buffer = scan("class A extends B {}");
+    assertEquals(7, buffer.size());
+    assertEquals(Keyword.CLASS, buffer.getKeyword(0));
+    assertEquals("class", buffer.getLexeme(0));
+    assertEquals(TokenType.IDENTIFIER, buffer.getType(1));
+    assertNull(buffer.getKeyword(1));
+    assertEquals("A", buffer.getLexeme(1));
+    assertEquals(6, buffer.getOffset(1));
+    assertEquals(1, buffer.getLength(1));
+    assertEquals(Keyword.EXTENDS, buffer.getKeyword(2));
+    assertEquals(7, buffer.getLength(2));
+    assertEquals("B", buffer.getLexeme(3));
+    assertEquals("{", buffer.getLexeme(4));
+    assertEquals(5, buffer.getEndToken(4));
+    assertEquals(TokenType.EOF, buffer.getType(6));
+    assertEquals(-1, buffer.getFirstComment(1));
+  }
+
+  public void test_toTokens() {
+    TokenBuffer buffer = scan("/* c */ m() => x;");
+    Token token = buffer.toTokens();
+    assertEquals("m", token.getLexeme());
+    assertEquals("/* c */", token.getPrecedingComments().getLexeme());
+    BeginToken open = (BeginToken) token.getNext();
+    assertSame(open.getNext(), open.getEndToken());
+    Token eof = token;
+    for (int i = 1; i < buffer.size(); i++) {
+      eof = eof.getNext();
+      assertEquals(buffer.getOffset(i), eof.getOffset());
+      assertEquals(buffer.getType(i), eof.getType());
+    }
+    assertEquals(TokenType.EOF, eof.getType());
+    assertSame(eof, eof.getNext());
+  }
+
+  private TokenBuffer scan(String source) {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    TokenBuffer buffer = new StringScanner(null, source, listener).tokenizeToBuffer();
+    listener.assertNoErrors();
+    return buffer;
+  }
+}
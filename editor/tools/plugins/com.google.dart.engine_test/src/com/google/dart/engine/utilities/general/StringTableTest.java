@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import junit.framework.TestCase;
+
+public class StringTableTest extends TestCase {
+  public void test_intern_concurrent() throws Exception {
+    final StringTable table = new StringTable();
+    final int count = 1000;
+    final String[][] results = new String[4][count];
+    Thread[] threads = new Thread[results.length];
+    for (int i = 0; i < threads.length; i++) {
+      final String[] result = results[i];
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < count; j++) {
+            result[j] = table.intern("s" + j);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int j = 0; j < count; j++) {
+      for (int i = 1; i < results.length; i++) {
+        assertSame(results[0][j], results[i][j]);
+      }
+    }
+    assertEquals(count, table.size());
+  }
+
+  public void test_intern_range() {
+    StringTable table = new StringTable();
+    String first = table.intern("a foo b", 2, 5);
+    String second = table.intern(new StringBuilder("foo"), 0, 3);
+    assertEquals("foo", first);
+    assertSame(first, second);
+    assertEquals(1, table.size());
+  }
+
+  public void test_intern_range_distinct() {
+    StringTable table = new StringTable();
+    assertEquals("foo", table.intern("foobar", 0, 3));
+    assertEquals("bar", table.intern("foobar", 3, 6));
+    assertEquals(2, table.size());
+  }
+
+  public void test_intern_rehash() {
+    StringTable table = new StringTable();
+    int count = 10000;
+    String[] strings = new String[count];
+    for (int i = 0; i < count; i++) {
+      strings[i] = table.intern("s" + i);
+    }
+    assertEquals(count, table.size());
+    for (int i = 0; i < count; i++) {
+      String string = "s" + i;
+      assertSame(strings[i], table.intern(string, 0, string.length()));
+    }
+  }
+
+  public void test_intern_string() {
+    StringTable table = new StringTable();
+    String string = new String("x");
+    String interned = table.intern(string);
+    assertEquals("x", interned);
+    assertNotSame(string, interned);
+    assertSame(interned, table.intern(new String("x")));
+  }
+}
@@ -19,4 +19,11 @@ public class StringUtilitiesTest extends TestCase {
   public void test_EMPTY_ARRAY() {
     assertEquals(0, StringUtilities.EMPTY_ARRAY.length);
   }
+
+  public void test_intern() {
+    String interned = StringUtilities.intern(new String("intern"));
+    assertSame(interned, StringUtilities.intern(new String("intern")));
+    assertSame(interned, StringUtilities.intern("an intern here", 3, 9));
+    assertNull(StringUtilities.intern(null));
+  }
 }
@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(CharOperationTest.class);
     suite.addTestSuite(ObjectUtilitiesTest.class);
+    suite.addTestSuite(StringTableTest.class);
     suite.addTestSuite(StringUtilitiesTest.class);
     return suite;
   }
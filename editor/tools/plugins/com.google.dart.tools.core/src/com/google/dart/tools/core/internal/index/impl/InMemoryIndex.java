@@ -63,11 +63,7 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.osgi.service.datalocation.Location;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -709,18 +705,6 @@ public class InMemoryIndex implements Index {
     });
   }
 
-  /**
-   * Read the contents of this index from the given input stream.
-   * 
-   * @param input the input stream from which this index will be read
-   * @return {@code true} if the file was correctly read
-   * @throws IOException if the index could not be read from the given input stream
-   */
-  private boolean readIndex(ObjectInputStream input) throws IOException {
-    IndexReader reader = indexStore.createIndexReader();
-    return reader.readIndex(input);
-  }
-
   /**
    * Read the contents of this index from the given file.
    * 
@@ -729,87 +713,35 @@ public class InMemoryIndex implements Index {
    * @throws IOException if the index could not be read from the given file
    */
   private boolean readIndexFrom(File indexFile) throws IOException {
-    ObjectInputStream input = null;
-    try {
-      input = new ObjectInputStream(new FileInputStream(indexFile));
-      long startTime = System.currentTimeMillis();
-      boolean wasRead = readIndex(input);
-      if (DartCoreDebug.PERF_INDEX) {
-        long endTime = System.currentTimeMillis();
-        DartCore.logInformation("Reading the index took " + (endTime - startTime) + " ms");
-      }
-      return wasRead;
-    } finally {
-      if (input != null) {
-        try {
-          input.close();
-        } catch (IOException exception) {
-          DartCore.logError(
-              "Could not close index file after read: \"" + indexFile.getAbsolutePath() + "\"",
-              exception);
-        }
-      }
+    IndexReader reader = indexStore.createIndexReader();
+    long startTime = System.currentTimeMillis();
+    boolean wasRead = reader.readIndex(indexFile);
+    if (DartCoreDebug.PERF_INDEX) {
+      long endTime = System.currentTimeMillis();
+      DartCore.logInformation("Reading the index took " + (endTime - startTime) + " ms");
     }
+    return wasRead;
   }
 
   /**
-   * Write the contents of this index to the given output stream.
-   * 
-   * @param output the output stream to which this index will be written
-   * @throws IOException if the index could not be written to the given output stream
-   */
-  private void writeIndex(ObjectOutputStream output) throws IOException {
-    IndexWriter writer = indexStore.createIndexWriter();
-    writer.writeIndex(output);
-  }
-
-  /**
-   * Write the contents of this index to the given file.
+   * Write the contents of this index to the given file. The file is replaced atomically, so the
+   * previous contents are preserved if the index could not be written.
    * 
    * @param indexFile the file to which this index will be written
-   * @throws IOException if the index could not be written to the given file
    */
   private void writeIndexTo(File indexFile) {
-    boolean successfullyWritten = true;
-    ObjectOutputStream output = null;
     try {
-      output = new ObjectOutputStream(new FileOutputStream(indexFile));
+      IndexWriter writer = indexStore.createIndexWriter();
       long startTime = System.currentTimeMillis();
-      writeIndex(output);
+      writer.writeIndex(indexFile);
       if (DartCoreDebug.PERF_INDEX) {
         long endTime = System.currentTimeMillis();
         DartCore.logInformation("Writing the index took " + (endTime - startTime) + " ms");
       }
     } catch (IOException exception) {
-      successfullyWritten = false;
       DartCore.logError(
           "Could not write index file: \"" + indexFile.getAbsolutePath() + "\"",
           exception);
-    } finally {
-      if (output != null) {
-        try {
-          output.flush();
-        } catch (IOException exception) {
-          successfullyWritten = false;
-          DartCore.logError(
-              "Could not flush index file after write: \"" + indexFile.getAbsolutePath() + "\"",
-              exception);
-        }
-        try {
-          output.close();
-        } catch (IOException exception) {
-          successfullyWritten = false;
-          DartCore.logError(
-              "Could not close index file after write: \"" + indexFile.getAbsolutePath() + "\"",
-              exception);
-        }
-      }
-    }
-    if (!successfullyWritten) {
-      if (!indexFile.delete()) {
-        DartCore.logError("Could not delete corrupted index file: \"" + indexFile.getAbsolutePath()
-            + "\"");
-      }
     }
   }
 }
@@ -24,14 +24,25 @@ import com.google.dart.tools.core.internal.index.contributor.IndexConstants;
 import com.google.dart.tools.core.internal.index.store.IndexStore;
 import com.google.dart.tools.core.model.DartSdkManager;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.Reader;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
  * Instances of the class <code>IndexReader</code> implement an object that can read the contents of
- * an index from a {@link Reader reader}.
+ * an index from a {@link ByteBuffer buffer}, typically one holding the contents of an index file.
+ * <p>
+ * Attributes are added to the index when the file is read. The section directory is also decoded
+ * when the file is read, including the elements of every section, which the index needs in order
+ * to know which sections to decode for a query. Only the relationships themselves are deferred:
+ * they are registered with the index as {@link IndexSection sections} whose contents are only
+ * decoded when one of their elements is queried, so the reader must be retained for as long as the
+ * index has pending sections. The bounds of every section are validated when the file is read,
+ * and a section that cannot be decoded later is dropped without adding any of its relationships.
  */
 public class IndexReader {
   /**
@@ -40,7 +51,23 @@ public class IndexReader {
   private IndexStore index;
 
   /**
-   * An array containing all of the strings that were read in.
+   * The buffer containing the contents of the index file.
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * The position in the buffer at which the sections begin.
+   */
+  private int sectionsStart;
+
+  /**
+   * The positions in the buffer of the encoded strings in the string table.
+   */
+  private int[] stringOffsets;
+
+  /**
+   * An array containing all of the strings that have been decoded, or <code>null</code> for strings
+   * that have not yet been decoded.
    */
   private String[] stringTable;
 
@@ -69,39 +96,117 @@ public class IndexReader {
   }
 
   /**
-   * Read the contents of the index from the given input stream.
+   * Read the contents of the index from the given buffer.
    * 
-   * @param input the stream from which the contents of the index are to be read
-   * @return <code>true</code> if the input stream is valid and could be read
+   * @param buffer the buffer from which the contents of the index are to be read
+   * @return <code>true</code> if the buffer is valid and could be read
+   * @throws IOException if the index could not be read or is corrupt
+   */
+  public boolean readIndex(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    try {
+      if (buffer.remaining() < 8 || buffer.getInt() != IndexWriter.FILE_MAGIC_NUMBER) {
+        // Files written by older versions were serialized object streams.
+        if (DartCoreDebug.TRACE_INDEX_STATISTICS) {
+          DartCore.logInformation("Could not read index file: obsolete index file format");
+        }
+        return false;
+      }
+      int version = buffer.getInt(); // File version number.
+      if (version == 4) {
+        // Version 4 could not represent negative offsets and lengths. The index is rebuilt rather
+        // than supporting two encodings of locations.
+        if (DartCoreDebug.TRACE_INDEX_STATISTICS) {
+          DartCore.logInformation("Could not read index file: obsolete index file version '4'");
+        }
+        return false;
+      } else if (version == IndexWriter.FILE_VERSION_NUMBER) {
+        return readIndexVersion5();
+      } else {
+        throw new IOException("Invalid version number in index file: " + version);
+      }
+    } catch (RuntimeException exception) {
+      // BufferUnderflowException, IllegalArgumentException and IndexOutOfBoundsException.
+      IOException ioException = new IOException("Corrupt index file");
+      ioException.initCause(exception);
+      throw ioException;
+    }
+  }
+
+  /**
+   * Read the contents of the index from the given file. The file is read into memory and closed
+   * before any of it is decoded, so that it can be replaced while the index is in use. Mapping the
+   * file instead would prevent it from being replaced on some platforms.
+   * 
+   * @param indexFile the file from which the contents of the index are to be read
+   * @return <code>true</code> if the file is valid and could be read
    * @throws IOException if the index could not be read
    */
-  public boolean readIndex(ObjectInputStream input) throws IOException {
-    int version = input.readInt(); // File version number.
-    if (version == 1) {
-      // Version 1 was considered unreadable if the editor's build number had changed. Given that
-      // a change to the version number necessitates a new build, a file with this version can never
-      // be readable once a new version was introduced.
-      if (DartCoreDebug.TRACE_INDEX_STATISTICS) {
-        DartCore.logInformation("Could not read index file: obsolete index file version '1'");
+  public boolean readIndex(File indexFile) throws IOException {
+    byte[] bytes;
+    RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+    try {
+      long length = file.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Index file is too large: " + length + " bytes");
       }
-      return false;
-    } else if (version == 2) {
-      return readIndexVersion2(input);
-    } else {
-      throw new IOException("Invalid version number in index file: " + version);
+      bytes = new byte[(int) length];
+      file.readFully(bytes);
+    } finally {
+      file.close();
     }
+    return readIndex(ByteBuffer.wrap(bytes));
   }
 
   /**
-   * Read the contents of the index from the given input stream given that the version of the file
-   * format has been determined to be <code>2</code>.
+   * Add the relationships in the given section to the index. If the section cannot be decoded then
+   * the error is logged and none of its relationships are added.
    * 
-   * @param input the stream from which the contents of the index are to be read
-   * @return <code>true</code> if the input stream is valid and could be read
+   * @param section the section to be read
+   */
+  public void readSection(IndexSection section) {
+    ByteBuffer input = buffer.duplicate();
+    int start = sectionsStart + section.getOffset();
+    input.limit(start + section.getLength());
+    input.position(start);
+    Resource contributor = section.getContributor();
+    ArrayList<Element> elements = new ArrayList<Element>();
+    ArrayList<Relationship> relationships = new ArrayList<Relationship>();
+    ArrayList<Location> locations = new ArrayList<Location>();
+    try {
+      int elementCount = readCount(input);
+      for (int i = 0; i < elementCount; i++) {
+        Element element = readElement(input);
+        int relationshipCount = readCount(input);
+        for (int j = 0; j < relationshipCount; j++) {
+          Relationship relationship = readRelationship(input);
+          int locationCount = readCount(input);
+          for (int k = 0; k < locationCount; k++) {
+            elements.add(element);
+            relationships.add(relationship);
+            locations.add(readLocation(input));
+          }
+        }
+      }
+    } catch (RuntimeException exception) {
+      DartCore.logError("Could not read the index of " + contributor.getResourceId(), exception);
+      return;
+    }
+    int count = locations.size();
+    for (int i = 0; i < count; i++) {
+      index.recordRelationship(contributor, elements.get(i), relationships.get(i), locations.get(i));
+    }
+  }
+
+  /**
+   * Read the contents of the index from the buffer given that the version of the file format has
+   * been determined to be <code>5</code>.
+   * 
+   * @return <code>true</code> if the buffer is valid and could be read
    * @throws IOException if the index could not be read
    */
-  public boolean readIndexVersion2(ObjectInputStream input) throws IOException {
-    String sdkVersion = input.readUTF();
+  private boolean readIndexVersion5() throws IOException {
+    String sdkVersion = readUTF8(buffer, readCount(buffer));
     if (!DartSdkManager.getManager().hasSdk()) {
       if (DartCoreDebug.TRACE_INDEX_STATISTICS) {
         DartCore.logInformation("Could not read index file: no SDK installed");
@@ -115,9 +220,9 @@ public class IndexReader {
       }
       return false;
     }
-    readStringTable(input);
-    readAttributeMap(input);
-    readRelationshipMap(input);
+    readStringTable();
+    readAttributeMap();
+    readSectionDirectory();
     return true;
   }
 
@@ -129,41 +234,52 @@ public class IndexReader {
   }
 
   /**
-   * Read an attribute from the given input stream.
+   * Read an attribute from the given buffer.
    * 
-   * @param input the stream from which the attribute is to be read
+   * @param input the buffer from which the attribute is to be read
    * @return the attribute that was read
-   * @throws IOException if the attribute could not be read
    */
-  private Attribute readAttribute(ObjectInputStream input) throws IOException {
+  private Attribute readAttribute(ByteBuffer input) {
     return Attribute.getAttribute(readString(input));
   }
 
   /**
-   * Read the attribute map from the given input stream.
-   * 
-   * @param input the stream from which the attribute map is to be read
-   * @throws IOException if the attribute map could not be read
+   * Read the attribute map from the buffer.
    */
-  private void readAttributeMap(ObjectInputStream input) throws IOException {
-    int elementCount = input.readInt();
+  private void readAttributeMap() {
+    int elementCount = readCount(buffer);
     for (int i = 0; i < elementCount; i++) {
-      Element element = readElement(input);
-      int attributeCount = input.readInt();
+      Element element = readElement(buffer);
+      int attributeCount = readCount(buffer);
       for (int j = 0; j < attributeCount; j++) {
-        index.recordAttribute(element, readAttribute(input), readString(input));
+        index.recordAttribute(element, readAttribute(buffer), readString(buffer));
       }
     }
   }
 
   /**
-   * Read an element from the given input stream.
+   * Read a count from the given buffer. Every counted item takes at least one byte, so a count that
+   * is larger than the number of remaining bytes can only come from a corrupt file.
    * 
-   * @param input the stream from which the element is to be read
+   * @param input the buffer from which the count is to be read
+   * @return the count that was read
+   * @throws IllegalArgumentException if the count is larger than the number of remaining bytes
+   */
+  private int readCount(ByteBuffer input) {
+    int count = readInt(input);
+    if (count > input.remaining()) {
+      throw new IllegalArgumentException("Invalid count: " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Read an element from the given buffer.
+   * 
+   * @param input the buffer from which the element is to be read
    * @return the element that was read
-   * @throws IOException if the element could not be read
    */
-  private Element readElement(ObjectInputStream input) throws IOException {
+  private Element readElement(ByteBuffer input) {
     Resource resource = readResource(input);
     String elementId = readString(input);
     String elementKey = resource.getResourceId() + "#" + elementId;
@@ -176,58 +292,65 @@ public class IndexReader {
   }
 
   /**
-   * Read a location from the given input stream.
+   * Read a count followed by that many elements from the given buffer.
    * 
-   * @param input the stream from which the location is to be read
-   * @return the location that was read
-   * @throws IOException if the location could not be read
+   * @param input the buffer from which the elements are to be read
+   * @return the elements that were read
    */
-  private Location readLocation(ObjectInputStream input) throws IOException {
-    return new Location(readElement(input), input.readInt(), input.readInt(), readString(input));
+  private Element[] readElements(ByteBuffer input) {
+    int elementCount = readCount(input);
+    Element[] elements = new Element[elementCount];
+    for (int i = 0; i < elementCount; i++) {
+      elements[i] = readElement(input);
+    }
+    return elements;
   }
 
   /**
-   * Read a relationship from the given input stream.
+   * Read a variable length encoded non-negative integer from the given buffer.
    * 
-   * @param input the stream from which the relationship is to be read
-   * @return the relationship that was read
-   * @throws IOException if the relationship could not be read
+   * @param input the buffer from which the integer is to be read
+   * @return the integer that was read
+   * @throws IllegalArgumentException if the bytes do not encode a non-negative integer
    */
-  private Relationship readRelationship(ObjectInputStream input) throws IOException {
-    return Relationship.getRelationship(readString(input));
+  private int readInt(ByteBuffer input) {
+    int value = readVariableLengthInt(input);
+    if (value < 0) {
+      throw new IllegalArgumentException("Invalid integer encoding");
+    }
+    return value;
   }
 
   /**
-   * Read the relationship map from the given input stream.
+   * Read a location from the given buffer.
    * 
-   * @param input the stream from which the relationship map is to be read
-   * @throws IOException if the relationship map could not be read
+   * @param input the buffer from which the location is to be read
+   * @return the location that was read
    */
-  private void readRelationshipMap(ObjectInputStream input) throws IOException {
-    int elementCount = input.readInt();
-    for (int i = 0; i < elementCount; i++) {
-      Element element = readElement(input);
-      int relationshipCount = input.readInt();
-      for (int j = 0; j < relationshipCount; j++) {
-        Relationship relationship = readRelationship(input);
-        int locationCount = input.readInt();
-        for (int k = 0; k < locationCount; k++) {
-          Resource readResource = readResource(input);
-          Location readLocation = readLocation(input);
-          index.recordRelationship(readResource, element, relationship, readLocation);
-        }
-      }
-    }
+  private Location readLocation(ByteBuffer input) {
+    Element element = readElement(input);
+    int offset = readSignedInt(input);
+    int length = readSignedInt(input);
+    return new Location(element, offset, length, readString(input));
   }
 
   /**
-   * Read a resource from the given input stream.
+   * Read a relationship from the given buffer.
    * 
-   * @param input the stream from which the resource is to be read
+   * @param input the buffer from which the relationship is to be read
+   * @return the relationship that was read
+   */
+  private Relationship readRelationship(ByteBuffer input) {
+    return Relationship.getRelationship(readString(input));
+  }
+
+  /**
+   * Read a resource from the given buffer.
+   * 
+   * @param input the buffer from which the resource is to be read
    * @return the resource that was read
-   * @throws IOException if the resource could not be read
    */
-  private Resource readResource(ObjectInputStream input) throws IOException {
+  private Resource readResource(ByteBuffer input) {
     String resourceId = readString(input);
     Resource resource = resourceMap.get(resourceId);
     if (resource == null) {
@@ -238,31 +361,129 @@ public class IndexReader {
   }
 
   /**
-   * Read a string from the given input stream.
+   * Read the section directory from the buffer and register a pending section with the index for
+   * each entry in it.
+   * 
+   * @throws IllegalArgumentException if a section does not lie within the buffer
+   */
+  private void readSectionDirectory() {
+    int sectionCount = readCount(buffer);
+    IndexSection[] sections = new IndexSection[sectionCount];
+    for (int i = 0; i < sectionCount; i++) {
+      Resource contributor = readResource(buffer);
+      int offset = readInt(buffer);
+      int length = readInt(buffer);
+      int relationshipCount = readInt(buffer);
+      sections[i] = new IndexSection(
+          this,
+          contributor,
+          readElements(buffer),
+          readElements(buffer),
+          relationshipCount,
+          offset,
+          length);
+    }
+    sectionsStart = buffer.position();
+    int sectionsLength = buffer.limit() - sectionsStart;
+    for (IndexSection section : sections) {
+      if (section.getOffset() > sectionsLength
+          || section.getLength() > sectionsLength - section.getOffset()) {
+        throw new IllegalArgumentException("Section of " + section.getContributor().getResourceId()
+            + " is outside of the index file");
+      }
+    }
+    for (IndexSection section : sections) {
+      index.recordSection(section);
+    }
+  }
+
+  /**
+   * Read a zigzag encoded integer, which can be negative, from the given buffer.
+   * 
+   * @param input the buffer from which the integer is to be read
+   * @return the integer that was read
+   */
+  private int readSignedInt(ByteBuffer input) {
+    int value = readVariableLengthInt(input);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Read a string from the given buffer.
    * 
-   * @param input the stream from which the string is to be read
+   * @param input the buffer from which the string is to be read
    * @return the string that was read
-   * @throws IOException if the string could not be read
    */
-  private String readString(ObjectInputStream input) throws IOException {
-    int index = input.readInt();
+  private String readString(ByteBuffer input) {
+    int index = readInt(input) - 1;
     if (index == -1) {
       return null;
+    } else if (index >= stringTable.length) {
+      throw new IllegalArgumentException("Invalid string index: " + index);
     }
-    return stringTable[index];
+    String string = stringTable[index];
+    if (string == null) {
+      ByteBuffer stringInput = buffer.duplicate();
+      stringInput.position(stringOffsets[index]);
+      string = readUTF8(stringInput, readCount(stringInput));
+      stringTable[index] = string;
+    }
+    return string;
   }
 
   /**
-   * Read the string table from the given input stream.
-   * 
-   * @param input the stream from which the string table is to be read
-   * @throws IOException if the string table could not be read
+   * Read the locations of the strings in the string table from the buffer. The strings themselves
+   * are decoded the first time they are used.
    */
-  private void readStringTable(ObjectInputStream input) throws IOException {
-    int length = input.readInt();
+  private void readStringTable() {
+    int length = readCount(buffer);
+    stringOffsets = new int[length];
     stringTable = new String[length];
     for (int i = 0; i < length; i++) {
-      stringTable[i] = input.readUTF();
+      stringOffsets[i] = buffer.position();
+      int byteCount = readCount(buffer);
+      buffer.position(buffer.position() + byteCount);
     }
   }
+
+  /**
+   * Read the given number of bytes from the given buffer and decode them as UTF-8.
+   * 
+   * @param input the buffer from which the string is to be read
+   * @param byteCount the number of bytes in the encoded string
+   * @return the string that was read
+   */
+  private String readUTF8(ByteBuffer input, int byteCount) {
+    byte[] bytes = new byte[byteCount];
+    input.get(bytes);
+    try {
+      return new String(bytes, "UTF-8");
+    } catch (UnsupportedEncodingException exception) {
+      // UTF-8 is required to be supported.
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * Read the bits of a variable length encoded integer from the given buffer, in which each byte
+   * holds seven bits of the value and the high bit is set on every byte but the last.
+   * 
+   * @param input the buffer from which the integer is to be read
+   * @return the integer that was read
+   * @throws IllegalArgumentException if the encoding is longer than five bytes
+   */
+  private int readVariableLengthInt(ByteBuffer input) {
+    int value = 0;
+    int shift = 0;
+    byte next;
+    do {
+      if (shift > 28) {
+        throw new IllegalArgumentException("Invalid integer encoding");
+      }
+      next = input.get();
+      value |= (next & 0x7F) << shift;
+      shift += 7;
+    } while ((next & 0x80) != 0);
+    return value;
+  }
 }
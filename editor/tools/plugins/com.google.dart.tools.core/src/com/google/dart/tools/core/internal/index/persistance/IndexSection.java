@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.core.internal.index.persistance;
+
+import com.google.dart.tools.core.index.Element;
+import com.google.dart.tools.core.index.Resource;
+
+/**
+ * Instances of the class <code>IndexSection</code> represent the relationships contributed by a
+ * single resource that have been read from an index file but not yet decoded. The relationships are
+ * added to the index the first time {@link #materialize()} is invoked.
+ */
+public class IndexSection {
+  /**
+   * The reader used to decode this section.
+   */
+  private final IndexReader reader;
+
+  /**
+   * The resource that contributed the relationships in this section.
+   */
+  private final Resource contributor;
+
+  /**
+   * The elements for which this section contains relationships.
+   */
+  private final Element[] elements;
+
+  /**
+   * The elements of the locations in this section.
+   */
+  private final Element[] locationElements;
+
+  /**
+   * The number of relationships in this section.
+   */
+  private final int relationshipCount;
+
+  /**
+   * The offset of this section, relative to the start of the sections in the file.
+   */
+  private final int offset;
+
+  /**
+   * The number of bytes in this section.
+   */
+  private final int length;
+
+  /**
+   * A flag indicating whether this section has either been decoded or discarded.
+   */
+  private boolean done = false;
+
+  /**
+   * Initialize a newly created section.
+   * 
+   * @param reader the reader used to decode this section
+   * @param contributor the resource that contributed the relationships in this section
+   * @param elements the elements for which this section contains relationships
+   * @param locationElements the elements of the locations in this section
+   * @param relationshipCount the number of relationships in this section
+   * @param offset the offset of this section, relative to the start of the sections
+   * @param length the number of bytes in this section
+   */
+  public IndexSection(IndexReader reader, Resource contributor, Element[] elements,
+      Element[] locationElements, int relationshipCount, int offset, int length) {
+    this.reader = reader;
+    this.contributor = contributor;
+    this.elements = elements;
+    this.locationElements = locationElements;
+    this.relationshipCount = relationshipCount;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Mark this section as no longer needed. This should be invoked when the contributor is being
+   * re-indexed or removed, so that the stale relationships will never be added to the index.
+   */
+  public void discard() {
+    done = true;
+  }
+
+  /**
+   * Return the resource that contributed the relationships in this section.
+   * 
+   * @return the resource that contributed the relationships in this section
+   */
+  public Resource getContributor() {
+    return contributor;
+  }
+
+  /**
+   * Return the elements for which this section contains relationships.
+   * 
+   * @return the elements for which this section contains relationships
+   */
+  public Element[] getElements() {
+    return elements;
+  }
+
+  /**
+   * Return the number of bytes in this section.
+   * 
+   * @return the number of bytes in this section
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Return the elements of the locations in this section.
+   * 
+   * @return the elements of the locations in this section
+   */
+  public Element[] getLocationElements() {
+    return locationElements;
+  }
+
+  /**
+   * Return the offset of this section, relative to the start of the sections in the file.
+   * 
+   * @return the offset of this section
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Return the number of relationships in this section.
+   * 
+   * @return the number of relationships in this section
+   */
+  public int getRelationshipCount() {
+    return relationshipCount;
+  }
+
+  /**
+   * Return <code>true</code> if this section contains relationships for an element in the given
+   * resource or locations in the given resource.
+   * 
+   * @param resource the resource being tested
+   * @return <code>true</code> if this section refers to the given resource
+   */
+  public boolean refersTo(Resource resource) {
+    return containsElementIn(elements, resource) || containsElementIn(locationElements, resource);
+  }
+
+  /**
+   * Add the relationships in this section to the index unless that has already been done or this
+   * section has been discarded.
+   */
+  public void materialize() {
+    if (done) {
+      return;
+    }
+    done = true;
+    reader.readSection(this);
+  }
+
+  /**
+   * Return <code>true</code> if any of the given elements is in the given resource.
+   */
+  private boolean containsElementIn(Element[] candidates, Resource resource) {
+    for (Element element : candidates) {
+      if (element.getResource().equals(resource)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
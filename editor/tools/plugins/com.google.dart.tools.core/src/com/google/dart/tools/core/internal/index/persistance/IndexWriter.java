@@ -21,17 +21,47 @@ import com.google.dart.tools.core.index.Resource;
 import com.google.dart.tools.core.internal.index.store.ContributedLocation;
 import com.google.dart.tools.core.model.DartSdkManager;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 /**
  * Instances of the class <code>IndexWriter</code> implement an object that can write the contents
- * of an index to a {@link ObjectOutputStream stream}.
+ * of an index to a {@link OutputStream stream}.
+ * <p>
+ * The file is written in a compact binary format. All identifiers are written as indices into a
+ * string table, and all indices, counts, offsets and lengths are encoded as variable length
+ * integers. Offsets and lengths can be negative, for example for a location without source
+ * information, so they are zigzag encoded. Relationships are grouped into one section per
+ * contributing resource, and a directory at the front of the file records, for each section, its
+ * position, the number of relationships in it, the elements whose relationships it contains and the
+ * elements of its locations. This allows an {@link IndexReader} to defer the decoding of the
+ * relationships in a section until one of those elements is queried.
  */
 public class IndexWriter {
+  /**
+   * The number that is written at the beginning of every index file.
+   */
+  public static final int FILE_MAGIC_NUMBER = 0x44494458;
+
+  /**
+   * The version number of the file format being generated.
+   */
+  public static int FILE_VERSION_NUMBER = 5;
+
+  /**
+   * The suffix appended to the name of an index file while it is being written.
+   */
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
   /**
    * The table mapping elements to the values of attributes associated with those elements.
    */
@@ -42,6 +72,12 @@ public class IndexWriter {
    */
   private HashMap<Element, HashMap<Relationship, ArrayList<ContributedLocation>>> relationshipMap;
 
+  /**
+   * The table mapping contributing resources to the relationships that were contributed by them.
+   * The table is computed from the relationship map before writing.
+   */
+  private HashMap<Resource, HashMap<Element, HashMap<Relationship, ArrayList<Location>>>> sectionMap = new HashMap<Resource, HashMap<Element, HashMap<Relationship, ArrayList<Location>>>>();
+
   /**
    * An array containing all of the strings to be written out.
    */
@@ -57,11 +93,6 @@ public class IndexWriter {
    */
   private HashMap<String, Integer> stringMap = new HashMap<String, Integer>();
 
-  /**
-   * The version number of the file format being generated.
-   */
-  public static int FILE_VERSION_NUMBER = 2;
-
   /**
    * Initialize a newly created index writer to write the attributes and relationships in the given
    * maps.
@@ -77,20 +108,58 @@ public class IndexWriter {
     this.relationshipMap = relationshipMap;
   }
 
+  /**
+   * Write the contents of the index to the given file. The contents are first written to a
+   * temporary file that then replaces the given file, so that a failure while writing cannot leave
+   * a truncated index behind.
+   * 
+   * @param indexFile the file to which the contents of the index are to be written
+   * @throws IOException if the index could not be written
+   */
+  public void writeIndex(File indexFile) throws IOException {
+    File temporaryFile = new File(indexFile.getPath() + TEMPORARY_FILE_SUFFIX);
+    boolean successfullyWritten = false;
+    try {
+      OutputStream output = new BufferedOutputStream(new FileOutputStream(temporaryFile));
+      try {
+        writeIndex(output);
+        output.flush();
+      } finally {
+        output.close();
+      }
+      if (!temporaryFile.renameTo(indexFile)) {
+        // Some platforms will not rename over an existing file.
+        indexFile.delete();
+        if (!temporaryFile.renameTo(indexFile)) {
+          throw new IOException("Could not rename \"" + temporaryFile.getAbsolutePath()
+              + "\" to \"" + indexFile.getAbsolutePath() + "\"");
+        }
+      }
+      successfullyWritten = true;
+    } finally {
+      if (!successfullyWritten) {
+        temporaryFile.delete();
+      }
+    }
+  }
+
   /**
    * Write the contents of the index to the given output stream.
    * 
-   * @param output the stream to which the contents of the index are to be written
+   * @param stream the stream to which the contents of the index are to be written
    * @throws IOException if the index could not be written
    */
-  public void writeIndex(ObjectOutputStream output) throws IOException {
+  public void writeIndex(OutputStream stream) throws IOException {
+    buildSectionMap();
     buildStringTable();
 
+    DataOutputStream output = new DataOutputStream(stream);
     writeFileVersionNumber(output);
     writeSDKVersionNumber(output);
     writeStringTable(output);
     writeAttributeMap(output);
-    writeRelationshipMap(output);
+    writeSections(output);
+    output.flush();
   }
 
   /**
@@ -115,16 +184,6 @@ public class IndexWriter {
     addStringToStringTable(attribute.getIdentifier());
   }
 
-  /**
-   * Add the strings reachable from the given contributed location to the string table.
-   * 
-   * @param location the contributed location whose strings are to be added
-   */
-  private void addContributedLocationToStringTable(ContributedLocation location) {
-    addResourceToStringTable(location.getContributor());
-    addLocationToStringTable(location.getLocation());
-  }
-
   /**
    * Add the strings reachable from the given element to the string table.
    * 
@@ -145,21 +204,6 @@ public class IndexWriter {
     addStringToStringTable(location.getImportPrefix());
   }
 
-  /**
-   * Add the strings reachable from the relationship map to the string table.
-   */
-  private void addRelationshipMapToStringTable() {
-    for (Map.Entry<Element, HashMap<Relationship, ArrayList<ContributedLocation>>> elementEntry : relationshipMap.entrySet()) {
-      addElementToStringTable(elementEntry.getKey());
-      for (Map.Entry<Relationship, ArrayList<ContributedLocation>> relationshipEntry : elementEntry.getValue().entrySet()) {
-        addRelationshipToStringTable(relationshipEntry.getKey());
-        for (ContributedLocation location : relationshipEntry.getValue()) {
-          addContributedLocationToStringTable(location);
-        }
-      }
-    }
-  }
-
   /**
    * Add the strings reachable from the given relationship to the string table.
    * 
@@ -178,13 +222,31 @@ public class IndexWriter {
     addStringToStringTable(resource.getResourceId());
   }
 
+  /**
+   * Add the strings reachable from the sections to the string table.
+   */
+  private void addSectionsToStringTable() {
+    for (Map.Entry<Resource, HashMap<Element, HashMap<Relationship, ArrayList<Location>>>> sectionEntry : sectionMap.entrySet()) {
+      addResourceToStringTable(sectionEntry.getKey());
+      for (Map.Entry<Element, HashMap<Relationship, ArrayList<Location>>> elementEntry : sectionEntry.getValue().entrySet()) {
+        addElementToStringTable(elementEntry.getKey());
+        for (Map.Entry<Relationship, ArrayList<Location>> relationshipEntry : elementEntry.getValue().entrySet()) {
+          addRelationshipToStringTable(relationshipEntry.getKey());
+          for (Location location : relationshipEntry.getValue()) {
+            addLocationToStringTable(location);
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Add the given string to the string table.
    * 
    * @param string the string to be added
    */
   private void addStringToStringTable(String string) {
-    // "null" is handled as -1
+    // "null" is handled as 0
     if (string == null) {
       return;
     }
@@ -203,12 +265,43 @@ public class IndexWriter {
     }
   }
 
+  /**
+   * Regroup the relationship map by the resource that contributed each relationship.
+   */
+  private void buildSectionMap() {
+    for (Map.Entry<Element, HashMap<Relationship, ArrayList<ContributedLocation>>> elementEntry : relationshipMap.entrySet()) {
+      Element element = elementEntry.getKey();
+      for (Map.Entry<Relationship, ArrayList<ContributedLocation>> relationshipEntry : elementEntry.getValue().entrySet()) {
+        Relationship relationship = relationshipEntry.getKey();
+        for (ContributedLocation location : relationshipEntry.getValue()) {
+          Resource contributor = location.getContributor();
+          HashMap<Element, HashMap<Relationship, ArrayList<Location>>> section = sectionMap.get(contributor);
+          if (section == null) {
+            section = new HashMap<Element, HashMap<Relationship, ArrayList<Location>>>();
+            sectionMap.put(contributor, section);
+          }
+          HashMap<Relationship, ArrayList<Location>> elementRelationshipMap = section.get(element);
+          if (elementRelationshipMap == null) {
+            elementRelationshipMap = new HashMap<Relationship, ArrayList<Location>>();
+            section.put(element, elementRelationshipMap);
+          }
+          ArrayList<Location> locations = elementRelationshipMap.get(relationship);
+          if (locations == null) {
+            locations = new ArrayList<Location>();
+            elementRelationshipMap.put(relationship, locations);
+          }
+          locations.add(location.getLocation());
+        }
+      }
+    }
+  }
+
   /**
    * Build the string table.
    */
   private void buildStringTable() {
     addAttributeMapToStringTable();
-    addRelationshipMapToStringTable();
+    addSectionsToStringTable();
   }
 
   /**
@@ -218,7 +311,7 @@ public class IndexWriter {
    * @param attribute the attribute to be written
    * @throws IOException if the attribute could not be written
    */
-  private void writeAttribute(ObjectOutputStream output, Attribute attribute) throws IOException {
+  private void writeAttribute(DataOutputStream output, Attribute attribute) throws IOException {
     writeString(output, attribute.getIdentifier());
   }
 
@@ -228,11 +321,11 @@ public class IndexWriter {
    * @param output the stream to which the attribute map is to be written
    * @throws IOException if the attribute map could not be written
    */
-  private void writeAttributeMap(ObjectOutputStream output) throws IOException {
-    output.writeInt(attributeMap.size());
+  private void writeAttributeMap(DataOutputStream output) throws IOException {
+    writeInt(output, attributeMap.size());
     for (Map.Entry<Element, HashMap<Attribute, String>> elementEntry : attributeMap.entrySet()) {
       writeElement(output, elementEntry.getKey());
-      output.writeInt(elementEntry.getValue().size());
+      writeInt(output, elementEntry.getValue().size());
       for (Map.Entry<Attribute, String> attributeEntry : elementEntry.getValue().entrySet()) {
         writeAttribute(output, attributeEntry.getKey());
         writeString(output, attributeEntry.getValue());
@@ -240,19 +333,6 @@ public class IndexWriter {
     }
   }
 
-  /**
-   * Write the given contributed location to the given output stream.
-   * 
-   * @param output the stream to which the contributed location is to be written
-   * @param location the contributed location to be written
-   * @throws IOException if the contributed location could not be written
-   */
-  private void writeContributedLocation(ObjectOutputStream output, ContributedLocation location)
-      throws IOException {
-    writeResource(output, location.getContributor());
-    writeLocation(output, location.getLocation());
-  }
-
   /**
    * Write the given element to the given output stream.
    * 
@@ -260,21 +340,37 @@ public class IndexWriter {
    * @param element the element to be written
    * @throws IOException if the element could not be written
    */
-  private void writeElement(ObjectOutputStream output, Element element) throws IOException {
+  private void writeElement(DataOutputStream output, Element element) throws IOException {
     writeResource(output, element.getResource());
     writeString(output, element.getElementId());
   }
 
   /**
-   * Write the version number of the file format being generated.
+   * Write the magic number and the version number of the file format being generated.
    * 
    * @param output the stream to which the contents of the index are to be written
    * @throws IOException if the index could not be written
    */
-  private void writeFileVersionNumber(ObjectOutputStream output) throws IOException {
+  private void writeFileVersionNumber(DataOutputStream output) throws IOException {
+    output.writeInt(FILE_MAGIC_NUMBER);
     output.writeInt(FILE_VERSION_NUMBER);
   }
 
+  /**
+   * Write the given non-negative integer to the given output stream using a variable length
+   * encoding.
+   * 
+   * @param output the stream to which the integer is to be written
+   * @param value the integer to be written
+   * @throws IOException if the integer could not be written
+   */
+  private void writeInt(DataOutputStream output, int value) throws IOException {
+    if (value < 0) {
+      throw new IllegalArgumentException("Cannot write a negative value: " + value);
+    }
+    writeVariableLengthInt(output, value);
+  }
+
   /**
    * Write the given location to the given output stream.
    * 
@@ -282,10 +378,10 @@ public class IndexWriter {
    * @param location the location to be written
    * @throws IOException if the location could not be written
    */
-  private void writeLocation(ObjectOutputStream output, Location location) throws IOException {
+  private void writeLocation(DataOutputStream output, Location location) throws IOException {
     writeElement(output, location.getElement());
-    output.writeInt(location.getOffset());
-    output.writeInt(location.getLength());
+    writeSignedInt(output, location.getOffset());
+    writeSignedInt(output, location.getLength());
     writeString(output, location.getImportPrefix());
   }
 
@@ -296,51 +392,110 @@ public class IndexWriter {
    * @param relationship the relationship to be written
    * @throws IOException if the relationship could not be written
    */
-  private void writeRelationship(ObjectOutputStream output, Relationship relationship)
+  private void writeRelationship(DataOutputStream output, Relationship relationship)
       throws IOException {
     writeString(output, relationship.getIdentifier());
   }
 
   /**
-   * Write the relationship map to the given output stream.
+   * Write the given resource to the given output stream.
    * 
-   * @param output the stream to which the relationship map is to be written
-   * @throws IOException if the relationship map could not be written
+   * @param output the stream to which the resource is to be written
+   * @param resource the resource to be written
+   * @throws IOException if the resource could not be written
    */
-  private void writeRelationshipMap(ObjectOutputStream output) throws IOException {
-    output.writeInt(relationshipMap.size());
-    for (Map.Entry<Element, HashMap<Relationship, ArrayList<ContributedLocation>>> elementEntry : relationshipMap.entrySet()) {
+  private void writeResource(DataOutputStream output, Resource resource) throws IOException {
+    writeString(output, resource.getResourceId());
+  }
+
+  /**
+   * Write the version number of the SDK that was indexed.
+   * 
+   * @param output the stream to which the SDK version is to be written
+   * @throws IOException if the SDK version could not be written
+   */
+  private void writeSDKVersionNumber(DataOutputStream output) throws IOException {
+    byte[] bytes = DartSdkManager.getManager().getSdk().getSdkVersion().getBytes("UTF-8");
+    writeInt(output, bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Write the relationships contributed by a single resource to the given output stream.
+   * 
+   * @param output the stream to which the section is to be written
+   * @param section the table mapping elements to the relationships contributed for them
+   * @throws IOException if the section could not be written
+   */
+  private void writeSection(DataOutputStream output,
+      HashMap<Element, HashMap<Relationship, ArrayList<Location>>> section) throws IOException {
+    writeInt(output, section.size());
+    for (Map.Entry<Element, HashMap<Relationship, ArrayList<Location>>> elementEntry : section.entrySet()) {
       writeElement(output, elementEntry.getKey());
-      output.writeInt(elementEntry.getValue().size());
-      for (Map.Entry<Relationship, ArrayList<ContributedLocation>> relationshipEntry : elementEntry.getValue().entrySet()) {
+      writeInt(output, elementEntry.getValue().size());
+      for (Map.Entry<Relationship, ArrayList<Location>> relationshipEntry : elementEntry.getValue().entrySet()) {
         writeRelationship(output, relationshipEntry.getKey());
-        output.writeInt(relationshipEntry.getValue().size());
-        for (ContributedLocation location : relationshipEntry.getValue()) {
-          writeContributedLocation(output, location);
+        writeInt(output, relationshipEntry.getValue().size());
+        for (Location location : relationshipEntry.getValue()) {
+          writeLocation(output, location);
         }
       }
     }
   }
 
   /**
-   * Write the given resource to the given output stream.
+   * Write the section directory followed by the sections themselves to the given output stream.
+   * The offset of each section is relative to the end of the directory.
    * 
-   * @param output the stream to which the resource is to be written
-   * @param resource the resource to be written
-   * @throws IOException if the resource could not be written
+   * @param output the stream to which the sections are to be written
+   * @throws IOException if the sections could not be written
    */
-  private void writeResource(ObjectOutputStream output, Resource resource) throws IOException {
-    writeString(output, resource.getResourceId());
+  private void writeSections(DataOutputStream output) throws IOException {
+    ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream(64 * 1024);
+    DataOutputStream sectionOutput = new DataOutputStream(sectionBytes);
+    writeInt(output, sectionMap.size());
+    for (Map.Entry<Resource, HashMap<Element, HashMap<Relationship, ArrayList<Location>>>> sectionEntry : sectionMap.entrySet()) {
+      HashMap<Element, HashMap<Relationship, ArrayList<Location>>> section = sectionEntry.getValue();
+      int offset = sectionOutput.size();
+      writeSection(sectionOutput, section);
+      int relationshipCount = 0;
+      HashSet<Element> locationElements = new HashSet<Element>();
+      for (HashMap<Relationship, ArrayList<Location>> elementRelationshipMap : section.values()) {
+        for (ArrayList<Location> locations : elementRelationshipMap.values()) {
+          relationshipCount += locations.size();
+          for (Location location : locations) {
+            locationElements.add(location.getElement());
+          }
+        }
+      }
+      writeResource(output, sectionEntry.getKey());
+      writeInt(output, offset);
+      writeInt(output, sectionOutput.size() - offset);
+      writeInt(output, relationshipCount);
+      writeInt(output, section.size());
+      for (Element element : section.keySet()) {
+        writeElement(output, element);
+      }
+      writeInt(output, locationElements.size());
+      for (Element element : locationElements) {
+        writeElement(output, element);
+      }
+    }
+    sectionOutput.flush();
+    sectionBytes.writeTo(output);
   }
 
   /**
-   * Write the version number of the SDK that was indexed.
+   * Write the given integer, which can be negative, to the given output stream. The integer is
+   * zigzag encoded, so that integers of a small magnitude are written in few bytes whatever their
+   * sign.
    * 
-   * @param output the stream to which the SDK version is to be written
-   * @throws IOException if the SDK version could not be written
+   * @param output the stream to which the integer is to be written
+   * @param value the integer to be written
+   * @throws IOException if the integer could not be written
    */
-  private void writeSDKVersionNumber(ObjectOutputStream output) throws IOException {
-    output.writeUTF(DartSdkManager.getManager().getSdk().getSdkVersion());
+  private void writeSignedInt(DataOutputStream output, int value) throws IOException {
+    writeVariableLengthInt(output, (value << 1) ^ (value >> 31));
   }
 
   /**
@@ -350,30 +505,50 @@ public class IndexWriter {
    * @param string the string to be written
    * @throws IOException if the string could not be written
    */
-  private void writeString(ObjectOutputStream output, String string) throws IOException {
+  private void writeString(DataOutputStream output, String string) throws IOException {
     if (string == null) {
-      output.writeInt(-1);
+      writeInt(output, 0);
     } else {
       Integer index = stringMap.get(string);
       if (index == null) {
         throw new IllegalStateException(
             "Attempting to write a string that was not in the string table: \"" + string + "\"");
       }
-      output.writeInt(index.intValue());
+      writeInt(output, index.intValue() + 1);
     }
   }
 
   /**
-   * Write the string table to the given output stream.
+   * Write the string table to the given output stream. Each string is written as the length of its
+   * UTF-8 encoding followed by the encoded bytes so that strings can be decoded individually.
    * 
    * @param output the stream to which the string table is to be written
    * @throws IOException if the string table could not be written
    */
-  private void writeStringTable(ObjectOutputStream output) throws IOException {
+  private void writeStringTable(DataOutputStream output) throws IOException {
     int length = nextStringIndex;
-    output.writeInt(length);
+    writeInt(output, length);
     for (int i = 0; i < length; i++) {
-      output.writeUTF(stringTable[i]);
+      byte[] bytes = stringTable[i].getBytes("UTF-8");
+      writeInt(output, bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  /**
+   * Write the bits of the given integer, as an unsigned integer, to the given output stream using a
+   * variable length encoding in which each byte holds seven bits of the value and the high bit is
+   * set on every byte but the last.
+   * 
+   * @param output the stream to which the integer is to be written
+   * @param value the integer to be written
+   * @throws IOException if the integer could not be written
+   */
+  private void writeVariableLengthInt(DataOutputStream output, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
     }
+    output.writeByte(value);
   }
 }
@@ -22,6 +22,7 @@ import com.google.dart.tools.core.index.Location;
 import com.google.dart.tools.core.index.Relationship;
 import com.google.dart.tools.core.index.Resource;
 import com.google.dart.tools.core.internal.index.persistance.IndexReader;
+import com.google.dart.tools.core.internal.index.persistance.IndexSection;
 import com.google.dart.tools.core.internal.index.persistance.IndexWriter;
 
 import java.io.PrintWriter;
@@ -65,6 +66,18 @@ public class IndexStore {
    */
   private Map<Resource, List<ContributedLocation>> contributorToContributedLocations = Maps.newHashMap();
 
+  /**
+   * A table mapping elements to the sections read from an index file that contain relationships for
+   * those elements but that have not yet been added to this index.
+   */
+  private Map<Element, List<IndexSection>> pendingSections = Maps.newHashMap();
+
+  /**
+   * A table mapping contributors to the section read from an index file that contains the
+   * relationships they contributed, if that section has not yet been added to this index.
+   */
+  private Map<Resource, IndexSection> contributorToPendingSection = Maps.newHashMap();
+
   /**
    * Initialize a newly created index to be empty.
    */
@@ -76,6 +89,7 @@ public class IndexStore {
    * Remove all data from this index.
    */
   public void clear() {
+    discardPendingSections();
     resourceToElementMap.clear();
     attributeMap.clear();
     relationshipMap.clear();
@@ -96,6 +110,7 @@ public class IndexStore {
    * @return a writer that can write the contents of this index to a stream
    */
   public IndexWriter createIndexWriter() {
+    materializePendingSections();
     return new IndexWriter(attributeMap, relationshipMap);
   }
 
@@ -148,6 +163,9 @@ public class IndexStore {
    */
   public int getRelationshipCount() {
     int count = 0;
+    for (IndexSection section : contributorToPendingSection.values()) {
+      count += section.getRelationshipCount();
+    }
     for (HashMap<Relationship, ArrayList<ContributedLocation>> elementRelationshipMap : relationshipMap.values()) {
       for (ArrayList<ContributedLocation> contributedLocations : elementRelationshipMap.values()) {
         count += contributedLocations.size();
@@ -167,6 +185,7 @@ public class IndexStore {
    * @return the locations of the elements that have the given relationship with the given element
    */
   public Location[] getRelationships(Element element, Relationship relationship) {
+    materializePendingSections(element);
     HashMap<Relationship, ArrayList<ContributedLocation>> elementRelationshipMap = relationshipMap.get(element);
     if (elementRelationshipMap != null) {
       ArrayList<ContributedLocation> contributedLocations = elementRelationshipMap.get(relationship);
@@ -268,6 +287,29 @@ public class IndexStore {
     recordContributorToLocation(contributor, contributedLocation);
   }
 
+  /**
+   * Record that the relationships in the given section, read from an index file, are part of this
+   * index. The relationships will be added the first time one of the elements in the section is
+   * queried.
+   * 
+   * @param section the section containing the relationships
+   */
+  public void recordSection(IndexSection section) {
+    contributorToPendingSection.put(section.getContributor(), section);
+    for (Element element : section.getLocationElements()) {
+      recordElement(element);
+    }
+    for (Element element : section.getElements()) {
+      recordElement(element);
+      List<IndexSection> sections = pendingSections.get(element);
+      if (sections == null) {
+        sections = Lists.newArrayList();
+        pendingSections.put(element, sections);
+      }
+      sections.add(section);
+    }
+  }
+
   /**
    * Remove from the index all of the information associated that was contribute as a result of
    * analyzing the given resource. This includes relationships between an element in the given
@@ -279,6 +321,10 @@ public class IndexStore {
    * @param resource the resource being re-analyzed
    */
   public void regenerateResource(Resource resource) {
+    IndexSection section = contributorToPendingSection.remove(resource);
+    if (section != null) {
+      section.discard();
+    }
     resourceToElementMap.remove(resource);
 
     List<ContributedLocation> locations = contributorToContributedLocations.remove(resource);
@@ -300,6 +346,11 @@ public class IndexStore {
    * @param resource the resource being removed
    */
   public void removeResource(Resource resource) {
+    IndexSection section = contributorToPendingSection.remove(resource);
+    if (section != null) {
+      section.discard();
+    }
+    materializePendingSections(resource);
     Set<Element> elements = resourceToElementMap.get(resource);
     if (elements != null) {
       for (Element element : elements) {
@@ -335,6 +386,7 @@ public class IndexStore {
 
   @Override
   public String toString() {
+    materializePendingSections();
     PrintStringWriter writer = new PrintStringWriter();
     writeIndex(writer);
     return writer.toString();
@@ -350,6 +402,76 @@ public class IndexStore {
 //    return count;
 //  }
 
+  /**
+   * Forget about all of the sections that have not yet been added to this index.
+   */
+  private void discardPendingSections() {
+    for (IndexSection section : contributorToPendingSection.values()) {
+      section.discard();
+    }
+    contributorToPendingSection.clear();
+    pendingSections.clear();
+  }
+
+  /**
+   * Add the relationships in all of the sections that have not yet been added to this index.
+   */
+  private void materializePendingSections() {
+    if (contributorToPendingSection.isEmpty()) {
+      return;
+    }
+    List<IndexSection> sections = Lists.newArrayList(contributorToPendingSection.values());
+    contributorToPendingSection.clear();
+    pendingSections.clear();
+    for (IndexSection section : sections) {
+      section.materialize();
+    }
+  }
+
+  /**
+   * Add the relationships in the sections that refer to elements or locations in the given resource
+   * and that have not yet been added to this index.
+   * 
+   * @param resource the resource whose relationships are about to be removed
+   */
+  private void materializePendingSections(Resource resource) {
+    List<IndexSection> sections = Lists.newArrayList();
+    for (IndexSection section : contributorToPendingSection.values()) {
+      if (section.refersTo(resource)) {
+        sections.add(section);
+      }
+    }
+    for (IndexSection section : sections) {
+      contributorToPendingSection.remove(section.getContributor());
+      for (Element element : section.getElements()) {
+        List<IndexSection> elementSections = pendingSections.get(element);
+        if (elementSections != null) {
+          elementSections.remove(section);
+          if (elementSections.isEmpty()) {
+            pendingSections.remove(element);
+          }
+        }
+      }
+      section.materialize();
+    }
+  }
+
+  /**
+   * Add the relationships in the sections that contain relationships for the given element and
+   * that have not yet been added to this index.
+   * 
+   * @param element the element whose relationships are about to be accessed
+   */
+  private void materializePendingSections(Element element) {
+    List<IndexSection> sections = pendingSections.remove(element);
+    if (sections != null) {
+      for (IndexSection section : sections) {
+        contributorToPendingSection.remove(section.getContributor());
+        section.materialize();
+      }
+    }
+  }
+
   private void recordContributorToLocation(Resource contributor,
       ContributedLocation contributedLocation) {
     List<ContributedLocation> locations = contributorToContributedLocations.get(contributor);
@@ -18,6 +18,7 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.HierarchyCallback;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
@@ -102,6 +103,16 @@ public class ScanTimings extends TestCase {
       return null;
     }
 
+    @Override
+    public void getSubtypes(Element type, HierarchyCallback callback) {
+      // ignored
+    }
+
+    @Override
+    public void getSupertypes(Element type, HierarchyCallback callback) {
+      // ignored
+    }
+
     @Override
     public void indexUnit(AnalysisContext context, CompilationUnit unit) {
       // ignored
@@ -22,12 +22,11 @@ import com.google.dart.tools.core.internal.index.store.IndexStore;
 
 import junit.framework.TestCase;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Set;
@@ -49,6 +48,36 @@ public class IndexReaderTest extends TestCase {
     assertTrue(getRelationshipMap(index).isEmpty());
   }
 
+  public void test_IndexReader_readIndex_negativeOffset() throws Exception {
+    IndexStore originalIndex = new IndexStore();
+    Resource resource1 = new Resource(RESOURCE_ID_1);
+    Element element1 = new Element(resource1, ELEMENT_ID_1);
+    Element element2 = new Element(resource1, ELEMENT_ID_2);
+    Relationship relationship1 = Relationship.getRelationship(RELATIONSHIP_ID_1);
+    Relationship relationship2 = Relationship.getRelationship(RELATIONSHIP_ID_2);
+    // a location without source information
+    originalIndex.recordRelationship(resource1, element1, relationship1, new Location(
+        element2,
+        -1,
+        0,
+        null));
+    originalIndex.recordRelationship(resource1, element1, relationship2, new Location(
+        element2,
+        Integer.MIN_VALUE,
+        Integer.MAX_VALUE,
+        null));
+    IndexStore index = writeAndReadIndex(originalIndex);
+
+    Location[] locations = index.getRelationships(element1, relationship1);
+    assertEquals(1, locations.length);
+    assertEquals(-1, locations[0].getOffset());
+    assertEquals(0, locations[0].getLength());
+    locations = index.getRelationships(element1, relationship2);
+    assertEquals(1, locations.length);
+    assertEquals(Integer.MIN_VALUE, locations[0].getOffset());
+    assertEquals(Integer.MAX_VALUE, locations[0].getLength());
+  }
+
   public void test_IndexReader_readIndex_nonEmpty() throws Exception {
     IndexStore index = writeAndReadIndex(createNonEmptyIndex());
 
@@ -64,16 +93,120 @@ public class IndexReaderTest extends TestCase {
     String value = index.getAttribute(element1, Attribute.getAttribute(ATTRIBUTE_ID_1));
     assertEquals(ATTRIBUTE_VALUE_1, value);
 
+    Location[] locations = index.getRelationships(
+        element1,
+        Relationship.getRelationship(RELATIONSHIP_ID_1));
+    assertEquals(1, locations.length);
+    assertEquals(ELEMENT_ID_2, locations[0].getElement().getElementId());
+    assertEquals(12, locations[0].getOffset());
+    assertEquals(5, locations[0].getLength());
+
     HashMap<Element, HashMap<Relationship, ArrayList<Location>>> relationshipMap = getRelationshipMap(index);
     assertNotNull(relationshipMap);
-    assertEquals(2, relationshipMap.size());
+    assertEquals(1, relationshipMap.size());
     assertTrue(relationshipMap.containsKey(element1));
 
     HashMap<Resource, Set<Element>> resourceToElementMap = getResourceToElementMap(index);
     assertNotNull(resourceToElementMap);
+    // "resource2" is known from the directory of the section containing "element3"
     assertEquals(2, resourceToElementMap.size());
   }
 
+  public void test_IndexReader_readIndex_corruptSection() throws Exception {
+    byte[] externalFormat = writeIndex(createNonEmptyIndex());
+    byte[] truncated = new byte[externalFormat.length - 1];
+    System.arraycopy(externalFormat, 0, truncated, 0, truncated.length);
+    IndexReader reader = new IndexStore().createIndexReader();
+    try {
+      reader.readIndex(ByteBuffer.wrap(truncated));
+      fail("Expected IOException");
+    } catch (IOException exception) {
+      // expected
+    }
+  }
+
+  public void test_IndexReader_readIndex_counts() throws Exception {
+    IndexStore originalIndex = createNonEmptyIndex();
+    IndexStore index = writeAndReadIndex(createNonEmptyIndex());
+    assertTrue(getRelationshipMap(index).isEmpty());
+    assertEquals(originalIndex.getRelationshipCount(), index.getRelationshipCount());
+    assertEquals(originalIndex.getElementCount(), index.getElementCount());
+    assertEquals(originalIndex.getResourceCount(), index.getResourceCount());
+  }
+
+  public void test_IndexReader_readIndex_file() throws Exception {
+    File indexFile = File.createTempFile("index", ".idx");
+    try {
+      createNonEmptyIndex().createIndexWriter().writeIndex(indexFile);
+      IndexStore index = new IndexStore();
+      assertTrue(index.createIndexReader().readIndex(indexFile));
+      // the file is not kept open, so it can be replaced while the index is in use
+      assertTrue(indexFile.delete());
+      Element element2 = new Element(new Resource(RESOURCE_ID_1), ELEMENT_ID_2);
+      Location[] locations = index.getRelationships(
+          element2,
+          Relationship.getRelationship(RELATIONSHIP_ID_1));
+      assertEquals(1, locations.length);
+    } finally {
+      indexFile.delete();
+    }
+  }
+
+  public void test_IndexReader_readIndex_obsoleteFormat() throws Exception {
+    IndexStore index = new IndexStore();
+    IndexReader reader = index.createIndexReader();
+    assertFalse(reader.readIndex(ByteBuffer.wrap(new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5})));
+  }
+
+  public void test_IndexReader_readIndex_obsoleteVersion() throws Exception {
+    IndexStore index = new IndexStore();
+    IndexReader reader = index.createIndexReader();
+    ByteBuffer buffer = ByteBuffer.allocate(8);
+    buffer.putInt(IndexWriter.FILE_MAGIC_NUMBER);
+    buffer.putInt(4);
+    buffer.flip();
+    assertFalse(reader.readIndex(buffer));
+  }
+
+  public void test_IndexReader_readIndex_pendingUntilQueried() throws Exception {
+    IndexStore index = writeAndReadIndex(createNonEmptyIndex());
+    assertTrue(getRelationshipMap(index).isEmpty());
+
+    Element element2 = new Element(new Resource(RESOURCE_ID_1), ELEMENT_ID_2);
+    Location[] locations = index.getRelationships(
+        element2,
+        Relationship.getRelationship(RELATIONSHIP_ID_1));
+    assertEquals(1, locations.length);
+    assertEquals(ELEMENT_ID_3, locations[0].getElement().getElementId());
+    // only the section contributed by "resource2" has been read
+    assertEquals(1, getRelationshipMap(index).size());
+  }
+
+  public void test_IndexReader_regenerateResource_discardsPendingSection() throws Exception {
+    IndexStore index = writeAndReadIndex(createNonEmptyIndex());
+    index.regenerateResource(new Resource(RESOURCE_ID_2));
+
+    Element element2 = new Element(new Resource(RESOURCE_ID_1), ELEMENT_ID_2);
+    Location[] locations = index.getRelationships(
+        element2,
+        Relationship.getRelationship(RELATIONSHIP_ID_1));
+    assertEquals(0, locations.length);
+  }
+
+  public void test_IndexReader_removeResource_keepsUnrelatedSectionsPending() throws Exception {
+    IndexStore index = writeAndReadIndex(createNonEmptyIndex());
+    index.removeResource(new Resource(RESOURCE_ID_2));
+    // the section contributed by "resource2" is discarded and the other one is not read
+    assertTrue(getRelationshipMap(index).isEmpty());
+    assertEquals(2, index.getRelationshipCount());
+
+    Element element1 = new Element(new Resource(RESOURCE_ID_1), ELEMENT_ID_1);
+    Location[] locations = index.getRelationships(
+        element1,
+        Relationship.getRelationship(RELATIONSHIP_ID_1));
+    assertEquals(1, locations.length);
+  }
+
   private IndexStore createEmptyIndex() {
     return new IndexStore();
   }
@@ -145,19 +278,21 @@ public class IndexReaderTest extends TestCase {
     //
     // Create an external format representing the index.
     //
-    IndexWriter writer = originalIndex.createIndexWriter();
-    ByteArrayOutputStream baseStream = new ByteArrayOutputStream();
-    ObjectOutputStream output = new ObjectOutputStream(baseStream);
-    writer.writeIndex(output);
-    output.flush();
-    output.close();
-    byte[] externalFormat = baseStream.toByteArray();
+    byte[] externalFormat = writeIndex(originalIndex);
     //
     // Read the external format that was created.
     //
     IndexStore newIndex = new IndexStore();
     IndexReader reader = newIndex.createIndexReader();
-    reader.readIndex(new ObjectInputStream(new ByteArrayInputStream(externalFormat)));
+    assertTrue(reader.readIndex(ByteBuffer.wrap(externalFormat)));
     return newIndex;
   }
+
+  private byte[] writeIndex(IndexStore index) throws IOException {
+    IndexWriter writer = index.createIndexWriter();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writer.writeIndex(output);
+    output.close();
+    return output.toByteArray();
+  }
 }
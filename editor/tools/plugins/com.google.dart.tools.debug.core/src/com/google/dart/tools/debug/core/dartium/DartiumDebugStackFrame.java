@@ -62,8 +62,8 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
     IDartStackFrame, IExceptionStackFrame, IVariableResolver, IExpressionEvaluator {
   private IThread thread;
   private WebkitCallFrame webkitFrame;
-  private boolean isExceptionStackFrame;
-  private VariableCollector variableCollector = VariableCollector.empty();
+  private WebkitRemoteObject exception;
+  private VariableCollector variableCollector;
 
   public DartiumDebugStackFrame(IDebugTarget target, IThread thread, WebkitCallFrame webkitFrame) {
     this(target, thread, webkitFrame, null);
@@ -75,8 +75,7 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
 
     this.thread = thread;
     this.webkitFrame = webkitFrame;
-
-    fillInDartiumVariables(exception);
+    this.exception = exception;
   }
 
   @Override
@@ -267,7 +266,7 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
   @Override
   public IVariable[] getVariables() throws DebugException {
     try {
-      return variableCollector.getVariables();
+      return getVariableCollector().getVariables();
     } catch (InterruptedException e) {
       throw new DebugException(new Status(
           IStatus.ERROR,
@@ -279,7 +278,7 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
 
   @Override
   public boolean hasException() {
-    return isExceptionStackFrame;
+    return exception != null;
   }
 
   @Override
@@ -401,13 +400,9 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
   }
 
   /**
-   * Fill in the IVariables from the Webkit variables.
-   * 
-   * @param exception can be null
+   * Create a collector for the IVariables of the Webkit variables.
    */
-  private void fillInDartiumVariables(WebkitRemoteObject exception) {
-    isExceptionStackFrame = (exception != null);
-
+  private VariableCollector createVariableCollector() {
     List<WebkitRemoteObject> remoteObjects = new ArrayList<WebkitRemoteObject>();
 
     WebkitRemoteObject thisObject = null;
@@ -426,8 +421,9 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
       }
     }
 
-    variableCollector = VariableCollector.createCollector(
+    return VariableCollector.createCollector(
         getTarget(),
+        this,
         thisObject,
         remoteObjects,
         libraryObject,
@@ -474,6 +470,18 @@ public class DartiumDebugStackFrame extends DartiumDebugElement implements IStac
     return wrapper.getProject();
   }
 
+  /**
+   * The variables are only collected once they are asked for, so that frames that are never
+   * selected do not request any properties.
+   */
+  private synchronized VariableCollector getVariableCollector() {
+    if (variableCollector == null) {
+      variableCollector = createVariableCollector();
+    }
+
+    return variableCollector;
+  }
+
   private String resolvePackageUrl(String url) {
     if (DartCoreDebug.ENABLE_NEW_ANALYSIS) {
       if (getProject() != null) {
@@ -246,6 +246,7 @@ public class DartiumDebugValue extends DartiumDebugElement implements IValue, ID
       } else {
         variableCollector = VariableCollector.createCollector(
             getTarget(),
+            this,
             variable,
             Collections.singletonList(value));
       }
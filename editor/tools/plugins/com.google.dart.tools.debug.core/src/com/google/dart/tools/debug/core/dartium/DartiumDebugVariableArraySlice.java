@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.dartium;
+
+import com.google.dart.tools.debug.core.util.IDartDebugVariable;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IValue;
+import org.eclipse.debug.core.model.IVariable;
+
+import java.text.NumberFormat;
+import java.util.List;
+
+/**
+ * An implementation of IDartDebugVariable, used specifically for displaying array splices.
+ */
+class DartiumDebugVariableArraySlice extends DartiumDebugElement implements IDartDebugVariable {
+  class ListSliceValue extends DartiumDebugElement implements IValue {
+    public ListSliceValue() {
+      super(DartiumDebugVariableArraySlice.this.getTarget());
+    }
+
+    @Override
+    public String getReferenceTypeName() throws DebugException {
+      return "";
+    }
+
+    @Override
+    public String getValueString() throws DebugException {
+      return "";
+    }
+
+    @Override
+    public IVariable[] getVariables() throws DebugException {
+      return elements.toArray(new IVariable[elements.size()]);
+    }
+
+    @Override
+    public boolean hasVariables() throws DebugException {
+      return true;
+    }
+
+    @Override
+    public boolean isAllocated() throws DebugException {
+      return true;
+    }
+  }
+
+  private static final NumberFormat nf = NumberFormat.getIntegerInstance();
+
+  private List<? extends IVariable> elements;
+  private int offset;
+
+  private ListSliceValue value;
+
+  public DartiumDebugVariableArraySlice(DartiumDebugTarget target,
+      List<? extends IVariable> elements, int offset) {
+    super(target);
+
+    this.elements = elements;
+    this.offset = offset;
+  }
+
+  @Override
+  public String getName() throws DebugException {
+    return "[" + nf.format(offset) + "-" + nf.format(offset + elements.size() - 1) + "]";
+  }
+
+  @Override
+  public String getReferenceTypeName() throws DebugException {
+    return getValue().getReferenceTypeName();
+  }
+
+  @Override
+  public IValue getValue() throws DebugException {
+    if (value == null) {
+      value = new ListSliceValue();
+    }
+
+    return value;
+  }
+
+  @Override
+  public boolean hasValueChanged() throws DebugException {
+    return false;
+  }
+
+  @Override
+  public boolean isLibraryObject() {
+    return false;
+  }
+
+  @Override
+  public boolean isStatic() {
+    return false;
+  }
+
+  @Override
+  public boolean isThisObject() {
+    return false;
+  }
+
+  @Override
+  public boolean isThrownException() {
+    return false;
+  }
+
+  @Override
+  public void setValue(IValue value) throws DebugException {
+    // Not supported.
+
+  }
+
+  @Override
+  public void setValue(String expression) throws DebugException {
+    // Not supported.
+
+  }
+
+  @Override
+  public boolean supportsValueModification() {
+    return false;
+  }
+
+  @Override
+  public boolean verifyValue(IValue value) throws DebugException {
+    // Not supported.
+    return false;
+  }
+
+  @Override
+  public boolean verifyValue(String expression) throws DebugException {
+    // Not supported.
+    return false;
+  }
+}
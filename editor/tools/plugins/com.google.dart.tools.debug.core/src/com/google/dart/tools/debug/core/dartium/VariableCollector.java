@@ -21,57 +21,63 @@ import com.google.dart.tools.debug.core.webkit.WebkitPropertyDescriptor;
 import com.google.dart.tools.debug.core.webkit.WebkitRemoteObject;
 import com.google.dart.tools.debug.core.webkit.WebkitResult;
 
+import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.model.IVariable;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * A helper class to asynchronously collect variable values for the DartiumDebugStackFrame class.
+ * <p>
+ * The properties of the remote objects are all requested when the collector is created, and the
+ * variables are exposed in a fixed order as the results arrive. If some results are still
+ * outstanding after a short wait, {@link #getVariables()} returns the variables collected so far
+ * and a content change event is fired on the owning element once the remaining results arrive.
+ * Static fields are requested once the fields of their object have arrived, and the elements of
+ * long lists are grouped into slices that are only shown when they are expanded.
  */
 class VariableCollector {
 
+  /**
+   * A callback for the properties of a remote object, which are {@code null} if they could not be
+   * retrieved.
+   */
+  private static interface PropertiesCallback {
+    public void handleProperties(WebkitPropertyDescriptor[] properties);
+  }
+
+  /**
+   * The maximum number of milliseconds {@link #getVariables()} waits for outstanding results.
+   */
+  private static final long MAX_WAIT_MILLIS = 500;
+
+  /**
+   * The number of list elements in each slice.
+   */
+  private static final int SLICE_LENGTH = 100;
+
   public static VariableCollector createCollector(DartiumDebugTarget target,
-      DartiumDebugVariable variable, List<WebkitRemoteObject> remoteObjects) {
-    final VariableCollector collector = new VariableCollector(
+      DartiumDebugElement owner, DartiumDebugVariable variable,
+      List<WebkitRemoteObject> remoteObjects) {
+    VariableCollector collector = new VariableCollector(
         target,
+        owner,
         remoteObjects.size(),
         variable);
 
-    for (final WebkitRemoteObject obj : remoteObjects) {
-      try {
-        target.getConnection().getRuntime().getProperties(
-            obj,
-            true,
-            new WebkitCallback<WebkitPropertyDescriptor[]>() {
-              @Override
-              public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
-                try {
-                  collector.collectFields(result, !obj.isList());
-                } catch (Throwable t) {
-                  DartDebugCorePlugin.logError(t);
-
-                  collector.worked();
-                }
-              }
-            });
-      } catch (Throwable e) {
-        DartDebugCorePlugin.logError(e);
-
-        collector.worked();
-      }
-    }
+    collector.collectFields(remoteObjects, true);
 
     return collector;
   }
 
   public static VariableCollector createCollector(DartiumDebugTarget target,
-      WebkitRemoteObject thisObject, List<WebkitRemoteObject> remoteObjects,
-      WebkitRemoteObject libraryObject, WebkitRemoteObject exception) {
-    final VariableCollector collector = new VariableCollector(target, remoteObjects.size());
+      DartiumDebugElement owner, WebkitRemoteObject thisObject,
+      List<WebkitRemoteObject> remoteObjects, WebkitRemoteObject libraryObject,
+      WebkitRemoteObject exception) {
+    VariableCollector collector = new VariableCollector(target, owner, remoteObjects.size(), null);
 
     if (exception != null) {
       collector.createExceptionVariable(exception);
@@ -85,139 +91,202 @@ class VariableCollector {
       collector.createThisVariable(thisObject);
     }
 
-    for (WebkitRemoteObject obj : remoteObjects) {
-      try {
-        target.getConnection().getRuntime().getProperties(
-            obj,
-            true,
-            new WebkitCallback<WebkitPropertyDescriptor[]>() {
-              @Override
-              public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
-                try {
-                  collector.collectFields(result, false);
-                } catch (Throwable t) {
-                  DartDebugCorePlugin.logError(t);
-
-                  collector.worked();
-                }
-              }
-            });
-      } catch (Throwable e) {
-        DartDebugCorePlugin.logError(e);
-
-        collector.worked();
-      }
-    }
+    collector.collectFields(remoteObjects, false);
 
     return collector;
   }
 
   public static VariableCollector empty() {
-    return new VariableCollector(null, 0);
+    return new VariableCollector(null, null, 0, null);
+  }
+
+  /**
+   * Group the given list elements into slices, in the same way as the VM debugger does.
+   */
+  static List<IVariable> createArraySlices(DartiumDebugTarget target,
+      List<? extends IVariable> elements) {
+    int sliceLength = SLICE_LENGTH;
+
+    if (elements.size() > SLICE_LENGTH * SLICE_LENGTH) {
+      // A very large list - increase the slice size.
+      sliceLength *= 10;
+    }
+
+    List<IVariable> slices = new ArrayList<IVariable>();
+
+    for (int offset = 0; offset < elements.size(); offset += sliceLength) {
+      slices.add(new DartiumDebugVariableArraySlice(target, elements.subList(
+          offset,
+          Math.min(offset + sliceLength, elements.size())), offset));
+    }
+
+    return slices;
   }
 
   private DartiumDebugTarget target;
+  private DartiumDebugElement owner;
   private DartiumDebugVariable parentVariable;
 
-  private CountDownLatch latch;
-  private List<DartiumDebugVariable> variables = new ArrayList<DartiumDebugVariable>();
+  /**
+   * The variables collected so far. The first list holds the special variables, followed by a list
+   * of fields and a list of static fields for each remote object.
+   */
+  private List<List<? extends IVariable>> variables;
 
-  private VariableCollector(DartiumDebugTarget target, int work) {
-    this(target, work, null);
-  }
+  /**
+   * The number of requests whose results have not yet arrived.
+   */
+  private int outstandingCount;
+
+  /**
+   * Whether {@link #getVariables()} has returned before all of the results arrived.
+   */
+  private boolean returnedPartialResults;
 
-  private VariableCollector(DartiumDebugTarget target, int work, DartiumDebugVariable parentVariable) {
+  private VariableCollector(DartiumDebugTarget target, DartiumDebugElement owner, int objectCount,
+      DartiumDebugVariable parentVariable) {
     this.target = target;
+    this.owner = owner;
     this.parentVariable = parentVariable;
 
-    latch = new CountDownLatch(work);
+    variables = new ArrayList<List<? extends IVariable>>(1 + 2 * objectCount);
+
+    for (int i = 0; i < 1 + 2 * objectCount; i++) {
+      variables.add(Collections.<IVariable> emptyList());
+    }
+
+    variables.set(0, new ArrayList<IVariable>());
   }
 
   public IVariable[] getVariables() throws InterruptedException {
-    latch.await();
+    synchronized (this) {
+      long endTime = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+      long remaining = MAX_WAIT_MILLIS;
 
-    return variables.toArray(new IVariable[variables.size()]);
-  }
+      while (outstandingCount > 0 && remaining > 0) {
+        wait(remaining);
+
+        remaining = endTime - System.currentTimeMillis();
+      }
 
-  private void collectFields(WebkitResult<WebkitPropertyDescriptor[]> results, boolean shouldSort) {
-    boolean gettingStaticFields = false;
+      if (outstandingCount > 0) {
+        returnedPartialResults = true;
+      }
 
-    if (!results.isError()) {
-      WebkitPropertyDescriptor[] properties = results.getResult();
+      List<IVariable> result = new ArrayList<IVariable>();
 
-      if (shouldSort) {
-        properties = sort(properties);
+      for (List<? extends IVariable> list : variables) {
+        result.addAll(list);
       }
 
-      for (WebkitPropertyDescriptor descriptor : properties) {
-        if (descriptor.isEnumerable()) {
-          if (!shouldFilter(descriptor)) {
-            DartiumDebugVariable variable = new DartiumDebugVariable(target, descriptor);
+      return result.toArray(new IVariable[result.size()]);
+    }
+  }
+
+  private void addSpecialVariable(DartiumDebugVariable variable) {
+    synchronized (this) {
+      @SuppressWarnings("unchecked")
+      List<IVariable> specialVariables = (List<IVariable>) variables.get(0);
 
-            if (parentVariable != null) {
-              variable.setParent(parentVariable);
-            }
+      specialVariables.add(variable);
+    }
+  }
 
-            variables.add(variable);
+  /**
+   * Request the properties of the given remote objects in one batch, and add the fields of each
+   * object at its index. The fields of objects other than lists are sorted if {@code sortFields} is
+   * {@code true}.
+   */
+  private void collectFields(List<WebkitRemoteObject> objects, boolean sortFields) {
+    List<PropertiesCallback> callbacks = new ArrayList<PropertiesCallback>();
+
+    for (int i = 0; i < objects.size(); i++) {
+      final int index = i;
+      final boolean shouldSort = sortFields && !objects.get(i).isList();
+
+      callbacks.add(new PropertiesCallback() {
+        @Override
+        public void handleProperties(WebkitPropertyDescriptor[] properties) {
+          if (properties != null) {
+            collectFieldsResults(index, properties, shouldSort);
           }
-        } else {
+        }
+      });
+    }
+
+    requestProperties(objects, callbacks);
+  }
+
+  private void collectFieldsResults(int index, WebkitPropertyDescriptor[] properties,
+      boolean shouldSort) {
+    List<DartiumDebugVariable> fields = new ArrayList<DartiumDebugVariable>();
+
+    if (shouldSort) {
+      properties = sort(properties);
+    }
+
+    for (WebkitPropertyDescriptor descriptor : properties) {
+      if (descriptor.isEnumerable()) {
+        if (!shouldFilter(descriptor)) {
+          DartiumDebugVariable variable = new DartiumDebugVariable(target, descriptor);
+
           if (parentVariable != null) {
-//            if (WebkitPropertyDescriptor.CLASS_INFO.equals(descriptor.getName())) {
-//              gettingClassInfo = collectClassInfo(descriptor.getValue(), latch);
-//            }
+            variable.setParent(parentVariable);
+          }
 
-            if (WebkitPropertyDescriptor.STATIC_FIELDS.equals(descriptor.getName())) {
-              gettingStaticFields = collectStaticFields(descriptor.getValue(), latch);
-            }
+          fields.add(variable);
+        }
+      } else {
+        if (parentVariable != null) {
+//          if (WebkitPropertyDescriptor.CLASS_INFO.equals(descriptor.getName())) {
+//            gettingClassInfo = collectClassInfo(descriptor.getValue(), latch);
+//          }
+
+          if (WebkitPropertyDescriptor.STATIC_FIELDS.equals(descriptor.getName())) {
+            collectStaticFields(index, descriptor.getValue());
           }
         }
       }
     }
 
-    if (!gettingStaticFields) {
-      latch.countDown();
+    if (parentVariable != null && parentVariable.isListValue() && fields.size() > SLICE_LENGTH) {
+      setVariables(1 + 2 * index, createArraySlices(target, fields));
+    } else {
+      setVariables(1 + 2 * index, fields);
     }
   }
 
-  private boolean collectStaticFields(final WebkitRemoteObject classInfo, final CountDownLatch latch) {
-    try {
-      target.getConnection().getRuntime().getProperties(
-          classInfo,
-          true,
-          new WebkitCallback<WebkitPropertyDescriptor[]>() {
-            @Override
-            public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
-              collectStaticFieldsResults(result, latch);
+  private void collectStaticFields(final int index, WebkitRemoteObject classInfo) {
+    requestProperties(
+        Collections.singletonList(classInfo),
+        Collections.<PropertiesCallback> singletonList(new PropertiesCallback() {
+          @Override
+          public void handleProperties(WebkitPropertyDescriptor[] properties) {
+            if (properties != null) {
+              collectStaticFieldsResults(index, properties);
             }
-          });
-
-      return true;
-    } catch (IOException e) {
-      return false;
-    }
+          }
+        }));
   }
 
-  private void collectStaticFieldsResults(WebkitResult<WebkitPropertyDescriptor[]> results,
-      CountDownLatch latch) {
-    try {
-      if (!results.isError()) {
-        for (WebkitPropertyDescriptor descriptor : sort(results.getResult())) {
-          if (descriptor.isEnumerable()) {
-            DartiumDebugVariable variable = new DartiumDebugVariable(target, descriptor);
+  private void collectStaticFieldsResults(int index, WebkitPropertyDescriptor[] properties) {
+    List<DartiumDebugVariable> fields = new ArrayList<DartiumDebugVariable>();
 
-            variable.setIsStatic(true);
+    for (WebkitPropertyDescriptor descriptor : sort(properties)) {
+      if (descriptor.isEnumerable()) {
+        DartiumDebugVariable variable = new DartiumDebugVariable(target, descriptor);
 
-            if (parentVariable != null) {
-              variable.setParent(parentVariable);
-            }
+        variable.setIsStatic(true);
 
-            variables.add(variable);
-          }
+        if (parentVariable != null) {
+          variable.setParent(parentVariable);
         }
+
+        fields.add(variable);
       }
-    } finally {
-      latch.countDown();
     }
+
+    setVariables(2 + 2 * index, fields);
   }
 
   private void createExceptionVariable(WebkitRemoteObject thisObject) {
@@ -226,7 +295,7 @@ class VariableCollector {
         WebkitPropertyDescriptor.createObjectDescriptor(thisObject, "exception"),
         true);
 
-    variables.add(variable);
+    addSpecialVariable(variable);
   }
 
   private void createLibraryVariable(WebkitRemoteObject libraryObject) {
@@ -234,13 +303,25 @@ class VariableCollector {
         target,
         WebkitPropertyDescriptor.createObjectDescriptor(libraryObject, DebuggerUtils.TOP_LEVEL_NAME));
     variable.setIsLibraryObject(true);
-    variables.add(variable);
+    addSpecialVariable(variable);
   }
 
   private void createThisVariable(WebkitRemoteObject thisObject) {
-    variables.add(new DartiumDebugVariable(target, WebkitPropertyDescriptor.createObjectDescriptor(
-        thisObject,
-        "this"), true));
+    addSpecialVariable(new DartiumDebugVariable(
+        target,
+        WebkitPropertyDescriptor.createObjectDescriptor(thisObject, "this"),
+        true));
+  }
+
+  private void handleProperties(PropertiesCallback callback,
+      WebkitPropertyDescriptor[] properties) {
+    try {
+      callback.handleProperties(properties);
+    } catch (Throwable t) {
+      DartDebugCorePlugin.logError(t);
+    } finally {
+      worked();
+    }
   }
 
   private boolean isListLength(WebkitPropertyDescriptor descriptor) {
@@ -253,6 +334,39 @@ class VariableCollector {
     return false;
   }
 
+  /**
+   * Request the properties of the given remote objects. Each callback is always invoked, once.
+   */
+  private void requestProperties(List<WebkitRemoteObject> objects,
+      List<PropertiesCallback> callbacks) {
+    synchronized (this) {
+      outstandingCount += objects.size();
+    }
+
+    List<WebkitCallback<WebkitPropertyDescriptor[]>> webkitCallbacks = new ArrayList<WebkitCallback<WebkitPropertyDescriptor[]>>();
+
+    for (final PropertiesCallback callback : callbacks) {
+      webkitCallbacks.add(new WebkitCallback<WebkitPropertyDescriptor[]>() {
+        @Override
+        public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
+          if (!result.isError() && result.getResult() != null) {
+            handleProperties(callback, result.getResult());
+          } else {
+            handleProperties(callback, null);
+          }
+        }
+      });
+    }
+
+    target.getConnection().getRuntime().getProperties(objects, true, webkitCallbacks);
+  }
+
+  private void setVariables(int index, List<? extends IVariable> list) {
+    synchronized (this) {
+      variables.set(index, list);
+    }
+  }
+
   /**
    * Some specific property filters, to make up for the fact that the enumerable property is not
    * always set correctly.
@@ -277,13 +391,31 @@ class VariableCollector {
   }
 
   private WebkitPropertyDescriptor[] sort(WebkitPropertyDescriptor[] properties) {
+    // The properties may be shared through the cache, so sort a copy.
+    properties = properties.clone();
+
     Arrays.sort(properties);
 
     return properties;
   }
 
   private void worked() {
-    latch.countDown();
+    boolean notifyOwner = false;
+
+    synchronized (this) {
+      outstandingCount--;
+
+      if (outstandingCount == 0) {
+        notifyAll();
+
+        notifyOwner = returnedPartialResults;
+      }
+    }
+
+    // Ask the views to fetch the variables again, now that they are all available.
+    if (notifyOwner && owner != null) {
+      owner.fireChangeEvent(DebugEvent.CONTENT);
+    }
   }
 
 }
@@ -31,10 +31,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -46,9 +47,14 @@ import java.util.concurrent.Executors;
 
 /**
  * A web server that serves up workspace resources.
+ * <p>
+ * Connections are accepted through a {@link ServerSocketChannel}, so that each connection has a
+ * {@link SocketChannel} that files can be transferred to without being copied through the Java
+ * heap. Each connection is handled on a pooled thread, because serving a request may need to wait
+ * for the workspace or for a dart2js compilation.
  */
 public class ResourceServer implements IResourceResolver {
-  private ServerSocket serverSocket;
+  private ServerSocketChannel serverChannel;
 
   private ExecutorService threadPool;
 
@@ -69,7 +75,8 @@ public class ResourceServer implements IResourceResolver {
    * @throws IOException
    */
   public ResourceServer(int port) throws IOException {
-    serverSocket = new ServerSocket(port);
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(new InetSocketAddress(port));
     threadPool = Executors.newCachedThreadPool();
 
     new Thread(new Runnable() {
@@ -88,7 +95,7 @@ public class ResourceServer implements IResourceResolver {
   }
 
   public int getPort() {
-    return serverSocket.getLocalPort();
+    return serverChannel.socket().getLocalPort();
   }
 
   @Override
@@ -133,7 +140,7 @@ public class ResourceServer implements IResourceResolver {
    */
   public void shutdown() {
     try {
-      serverSocket.close();
+      serverChannel.close();
     } catch (IOException exception) {
       DartDebugCorePlugin.logError(exception);
     }
@@ -236,7 +243,7 @@ public class ResourceServer implements IResourceResolver {
           "http",
           null,
           NetUtils.getLoopbackAddress(),
-          serverSocket.getLocalPort(),
+          serverChannel.socket().getLocalPort(),
           pathSegment,
           null,
           null);
@@ -262,9 +269,9 @@ public class ResourceServer implements IResourceResolver {
   private void startServer() {
     try {
       while (true) {
-        Socket socket = serverSocket.accept();
+        SocketChannel channel = serverChannel.accept();
 
-        threadPool.execute(new ResourceServerHandler(this, socket));
+        threadPool.execute(new ResourceServerHandler(this, channel.socket()));
       }
     } catch (IOException e) {
       // The server socket was closed by the shutdown() call.
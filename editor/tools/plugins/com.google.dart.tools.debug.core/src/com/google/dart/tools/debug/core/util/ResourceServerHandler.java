@@ -28,6 +28,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -43,9 +44,13 @@ import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -88,6 +93,15 @@ class ResourceServerHandler implements Runnable {
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
+    /**
+     * @return whether the client accepts gzip encoded content
+     */
+    public boolean acceptsGzip() {
+      String encodings = headers.get(ACCEPT_ENCODING);
+
+      return encodings != null && encodings.contains("gzip");
+    }
+
     public int getContentLength() {
       String len = headers.get(CONTENT_LENGTH);
 
@@ -135,6 +149,24 @@ class ResourceServerHandler implements Runnable {
       return null;
     }
 
+    /**
+     * @return whether the client asked for the connection to be kept open after the response
+     */
+    public boolean isKeepAlive() {
+      String connection = headers.get(CONNECTION);
+
+      if (connection != null) {
+        if (connection.equalsIgnoreCase("close")) {
+          return false;
+        } else if (connection.equalsIgnoreCase("keep-alive")) {
+          return true;
+        }
+      }
+
+      // HTTP/1.1 connections are persistent by default.
+      return HTTP_1_1.equals(version);
+    }
+
     @Override
     public String toString() {
       return "[" + method + " " + file + " " + version + "]";
@@ -155,6 +187,7 @@ class ResourceServerHandler implements Runnable {
     public static final int OK = 200; // "OK"
     public static final int PARTIAL_CONTENT = 206; // "Partial Content"
     public static final int REDIRECT = 302; // "Found"
+    public static final int NOT_MODIFIED = 304; // "Not Modified"
     public static final int NOT_FOUND = 404; // "Not Found"
     public static final int UNAUTHORIZED = 401; // "Unauthorized"
 
@@ -167,9 +200,35 @@ class ResourceServerHandler implements Runnable {
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
-    // one or the other needs to be null
+    // at most one of these can be non-null
     public String responseBodyText;
     public InputStream responseBodyStream;
+    public File responseBodyFile;
+
+    // set if the request was not read completely, so the connection can't be reused
+    public boolean closeConnection;
+
+    /**
+     * @return whether the connection can be reused after this response, which requires the client
+     *         to be able to tell where the response ends
+     */
+    public boolean canKeepAlive() {
+      if (closeConnection) {
+        return false;
+      }
+
+      if (responseCode == NOT_MODIFIED) {
+        return true;
+      }
+
+      try {
+        String length = headers.get(CONTENT_LENGTH);
+
+        return length != null && Long.parseLong(length) >= 0;
+      } catch (NumberFormatException nfe) {
+        return false;
+      }
+    }
 
     @Override
     public String toString() {
@@ -183,9 +242,22 @@ class ResourceServerHandler implements Runnable {
   private static final String ACCEPT_RANGES = "Accept-Ranges";
   private static final String CONTENT_RANGE = "Content-Range";
   private static final String LAST_MODIFIED = "Last-Modified";
+  private static final String CONNECTION = "Connection";
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String VARY = "Vary";
+
+  private static final String HTTP_1_1 = "HTTP/1.1";
+
+  /**
+   * The number of milliseconds an idle connection is kept open waiting for the next request.
+   */
+  private static final int KEEP_ALIVE_TIMEOUT = 10000;
 
   private static final String ISO_8859_1 = "ISO-8859-1";
-  private static final String US_ASCII = "US-ASCII";
 
   public static final String CONTENT_LENGTH = "Content-Length";
 
@@ -287,42 +359,63 @@ class ResourceServerHandler implements Runnable {
   @Override
   public void run() {
     try {
-      DataInputStream in = new DataInputStream(socket.getInputStream());
+      socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
+      socket.setTcpNoDelay(true);
+
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      boolean keepAlive = true;
+      int requestCount = 0;
 
-      HttpHeader header = parseHeader(in);
+      while (keepAlive) {
+        HttpHeader header = parseHeader(in);
 
-      if (header == null) {
-        if (DartDebugCorePlugin.LOGGING) {
-          System.out.println("resource server: socket closed early");
+        if (header == null) {
+          if (requestCount == 0 && DartDebugCorePlugin.LOGGING) {
+            System.out.println("resource server: socket closed early");
+          }
+
+          break;
         }
 
-        safeClose(socket);
-      } else if (isAllowableConnection(socket, header)) {
+        requestCount++;
+
         HttpResponse response;
 
-        if (HttpHeader.METHOD_GET.equals(header.method)
-            || HttpHeader.METHOD_HEAD.equals(header.method)) {
-          response = createGETResponse(header);
-        } else if (HttpHeader.METHOD_POST.equals(header.method)) {
-          response = createPOSTResponse(header, in);
-        } else {
-          response = createErrorResponse("Request type " + header.method + " not supported.");
-        }
+        if (isAllowableConnection(socket, header)) {
+          if (HttpHeader.METHOD_GET.equals(header.method)
+              || HttpHeader.METHOD_HEAD.equals(header.method)) {
+            response = createGETResponse(header);
+          } else if (HttpHeader.METHOD_POST.equals(header.method)) {
+            response = createPOSTResponse(header, in);
+          } else {
+            response = createErrorResponse("Request type " + header.method + " not supported.");
+          }
 
-        if (DartDebugCorePlugin.LOGGING) {
-          System.out.println("resource server: " + header);
+          if (DartDebugCorePlugin.LOGGING) {
+            System.out.println("resource server: " + header);
 
-          if (response.responseCode != HttpResponse.OK) {
-            System.out.println("       response: " + response);
+            if (response.responseCode != HttpResponse.OK) {
+              System.out.println("       response: " + response);
+            }
           }
+
+          keepAlive = header.isKeepAlive() && response.canKeepAlive();
+        } else {
+          response = createNotAllowedResponse();
+
+          keepAlive = false;
         }
 
+        response.headers.put(CONNECTION, keepAlive ? "keep-alive" : "close");
+
         sendResponse(response);
-      } else {
-        sendResponse(createNotAllowedResponse());
       }
 
       socket.close();
+    } catch (SocketTimeoutException ste) {
+      // The client did not send another request on a kept-alive connection.
+      safeClose(socket);
     } catch (IOException ioe) {
       safeClose(socket);
 
@@ -332,13 +425,14 @@ class ResourceServerHandler implements Runnable {
         DartDebugCorePlugin.logError(ioe);
       }
     } catch (Throwable t) {
+      safeClose(socket);
+
       DartDebugCorePlugin.logError(t);
     }
   }
 
   private void addStandardResponseHeaders(HttpResponse response) {
     response.headers.put("Server", "Dart Editor v" + DartCore.getVersion());
-    response.headers.put("Connection", "close");
   }
 
   /**
@@ -435,15 +529,30 @@ class ResourceServerHandler implements Runnable {
 
     HttpResponse response = new HttpResponse();
 
-    try {
-      // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
-      Date date = new Date(javaFile.lastModified());
-      response.headers.put(LAST_MODIFIED, HttpResponse.RFC_1123_DATE_FORMAT.format(date));
-    } catch (ArrayIndexOutOfBoundsException ex) {
-      // This happens occasionally on Windows. 
+    List<int[]> ranges = header.getRanges();
 
-    } catch (Throwable t) {
-      DartDebugCorePlugin.logError(t);
+    // Serve a pre-compressed copy of the file if there is one and the client accepts it.
+    File bodyFile = javaFile;
+
+    if (javaScriptContent == null) {
+      File gzipFile = getPrecompressedFile(javaFile);
+
+      if (gzipFile != null) {
+        response.headers.put(VARY, ACCEPT_ENCODING);
+
+        if (ranges == null && header.acceptsGzip()) {
+          bodyFile = gzipFile;
+
+          response.headers.put(CONTENT_ENCODING, "gzip");
+        }
+      }
+    }
+
+    // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
+    String lastModified = formatDate(bodyFile.lastModified());
+
+    if (lastModified != null) {
+      response.headers.put(LAST_MODIFIED, lastModified);
     }
 
     // Content-Type: text/html[; charset=UTF-8]
@@ -453,23 +562,35 @@ class ResourceServerHandler implements Runnable {
     // Cache-control: no-cache
     response.headers.put(CACHE_CONTROL, "no-cache");
 
-    // Content-Length: 438
-    if (javaFile != null) {
-      long length = javaFile.length();
+    // Artifacts are regenerated on every request, so only plain files are validated.
+    if (javaScriptContent == null) {
+      String etag = createETag(bodyFile, bodyFile != javaFile);
 
-      if (javaScriptContent != null) {
-        length = javaScriptContent.length;
+      response.headers.put(ETAG, etag);
+
+      if (isNotModified(header, etag, lastModified)) {
+        response.responseCode = HttpResponse.NOT_MODIFIED;
+        response.responseText = "Not Modified";
+
+        addStandardResponseHeaders(response);
+
+        return response;
       }
+    }
+
+    // Content-Length: 438
+    long length = bodyFile.length();
 
-      response.headers.put(CONTENT_LENGTH, Long.toString(length));
+    if (javaScriptContent != null) {
+      length = javaScriptContent.length;
     }
 
+    response.headers.put(CONTENT_LENGTH, Long.toString(length));
+
     if (!headOnly) {
       if (javaScriptContent != null) {
         response.responseBodyStream = new ByteArrayInputStream(javaScriptContent);
       } else {
-        List<int[]> ranges = header.getRanges();
-
         if (ranges != null) {
           byte[] rangeData = readRangeData(javaFile, ranges);
 
@@ -484,7 +605,7 @@ class ResourceServerHandler implements Runnable {
           response.headers.put(CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/"
               + rangeData.length);
         } else {
-          response.responseBodyStream = new FileInputStream(javaFile);
+          response.responseBodyFile = bodyFile;
         }
 
         // Indicate that we support requesting a subset of the document.
@@ -520,8 +641,13 @@ class ResourceServerHandler implements Runnable {
 
     int length = header.getContentLength();
 
-    if (length > MAX_POST) {
-      return createErrorResponse("Invalid POST length");
+    if (length < 0 || length > MAX_POST) {
+      HttpResponse response = createErrorResponse("Invalid POST length");
+
+      // The body of the request was not read.
+      response.closeConnection = true;
+
+      return response;
     }
 
     byte[] data = new byte[length];
@@ -537,6 +663,8 @@ class ResourceServerHandler implements Runnable {
 
     HttpResponse response = new HttpResponse();
 
+    response.headers.put(CONTENT_LENGTH, Integer.toString(0));
+
     addStandardResponseHeaders(response);
 
     return response;
@@ -558,6 +686,15 @@ class ResourceServerHandler implements Runnable {
     return response;
   }
 
+  /**
+   * @return an entity tag that changes whenever the given file is modified
+   */
+  private String createETag(File file, boolean compressed) {
+    // ETag: "1a2b-13c5d2e8f00"
+    return "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified())
+        + (compressed ? "-gzip" : "") + "\"";
+  }
+
   /**
    * @return the given string with any %20 sequences decoded
    */
@@ -584,6 +721,25 @@ class ResourceServerHandler implements Runnable {
     return new String(out.toByteArray(), Charsets.UTF_8);
   }
 
+  /**
+   * @return the given time formatted as an RFC 1123 date, or null if it could not be formatted
+   */
+  private String formatDate(long time) {
+    try {
+      // The date format is shared between all the handler threads.
+      synchronized (HttpResponse.RFC_1123_DATE_FORMAT) {
+        return HttpResponse.RFC_1123_DATE_FORMAT.format(new Date(time));
+      }
+    } catch (ArrayIndexOutOfBoundsException ex) {
+      // This happens occasionally on Windows. 
+
+    } catch (Throwable t) {
+      DartDebugCorePlugin.logError(t);
+    }
+
+    return null;
+  }
+
   /**
    * Combine the given *.dart.js file and the debugger JS agent.
    * 
@@ -637,6 +793,20 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
+  /**
+   * @return the gzip compressed copy of the given file, if one exists next to it and is at least as
+   *         recent as the file
+   */
+  private File getPrecompressedFile(File file) {
+    File gzipFile = new File(file.getPath() + ".gz");
+
+    if (gzipFile.isFile() && gzipFile.lastModified() >= file.lastModified()) {
+      return gzipFile;
+    }
+
+    return null;
+  }
+
   private void handleLoggingPost(String data) throws IOException {
     try {
       JSONObject obj = new JSONObject(data);
@@ -728,6 +898,23 @@ class ResourceServerHandler implements Runnable {
     return address.isAnyLocalAddress() || address.isLoopbackAddress();
   }
 
+  /**
+   * @return whether the client's cached copy of the file, as identified by the conditional request
+   *         headers, is still current
+   */
+  private boolean isNotModified(HttpHeader header, String etag, String lastModified) {
+    String ifNoneMatch = header.headers.get(IF_NONE_MATCH);
+
+    // If-None-Match takes precedence over If-Modified-Since.
+    if (ifNoneMatch != null) {
+      return ifNoneMatch.equals("*") || ifNoneMatch.contains(etag);
+    }
+
+    String ifModifiedSince = header.headers.get(IF_MODIFIED_SINCE);
+
+    return ifModifiedSince != null && ifModifiedSince.equals(lastModified);
+  }
+
   private boolean isSpecialResource(String path) {
     for (String[] resourceInfo : embeddedResources) {
       if (resourceInfo[0].equals(path)) {
@@ -877,8 +1064,8 @@ class ResourceServerHandler implements Runnable {
 
     StringBuilder builder = new StringBuilder();
 
-    // HTTP/1.0 200 OK
-    builder.append("HTTP/1.0 " + response.responseCode + " " + response.responseText + CRLF);
+    // HTTP/1.1 200 OK
+    builder.append(HTTP_1_1 + " " + response.responseCode + " " + response.responseText + CRLF);
 
     for (String key : response.headers.keySet()) {
       builder.append(key + ": " + response.headers.get(key) + CRLF);
@@ -886,12 +1073,17 @@ class ResourceServerHandler implements Runnable {
 
     builder.append(CRLF);
 
+    if (response.responseBodyText != null) {
+      builder.append(response.responseBodyText);
+    }
+
+    // Write the headers and any text body in one go, rather than as separate small packets.
     out.write(builder.toString().getBytes(ISO_8859_1));
 
-    if (response.responseBodyText != null) {
-      out.write(response.responseBodyText.getBytes(US_ASCII));
+    if (response.responseBodyFile != null) {
+      transferFile(response.responseBodyFile, Long.parseLong(response.headers.get(CONTENT_LENGTH)));
     } else if (response.responseBodyStream != null) {
-      byte[] buffer = new byte[2048];
+      byte[] buffer = new byte[8192];
 
       int count = response.responseBodyStream.read(buffer);
 
@@ -904,8 +1096,8 @@ class ResourceServerHandler implements Runnable {
       response.responseBodyStream.close();
     }
 
+    // The socket is left open so that it can be reused for the next request.
     out.flush();
-    out.close();
   }
 
   private HttpResponse serveAvailableApps(HttpHeader header) throws IOException {
@@ -949,6 +1141,38 @@ class ResourceServerHandler implements Runnable {
     return null;
   }
 
+  /**
+   * Send the first length bytes of the given file to the client. When the socket was accepted from
+   * a channel, the bytes are transferred by the operating system without being copied through the
+   * Java heap.
+   */
+  private void transferFile(File file, long length) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+
+    try {
+      FileChannel fileChannel = in.getChannel();
+      WritableByteChannel target = socket.getChannel();
+
+      if (target == null) {
+        target = Channels.newChannel(socket.getOutputStream());
+      }
+
+      long position = 0;
+
+      while (position < length) {
+        long count = fileChannel.transferTo(position, length - position, target);
+
+        if (count <= 0 && position >= fileChannel.size()) {
+          throw new IOException("File truncated while being served: " + file);
+        }
+
+        position += count;
+      }
+    } finally {
+      in.close();
+    }
+  }
+
   private String stripQuotes(String str) {
     if (str.length() > 1 && str.startsWith("\"") && str.endsWith("\"")) {
       str = str.substring(1, str.length() - 1);
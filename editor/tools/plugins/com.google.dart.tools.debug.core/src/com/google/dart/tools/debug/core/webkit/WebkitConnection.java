@@ -27,6 +27,7 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -325,33 +326,57 @@ public class WebkitConnection {
 
   protected void sendRequest(JSONObject request, Callback callback) throws IOException,
       JSONException {
+    sendRequests(Collections.singletonList(request), Collections.singletonList(callback));
+  }
+
+  /**
+   * Send the given requests back to back. The request ids are assigned and the callbacks are
+   * registered before any of the requests is sent, so that the responses can arrive while the
+   * remaining requests are still being sent.
+   * 
+   * @param requests the requests to be sent
+   * @param callbacks the callbacks for the responses to the requests, in the same order as the
+   *          requests; a callback can be {@code null}
+   * @throws IOException if the requests could not be sent; the callbacks of the requests that were
+   *           not sent are not invoked
+   */
+  protected void sendRequests(List<JSONObject> requests, List<Callback> callbacks)
+      throws IOException, JSONException {
     if (!isConnected()) {
       throw new IOException("connection terminated");
     }
 
-    int id = 0;
+    int[] ids = new int[requests.size()];
 
-    try {
-      synchronized (this) {
-        id = getNextRequestId();
+    synchronized (this) {
+      for (int i = 0; i < requests.size(); i++) {
+        ids[i] = getNextRequestId();
 
-        request.put("id", id);
+        requests.get(i).put("id", ids[i]);
 
-        if (callback != null) {
-          callbackMap.put(id, callback);
+        if (callbacks.get(i) != null) {
+          callbackMap.put(ids[i], callbacks.get(i));
         }
       }
+    }
 
-      if (DartDebugCorePlugin.LOGGING) {
-        // Print the command to the VM.
-        System.out.println("==> " + request);
-      }
+    int sentCount = 0;
+
+    try {
+      for (JSONObject request : requests) {
+        if (DartDebugCorePlugin.LOGGING) {
+          // Print the command to the VM.
+          System.out.println("==> " + request);
+        }
 
-      websocket.send(request.toString());
+        websocket.send(request.toString());
+
+        sentCount++;
+      }
     } catch (WebSocketException exception) {
-      if (callback != null) {
-        synchronized (this) {
-          callbackMap.remove(id);
+      synchronized (this) {
+        for (int i = sentCount; i < ids.length; i++) {
+          callbackMap.remove(ids[i]);
         }
       }
 
@@ -723,6 +723,8 @@ public class WebkitDebugger extends WebkitDomain {
   private void clearGlobalObjects() {
     breakpointMap.clear();
     scriptMap.clear();
+
+    getConnection().getRuntime().clearPropertiesCache();
   }
 
   private void clearRemoteObjects() {
@@ -863,6 +865,8 @@ public class WebkitDebugger extends WebkitDomain {
   private void handleResumed() {
     clearRemoteObjects();
     classInfoMap.clear();
+
+    getConnection().getRuntime().clearPropertiesCache();
   }
 
   private void populateClassInfoMap(final WebkitRemoteObject classInfo) {
@@ -14,6 +14,7 @@
 
 package com.google.dart.tools.debug.core.webkit;
 
+import com.google.dart.tools.debug.core.DartDebugCorePlugin;
 import com.google.dart.tools.debug.core.webkit.WebkitConnection.Callback;
 
 import org.json.JSONArray;
@@ -21,7 +22,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A WIP runtime domain object.
@@ -79,6 +84,18 @@ public class WebkitRuntime extends WebkitDomain {
 
   }
 
+  /**
+   * The properties of the remote objects that were retrieved since the debugger last resumed,
+   * keyed by {@link #getPropertiesKey(WebkitRemoteObject, boolean)}.
+   */
+  private Map<String, WebkitPropertyDescriptor[]> propertiesCache = new HashMap<String, WebkitPropertyDescriptor[]>();
+
+  /**
+   * The callbacks waiting for the outstanding properties requests, keyed by
+   * {@link #getPropertiesKey(WebkitRemoteObject, boolean)}.
+   */
+  private Map<String, List<WebkitCallback<WebkitPropertyDescriptor[]>>> pendingProperties = new HashMap<String, List<WebkitCallback<WebkitPropertyDescriptor[]>>>();
+
   public WebkitRuntime(WebkitConnection connection) {
     super(connection);
   }
@@ -212,7 +229,10 @@ public class WebkitRuntime extends WebkitDomain {
    * Returns properties of a given object. Object group of the result is inherited from the target
    * object.
    * <p>
-   * If successful, the WebkitResult object will contain an array of property descriptors.
+   * If successful, the WebkitResult object will contain an array of property descriptors. The
+   * properties are remembered until the debugger resumes, and a request for the properties of an
+   * object whose properties are already being requested waits for the outstanding response instead
+   * of sending another request. The returned array is shared and must not be modified.
    * 
    * @param object identifier of the object to return properties for
    * @param ownProperties if true, returns properties belonging only to the element itself, not to
@@ -220,28 +240,100 @@ public class WebkitRuntime extends WebkitDomain {
    * @param callback
    * @throws IOException
    */
-  public void getProperties(final WebkitRemoteObject object, boolean ownProperties,
-      final WebkitCallback<WebkitPropertyDescriptor[]> callback) throws IOException {
+  public void getProperties(WebkitRemoteObject object, boolean ownProperties,
+      WebkitCallback<WebkitPropertyDescriptor[]> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("callback is required");
     }
 
+    getProperties(
+        Collections.singletonList(object),
+        ownProperties,
+        Collections.singletonList(callback));
+  }
+
+  /**
+   * Returns properties of the given objects, sending the requests that are needed in one batch. See
+   * {@link #getProperties(WebkitRemoteObject, boolean, WebkitCallback)}.
+   * 
+   * @param objects the objects to return properties for
+   * @param ownProperties if true, returns properties belonging only to the elements themselves, not
+   *          to their prototype chains
+   * @param callbacks the callbacks for the properties of the objects, in the same order as the
+   *          objects; if the requests could not be sent, the callbacks are invoked with an error
+   */
+  public void getProperties(List<WebkitRemoteObject> objects, boolean ownProperties,
+      List<WebkitCallback<WebkitPropertyDescriptor[]>> callbacks) {
+    List<JSONObject> requests = new ArrayList<JSONObject>();
+    List<Callback> requestCallbacks = new ArrayList<Callback>();
+    List<String> requestKeys = new ArrayList<String>();
+    List<List<WebkitCallback<WebkitPropertyDescriptor[]>>> requestWaiting = new ArrayList<List<WebkitCallback<WebkitPropertyDescriptor[]>>>();
+
+    // The callbacks whose properties are already known.
+    List<Integer> cachedIndexes = new ArrayList<Integer>();
+    List<WebkitPropertyDescriptor[]> cachedProperties = new ArrayList<WebkitPropertyDescriptor[]>();
+
     try {
-      JSONObject request = new JSONObject();
+      synchronized (this) {
+        for (int i = 0; i < objects.size(); i++) {
+          WebkitRemoteObject object = objects.get(i);
+          WebkitCallback<WebkitPropertyDescriptor[]> callback = callbacks.get(i);
+          String key = getPropertiesKey(object, ownProperties);
 
-      request.put("method", "Runtime.getProperties");
-      request.put(
-          "params",
-          new JSONObject().put("objectId", object.getObjectId()).put("ownProperties", ownProperties));
+          WebkitPropertyDescriptor[] properties = propertiesCache.get(key);
 
-      connection.sendRequest(request, new Callback() {
-        @Override
-        public void handleResult(JSONObject result) throws JSONException {
-          callback.handleResult(convertGetPropertiesResult(object, result));
+          if (properties != null) {
+            cachedIndexes.add(i);
+            cachedProperties.add(properties);
+
+            continue;
+          }
+
+          List<WebkitCallback<WebkitPropertyDescriptor[]>> waiting = pendingProperties.get(key);
+
+          if (waiting != null) {
+            waiting.add(createClassInfoCallback(object, callback));
+
+            continue;
+          }
+
+          JSONObject request = new JSONObject();
+
+          request.put("method", "Runtime.getProperties");
+          request.put(
+              "params",
+              new JSONObject().put("objectId", object.getObjectId()).put(
+                  "ownProperties",
+                  ownProperties));
+
+          waiting = new ArrayList<WebkitCallback<WebkitPropertyDescriptor[]>>();
+          waiting.add(callback);
+          pendingProperties.put(key, waiting);
+
+          requests.add(request);
+          requestCallbacks.add(createPropertiesCallback(object, key, waiting));
+          requestKeys.add(key);
+          requestWaiting.add(waiting);
         }
-      });
+      }
+
+      if (!requests.isEmpty()) {
+        connection.sendRequests(requests, requestCallbacks);
+      }
+    } catch (IOException exception) {
+      failRequests(requestKeys, requestWaiting, exception);
     } catch (JSONException exception) {
-      throw new IOException(exception);
+      failRequests(requestKeys, requestWaiting, exception);
+    }
+
+    for (int i = 0; i < cachedIndexes.size(); i++) {
+      int index = cachedIndexes.get(i);
+
+      WebkitResult<WebkitPropertyDescriptor[]> result = new WebkitResult<WebkitPropertyDescriptor[]>();
+
+      result.setResult(cachedProperties.get(i));
+
+      createClassInfoCallback(objects.get(index), callbacks.get(index)).handleResult(result);
     }
   }
 
@@ -293,6 +385,16 @@ public class WebkitRuntime extends WebkitDomain {
     sendSimpleCommand("Runtime.run");
   }
 
+  /**
+   * Forget the properties retrieved so far. Remote object ids are only valid while the debugger is
+   * paused, so this is called whenever it resumes. Responses to outstanding requests are still
+   * delivered to their callbacks, but are not remembered.
+   */
+  synchronized void clearPropertiesCache() {
+    propertiesCache.clear();
+    pendingProperties.clear();
+  }
+
   protected WebkitResult<WebkitRemoteObject> convertEvaluateResult(JSONObject object)
       throws JSONException {
     WebkitResult<WebkitRemoteObject> result = WebkitResult.createFrom(object);
@@ -337,11 +439,7 @@ public class WebkitRuntime extends WebkitDomain {
 
       WebkitPropertyDescriptor[] properties = WebkitPropertyDescriptor.createFrom(obj.getJSONArray("result"));
 
-      for (WebkitPropertyDescriptor property : properties) {
-        if (property.getName().equals(WebkitPropertyDescriptor.CLASS_INFO)) {
-          parentObject.setClassInfo(property.getValue());
-        }
-      }
+      setClassInfo(parentObject, properties);
 
       result.setResult(properties);
     }
@@ -349,4 +447,105 @@ public class WebkitRuntime extends WebkitDomain {
     return result;
   }
 
+  /**
+   * Return a callback that sets the class info of the given object, which may be a different
+   * instance than the one the properties were requested for, before invoking the given callback.
+   */
+  private WebkitCallback<WebkitPropertyDescriptor[]> createClassInfoCallback(
+      final WebkitRemoteObject object, final WebkitCallback<WebkitPropertyDescriptor[]> callback) {
+    return new WebkitCallback<WebkitPropertyDescriptor[]>() {
+      @Override
+      public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
+        if (result.getResult() != null) {
+          setClassInfo(object, result.getResult());
+        }
+
+        callback.handleResult(result);
+      }
+    };
+  }
+
+  private Callback createPropertiesCallback(final WebkitRemoteObject object, final String key,
+      final List<WebkitCallback<WebkitPropertyDescriptor[]>> waiting) {
+    return new Callback() {
+      @Override
+      public void handleResult(JSONObject result) throws JSONException {
+        WebkitResult<WebkitPropertyDescriptor[]> properties = convertGetPropertiesResult(
+            object,
+            result);
+
+        List<WebkitCallback<WebkitPropertyDescriptor[]>> callbacks;
+
+        synchronized (WebkitRuntime.this) {
+          if (pendingProperties.get(key) == waiting) {
+            pendingProperties.remove(key);
+
+            if (!properties.isError() && properties.getResult() != null) {
+              propertiesCache.put(key, properties.getResult());
+            }
+          }
+
+          // The callbacks are cleared so that they are not also failed if sending a later request
+          // in the same batch fails.
+          callbacks = new ArrayList<WebkitCallback<WebkitPropertyDescriptor[]>>(waiting);
+          waiting.clear();
+        }
+
+        for (WebkitCallback<WebkitPropertyDescriptor[]> callback : callbacks) {
+          try {
+            callback.handleResult(properties);
+          } catch (Throwable exception) {
+            DartDebugCorePlugin.logError(exception);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Invoke the callbacks waiting for the given requests, which could not all be sent, with an
+   * error. A response that arrives for a request that was sent anyway is ignored.
+   */
+  private void failRequests(List<String> requestKeys,
+      List<List<WebkitCallback<WebkitPropertyDescriptor[]>>> requestWaiting, Exception exception) {
+    List<WebkitCallback<WebkitPropertyDescriptor[]>> callbacks = new ArrayList<WebkitCallback<WebkitPropertyDescriptor[]>>();
+
+    synchronized (this) {
+      for (int i = 0; i < requestKeys.size(); i++) {
+        List<WebkitCallback<WebkitPropertyDescriptor[]>> waiting = requestWaiting.get(i);
+
+        if (pendingProperties.get(requestKeys.get(i)) == waiting) {
+          pendingProperties.remove(requestKeys.get(i));
+        }
+
+        callbacks.addAll(waiting);
+        waiting.clear();
+      }
+    }
+
+    WebkitResult<WebkitPropertyDescriptor[]> result = new WebkitResult<WebkitPropertyDescriptor[]>();
+
+    result.setError(exception.toString());
+
+    for (WebkitCallback<WebkitPropertyDescriptor[]> callback : callbacks) {
+      try {
+        callback.handleResult(result);
+      } catch (Throwable t) {
+        DartDebugCorePlugin.logError(t);
+      }
+    }
+  }
+
+  private String getPropertiesKey(WebkitRemoteObject object, boolean ownProperties) {
+    return (ownProperties ? "own:" : "all:") + object.getObjectId();
+  }
+
+  private void setClassInfo(WebkitRemoteObject object, WebkitPropertyDescriptor[] properties) {
+    for (WebkitPropertyDescriptor property : properties) {
+      if (property.getName().equals(WebkitPropertyDescriptor.CLASS_INFO)) {
+        object.setClassInfo(property.getValue());
+      }
+    }
+  }
+
 }
@@ -24,6 +24,7 @@ public class TestAll {
     suite.addTest(com.google.dart.tools.debug.core.dartium.TestAll.suite());
     suite.addTest(com.google.dart.tools.debug.core.sourcemaps.TestAll.suite());
     suite.addTest(com.google.dart.tools.debug.core.util.TestAll.suite());
+    suite.addTest(com.google.dart.tools.debug.core.webkit.TestAll.suite());
     return suite;
   }
 }
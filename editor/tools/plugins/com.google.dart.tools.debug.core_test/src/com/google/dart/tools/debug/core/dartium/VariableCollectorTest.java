@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.dartium;
+
+import junit.framework.TestCase;
+
+import org.eclipse.debug.core.model.IVariable;
+
+import java.util.Collections;
+import java.util.List;
+
+public class VariableCollectorTest extends TestCase {
+
+  public void testCreateArraySlices() throws Exception {
+    List<IVariable> slices = VariableCollector.createArraySlices(null, createElements(250));
+
+    assertEquals(3, slices.size());
+    assertEquals("[0-99]", slices.get(0).getName());
+    assertEquals("[100-199]", slices.get(1).getName());
+    assertEquals("[200-249]", slices.get(2).getName());
+    assertEquals(100, slices.get(0).getValue().getVariables().length);
+    assertEquals(50, slices.get(2).getValue().getVariables().length);
+  }
+
+  public void testCreateArraySlicesExactMultiple() throws Exception {
+    List<IVariable> slices = VariableCollector.createArraySlices(null, createElements(200));
+
+    assertEquals(2, slices.size());
+    assertEquals("[100-199]", slices.get(1).getName());
+    assertEquals(100, slices.get(1).getValue().getVariables().length);
+  }
+
+  public void testCreateArraySlicesVeryLargeList() throws Exception {
+    List<IVariable> slices = VariableCollector.createArraySlices(null, createElements(10001));
+
+    assertEquals(11, slices.size());
+    assertEquals(1000, slices.get(0).getValue().getVariables().length);
+    assertEquals(1, slices.get(10).getValue().getVariables().length);
+  }
+
+  private List<IVariable> createElements(int count) {
+    return Collections.<IVariable> nCopies(count, null);
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.webkit;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WebkitRuntimeTest extends TestCase {
+
+  /**
+   * A connection that records the requests sent on it instead of sending them.
+   */
+  private static class TestConnection extends WebkitConnection {
+    private List<JSONObject> requests = new ArrayList<JSONObject>();
+    private List<Callback> callbacks = new ArrayList<Callback>();
+    private boolean failSends;
+    private boolean failAfterFirstResponse;
+
+    public TestConnection() {
+      super(URI.create("ws://localhost:9222/devtools/page/1"));
+    }
+
+    public void respond(int index, String name) throws JSONException {
+      JSONObject property = new JSONObject().put("name", name).put("enumerable", true);
+      JSONObject result = new JSONObject().put(
+          "result",
+          new JSONObject().put("result", new JSONArray().put(property)));
+
+      callbacks.get(index).handleResult(result);
+    }
+
+    @Override
+    protected void sendRequests(List<JSONObject> requests, List<Callback> callbacks)
+        throws IOException {
+      if (failSends) {
+        throw new IOException("connection terminated");
+      }
+
+      if (failAfterFirstResponse) {
+        // The first request is sent and answered before the connection terminates.
+        this.requests.add(requests.get(0));
+        this.callbacks.add(callbacks.get(0));
+
+        try {
+          respond(this.callbacks.size() - 1, "a");
+        } catch (JSONException exception) {
+          throw new IOException(exception.toString());
+        }
+
+        throw new IOException("connection terminated");
+      }
+
+      this.requests.addAll(requests);
+      this.callbacks.addAll(callbacks);
+    }
+  }
+
+  /**
+   * A callback that records the results it is given.
+   */
+  private static class TestCallback implements WebkitCallback<WebkitPropertyDescriptor[]> {
+    private List<WebkitResult<WebkitPropertyDescriptor[]>> results = new ArrayList<WebkitResult<WebkitPropertyDescriptor[]>>();
+
+    @Override
+    public void handleResult(WebkitResult<WebkitPropertyDescriptor[]> result) {
+      results.add(result);
+    }
+  }
+
+  private TestConnection connection;
+  private WebkitRuntime runtime;
+
+  public void testClearPropertiesCache() throws Exception {
+    runtime.getProperties(createObject("1"), true, new TestCallback());
+    connection.respond(0, "a");
+
+    runtime.clearPropertiesCache();
+
+    TestCallback callback = new TestCallback();
+    runtime.getProperties(createObject("1"), true, callback);
+
+    assertEquals(2, connection.requests.size());
+    assertEquals(0, callback.results.size());
+  }
+
+  public void testGetPropertiesBatch() throws Exception {
+    TestCallback callback1 = new TestCallback();
+    TestCallback callback2 = new TestCallback();
+    TestCallback callback3 = new TestCallback();
+
+    runtime.getProperties(
+        Arrays.asList(createObject("1"), createObject("2"), createObject("1")),
+        true,
+        Arrays.<WebkitCallback<WebkitPropertyDescriptor[]>> asList(callback1, callback2, callback3));
+
+    assertEquals(2, connection.requests.size());
+
+    connection.respond(0, "a");
+    connection.respond(1, "b");
+
+    assertEquals("a", callback1.results.get(0).getResult()[0].getName());
+    assertEquals("b", callback2.results.get(0).getResult()[0].getName());
+    assertEquals("a", callback3.results.get(0).getResult()[0].getName());
+  }
+
+  public void testGetPropertiesCached() throws Exception {
+    TestCallback callback1 = new TestCallback();
+    runtime.getProperties(createObject("1"), true, callback1);
+    connection.respond(0, "a");
+
+    TestCallback callback2 = new TestCallback();
+    runtime.getProperties(createObject("1"), true, callback2);
+
+    assertEquals(1, connection.requests.size());
+    assertEquals(1, callback2.results.size());
+    assertSame(callback1.results.get(0).getResult(), callback2.results.get(0).getResult());
+  }
+
+  public void testGetPropertiesDeduplicated() throws Exception {
+    TestCallback callback1 = new TestCallback();
+    TestCallback callback2 = new TestCallback();
+
+    runtime.getProperties(createObject("1"), true, callback1);
+    runtime.getProperties(createObject("1"), true, callback2);
+
+    assertEquals(1, connection.requests.size());
+    assertEquals(0, callback1.results.size());
+    assertEquals(0, callback2.results.size());
+
+    connection.respond(0, "a");
+
+    assertEquals(1, callback1.results.size());
+    assertEquals(1, callback2.results.size());
+    assertEquals("a", callback2.results.get(0).getResult()[0].getName());
+  }
+
+  public void testGetPropertiesOwnPropertiesNotShared() throws Exception {
+    runtime.getProperties(createObject("1"), true, new TestCallback());
+    runtime.getProperties(createObject("1"), false, new TestCallback());
+
+    assertEquals(2, connection.requests.size());
+  }
+
+  public void testGetPropertiesPartialSendFailure() throws Exception {
+    connection.failAfterFirstResponse = true;
+
+    TestCallback callback1 = new TestCallback();
+    TestCallback callback2 = new TestCallback();
+    runtime.getProperties(
+        Arrays.asList(createObject("1"), createObject("2")),
+        true,
+        Arrays.<WebkitCallback<WebkitPropertyDescriptor[]>> asList(callback1, callback2));
+
+    // The callback whose response arrived is not failed as well.
+    assertEquals(1, callback1.results.size());
+    assertFalse(callback1.results.get(0).isError());
+    assertEquals(1, callback2.results.size());
+    assertTrue(callback2.results.get(0).isError());
+  }
+
+  public void testGetPropertiesSendFailure() throws Exception {
+    connection.failSends = true;
+
+    TestCallback callback1 = new TestCallback();
+    TestCallback callback2 = new TestCallback();
+    runtime.getProperties(
+        Arrays.asList(createObject("1"), createObject("2")),
+        true,
+        Arrays.<WebkitCallback<WebkitPropertyDescriptor[]>> asList(callback1, callback2));
+
+    assertEquals(1, callback1.results.size());
+    assertTrue(callback1.results.get(0).isError());
+    assertEquals(1, callback2.results.size());
+    assertTrue(callback2.results.get(0).isError());
+
+    // The failed requests are no longer pending, so they are sent again.
+    connection.failSends = false;
+
+    TestCallback callback3 = new TestCallback();
+    runtime.getProperties(createObject("1"), true, callback3);
+
+    assertEquals(1, connection.requests.size());
+    assertEquals(0, callback3.results.size());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    connection = new TestConnection();
+    runtime = connection.getRuntime();
+  }
+
+  private WebkitRemoteObject createObject(String objectId) throws JSONException {
+    return WebkitRemoteObject.createFrom(new JSONObject().put("objectId", objectId).put(
+        "type",
+        "object"));
+  }
+
+}
@@ -26,13 +26,33 @@ import java.util.ArrayList;
 
 public class FilesOfScopeCalculator implements IResourceProxyVisitor {
 
+  /**
+   * The interface <code>FileFilter</code> defines the behavior of objects that can exclude files
+   * that are in the scope but are known not to be of interest.
+   */
+  public interface FileFilter {
+    /**
+     * Return <code>true</code> if the file represented by the given proxy should be included.
+     * 
+     * @param proxy the proxy for the file in the scope
+     * @return <code>true</code> if the file should be included
+     */
+    public boolean accept(IResourceProxy proxy);
+  }
+
   private final TextSearchScope fScope;
   private final MultiStatus fStatus;
+  private final FileFilter fFilter;
   private ArrayList<IResource> fFiles;
 
   public FilesOfScopeCalculator(TextSearchScope scope, MultiStatus status) {
+    this(scope, status, null);
+  }
+
+  public FilesOfScopeCalculator(TextSearchScope scope, MultiStatus status, FileFilter filter) {
     fScope = scope;
     fStatus = status;
+    fFilter = filter;
   }
 
   public IFile[] process() {
@@ -60,7 +80,8 @@ public class FilesOfScopeCalculator implements IResourceProxyVisitor {
   public boolean visit(IResourceProxy proxy) {
     boolean inScope = fScope.contains(proxy);
 
-    if (inScope && proxy.getType() == IResource.FILE) {
+    if (inScope && proxy.getType() == IResource.FILE
+        && (fFilter == null || fFilter.accept(proxy))) {
       fFiles.add(proxy.requestResource());
     }
     return inScope;
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import java.nio.ByteBuffer;
+import java.util.regex.Pattern;
+
+/**
+ * Instances of the class <code>LiteralPrefilter</code> quickly reject content that cannot contain a
+ * match for a search pattern because it does not contain a string that every match is required to
+ * contain. The content is scanned using the Boyer-Moore-Horspool algorithm, which is considerably
+ * faster than running the regular expression over content that does not match.
+ */
+public class LiteralPrefilter {
+  /**
+   * The number of ASCII characters, each of which has its own entry in the shift table.
+   */
+  private static final int ASCII_COUNT = 128;
+
+  /**
+   * Return a prefilter for the given pattern, or <code>null</code> if no string is known to occur
+   * in every match of the pattern.
+   * 
+   * @param pattern the pattern for which a prefilter is to be created
+   * @return a prefilter for the given pattern
+   */
+  public static LiteralPrefilter forPattern(Pattern pattern) {
+    String literal = PatternConstructor.getRequiredLiteral(pattern);
+    if (literal == null) {
+      return null;
+    }
+    return new LiteralPrefilter(literal, (pattern.flags() & Pattern.CASE_INSENSITIVE) == 0);
+  }
+
+  /**
+   * Return the character to which the given character is folded when comparing characters without
+   * regard to case. Characters that are considered equal by a case insensitive pattern are always
+   * folded to the same character.
+   * 
+   * @param c the character to be folded
+   * @return the folded character
+   */
+  private static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * The characters that are required to be present, folded if the comparison is case insensitive.
+   */
+  private final char[] literal;
+
+  /**
+   * <code>true</code> if the characters are compared with regard to case.
+   */
+  private final boolean caseSensitive;
+
+  /**
+   * The distance the literal can be shifted when the character aligned with its last character is
+   * the ASCII character used as an index into this table.
+   */
+  private final int[] shifts = new int[ASCII_COUNT];
+
+  /**
+   * The distance the literal can be shifted when the character aligned with its last character is
+   * not an ASCII character.
+   */
+  private final int nonAsciiShift;
+
+  /**
+   * <code>true</code> if all of the characters in the literal are ASCII characters.
+   */
+  private final boolean asciiLiteral;
+
+  /**
+   * Initialize a newly created prefilter to reject content that does not contain the given string.
+   * 
+   * @param literal the string that must be present for content to be accepted
+   * @param caseSensitive <code>true</code> if characters are compared with regard to case
+   */
+  public LiteralPrefilter(String literal, boolean caseSensitive) {
+    int length = literal.length();
+    this.literal = new char[length];
+    this.caseSensitive = caseSensitive;
+    for (int i = 0; i < length; i++) {
+      char c = literal.charAt(i);
+      this.literal[i] = caseSensitive ? c : fold(c);
+    }
+    int nonAsciiShift = length;
+    boolean asciiLiteral = true;
+    for (int i = 0; i < ASCII_COUNT; i++) {
+      shifts[i] = length;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = this.literal[i];
+      if (c >= ASCII_COUNT) {
+        asciiLiteral = false;
+      }
+      if (i < length - 1) {
+        if (c < ASCII_COUNT) {
+          shifts[c] = length - 1 - i;
+        } else {
+          nonAsciiShift = Math.min(nonAsciiShift, length - 1 - i);
+        }
+      }
+    }
+    this.nonAsciiShift = nonAsciiShift;
+    this.asciiLiteral = asciiLiteral;
+  }
+
+  /**
+   * Return <code>true</code> if the required string can be searched for directly in the bytes of
+   * content encoded using the given charset. This is the case when the string consists of ASCII
+   * characters, is compared with regard to case, and the charset encodes ASCII characters as single
+   * bytes that cannot occur as part of the encoding of any other character.
+   * 
+   * @param charset the name of the charset used to encode the content
+   * @return <code>true</code> if {@link #isContainedIn(ByteBuffer)} can be used
+   */
+  public boolean canSearchBytes(String charset) {
+    if (!caseSensitive || !asciiLiteral) {
+      return false;
+    }
+    return "UTF-8".equalsIgnoreCase(charset) //$NON-NLS-1$
+        || "US-ASCII".equalsIgnoreCase(charset) //$NON-NLS-1$
+        || "ISO-8859-1".equalsIgnoreCase(charset); //$NON-NLS-1$
+  }
+
+  /**
+   * Return <code>true</code> if the remaining bytes in the given buffer contain the encoding of the
+   * required string. This method should only be used if {@link #canSearchBytes(String)} returns
+   * <code>true</code> for the charset used to encode the content. The position of the buffer is not
+   * changed.
+   * 
+   * @param bytes the encoded content to be searched
+   * @return <code>true</code> if the required string occurs in the content
+   */
+  public boolean isContainedIn(ByteBuffer bytes) {
+    int length = literal.length;
+    int last = length - 1;
+    int end = bytes.limit();
+    int i = bytes.position() + last;
+    while (i < end) {
+      int b = bytes.get(i) & 0xFF;
+      if (b == literal[last]) {
+        int j = 1;
+        while (j < length && (bytes.get(i - j) & 0xFF) == literal[last - j]) {
+          j++;
+        }
+        if (j == length) {
+          return true;
+        }
+      }
+      i += b < ASCII_COUNT ? shifts[b] : nonAsciiShift;
+    }
+    return false;
+  }
+
+  /**
+   * Return <code>true</code> if the given content contains the required string.
+   * 
+   * @param content the content to be searched
+   * @return <code>true</code> if the required string occurs in the content
+   */
+  public boolean isContainedIn(CharSequence content) {
+    int length = literal.length;
+    int last = length - 1;
+    int end = content.length();
+    int i = last;
+    while (i < end) {
+      char c = charAt(content, i);
+      if (c == literal[last]) {
+        int j = 1;
+        while (j < length && charAt(content, i - j) == literal[last - j]) {
+          j++;
+        }
+        if (j == length) {
+          return true;
+        }
+      }
+      i += c < ASCII_COUNT ? shifts[c] : nonAsciiShift;
+    }
+    return false;
+  }
+
+  /**
+   * Return the character at the given index in the given content, folded if the comparison is case
+   * insensitive.
+   * 
+   * @param content the content containing the character
+   * @param index the index of the character to be returned
+   * @return the character to be compared with the literal
+   */
+  private char charAt(CharSequence content, int index) {
+    char c = content.charAt(index);
+    return caseSensitive ? c : fold(c);
+  }
+}
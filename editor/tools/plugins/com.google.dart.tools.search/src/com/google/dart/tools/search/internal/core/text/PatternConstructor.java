@@ -161,6 +161,138 @@ public class PatternConstructor {
     return Character.isLetterOrDigit(c);
   }
 
+  private static String longer(String longest, StringBuffer current) {
+    if (current.length() > longest.length()) {
+      return current.toString();
+    }
+    return longest;
+  }
+
+  /**
+   * Returns the index of the character following the character class that starts at the given
+   * index, or <code>-1</code> if the class is not terminated.
+   */
+  private static int skipCharacterClass(String regex, int start) {
+    int length = regex.length();
+    int i = start + 1;
+    if (i < length && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < length && regex.charAt(i) == ']') {
+      i++;
+    }
+    int depth = 1;
+    while (i < length) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+          return -1;
+        }
+        i += 2;
+        continue;
+      } else if (c == '[') {
+        depth++;
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the character following the escape sequence that starts at the given
+   * index, or <code>-1</code> if the sequence is not terminated. The escaped character is a letter
+   * or digit.
+   */
+  private static int skipEscape(String regex, int start) {
+    int length = regex.length();
+    int i = start + 2;
+    switch (regex.charAt(start + 1)) {
+      case 'x':
+      case 'p':
+      case 'P':
+        if (i < length && regex.charAt(i) == '{') {
+          int end = regex.indexOf('}', i);
+          return end < 0 ? -1 : end + 1;
+        }
+        return Math.min(regex.charAt(start + 1) == 'x' ? i + 2 : i + 1, length);
+      case 'k':
+        if (i < length && regex.charAt(i) == '<') {
+          int end = regex.indexOf('>', i);
+          return end < 0 ? -1 : end + 1;
+        }
+        return i;
+      case 'u':
+        return Math.min(i + 4, length);
+      case 'c':
+        return Math.min(i + 1, length);
+      case '0':
+        while (i < length && i < start + 5 && regex.charAt(i) >= '0' && regex.charAt(i) <= '7') {
+          i++;
+        }
+        return i;
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        while (i < length && Character.isDigit(regex.charAt(i))) {
+          i++;
+        }
+        return i;
+      default:
+        return i;
+    }
+  }
+
+  /**
+   * Returns the index of the character following the group that starts at the given index, or
+   * <code>-1</code> if the group is not terminated.
+   */
+  private static int skipGroup(String regex, int start) {
+    int length = regex.length();
+    int depth = 0;
+    int i = start;
+    while (i < length) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+          int end = regex.indexOf("\\E", i + 2); //$NON-NLS-1$
+          if (end < 0) {
+            return -1;
+          }
+          i = end + 2;
+        } else {
+          i += 2;
+        }
+        continue;
+      } else if (c == '[') {
+        i = skipCharacterClass(regex, i);
+        if (i < 0) {
+          return -1;
+        }
+        continue;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+
   /**
    * Creates a pattern element from an array of patterns in the old 'StringMatcher' format.
    * 
@@ -252,6 +384,117 @@ public class PatternConstructor {
     return buffer;
   }
 
+  /**
+   * Returns the longest string that occurs in every match of the given pattern, or
+   * <code>null</code> if no such string could be found. The string is taken from a run of literal
+   * characters at the top level of the pattern; groups, character classes and escape sequences
+   * other than escaped punctuation end a run, and any pattern containing a top-level alternation
+   * or embedded flags has no required string. Characters should be compared with the string using
+   * the case sensitivity of the pattern.
+   * 
+   * @param pattern the pattern to be analyzed
+   * @return a string that must occur in every match of the pattern
+   */
+  public static String getRequiredLiteral(Pattern pattern) {
+    String regex = pattern.pattern();
+    int flags = pattern.flags();
+    if ((flags & Pattern.LITERAL) != 0) {
+      return regex.length() == 0 ? null : regex;
+    }
+    if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+      return null;
+    }
+    int length = regex.length();
+    String longest = ""; //$NON-NLS-1$
+    StringBuffer current = new StringBuffer();
+    boolean lastIsLiteral = false;
+    int i = 0;
+    while (i < length) {
+      char c = regex.charAt(i);
+      switch (c) {
+        case '|':
+          return null;
+        case '*':
+        case '?':
+        case '{':
+          // the quantifier makes the preceding character, which can be a surrogate pair, optional
+          if (lastIsLiteral) {
+            int lastCodePoint = current.codePointBefore(current.length());
+            current.setLength(current.length() - Character.charCount(lastCodePoint));
+          }
+          longest = longer(longest, current);
+          if (c == '{') {
+            i = regex.indexOf('}', i);
+            if (i < 0) {
+              return null;
+            }
+          }
+          i++;
+          break;
+        case '+':
+          longest = longer(longest, current);
+          i++;
+          break;
+        case '[':
+          longest = longer(longest, current);
+          i = skipCharacterClass(regex, i);
+          break;
+        case '(':
+          if (i + 2 < length && regex.charAt(i + 1) == '?'
+              && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+            // embedded flags might change the case sensitivity
+            return null;
+          }
+          longest = longer(longest, current);
+          i = skipGroup(regex, i);
+          break;
+        case ')':
+          return null;
+        case '.':
+        case '^':
+        case '$':
+          longest = longer(longest, current);
+          i++;
+          break;
+        case '\\':
+          if (i + 1 >= length) {
+            return null;
+          }
+          char next = regex.charAt(i + 1);
+          if (next == 'Q') {
+            int end = regex.indexOf("\\E", i + 2); //$NON-NLS-1$
+            if (end < 0) {
+              end = length;
+            }
+            current.append(regex, i + 2, end);
+            lastIsLiteral = end > i + 2;
+            i = Math.min(end + 2, length);
+            continue;
+          } else if (!Character.isLetterOrDigit(next)) {
+            current.append(next);
+            lastIsLiteral = true;
+            i += 2;
+            continue;
+          }
+          longest = longer(longest, current);
+          i = skipEscape(regex, i);
+          break;
+        default:
+          current.append(c);
+          lastIsLiteral = true;
+          i++;
+          continue;
+      }
+      if (i < 0) {
+        return null;
+      }
+      current.setLength(0);
+      lastIsLiteral = false;
+    }
+    longest = longer(longest, current);
+    return longest.length() == 0 ? null : longest;
+  }
+
   /**
    * Interprets escaped characters in the given replace pattern.
    * 
@@ -35,6 +35,7 @@ import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.filebuffers.LocationKind;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
@@ -60,16 +61,30 @@ import org.eclipse.ui.texteditor.ITextEditor;
 import java.io.CharConversionException;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Executes a text search across {@link File} and {@link IFile} resources.
+ * Executes a text search across {@link File} and {@link IFile} resources. Files are searched in
+ * parallel. Local files are read into memory and decoded in one step, and files that cannot
+ * contain a match are rejected by a {@link LiteralPrefilter} before the pattern is applied.
  */
 public class TextSearchExecutor {
 
@@ -135,21 +150,67 @@ public class TextSearchExecutor {
     }
   }
 
+  /**
+   * A list of the offsets and lengths of the matches found in a single file.
+   */
+  private static class MatchList {
+    private int[] data = new int[16];
+    private int size;
+
+    public void add(int offset, int length) {
+      if (size + 2 > data.length) {
+        int[] newData = new int[data.length * 2];
+        System.arraycopy(data, 0, newData, 0, size);
+        data = newData;
+      }
+      data[size++] = offset;
+      data[size++] = length;
+    }
+
+    public int getLength(int index) {
+      return data[index * 2 + 1];
+    }
+
+    public int getOffset(int index) {
+      return data[index * 2];
+    }
+
+    public int size() {
+      return size / 2;
+    }
+  }
+
+  /**
+   * Files that are larger than this are read through a {@link FileCharSequenceProvider} rather than
+   * being decoded all at once.
+   */
+  private static final long MAX_READ_FILE_SIZE = 16 * 1024 * 1024;
+
+  private static final String CHARSET_UTF_8 = "UTF-8"; //$NON-NLS-1$
+
   private final TextSearchRequestor collector;
-  private final Matcher matcher;
+  private final Pattern pattern;
+  private final LiteralPrefilter prefilter;
 
   private IProgressMonitor progressMonitor;
 
-  private int numberOfScannedFiles;
+  private final AtomicInteger numberOfScannedFiles = new AtomicInteger();
   private int numberOfFilesToScan;
 
-  private Object /* File, IFile */currentFile;
+  private volatile Object /* File, IFile */currentFile;
 
-  private final MultiStatus status;
+  /**
+   * Set when a file could not be searched in a way that should prevent the remaining files from
+   * being searched.
+   */
+  private volatile boolean stopped;
 
-  private ExternalFileCharSequenceProvider externalFileCharSequenceProvider;
-  private final FileCharSequenceProvider fileCharSequenceProvider;
+  private final MultiStatus status;
 
+  /**
+   * The object used to report matches to the collector. It is only accessed while holding the lock
+   * on the collector.
+   */
   private final ReusableMatchAccess matchAccess;
 
   public TextSearchExecutor(TextSearchRequestor collector, Pattern searchPattern) {
@@ -160,16 +221,16 @@ public class TextSearchExecutor {
         SearchMessages.TextSearchEngine_statusMessage,
         null);
 
-    this.matcher = searchPattern.pattern().length() == 0 ? null
-        : searchPattern.matcher(new String());
+    this.pattern = searchPattern.pattern().length() == 0 ? null : searchPattern;
+    this.prefilter = pattern == null ? null : LiteralPrefilter.forPattern(pattern);
 
-    this.fileCharSequenceProvider = new FileCharSequenceProvider();
-    this.externalFileCharSequenceProvider = new ExternalFileCharSequenceProvider();
     this.matchAccess = new ReusableMatchAccess();
   }
 
   /**
-   * Initiate a search across the given resources.
+   * Initiate a search across the given resources. The files are searched in parallel, but the
+   * requestor is only ever invoked by one thread at a time. The requestor is asked to accept each
+   * file before it is read, and the remaining notifications for a single file are sent together.
    * 
    * @param files the workspace file roots to search
    * @param externalFiles the external file roots to search
@@ -178,9 +239,10 @@ public class TextSearchExecutor {
    */
   public IStatus search(IFile[] files, File[] externalFiles, IProgressMonitor monitor) {
     progressMonitor = monitor == null ? new NullProgressMonitor() : monitor;
-    numberOfScannedFiles = 0;
+    numberOfScannedFiles.set(0);
     numberOfFilesToScan = files.length + externalFiles.length;
     currentFile = null;
+    stopped = false;
 
     Job monitorUpdateJob = new Job(SearchMessages.TextSearchVisitor_progress_updating_job) {
       private int fLastNumberOfScannedFiles = 0;
@@ -191,10 +253,11 @@ public class TextSearchExecutor {
           Object file = currentFile;
           if (file != null) {
             String fileName = getFileName(file);
+            int scannedFiles = numberOfScannedFiles.get();
             Object[] args = {
-                fileName, new Integer(numberOfScannedFiles), new Integer(numberOfFilesToScan)};
+                fileName, new Integer(scannedFiles), new Integer(numberOfFilesToScan)};
             progressMonitor.subTask(Messages.format(SearchMessages.TextSearchVisitor_scanning, args));
-            int steps = numberOfScannedFiles - fLastNumberOfScannedFiles;
+            int steps = scannedFiles - fLastNumberOfScannedFiles;
             progressMonitor.worked(steps);
             fLastNumberOfScannedFiles += steps;
           }
@@ -209,17 +272,16 @@ public class TextSearchExecutor {
     };
 
     try {
-      String taskName = matcher == null ? SearchMessages.TextSearchVisitor_filesearch_task_label
+      String taskName = pattern == null ? SearchMessages.TextSearchVisitor_filesearch_task_label
           : Messages.format(
               SearchMessages.TextSearchVisitor_textsearch_task_label,
-              matcher.pattern().pattern());
+              pattern.pattern());
       progressMonitor.beginTask(taskName, numberOfFilesToScan);
       monitorUpdateJob.setSystem(true);
       monitorUpdateJob.schedule();
       try {
         collector.beginReporting();
-        processFiles(files);
-        processExternalFiles(externalFiles);
+        processFiles(files, externalFiles);
         return status;
       } finally {
         monitorUpdateJob.cancel();
@@ -238,12 +300,33 @@ public class TextSearchExecutor {
    * @return execution status
    */
   public IStatus search(TextSearchScope scope, IProgressMonitor monitor) {
+    FilesOfScopeCalculator.FileFilter filter = pattern == null ? null
+        : TrigramIndexManager.createFilter(pattern);
+    IFile[] files = filter == null ? scope.evaluateFilesInScope(status)
+        : new FilesOfScopeCalculator(scope, status, filter).process();
     return search(
-        scope.evaluateFilesInScope(status),
+        files,
         scope.evaluateExternalFilesInScope(status),
         monitor);
   }
 
+  private void addStatus(String message, Throwable exception) {
+    synchronized (status) {
+      status.add(new Status(
+          IStatus.ERROR,
+          NewSearchUI.PLUGIN_ID,
+          IStatus.ERROR,
+          message,
+          exception));
+    }
+  }
+
+  private void checkCanceled() {
+    if (progressMonitor.isCanceled()) {
+      throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+    }
+  }
+
   /**
    * @return returns a map from IFile to IDocument for all open, dirty editors
    */
@@ -319,6 +402,18 @@ public class TextSearchExecutor {
     return null;
   }
 
+  /**
+   * Return the file in the local file system containing the contents of the given file, or
+   * <code>null</code> if the contents should not be read directly.
+   */
+  private File getLocalFile(IFile file) {
+    IPath location = file.getLocation();
+    if (location == null) {
+      return null;
+    }
+    return location.toFile();
+  }
+
   private IDocument getOpenDocument(IFile file, Map<IFile, IDocument> documentsInEditors) {
     IDocument document = documentsInEditors.get(file);
     if (document == null) {
@@ -384,185 +479,155 @@ public class TextSearchExecutor {
     return false;
   }
 
-  private void locateMatches(File file, CharSequence searchInput) throws CoreException {
-    try {
-      matcher.reset(searchInput);
-      int k = 0;
-      while (matcher.find()) {
-        int start = matcher.start();
-        int end = matcher.end();
-        if (end != start) { // don't report 0-length matches
-          matchAccess.initialize(file, start, end - start, searchInput);
-          boolean res = collector.acceptPatternMatch(matchAccess);
-          if (!res) {
-            return; // no further reporting requested
-          }
-        }
-        if (k++ == 20) {
-          if (progressMonitor.isCanceled()) {
-            throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
-          }
-          k = 0;
-        }
+  /**
+   * Find the matches in the given content. Content that cannot contain a match according to the
+   * prefilter is not searched using the pattern.
+   */
+  private MatchList locateMatches(CharSequence searchInput) {
+    MatchList matches = new MatchList();
+    if (prefilter != null && !prefilter.isContainedIn(searchInput)) {
+      return matches;
+    }
+    Matcher matcher = pattern.matcher(searchInput);
+    int k = 0;
+    while (matcher.find()) {
+      int start = matcher.start();
+      int end = matcher.end();
+      if (end != start) { // don't report 0-length matches
+        matches.add(start, end - start);
+      }
+      if (k++ == 20) {
+        checkCanceled();
+        k = 0;
       }
-    } finally {
-      matchAccess.initialize(null, 0, 0, new String()); // clear references
     }
+    return matches;
   }
 
-  private void locateMatches(IFile file, CharSequence searchInput) throws CoreException {
+  private boolean processExternalFile(File file) {
+    currentFile = file;
     try {
-      matcher.reset(searchInput);
-      int k = 0;
-      while (matcher.find()) {
-        int start = matcher.start();
-        int end = matcher.end();
-        if (end != start) { // don't report 0-length matches
-          matchAccess.initialize(file, start, end - start, searchInput);
-          boolean res = collector.acceptPatternMatch(matchAccess);
-          if (!res) {
-            return; // no further reporting requested
-          }
-        }
-        if (k++ == 20) {
-          if (progressMonitor.isCanceled()) {
-            throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
-          }
-          k = 0;
+      checkCanceled();
+      synchronized (collector) {
+        if (!collector.acceptExternalFile(file) || pattern == null) {
+          return true;
         }
       }
-    } finally {
-      matchAccess.initialize(null, 0, 0, new String()); // clear references
-    }
-  }
 
-  private boolean processExternalFile(File file) {
-    try {
-      if (!collector.acceptExternalFile(file) || matcher == null) {
+      if (file.length() <= MAX_READ_FILE_SIZE) {
+        CharSequence seq = readFile(file, CHARSET_UTF_8);
+        reportMatches(file, seq, hasBinaryContent(seq, file), locateMatches(seq));
         return true;
       }
-
       CharSequence seq = null;
+      ExternalFileCharSequenceProvider provider = new ExternalFileCharSequenceProvider();
       try {
-        seq = externalFileCharSequenceProvider.newCharSequence(file);
-        //TODO(pquitslund): flip this test?
-        if (hasBinaryContent(seq, file) && !collector.reportBinaryExternalFile(file)) {
-          return true;
-        }
-        locateMatches(file, seq);
-      } catch (FileCharSequenceProvider.FileCharSequenceException e) {
+        seq = provider.newCharSequence(file);
+        reportMatches(file, seq, hasBinaryContent(seq, file), locateMatches(seq));
+      } catch (ExternalFileCharSequenceProvider.FileCharSequenceException e) {
         e.throwWrappedException();
       } finally {
         if (seq != null) {
           try {
-            fileCharSequenceProvider.releaseCharSequence(seq);
+            provider.releaseCharSequence(seq);
           } catch (IOException e) {
             SearchPlugin.log(e);
           }
         }
-
       }
     } catch (UnsupportedCharsetException e) {
       String[] args = {getCharSetName(file), file.getAbsolutePath().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_unsupportedcharset, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_unsupportedcharset, args), e);
     } catch (IllegalCharsetNameException e) {
       String[] args = {getCharSetName(file), file.getAbsolutePath().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_illegalcharset, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_illegalcharset, args), e);
     } catch (IOException e) {
       String[] args = {getExceptionMessage(e), file.getAbsolutePath().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_error, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_error, args), e);
     } catch (CoreException e) {
       String[] args = {getExceptionMessage(e), file.getAbsolutePath().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_error, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_error, args), e);
     } catch (StackOverflowError e) {
-      String message = SearchMessages.TextSearchVisitor_patterntoocomplex0;
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(SearchMessages.TextSearchVisitor_patterntoocomplex0, e);
       return false;
     } finally {
-      numberOfScannedFiles++;
-    }
-    if (progressMonitor.isCanceled()) {
-      throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+      numberOfScannedFiles.incrementAndGet();
     }
+    checkCanceled();
 
     return true;
   }
 
-  private void processExternalFiles(File[] files) {
-    for (File file : files) {
-      currentFile = file;
-      processExternalFile(file);
-    }
-  }
-
   private boolean processFile(IFile file, Map<IFile, IDocument> documentsInEditors) {
+    currentFile = file;
     try {
-
-      if (!file.exists() || !collector.acceptFile(file) || matcher == null) {
+      checkCanceled();
+      if (!file.exists()) {
         return true;
       }
+      synchronized (collector) {
+        if (!collector.acceptFile(file) || pattern == null) {
+          return true;
+        }
+      }
 
       IDocument document = getOpenDocument(file, documentsInEditors);
 
       if (document != null) {
         DocumentCharSequence documentCharSequence = new DocumentCharSequence(document);
         // assume all documents are non-binary
-        locateMatches(file, documentCharSequence);
-      } else {
-        CharSequence seq = null;
-        try {
-          seq = fileCharSequenceProvider.newCharSequence(file);
-          if (hasBinaryContent(seq, file) && !collector.reportBinaryFile(file)) {
-            return true;
-          }
-          locateMatches(file, seq);
-        } catch (FileCharSequenceProvider.FileCharSequenceException e) {
-          e.throwWrappedException();
-        } finally {
-          if (seq != null) {
-            try {
-              fileCharSequenceProvider.releaseCharSequence(seq);
-            } catch (IOException e) {
-              SearchPlugin.log(e);
-            }
+        reportMatches(file, documentCharSequence, false, locateMatches(documentCharSequence));
+        return true;
+      }
+      File localFile = getLocalFile(file);
+      if (localFile != null && localFile.length() <= MAX_READ_FILE_SIZE) {
+        CharSequence seq = readFile(localFile, file.getCharset());
+        reportMatches(file, seq, hasBinaryContent(seq, file), locateMatches(seq));
+        return true;
+      }
+      CharSequence seq = null;
+      FileCharSequenceProvider provider = new FileCharSequenceProvider();
+      try {
+        seq = provider.newCharSequence(file);
+        reportMatches(file, seq, hasBinaryContent(seq, file), locateMatches(seq));
+      } catch (FileCharSequenceProvider.FileCharSequenceException e) {
+        e.throwWrappedException();
+      } finally {
+        if (seq != null) {
+          try {
+            provider.releaseCharSequence(seq);
+          } catch (IOException e) {
+            SearchPlugin.log(e);
           }
         }
       }
     } catch (UnsupportedCharsetException e) {
       String[] args = {getCharSetName(file), file.getFullPath().makeRelative().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_unsupportedcharset, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_unsupportedcharset, args), e);
     } catch (IllegalCharsetNameException e) {
       String[] args = {getCharSetName(file), file.getFullPath().makeRelative().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_illegalcharset, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_illegalcharset, args), e);
     } catch (IOException e) {
       String[] args = {getExceptionMessage(e), file.getFullPath().makeRelative().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_error, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_error, args), e);
     } catch (CoreException e) {
       String[] args = {getExceptionMessage(e), file.getFullPath().makeRelative().toString()};
-      String message = Messages.format(SearchMessages.TextSearchVisitor_error, args);
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(Messages.format(SearchMessages.TextSearchVisitor_error, args), e);
     } catch (StackOverflowError e) {
-      String message = SearchMessages.TextSearchVisitor_patterntoocomplex0;
-      status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+      addStatus(SearchMessages.TextSearchVisitor_patterntoocomplex0, e);
       return false;
     } finally {
-      numberOfScannedFiles++;
-    }
-    if (progressMonitor.isCanceled()) {
-      throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+      numberOfScannedFiles.incrementAndGet();
     }
+    checkCanceled();
 
     return true;
   }
 
-  private void processFiles(IFile[] files) {
+  /**
+   * Search the given files, using one thread per available processor.
+   */
+  private void processFiles(IFile[] files, File[] externalFiles) {
     final Map<IFile, IDocument> documentsInEditors;
     if (PlatformUI.isWorkbenchRunning()) {
       documentsInEditors = evalNonFileBufferDocuments();
@@ -570,12 +635,133 @@ public class TextSearchExecutor {
       documentsInEditors = Collections.emptyMap();
     }
 
-    for (IFile file : files) {
-      currentFile = file;
-      boolean res = processFile(file, documentsInEditors);
-      if (!res) {
-        break;
+    int threadCount = Math.min(
+        Runtime.getRuntime().availableProcessors(),
+        files.length + externalFiles.length);
+    if (threadCount <= 1) {
+      for (IFile file : files) {
+        if (!processFile(file, documentsInEditors)) {
+          break;
+        }
+      }
+      for (File file : externalFiles) {
+        processExternalFile(file);
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      ArrayList<Future<?>> futures = new ArrayList<Future<?>>(files.length + externalFiles.length);
+      for (final IFile file : files) {
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            if (!stopped && !processFile(file, documentsInEditors)) {
+              stopped = true;
+            }
+          }
+        }));
+      }
+      for (final File file : externalFiles) {
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            processExternalFile(file);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        waitFor(future);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Return the contents of the given file. The file is read into a heap buffer rather than being
+   * memory-mapped, so that no mapping outlives the search and keeps the file locked. If the
+   * prefilter can be applied to the encoded contents and the contents cannot contain a match, then
+   * an empty sequence is returned without decoding the contents.
+   */
+  private CharSequence readFile(File file, String charsetName) throws IOException {
+    Charset charset = Charset.forName(charsetName);
+    ByteBuffer bytes;
+    RandomAccessFile input = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+    try {
+      FileChannel channel = input.getChannel();
+      bytes = ByteBuffer.allocate((int) channel.size());
+      while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+        // keep reading until the buffer is full
+      }
+      bytes.flip();
+    } finally {
+      input.close();
+    }
+    if (prefilter != null && prefilter.canSearchBytes(charset.name())
+        && !prefilter.isContainedIn(bytes)) {
+      return ""; //$NON-NLS-1$
+    }
+    if (CHARSET_UTF_8.equals(charset.name()) && bytes.remaining() >= 3
+        && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB
+        && bytes.get(2) == (byte) 0xBF) {
+      // skip the byte order mark
+      bytes.position(3);
+    }
+    CharsetDecoder decoder = charset.newDecoder();
+    decoder.onMalformedInput(CodingErrorAction.REPLACE);
+    decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+    return decoder.decode(bytes);
+  }
+
+  /**
+   * Report the matches found in the given file, which has already been accepted by the collector.
+   * All of the notifications for the file are sent while holding the lock on the collector so that
+   * they are not interleaved with the notifications for other files.
+   */
+  private void reportMatches(Object file, CharSequence content, boolean isBinary, MatchList matches)
+      throws CoreException {
+    synchronized (collector) {
+      if (isBinary) {
+        if (file instanceof IFile) {
+          if (!collector.reportBinaryFile((IFile) file)) {
+            return;
+          }
+        } else {
+          if (!collector.reportBinaryExternalFile((File) file)) {
+            return;
+          }
+        }
+      }
+      try {
+        for (int i = 0; i < matches.size(); i++) {
+          matchAccess.initialize(file, matches.getOffset(i), matches.getLength(i), content);
+          if (!collector.acceptPatternMatch(matchAccess)) {
+            return; // no further reporting requested
+          }
+        }
+      } finally {
+        matchAccess.initialize(null, 0, 0, new String()); // clear references
+      }
+    }
+  }
+
+  /**
+   * Wait for the given task to complete, rethrowing any exception thrown by the task.
+   */
+  private void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
       }
+      throw new IllegalStateException(cause);
     }
   }
 
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Instances of the class <code>TrigramIndex</code> record, for each of a set of files, the
+ * trigrams (sequences of three characters) occurring in the content of the file. The index can then
+ * be used to compute the files that might contain a given string, namely those containing every
+ * trigram of the string.
+ * <p>
+ * Characters are folded before trigrams are computed, so the candidates are the same whether or not
+ * the string is compared with regard to case. Trigrams containing characters other than ASCII
+ * characters are hashed, so unrelated trigrams can share a posting list. Both of these can only add
+ * files to the set of candidates, which is therefore always a superset of the files that contain the
+ * string.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public class TrigramIndex {
+  /**
+   * The information recorded for a single file.
+   */
+  private static class FileEntry {
+    /**
+     * The identifier of the file, used as an index into the posting lists.
+     */
+    private final int id;
+
+    /**
+     * The path of the file.
+     */
+    private final String path;
+
+    /**
+     * The modification stamp of the file at the time its content was indexed.
+     */
+    private final long stamp;
+
+    /**
+     * The keys of the trigrams occurring in the file, in ascending order.
+     */
+    private final int[] keys;
+
+    public FileEntry(int id, String path, long stamp, int[] keys) {
+      this.id = id;
+      this.path = path;
+      this.stamp = stamp;
+      this.keys = keys;
+    }
+  }
+
+  /**
+   * The value written at the start of a persisted index.
+   */
+  private static final int MAGIC = 0x54524947;
+
+  /**
+   * The version of the format used to persist the index.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The bit that is set in the keys of trigrams that contain characters other than ASCII
+   * characters.
+   */
+  private static final int HASHED_KEY = 0x80000000;
+
+  /**
+   * The number of bits needed to represent an ASCII character.
+   */
+  private static final int ASCII_BITS = 7;
+
+  /**
+   * An empty array of keys.
+   */
+  private static final int[] NO_KEYS = new int[0];
+
+  /**
+   * Return the key representing the trigram composed of the given (folded) characters.
+   * 
+   * @param c1 the first character of the trigram
+   * @param c2 the second character of the trigram
+   * @param c3 the third character of the trigram
+   * @return the key representing the trigram
+   */
+  private static int computeKey(char c1, char c2, char c3) {
+    if ((c1 | c2 | c3) < 0x80) {
+      return (c1 << (2 * ASCII_BITS)) | (c2 << ASCII_BITS) | c3;
+    }
+    int hash = (c1 * 31 + c2) * 31 + c3;
+    return HASHED_KEY | (hash & ~HASHED_KEY);
+  }
+
+  /**
+   * Return the sorted keys of the distinct trigrams occurring in the given content.
+   * 
+   * @param content the content whose trigrams are to be computed
+   * @return the keys of the trigrams in the content
+   */
+  private static int[] computeKeys(CharSequence content) {
+    int length = content.length();
+    if (length < 3) {
+      return NO_KEYS;
+    }
+    int[] keys = new int[length - 2];
+    char c1 = fold(content.charAt(0));
+    char c2 = fold(content.charAt(1));
+    for (int i = 2; i < length; i++) {
+      char c3 = fold(content.charAt(i));
+      keys[i - 2] = computeKey(c1, c2, c3);
+      c1 = c2;
+      c2 = c3;
+    }
+    Arrays.sort(keys);
+    int count = 1;
+    for (int i = 1; i < keys.length; i++) {
+      if (keys[i] != keys[count - 1]) {
+        keys[count++] = keys[i];
+      }
+    }
+    return Arrays.copyOf(keys, count);
+  }
+
+  /**
+   * Return the character to which the given character is folded. Characters that are considered
+   * equal by a case insensitive pattern are always folded to the same character.
+   * 
+   * @param c the character to be folded
+   * @return the folded character
+   */
+  private static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * A table mapping the paths of the indexed files to the information recorded for them.
+   */
+  private final HashMap<String, FileEntry> files = new HashMap<String, FileEntry>();
+
+  /**
+   * The entries of the indexed files, indexed by their identifier. Entries for files that have been
+   * removed are <code>null</code>.
+   */
+  private final ArrayList<FileEntry> entries = new ArrayList<FileEntry>();
+
+  /**
+   * The identifiers of removed files that can be reused.
+   */
+  private final ArrayList<Integer> freeIds = new ArrayList<Integer>();
+
+  /**
+   * A table mapping trigram keys to the set of identifiers of the files containing the trigram.
+   */
+  private final HashMap<Integer, BitSet> postings = new HashMap<Integer, BitSet>();
+
+  /**
+   * Initialize a newly created index to be empty.
+   */
+  public TrigramIndex() {
+    super();
+  }
+
+  /**
+   * Record the given content as the content of the file with the given path, replacing any content
+   * previously recorded for the file.
+   * 
+   * @param path the path of the file
+   * @param stamp the modification stamp of the file when the content was read
+   * @param content the content of the file
+   */
+  public void add(String path, long stamp, CharSequence content) {
+    int[] keys = computeKeys(content);
+    synchronized (this) {
+      remove(path);
+      addEntry(path, stamp, keys);
+    }
+  }
+
+  /**
+   * Remove all of the files from this index.
+   */
+  public synchronized void clear() {
+    files.clear();
+    entries.clear();
+    freeIds.clear();
+    postings.clear();
+  }
+
+  /**
+   * Return <code>true</code> if the file with the given path is in this index.
+   * 
+   * @param path the path of the file
+   * @return <code>true</code> if the file is in this index
+   */
+  public synchronized boolean contains(String path) {
+    return files.containsKey(path);
+  }
+
+  /**
+   * Return the paths of the indexed files that might contain the given string, or
+   * <code>null</code> if the string is too short for the index to narrow the set of files. Files
+   * that are not in this index are never included.
+   * 
+   * @param literal the string being searched for
+   * @return the paths of the files that might contain the string
+   */
+  public Set<String> getCandidates(String literal) {
+    int[] keys = computeKeys(literal);
+    if (keys.length == 0) {
+      return null;
+    }
+    synchronized (this) {
+      BitSet result = null;
+      for (int key : keys) {
+        BitSet posting = postings.get(key);
+        if (posting == null) {
+          return new HashSet<String>();
+        }
+        if (result == null) {
+          result = (BitSet) posting.clone();
+        } else {
+          result.and(posting);
+        }
+      }
+      HashSet<String> paths = new HashSet<String>();
+      for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+        paths.add(entries.get(id).path);
+      }
+      return paths;
+    }
+  }
+
+  /**
+   * Return the paths of all of the files in this index.
+   * 
+   * @return the paths of the indexed files
+   */
+  public synchronized Set<String> getPaths() {
+    return new HashSet<String>(files.keySet());
+  }
+
+  /**
+   * Return the modification stamp recorded for the file with the given path, or <code>-1</code>
+   * if the file is not in this index.
+   * 
+   * @param path the path of the file
+   * @return the modification stamp recorded for the file
+   */
+  public synchronized long getStamp(String path) {
+    FileEntry entry = files.get(path);
+    if (entry == null) {
+      return -1L;
+    }
+    return entry.stamp;
+  }
+
+  /**
+   * Replace the content of this index with the content read from the given input, which must have
+   * been written by {@link #writeTo(DataOutput)}. If the input is not valid this index is left
+   * empty.
+   * 
+   * @param input the input from which the index is to be read
+   * @throws IOException if the index could not be read
+   */
+  public synchronized void readFrom(DataInput input) throws IOException {
+    clear();
+    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+      return;
+    }
+    try {
+      int fileCount = input.readInt();
+      for (int i = 0; i < fileCount; i++) {
+        String path = input.readUTF();
+        long stamp = input.readLong();
+        int[] keys = new int[input.readInt()];
+        for (int j = 0; j < keys.length; j++) {
+          keys[j] = input.readInt();
+        }
+        addEntry(path, stamp, keys);
+      }
+    } catch (IOException exception) {
+      clear();
+      throw exception;
+    }
+  }
+
+  /**
+   * Remove the file with the given path from this index.
+   * 
+   * @param path the path of the file to be removed
+   */
+  public synchronized void remove(String path) {
+    FileEntry entry = files.remove(path);
+    if (entry == null) {
+      return;
+    }
+    for (int key : entry.keys) {
+      BitSet posting = postings.get(key);
+      posting.clear(entry.id);
+      if (posting.isEmpty()) {
+        postings.remove(key);
+      }
+    }
+    entries.set(entry.id, null);
+    freeIds.add(entry.id);
+  }
+
+  /**
+   * Return the number of files in this index.
+   * 
+   * @return the number of files in this index
+   */
+  public synchronized int size() {
+    return files.size();
+  }
+
+  /**
+   * Write this index to the given output.
+   * 
+   * @param output the output to which the index is to be written
+   * @throws IOException if the index could not be written
+   */
+  public synchronized void writeTo(DataOutput output) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(files.size());
+    for (FileEntry entry : files.values()) {
+      output.writeUTF(entry.path);
+      output.writeLong(entry.stamp);
+      output.writeInt(entry.keys.length);
+      for (int key : entry.keys) {
+        output.writeInt(key);
+      }
+    }
+  }
+
+  /**
+   * Add an entry for a file that is not currently in this index.
+   * 
+   * @param path the path of the file
+   * @param stamp the modification stamp of the file when the content was read
+   * @param keys the sorted keys of the trigrams occurring in the file
+   */
+  private void addEntry(String path, long stamp, int[] keys) {
+    int id;
+    if (freeIds.isEmpty()) {
+      id = entries.size();
+      entries.add(null);
+    } else {
+      id = freeIds.remove(freeIds.size() - 1);
+    }
+    FileEntry entry = new FileEntry(id, path, stamp, keys);
+    entries.set(id, entry);
+    files.put(path, entry);
+    for (int key : keys) {
+      BitSet posting = postings.get(key);
+      if (posting == null) {
+        posting = new BitSet();
+        postings.put(key, posting);
+      }
+      posting.set(id);
+    }
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import com.google.dart.tools.search.internal.ui.SearchMessages;
+import com.google.dart.tools.search.internal.ui.SearchPlugin;
+import com.google.dart.tools.search.internal.ui.SearchPreferencePage;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The class <code>TrigramIndexManager</code> maintains a {@link TrigramIndex} of the text files in
+ * the workspace and uses it to exclude files that cannot contain a match from a text search. The
+ * index is only maintained while the preference {@link SearchPreferencePage#TEXT_SEARCH_INDEX} is
+ * enabled. It is kept up to date from resource deltas by a background job, and is persisted in the
+ * state location of the search plug-in between sessions.
+ * <p>
+ * A file is only excluded from a search if its content was indexed at its current modification
+ * stamp, it has no unsaved changes, and the index shows that it cannot contain the string that every
+ * match of the pattern is required to contain. Every other file is searched as usual, so using the
+ * index never changes the results of a search.
+ */
+public class TrigramIndexManager implements IResourceChangeListener {
+  /**
+   * The job used to index the files that have been added or changed.
+   */
+  private class IndexJob extends Job {
+    public IndexJob() {
+      super(SearchMessages.TrigramIndexManager_jobName);
+      setSystem(true);
+      setPriority(DECORATE);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      while (!monitor.isCanceled()) {
+        IFile file;
+        synchronized (pendingFiles) {
+          Iterator<IFile> iterator = pendingFiles.iterator();
+          if (!iterator.hasNext()) {
+            return Status.OK_STATUS;
+          }
+          file = iterator.next();
+          iterator.remove();
+        }
+        indexFile(file);
+      }
+      return Status.CANCEL_STATUS;
+    }
+  }
+
+  /**
+   * The extensions of the files whose content is indexed.
+   */
+  private static final String[] INDEXED_EXTENSIONS = {
+      "dart", "htm", "html", "css", "yaml"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+  /**
+   * The name of the file, in the state location of the search plug-in, in which the index is saved.
+   */
+  private static final String INDEX_FILE_NAME = "trigram.index"; //$NON-NLS-1$
+
+  /**
+   * The size, in bytes, of the largest file whose content is indexed.
+   */
+  private static final long MAX_INDEXED_FILE_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The unique instance of this class, or <code>null</code> if the index is not being maintained.
+   */
+  private static TrigramIndexManager instance;
+
+  /**
+   * Return a filter that excludes the files that cannot contain a match for the given pattern, or
+   * <code>null</code> if the index is disabled or cannot be used to exclude any files. Enabling
+   * the preference causes the index to be built, and disabling it causes the index to be discarded.
+   * 
+   * @param pattern the pattern being searched for
+   * @return a filter that excludes files that cannot contain a match
+   */
+  public static FilesOfScopeCalculator.FileFilter createFilter(Pattern pattern) {
+    TrigramIndexManager manager;
+    synchronized (TrigramIndexManager.class) {
+      if (!SearchPreferencePage.isTextSearchIndexEnabled()) {
+        if (instance != null) {
+          instance.stop();
+          instance = null;
+          getIndexFile().delete();
+        }
+        return null;
+      }
+      if (instance == null) {
+        instance = new TrigramIndexManager();
+        instance.start();
+      }
+      manager = instance;
+    }
+    String literal = PatternConstructor.getRequiredLiteral(pattern);
+    if (literal == null) {
+      return null;
+    }
+    return manager.createFilter(literal);
+  }
+
+  /**
+   * Stop maintaining the index, saving it so that it can be reused in the next session.
+   */
+  public static void shutdown() {
+    synchronized (TrigramIndexManager.class) {
+      if (instance != null) {
+        instance.stop();
+        instance.save();
+        instance = null;
+      }
+    }
+  }
+
+  /**
+   * Return the file in which the index is saved.
+   * 
+   * @return the file in which the index is saved
+   */
+  private static File getIndexFile() {
+    return SearchPlugin.getDefault().getStateLocation().append(INDEX_FILE_NAME).toFile();
+  }
+
+  /**
+   * Return <code>true</code> if the content of a file with the given name is indexed.
+   * 
+   * @param fileName the name of the file
+   * @return <code>true</code> if the content of the file is indexed
+   */
+  private static boolean isIndexed(String fileName) {
+    int index = fileName.lastIndexOf('.');
+    if (index < 0) {
+      return false;
+    }
+    String extension = fileName.substring(index + 1);
+    for (String indexedExtension : INDEXED_EXTENSIONS) {
+      if (indexedExtension.equalsIgnoreCase(extension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the content of the given file, or <code>null</code> if the file is too large to be
+   * indexed or cannot be read.
+   * 
+   * @param file the file whose content is to be read
+   * @return the content of the file
+   */
+  private static CharSequence readContent(IFile file) {
+    IPath location = file.getLocation();
+    if (location == null || location.toFile().length() > MAX_INDEXED_FILE_SIZE) {
+      return null;
+    }
+    try {
+      Reader reader = new InputStreamReader(file.getContents(true), file.getCharset());
+      try {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[8192];
+        int count = reader.read(buffer);
+        while (count >= 0) {
+          builder.append(buffer, 0, count);
+          count = reader.read(buffer);
+        }
+        return builder;
+      } finally {
+        reader.close();
+      }
+    } catch (CoreException exception) {
+      return null;
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * The index of the content of the workspace files.
+   */
+  private final TrigramIndex index = new TrigramIndex();
+
+  /**
+   * The files that need to be indexed, in the order in which they were found.
+   */
+  private final LinkedHashSet<IFile> pendingFiles = new LinkedHashSet<IFile>();
+
+  /**
+   * The job used to index the pending files.
+   */
+  private final IndexJob job = new IndexJob();
+
+  /**
+   * Prevent the creation of instances of this class other than by {@link #createFilter(Pattern)}.
+   */
+  private TrigramIndexManager() {
+    super();
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    try {
+      delta.accept(new IResourceDeltaVisitor() {
+        @Override
+        public boolean visit(IResourceDelta delta) throws CoreException {
+          IResource resource = delta.getResource();
+          switch (resource.getType()) {
+            case IResource.FILE:
+              if (isIndexed(resource.getName())) {
+                if (delta.getKind() == IResourceDelta.REMOVED) {
+                  index.remove(resource.getFullPath().toString());
+                } else {
+                  addPendingFile((IFile) resource);
+                }
+              }
+              return false;
+            case IResource.PROJECT:
+              if ((delta.getFlags() & IResourceDelta.OPEN) != 0 && resource.isAccessible()) {
+                addPendingFiles((IContainer) resource, null);
+                return false;
+              }
+              return true;
+            default:
+              return true;
+          }
+        }
+      });
+    } catch (CoreException exception) {
+      SearchPlugin.log(exception);
+    }
+    job.schedule();
+  }
+
+  /**
+   * Add the given file to the set of files that need to be indexed.
+   * 
+   * @param file the file to be indexed
+   */
+  private void addPendingFile(IFile file) {
+    synchronized (pendingFiles) {
+      pendingFiles.add(file);
+    }
+  }
+
+  /**
+   * Add the indexed files in the given container to the set of files that need to be indexed.
+   * 
+   * @param container the container whose files are to be indexed
+   * @param paths the set to which the paths of the files are to be added, or <code>null</code>
+   * @throws CoreException if the members of the container could not be visited
+   */
+  private void addPendingFiles(IContainer container, final Set<String> paths)
+      throws CoreException {
+    container.accept(new IResourceProxyVisitor() {
+      @Override
+      public boolean visit(IResourceProxy proxy) {
+        if (proxy.getType() == IResource.FILE && isIndexed(proxy.getName())) {
+          IFile file = (IFile) proxy.requestResource();
+          addPendingFile(file);
+          if (paths != null) {
+            paths.add(file.getFullPath().toString());
+          }
+        }
+        return true;
+      }
+    }, 0);
+  }
+
+  /**
+   * Return a filter that excludes the files that the index shows cannot contain the given string,
+   * or <code>null</code> if the index cannot be used to exclude any files.
+   * 
+   * @param literal the string that every match is required to contain
+   * @return a filter that excludes files that cannot contain the string
+   */
+  private FilesOfScopeCalculator.FileFilter createFilter(String literal) {
+    final Set<String> candidates = index.getCandidates(literal);
+    if (candidates == null) {
+      return null;
+    }
+    return new FilesOfScopeCalculator.FileFilter() {
+      @Override
+      public boolean accept(IResourceProxy proxy) {
+        if (!isIndexed(proxy.getName())) {
+          return true;
+        }
+        IPath fullPath = proxy.requestFullPath();
+        String path = fullPath.toString();
+        if (candidates.contains(path) || index.getStamp(path) != proxy.getModificationStamp()) {
+          return true;
+        }
+        ITextFileBuffer buffer = FileBuffers.getTextFileBufferManager().getTextFileBuffer(
+            fullPath,
+            LocationKind.IFILE);
+        return buffer != null && buffer.isDirty();
+      }
+    };
+  }
+
+  /**
+   * Index the content of the given file if it has changed since it was last indexed.
+   * 
+   * @param file the file to be indexed
+   */
+  private void indexFile(IFile file) {
+    String path = file.getFullPath().toString();
+    if (!file.isAccessible()) {
+      index.remove(path);
+      return;
+    }
+    // Read the stamp before the content so that a concurrent change leaves the stamps different.
+    long stamp = file.getModificationStamp();
+    if (stamp == index.getStamp(path)) {
+      return;
+    }
+    CharSequence content = readContent(file);
+    if (content == null) {
+      index.remove(path);
+    } else {
+      index.add(path, stamp, content);
+    }
+  }
+
+  /**
+   * Read the index saved in a previous session, if there is one.
+   */
+  private void load() {
+    File indexFile = getIndexFile();
+    if (!indexFile.exists()) {
+      return;
+    }
+    try {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+          indexFile)));
+      try {
+        index.readFrom(input);
+      } finally {
+        input.close();
+      }
+    } catch (IOException exception) {
+      SearchPlugin.log(exception);
+    }
+  }
+
+  /**
+   * Write the index so that it can be reused in the next session.
+   */
+  private void save() {
+    try {
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+          getIndexFile())));
+      try {
+        index.writeTo(output);
+      } finally {
+        output.close();
+      }
+    } catch (IOException exception) {
+      SearchPlugin.log(exception);
+    }
+  }
+
+  /**
+   * Start maintaining the index. Every file in the workspace is checked against the saved index,
+   * and files that no longer exist are removed from it.
+   */
+  private void start() {
+    load();
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(
+        this,
+        IResourceChangeEvent.POST_CHANGE);
+    Set<String> paths = new HashSet<String>();
+    try {
+      addPendingFiles(ResourcesPlugin.getWorkspace().getRoot(), paths);
+    } catch (CoreException exception) {
+      SearchPlugin.log(exception);
+    }
+    for (String path : index.getPaths()) {
+      if (!paths.contains(path)) {
+        index.remove(path);
+      }
+    }
+    job.schedule();
+  }
+
+  /**
+   * Stop maintaining the index.
+   */
+  private void stop() {
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+    job.cancel();
+    try {
+      job.join();
+    } catch (InterruptedException exception) {
+      // Ignored
+    }
+    synchronized (pendingFiles) {
+      pendingFiles.clear();
+    }
+  }
+}
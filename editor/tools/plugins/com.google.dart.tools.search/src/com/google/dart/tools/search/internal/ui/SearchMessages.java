@@ -130,6 +130,7 @@ public final class SearchMessages extends NLS {
   public static String TextSearchVisitor_progress_updating_job;
   public static String TextSearchVisitor_scanning;
   public static String TextSearchVisitor_error;
+  public static String TrigramIndexManager_jobName;
   public static String TextSearchVisitor_canceled;
   public static String TextSearchVisitor_textsearch_task_label;
   public static String TextSearchVisitor_unsupportedcharset;
@@ -204,6 +205,7 @@ public final class SearchMessages extends NLS {
 
 //	public static String ReplaceDialog2_nomatches_error;
   public static String SearchPreferencePage_textSearchEngine;
+  public static String SearchPreferencePage_textSearchIndex;
   public static String TextSearchEngineRegistry_defaulttextsearch_label;
   public static String FileSearchQuery_singularPatternWithFileExt;
   public static String FileSearchQuery_pluralPatternWithFileExt;
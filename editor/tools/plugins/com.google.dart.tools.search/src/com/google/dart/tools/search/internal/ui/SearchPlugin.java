@@ -14,6 +14,7 @@
 package com.google.dart.tools.search.internal.ui;
 
 import com.google.dart.tools.search.internal.core.text.TextSearchEngineRegistry;
+import com.google.dart.tools.search.internal.core.text.TrigramIndexManager;
 import com.google.dart.tools.search.internal.ui.util.ExceptionHandler;
 import com.google.dart.tools.search.ui.NewSearchUI;
 import com.google.dart.tools.search2.internal.ui.InternalSearchUI;
@@ -300,6 +301,7 @@ public class SearchPlugin extends AbstractUIPlugin {
   @Override
   public void stop(BundleContext context) throws Exception {
     InternalSearchUI.shutdown();
+    TrigramIndexManager.shutdown();
     super.stop(context);
     fgSearchPlugin = null;
   }
@@ -67,6 +67,7 @@ public class SearchPreferencePage extends FieldEditorPreferencePage implements
   public static final String BRING_VIEW_TO_FRONT = "com.google.dart.tools.search.bringToFront"; //$NON-NLS-1$
   public static final String TEXT_SEARCH_ENGINE = "com.google.dart.tools.search.textSearchEngine"; //$NON-NLS-1$
   public static final String TEXT_SEARCH_QUERY_PROVIDER = "com.google.dart.tools.search.textSearchQueryProvider"; //$NON-NLS-1$
+  public static final String TEXT_SEARCH_INDEX = "com.google.dart.tools.search.textSearchIndex"; //$NON-NLS-1$
 
   public static final String LIMIT_HISTORY = "com.google.dart.tools.search.limitHistory"; //$NON-NLS-1$
 
@@ -121,6 +122,7 @@ public class SearchPreferencePage extends FieldEditorPreferencePage implements
     store.setDefault(TEXT_SEARCH_ENGINE, ""); //default search engine is empty string //$NON-NLS-1$
     store.setDefault(TEXT_SEARCH_QUERY_PROVIDER, ""); // default query provider is empty string  //$NON-NLS-1$
     store.setDefault(LIMIT_HISTORY, 10);
+    store.setDefault(TEXT_SEARCH_INDEX, false);
   }
 
   public static boolean isEditorReused() {
@@ -128,6 +130,11 @@ public class SearchPreferencePage extends FieldEditorPreferencePage implements
     return store.getBoolean(REUSE_EDITOR);
   }
 
+  public static boolean isTextSearchIndexEnabled() {
+    IPreferenceStore store = SearchPlugin.getDefault().getPreferenceStore();
+    return store.getBoolean(TEXT_SEARCH_INDEX);
+  }
+
   public static boolean isViewBroughtToFront() {
     IPreferenceStore store = SearchPlugin.getDefault().getPreferenceStore();
     return store.getBoolean(BRING_VIEW_TO_FRONT);
@@ -186,6 +193,11 @@ public class SearchPreferencePage extends FieldEditorPreferencePage implements
         SearchMessages.SearchPreferencePage_bringToFront,
         getFieldEditorParent()));
 
+    addField(new BooleanFieldEditor(
+        TEXT_SEARCH_INDEX,
+        SearchMessages.SearchPreferencePage_textSearchIndex,
+        getFieldEditorParent()));
+
     fIgnorePotentialMatchesCheckbox = new BooleanFieldEditor(
         IGNORE_POTENTIAL_MATCHES,
         SearchMessages.SearchPreferencePage_ignorePotentialMatches,
@@ -87,6 +87,15 @@ public class FileSearchQuery implements ISearchQuery {
     public boolean acceptPatternMatch(TextSearchMatchAccess matchRequestor) throws CoreException {
       int matchOffset = matchRequestor.getMatchOffset();
 
+      // files are accepted before they are searched, so the cached matches might belong to a
+      // different file
+      if (!fCachedMatches.isEmpty()) {
+        Object lastFile = fCachedMatches.get(fCachedMatches.size() - 1).getElement();
+        if (!lastFile.equals(matchRequestor.getFile().getResource())) {
+          flushMatches();
+        }
+      }
+
       LineElement lineElement = getLineElement(matchOffset, matchRequestor);
       if (lineElement != null) {
         FileResourceMatch fileMatch = matchRequestor.createMatch(lineElement);
@@ -24,6 +24,8 @@ import com.google.dart.tools.ui.DartToolsPlugin;
 import com.google.dart.tools.ui.internal.text.dart.IDartReconcilingListener;
 import com.google.dart.tools.ui.internal.text.editor.SemanticHighlightingManager.HighlightedPosition;
 import com.google.dart.tools.ui.internal.text.editor.SemanticHighlightingManager.Highlighting;
+import com.google.dart.tools.ui.instrumentation.UIInstrumentation;
+import com.google.dart.tools.ui.instrumentation.UIInstrumentationBuilder;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -31,6 +33,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextInputListener;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
@@ -52,7 +55,9 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     ITextInputListener, SemanticHighlightingReconciler_I {
 
   /**
-   * Collects positions from the AST.
+   * Collects positions from the AST. Positions are collected in two passes: the first pass only
+   * processes the nodes that intersect the visible region (and whose ancestors all intersect it),
+   * and the second pass processes all of the remaining nodes.
    */
   private class PositionCollector extends GeneralizingASTVisitor<Void> {
     /**
@@ -60,10 +65,79 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
      */
     private final SemanticToken token = new SemanticToken();
 
+    /**
+     * The offset of the first character in the visible region.
+     */
+    private int visibleStart;
+
+    /**
+     * The offset of the first character after the visible region.
+     */
+    private int visibleEnd;
+
+    /**
+     * <code>true</code> if only the nodes in the visible region are to be processed,
+     * <code>false</code> if only the nodes that are not in the visible region are to be processed.
+     */
+    private boolean visiblePass;
+
+    /**
+     * <code>true</code> if the node being visited is within a subtree that is not in the visible
+     * region, so that every node in the subtree is to be processed.
+     */
+    private boolean processAll;
+
+    /**
+     * Return <code>true</code> if the given node intersects the visible region.
+     * 
+     * @param node the node being tested
+     * @return <code>true</code> if the node intersects the visible region
+     */
+    public boolean intersectsVisibleRegion(ASTNode node) {
+      return node.getOffset() < visibleEnd && node.getEnd() > visibleStart;
+    }
+
+    /**
+     * Prepare to collect the positions in one of the two passes.
+     * 
+     * @param visibleStart the offset of the first character in the visible region
+     * @param visibleEnd the offset of the first character after the visible region
+     * @param visiblePass <code>true</code> if only the nodes in the visible region are to be
+     *          processed
+     */
+    public void setPass(int visibleStart, int visibleEnd, boolean visiblePass) {
+      this.visibleStart = visibleStart;
+      this.visibleEnd = visibleEnd;
+      this.visiblePass = visiblePass;
+      this.processAll = false;
+    }
+
     @Override
     public Void visitNode(ASTNode node) {
-      processNode(token, node);
-      return super.visitNode(node);
+      if (processAll) {
+        processNode(token, node);
+        return super.visitNode(node);
+      }
+      boolean intersects = intersectsVisibleRegion(node);
+      if (visiblePass) {
+        if (intersects) {
+          processNode(token, node);
+          super.visitNode(node);
+        }
+        return null;
+      }
+      if (intersects) {
+        // The node itself was processed by the visible pass, but some of its children might not be.
+        return super.visitNode(node);
+      }
+      processAll = true;
+      try {
+        processNode(token, node);
+        super.visitNode(node);
+      } finally {
+        processAll = false;
+      }
+      return null;
     }
 
     /**
@@ -155,9 +229,35 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     }
   }
 
+  /**
+   * The minimum number of characters covered by each of the slices in which the positions outside
+   * the visible region are computed and presented.
+   */
+  private static final int SLICE_LENGTH = 16 * 1024;
+
   /** Position collector */
   private final PositionCollector fCollector = new PositionCollector();
 
+  /**
+   * The offset of the first character in the visible region of the viewer, updated in the UI
+   * thread whenever the viewport changes.
+   */
+  private volatile int fVisibleStart = 0;
+
+  /**
+   * The offset of the first character after the visible region of the viewer, updated in the UI
+   * thread whenever the viewport changes.
+   */
+  private volatile int fVisibleEnd = Integer.MAX_VALUE;
+
+  /** Listener used to keep track of the visible region */
+  private final IViewportListener fViewportListener = new IViewportListener() {
+    @Override
+    public void viewportChanged(int verticalOffset) {
+      updateVisibleRegion();
+    }
+  };
+
   private Comparator<Position> positionsComparator = new Comparator<Position>() {
     @Override
     public int compare(Position position1, Position position2) {
@@ -263,6 +363,9 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     fEditor = editor;
     fSourceViewer = sourceViewer;
 
+    fSourceViewer.addViewportListener(fViewportListener);
+    updateVisibleRegion();
+
     if (fEditor instanceof CompilationUnitEditor) {
       ((CompilationUnitEditor) fEditor).addReconcileListener(this);
       scheduleJob();
@@ -291,6 +394,7 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     fJobSemanticHighlightings = fSemanticHighlightings;
     fJobHighlightings = fHighlightings;
 
+    UIInstrumentationBuilder instrumentation = UIInstrumentation.builder("SemanticHighlightingReconciler.reconciled");
     try {
       if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null) {
         return;
@@ -301,20 +405,13 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
       startReconcilingPositions();
 
       if (!fJobPresenter.isCanceled()) {
-        reconcilePositions(ast);
-      }
-
-      TextPresentation textPresentation = null;
-      if (!fJobPresenter.isCanceled()) {
-        textPresentation = fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
-      }
-
-      if (!fJobPresenter.isCanceled()) {
-        updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+        reconcilePositions(ast, instrumentation);
       }
+      instrumentation.metric("Canceled", fJobPresenter.isCanceled());
 
       stopReconcilingPositions();
     } finally {
+      instrumentation.log();
       fJobPresenter = null;
       fJobSemanticHighlightings = null;
       fJobHighlightings = null;
@@ -341,6 +438,10 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
       fPresenter.setCanceled(true);
     }
 
+    if (fSourceViewer != null) {
+      fSourceViewer.removeViewportListener(fViewportListener);
+    }
+
     if (fEditor != null) {
       if (fEditor instanceof CompilationUnitEditor) {
         ((CompilationUnitEditor) fEditor).removeReconcileListener(this);
@@ -418,38 +519,131 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
   }
 
   /**
-   * Reconcile positions based on the AST subtrees
+   * Return the unmatched positions from the previous reconcile that start within the given range,
+   * marking them so that they are not returned again.
    * 
-   * @param subtrees the AST subtrees
+   * @param start the offset of the first character in the range
+   * @param end the offset of the first character after the range
+   * @return the positions within the range that are to be removed
    */
-  private void reconcilePositions(CompilationUnit unit) {
-    // copy fRemovedPositions into removedPositions and removedPositionsDeleted
-    removedPositions = fRemovedPositions.toArray(new Position[fRemovedPositions.size()]);
-    Arrays.sort(removedPositions, positionsComparator);
-    removedPositionsDeleted = new boolean[removedPositions.length];
-
-    unit.accept(fCollector);
-
-    // copy removedPositions and removedPositionsDeleted into fRemovedPositions
-    fRemovedPositions = new ArrayList<Position>(removedPositions.length);
-    for (int i = 0; i < removedPositions.length; i++) {
+  private List<Position> collectRemovedPositions(int start, int end) {
+    Position[] positions = removedPositions;
+    int left = 0;
+    int right = positions.length;
+    while (left < right) {
+      int mid = (left + right) >>> 1;
+      if (positions[mid].getOffset() < start) {
+        left = mid + 1;
+      } else {
+        right = mid;
+      }
+    }
+    List<Position> removed = new ArrayList<Position>();
+    for (int i = left; i < positions.length && positions[i].getOffset() < end; i++) {
       if (!removedPositionsDeleted[i]) {
-        fRemovedPositions.add(removedPositions[i]);
+        removedPositionsDeleted[i] = true;
+        removed.add(positions[i]);
       }
     }
+    return removed;
+  }
 
-    List<Position> oldPositions = fRemovedPositions;
-    List<Position> newPositions = new ArrayList<Position>(fNOfRemovedPositions);
-    for (int i = 0, n = oldPositions.size(); i < n; i++) {
-      Position current = oldPositions.get(i);
-      if (current != null) {
-        newPositions.add(current);
-      }
+  /**
+   * Return the nodes whose positions are computed in separate slices after the visible region has
+   * been presented, in lexical order.
+   * 
+   * @param unit the compilation unit being reconciled
+   * @return the nodes whose positions are computed in separate slices
+   */
+  private List<ASTNode> getSliceNodes(CompilationUnit unit) {
+    List<ASTNode> nodes = new ArrayList<ASTNode>();
+    if (!fCollector.intersectsVisibleRegion(unit)) {
+      // Nothing was processed in the visible pass, so the whole unit needs to be processed.
+      nodes.add(unit);
+      return nodes;
     }
-    fRemovedPositions = newPositions;
+    if (unit.getScriptTag() != null) {
+      nodes.add(unit.getScriptTag());
+    }
+    nodes.addAll(unit.getDirectives());
+    nodes.addAll(unit.getDeclarations());
+    Collections.sort(nodes, ASTNode.LEXICAL_ORDER);
+    return nodes;
+  }
 
-    Collections.sort(fRemovedPositions, positionsComparator);
+  /**
+   * Present the positions added since the last presentation, together with the unmatched
+   * positions in the given range.
+   * 
+   * @param start the offset of the first character in the range
+   * @param end the offset of the first character after the range
+   */
+  private void presentPositions(int start, int end) {
+    List<Position> removed = collectRemovedPositions(start, end);
     Collections.sort(fAddedPositions, positionsComparator);
+
+    TextPresentation textPresentation = null;
+    if (!fJobPresenter.isCanceled()) {
+      textPresentation = fJobPresenter.createPresentation(fAddedPositions, removed);
+    }
+
+    if (!fJobPresenter.isCanceled()) {
+      updatePresentation(textPresentation, fAddedPositions, removed);
+    }
+
+    fAddedPositions.clear();
+  }
+
+  /**
+   * Reconcile the positions with the given AST and present the result. The positions in the visible
+   * region are computed and presented first. The remaining positions are then computed and
+   * presented in slices of top-level nodes, stopping early if the reconcile is canceled. Positions
+   * that are unchanged since the previous reconcile are reused.
+   * 
+   * @param unit the AST of the compilation unit
+   * @param instrumentation the instrumentation used to record the time taken by each phase
+   */
+  private void reconcilePositions(CompilationUnit unit, UIInstrumentationBuilder instrumentation) {
+    long startTime = System.currentTimeMillis();
+
+    removedPositions = fRemovedPositions.toArray(new Position[fRemovedPositions.size()]);
+    Arrays.sort(removedPositions, positionsComparator);
+    removedPositionsDeleted = new boolean[removedPositions.length];
+
+    int visibleStart = fVisibleStart;
+    int visibleEnd = fVisibleEnd;
+
+    fCollector.setPass(visibleStart, visibleEnd, true);
+    unit.accept(fCollector);
+    presentPositions(visibleStart, visibleEnd);
+    instrumentation.metric("VisibleRegionTime", System.currentTimeMillis() - startTime);
+
+    fCollector.setPass(visibleStart, visibleEnd, false);
+    List<ASTNode> nodes = getSliceNodes(unit);
+    int nodeCount = nodes.size();
+    int sliceCount = 0;
+    int sliceStart = 0;
+    int index = 0;
+    do {
+      if (fJobPresenter.isCanceled()) {
+        break;
+      }
+      int sliceEnd = sliceStart;
+      while (index < nodeCount && sliceEnd - sliceStart < SLICE_LENGTH) {
+        ASTNode node = nodes.get(index++);
+        node.accept(fCollector);
+        sliceEnd = Math.max(sliceEnd, node.getEnd());
+      }
+      if (index >= nodeCount) {
+        // Remove any remaining positions, including those after the last node.
+        sliceEnd = Integer.MAX_VALUE;
+      }
+      presentPositions(sliceStart, sliceEnd);
+      sliceStart = sliceEnd;
+      sliceCount++;
+    } while (index < nodeCount);
+    instrumentation.metric("SliceCount", sliceCount);
+    instrumentation.metric("TotalTime", System.currentTimeMillis() - startTime);
   }
 
   /**
@@ -532,6 +726,26 @@ public class SemanticHighlightingReconciler implements IDartReconcilingListener,
     fAddedPositions.clear();
   }
 
+  /**
+   * Update the visible region from the source viewer. Must be called from the UI thread.
+   */
+  private void updateVisibleRegion() {
+    ISourceViewer sourceViewer = fSourceViewer;
+    if (sourceViewer == null || sourceViewer.getTextWidget() == null
+        || sourceViewer.getTextWidget().isDisposed()) {
+      return;
+    }
+    int start = sourceViewer.getTopIndexStartOffset();
+    int end = sourceViewer.getBottomIndexEndOffset();
+    if (start < 0 || end < start) {
+      fVisibleStart = 0;
+      fVisibleEnd = Integer.MAX_VALUE;
+    } else {
+      fVisibleStart = start;
+      fVisibleEnd = end + 1;
+    }
+  }
+
   /**
    * Update the presentation.
    * 
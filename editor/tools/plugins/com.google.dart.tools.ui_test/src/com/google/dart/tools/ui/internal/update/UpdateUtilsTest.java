@@ -25,14 +25,104 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class UpdateUtilsTest extends TestCase {
 
+  /**
+   * A minimal HTTP server standing in for the update site, which serves the given files in
+   * response to GET requests.
+   */
+  private static class UpdateSiteStandIn implements Runnable {
+    private final Map<String, File> files;
+    private final ServerSocket serverSocket;
+
+    public UpdateSiteStandIn(Map<String, File> files) throws IOException {
+      this.files = files;
+      serverSocket = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+
+      Thread thread = new Thread(this, "Update site stand-in");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    public URL getUrl(String path) throws MalformedURLException {
+      return new URL("http", "127.0.0.1", serverSocket.getLocalPort(), path);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          Socket socket = serverSocket.accept();
+          try {
+            serve(socket);
+          } finally {
+            socket.close();
+          }
+        }
+      } catch (IOException e) {
+        // The server socket was closed by shutdown().
+      }
+    }
+
+    public void shutdown() throws IOException {
+      serverSocket.close();
+    }
+
+    private void serve(Socket socket) throws IOException {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(
+          socket.getInputStream(),
+          "ISO-8859-1"));
+
+      // GET /1/archive.zip HTTP/1.1
+      String[] request = reader.readLine().split(" ");
+      String line = reader.readLine();
+      while (line != null && line.length() > 0) {
+        line = reader.readLine();
+      }
+
+      OutputStream out = socket.getOutputStream();
+      File file = files.get(request[1]);
+      if (file == null) {
+        out.write("HTTP/1.0 404 Not Found\r\nContent-Length: 0\r\n\r\n".getBytes("ISO-8859-1"));
+      } else {
+        out.write(("HTTP/1.0 200 OK\r\nContent-Type: application/zip\r\nContent-Length: "
+            + file.length() + "\r\n\r\n").getBytes("ISO-8859-1"));
+        InputStream in = new FileInputStream(file);
+        try {
+          byte[] data = new byte[4096];
+          int count = in.read(data);
+          while (count != -1) {
+            out.write(data, 0, count);
+            count = in.read(data);
+          }
+        } finally {
+          in.close();
+        }
+      }
+      out.flush();
+    }
+  }
+
   private static final NullProgressMonitor NULL_MONITOR = new NullProgressMonitor();
 
   private static final FileFilter NO_OVERWRITE = new FileFilter() {
@@ -61,6 +151,61 @@ public class UpdateUtilsTest extends TestCase {
     assertFalse(new File(toDir, "no_exec").canExecute());
   }
 
+  public void testInstallDirectoryFromRevisions() throws Exception {
+    File siteDir = new File(getToDir(), "site");
+    siteDir.mkdirs();
+    Map<String, File> files = new HashMap<String, File>();
+    files.put("/1/archive.zip", createZip(
+        new File(siteDir, "1.zip"),
+        "dart/DartEditor",
+        "editor",
+        "dart/dart-sdk/same.txt",
+        "same",
+        "dart/dart-sdk/lib/changed.txt",
+        "old",
+        "dart/dart-sdk/removed.txt",
+        "removed"));
+    files.put("/2/archive.zip", createZip(
+        new File(siteDir, "2.zip"),
+        "dart/DartEditor",
+        "editor",
+        "dart/dart-sdk/same.txt",
+        "same",
+        "dart/dart-sdk/lib/changed.txt",
+        "new",
+        "dart/dart-sdk/bin/added.txt",
+        "added"));
+
+    UpdateSiteStandIn site = new UpdateSiteStandIn(files);
+    try {
+      File installDir = new File(getToDir(), "install");
+      File sdkDir = new File(installDir, "dart-sdk");
+      installDir.mkdirs();
+
+      File zip1 = new File(getToDir(), "1.zip");
+      UpdateUtils.downloadFile(site.getUrl("/1/archive.zip"), zip1, NULL_TASK, NULL_MONITOR);
+      assertEquals(3, UpdateUtils.installDirectory(zip1, "dart/dart-sdk/", sdkDir, NULL_MONITOR));
+      assertEquals("old", readFile(new File(sdkDir, "lib/changed.txt")));
+      assertEquals("removed", readFile(new File(sdkDir, "removed.txt")));
+
+      // Only the changed and added entries of the second revision are extracted.
+      File zip2 = new File(getToDir(), "2.zip");
+      UpdateUtils.downloadFile(site.getUrl("/2/archive.zip"), zip2, NULL_TASK, NULL_MONITOR);
+      assertEquals(2, UpdateUtils.installDirectory(zip2, "dart/dart-sdk/", sdkDir, NULL_MONITOR));
+      assertEquals("same", readFile(new File(sdkDir, "same.txt")));
+      assertEquals("new", readFile(new File(sdkDir, "lib/changed.txt")));
+      assertEquals("added", readFile(new File(sdkDir, "bin/added.txt")));
+      assertFalse(new File(sdkDir, "removed.txt").exists());
+      assertFalse(new File(sdkDir, "DartEditor").exists());
+
+      // The directories used to assemble the new contents are removed.
+      assertFalse(new File(installDir, "dart-sdk.new").exists());
+      assertFalse(new File(installDir, "dart-sdk.old").exists());
+    } finally {
+      site.shutdown();
+    }
+  }
+
   public void testParseRevisionJSON() throws Exception {
 
     // {
@@ -87,6 +232,21 @@ public class UpdateUtilsTest extends TestCase {
     assertFalse(new File(toDir, "no_exec").canExecute());
   }
 
+  public void testUnzipExcludesPrefixes() throws Exception {
+    File zip = createZip(
+        new File(getToDir(), "archive.zip"),
+        "dart/DartEditor",
+        "editor",
+        "dart/dart-sdk/version",
+        "1");
+    File toDir = new File(getToDir(), "out");
+
+    UpdateUtils.unzip(zip, toDir, NULL_TASK, Collections.singleton("dart/dart-sdk/"), NULL_MONITOR);
+
+    assertEquals("editor", readFile(new File(toDir, "dart/DartEditor")));
+    assertFalse(new File(toDir, "dart/dart-sdk").exists());
+  }
+
   @Override
   protected void tearDown() throws Exception {
     if (tempDir != null) {
@@ -94,6 +254,23 @@ public class UpdateUtilsTest extends TestCase {
     }
   }
 
+  /**
+   * Create a zip file containing entries with the given names and contents, given in pairs.
+   */
+  private File createZip(File file, String... namesAndContents) throws IOException {
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        out.putNextEntry(new ZipEntry(namesAndContents[i]));
+        out.write(namesAndContents[i + 1].getBytes("UTF-8"));
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
   private File getDataDir(String testName) throws MalformedURLException, IOException {
     URL pluginInstallUri = PluginUtilities.getInstallUrl(TEST_PLUGIN_ID);
     URL sourceUrl = new URL(pluginInstallUri, TEST_DATA_DIR + "/" + getClass().getSimpleName()
@@ -110,4 +287,18 @@ public class UpdateUtilsTest extends TestCase {
     return tempDir.getAbsoluteFile();
   }
 
+  private String readFile(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] data = new byte[(int) file.length()];
+      int offset = 0;
+      while (offset < data.length) {
+        offset += in.read(data, offset, data.length - offset);
+      }
+      return new String(data, "UTF-8");
+    } finally {
+      in.close();
+    }
+  }
+
 }
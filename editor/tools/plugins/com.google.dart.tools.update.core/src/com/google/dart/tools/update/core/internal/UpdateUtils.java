@@ -25,6 +25,7 @@ import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.util.Util;
 import org.eclipse.swt.internal.Library;
 import org.json.JSONException;
@@ -44,11 +45,19 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 import java.util.zip.ZipException;
 
 /**
@@ -87,6 +96,13 @@ public class UpdateUtils {
 
   private static int EXEC_MASK = 0111;
 
+  /**
+   * The number of threads used to extract zip entries.
+   */
+  private static final int EXTRACT_THREAD_COUNT = Math.max(
+      2,
+      Runtime.getRuntime().availableProcessors());
+
   /**
    * Copy the contents of one directory to another directory recursively.
    * 
@@ -350,6 +366,85 @@ public class UpdateUtils {
     return new URL(UpdateCore.getUpdateUrl() + revision.toString() + "/" + getBinaryName());
   }
 
+  /**
+   * Replace the given directory with the entries of the given zip file whose names start with the
+   * given prefix.
+   * <p>
+   * The new contents are assembled in a sibling directory and swapped into place once they are
+   * complete. Only the entries whose size or CRC differ from the corresponding installed file are
+   * extracted, in parallel; installed files that are unchanged are moved into the new directory.
+   * Installed files that are not in the zip file are deleted along with the old directory. If the
+   * new contents cannot be assembled, the installed directory is restored.
+   * 
+   * @param zipFile the zip file containing the new contents
+   * @param entryPrefix the prefix of the names of the entries that belong in the directory, such as
+   *          "dart/dart-sdk/"
+   * @param dir the directory to be replaced, which need not exist
+   * @param monitor the progress monitor
+   * @return the number of entries that were extracted rather than reused
+   * @throws IOException if the directory could not be replaced
+   */
+  public static int installDirectory(File zipFile, String entryPrefix, File dir,
+      IProgressMonitor monitor) throws IOException {
+    File newDir = new File(dir.getParentFile(), dir.getName() + ".new");
+    File oldDir = new File(dir.getParentFile(), dir.getName() + ".old");
+
+    NullProgressMonitor nullMonitor = new NullProgressMonitor();
+    deleteDirectory(newDir, nullMonitor);
+    deleteDirectory(oldDir, nullMonitor);
+
+    List<File[]> reusedFiles = Collections.synchronizedList(new ArrayList<File[]>());
+
+    ZipFile zip = new ZipFile(zipFile);
+    try {
+      List<ZipArchiveEntry> entries = getEntries(zip, entryPrefix, null);
+
+      if (monitor != null) {
+        monitor.beginTask(dir.getName(), entries.size());
+      }
+
+      int extractedCount;
+      try {
+        newDir.mkdirs();
+        extractedCount = extractEntries(
+            zip,
+            entries,
+            entryPrefix,
+            newDir,
+            dir,
+            reusedFiles,
+            monitor);
+      } catch (IOException exception) {
+        restoreReusedFiles(reusedFiles);
+        deleteDirectory(newDir, nullMonitor);
+        throw exception;
+      }
+
+      if (dir.exists() && !dir.renameTo(oldDir)) {
+        restoreReusedFiles(reusedFiles);
+        deleteDirectory(newDir, nullMonitor);
+        throw new IOException("Could not move " + dir.getAbsolutePath());
+      }
+
+      if (!newDir.renameTo(dir)) {
+        oldDir.renameTo(dir);
+        restoreReusedFiles(reusedFiles);
+        deleteDirectory(newDir, nullMonitor);
+        throw new IOException("Could not move " + newDir.getAbsolutePath());
+      }
+
+      deleteDirectory(oldDir, nullMonitor);
+
+      if (monitor != null) {
+        monitor.done();
+      }
+
+      return extractedCount;
+    } finally {
+      ZipFile.closeQuietly(zip);
+    }
+  }
+
   /**
    * Check if the given zip file is valid.
    * 
@@ -436,52 +531,53 @@ public class UpdateUtils {
    */
   public static void unzip(File zipFile, File destination, String taskName, IProgressMonitor monitor)
       throws IOException {
+    unzip(zipFile, destination, taskName, Collections.<String> emptyList(), monitor);
+  }
 
-    ZipFile zip = new ZipFile(zipFile);
-
-    //TODO (pquitslund): add real progress units
-    if (monitor != null) {
-      monitor.beginTask(taskName, 1);
-    }
-
-    Enumeration<ZipArchiveEntry> e = zip.getEntries();
-    while (e.hasMoreElements()) {
-      ZipArchiveEntry entry = e.nextElement();
-      File file = new File(destination, entry.getName());
-      if (entry.isDirectory()) {
-        file.mkdirs();
-      } else {
-        InputStream is = zip.getInputStream(entry);
-
-        File parent = file.getParentFile();
-        if (parent != null && parent.exists() == false) {
-          parent.mkdirs();
-        }
+  /**
+   * Unzip the entries of a zip file whose names do not start with any of the given prefixes,
+   * notifying the given monitor along the way. The entries are extracted in parallel.
+   */
+  public static void unzip(File zipFile, File destination, String taskName,
+      Collection<String> excludedPrefixes, IProgressMonitor monitor) throws IOException {
 
-        FileOutputStream os = new FileOutputStream(file);
-        try {
-          IOUtils.copy(is, os);
-        } finally {
-          os.close();
-          is.close();
-        }
-        file.setLastModified(entry.getTime());
+    ZipFile zip = new ZipFile(zipFile);
+    try {
+      List<ZipArchiveEntry> entries = getEntries(zip, "", excludedPrefixes);
 
-        int mode = entry.getUnixMode();
+      if (monitor != null) {
+        monitor.beginTask(taskName, entries.size());
+      }
 
-        if ((mode & EXEC_MASK) != 0) {
-          file.setExecutable(true);
-        }
+      extractEntries(zip, entries, "", destination, null, null, monitor);
 
+      if (monitor != null) {
+        monitor.done();
       }
+    } finally {
+      ZipFile.closeQuietly(zip);
     }
+  }
 
-    //TODO (pquitslund): fix progress units
-    if (monitor != null) {
-      monitor.worked(1);
-      monitor.done();
+  /**
+   * Return the CRC-32 checksum of the contents of the given file.
+   */
+  private static long computeCrc(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] data = new byte[0x10000];
+
+    InputStream in = new FileInputStream(file);
+    try {
+      int count = in.read(data);
+      while (count != -1) {
+        crc.update(data, 0, count);
+        count = in.read(data);
+      }
+    } finally {
+      in.close();
     }
 
+    return crc.getValue();
   }
 
   private static void copyStream(InputStream in, FileOutputStream out, IProgressMonitor monitor,
@@ -506,6 +602,103 @@ public class UpdateUtils {
     }
   }
 
+  /**
+   * Extract the given entry to the given file, preserving its modification time and execute bit.
+   */
+  private static void extractEntry(ZipFile zip, ZipArchiveEntry entry, File file)
+      throws IOException {
+    InputStream is = zip.getInputStream(entry);
+
+    FileOutputStream os = new FileOutputStream(file);
+    try {
+      IOUtils.copy(is, os);
+    } finally {
+      os.close();
+      is.close();
+    }
+
+    setAttributes(entry, file);
+  }
+
+  /**
+   * Extract the given entries below the given destination, after removing the given prefix from
+   * their names, using a pool of threads. If a directory of installed files is given, an installed
+   * file that matches its entry is moved to the destination instead of extracting the entry, and
+   * the pair of its original and new locations is added to the given list.
+   * 
+   * @return the number of entries that were extracted
+   */
+  private static int extractEntries(final ZipFile zip, List<ZipArchiveEntry> entries,
+      String prefix, File destination, File installedDir, final List<File[]> reusedFiles,
+      IProgressMonitor monitor) throws IOException {
+
+    // Create the directories up front so that the extracting threads don't race to create them.
+    List<File> files = new ArrayList<File>(entries.size());
+    for (ZipArchiveEntry entry : entries) {
+      File file = new File(destination, entry.getName().substring(prefix.length()));
+      if (entry.isDirectory()) {
+        file.mkdirs();
+        files.add(null);
+      } else {
+        File parent = file.getParentFile();
+        if (parent != null && parent.exists() == false) {
+          parent.mkdirs();
+        }
+        files.add(file);
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(EXTRACT_THREAD_COUNT);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(entries.size());
+      for (int i = 0; i < entries.size(); i++) {
+        final ZipArchiveEntry entry = entries.get(i);
+        final File file = files.get(i);
+        if (file == null) {
+          continue;
+        }
+        final File installedFile = installedDir == null ? null : new File(
+            installedDir,
+            entry.getName().substring(prefix.length()));
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws IOException {
+            if (installedFile != null && isUnchanged(installedFile, entry)
+                && installedFile.renameTo(file)) {
+              reusedFiles.add(new File[] {installedFile, file});
+              setAttributes(entry, file);
+              return false;
+            }
+            extractEntry(zip, entry, file);
+            return true;
+          }
+        }));
+      }
+
+      int extractedCount = 0;
+      for (Future<Boolean> result : results) {
+        if (monitor != null && monitor.isCanceled()) {
+          throw new IOException("job cancelled");
+        }
+        if (getResult(result)) {
+          extractedCount++;
+        }
+        if (monitor != null) {
+          monitor.worked(1);
+        }
+      }
+      return extractedCount;
+    } finally {
+      // Wait for any remaining tasks so that no file is written after a failure is reported.
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   private static Arch getArch() {
     try {
       return is64bitSWT() ? Arch.x64 : Arch.x32;
@@ -519,6 +712,50 @@ public class UpdateUtils {
     return "darteditor-" + OS.qualifier + "-" + ARCH.qualifier + ".zip";
   }
 
+  /**
+   * Return the entries of the given zip file whose names start with the given prefix but not with
+   * any of the excluded prefixes, in the order in which they are stored in the file.
+   */
+  private static List<ZipArchiveEntry> getEntries(ZipFile zip, String prefix,
+      Collection<String> excludedPrefixes) {
+    List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>();
+    Enumeration<ZipArchiveEntry> e = zip.getEntriesInPhysicalOrder();
+    entries: while (e.hasMoreElements()) {
+      ZipArchiveEntry entry = e.nextElement();
+      String name = entry.getName();
+      if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+        continue;
+      }
+      if (excludedPrefixes != null) {
+        for (String excludedPrefix : excludedPrefixes) {
+          if (name.startsWith(excludedPrefix)) {
+            continue entries;
+          }
+        }
+      }
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  /**
+   * Return the result of the given extraction task, rethrowing any exception thrown by the task.
+   */
+  private static boolean getResult(Future<Boolean> result) throws IOException {
+    try {
+      return result.get();
+    } catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IOException("job interrupted");
+    }
+  }
+
   @SuppressWarnings("static-access")
   private static OS getOS() {
     if (Util.isMac()) {
@@ -552,6 +789,17 @@ public class UpdateUtils {
     }
   }
 
+  /**
+   * Return {@code true} if the given installed file has the same size and CRC as the given entry.
+   */
+  private static boolean isUnchanged(File installedFile, ZipArchiveEntry entry) throws IOException {
+    if (!installedFile.isFile() || installedFile.length() != entry.getSize()) {
+      return false;
+    }
+    long crc = entry.getCrc();
+    return crc != -1 && computeCrc(installedFile) == crc;
+  }
+
   private static boolean isNumeric(String str) {
     for (char c : str.toCharArray()) {
       if (!Character.isDigit(c)) {
@@ -599,6 +847,31 @@ public class UpdateUtils {
     return revisions;
   }
 
+  /**
+   * Move the reused files back to the locations they were moved from.
+   */
+  private static void restoreReusedFiles(List<File[]> reusedFiles) {
+    synchronized (reusedFiles) {
+      for (File[] files : reusedFiles) {
+        files[1].renameTo(files[0]);
+      }
+      reusedFiles.clear();
+    }
+  }
+
+  /**
+   * Set the modification time and execute bit of the given file from the given entry.
+   */
+  private static void setAttributes(ZipArchiveEntry entry, File file) {
+    file.setLastModified(entry.getTime());
+
+    int mode = entry.getUnixMode();
+
+    if ((mode & EXEC_MASK) != 0) {
+      file.setExecutable(true);
+    }
+  }
+
   private static String toString(InputStream is) throws IOException {
     final char[] buffer = new char[0x10000];
     StringBuilder out = new StringBuilder();
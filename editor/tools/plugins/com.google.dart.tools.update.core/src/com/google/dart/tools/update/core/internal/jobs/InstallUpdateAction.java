@@ -45,6 +45,7 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 
 /**
  * An action that installs an available Dart Editor update.
@@ -274,23 +275,30 @@ public class InstallUpdateAction extends Action {
       return false;
     }
 
+    // These directories are replaced as a whole rather than merged with the new contents.
+    File sdkDir = new File(installTarget, "dart-sdk"); //$NON-NLS-1$
+    File samplesDir = new File(installTarget, "samples"); //$NON-NLS-1$
+    File dartium = DartSdkManager.getManager().getSdk().getDartiumDir(installTarget);
+
     monitor.setTaskName(UpdateJobMessages.InstallUpdateAction_extract_task);
     UpdateUtils.unzip(
         updateZip,
         tmpDir,
         UpdateJobMessages.InstallUpdateAction_extract_task,
+        Arrays.asList(getEntryPrefix(sdkDir), getEntryPrefix(samplesDir), getEntryPrefix(dartium)),
         mon.newChild(20));
 
-    monitor.setTaskName(UpdateJobMessages.InstallUpdateAction_preparing_task);
-    File sdkDir = new File(installTarget, "dart-sdk"); //$NON-NLS-1$
-    UpdateUtils.deleteDirectory(sdkDir, mon.newChild(4));
-    UpdateUtils.deleteDirectory(new File(installTarget, "samples"), mon.newChild(4)); //$NON-NLS-1$
-
     terminateRunningDartLaunches();
 
-    File dartium = DartSdkManager.getManager().getSdk().getDartiumDir(installTarget);
+    monitor.setTaskName(UpdateJobMessages.InstallUpdateAction_preparing_task);
+    UpdateUtils.installDirectory(updateZip, getEntryPrefix(sdkDir), sdkDir, mon.newChild(20));
+    UpdateUtils.installDirectory(
+        updateZip,
+        getEntryPrefix(samplesDir),
+        samplesDir,
+        mon.newChild(4));
     try {
-      UpdateUtils.delete(dartium, mon.newChild(2));
+      UpdateUtils.installDirectory(updateZip, getEntryPrefix(dartium), dartium, mon.newChild(20));
     } catch (Throwable th) {
       //TODO(pquitslund): handle delete errors
       UpdateCore.logError(th);
@@ -303,7 +311,7 @@ public class InstallUpdateAction extends Action {
         installDir,
         installTarget,
         UPDATE_OVERRIDE_FILTER,
-        mon.newChild(67).setWorkRemaining(fileCount));
+        mon.newChild(33).setWorkRemaining(fileCount));
 
     //update/merge DartEditor.ini
     if (!DartCore.isMac()) {
@@ -327,6 +335,14 @@ public class InstallUpdateAction extends Action {
     return true;
   }
 
+  /**
+   * Return the prefix of the names of the entries in an update zip file that belong in the given
+   * directory of the installation.
+   */
+  private String getEntryPrefix(File dir) {
+    return "dart/" + dir.getName() + "/"; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
   private File getIni(File dir) {
     //NOTE: only used for Windows and Linux
     return new File(dir, "DartEditor.ini"); //$NON-NLS-1$